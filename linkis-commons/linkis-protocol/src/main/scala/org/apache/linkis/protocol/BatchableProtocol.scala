@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.protocol
+
+/**
+ * Marks a fire-and-forget protocol which may be coalesced with other messages to the same service
+ * instance and sent in one batch when rpc batching is enabled. The message is only delayed by the
+ * batch window, messages which are not batchable flush the pending batch before being sent, so the
+ * order to one instance is kept.
+ *
+ * Opting in gives up delivery errors: send() returns once the message is queued, and a failed batch
+ * is only logged and counted by the batcher, the caller never sees the error. The pending batches
+ * are flushed by a shutdown hook, messages may still be lost if the jvm is killed. Only mark
+ * frequent messages whose occasional loss is tolerated, such as task progress and log pushes.
+ * 可合并发送的协议，开启rpc批量发送后会与发往同一实例的其它消息合并为一个请求
+ */
+trait BatchableProtocol extends Protocol
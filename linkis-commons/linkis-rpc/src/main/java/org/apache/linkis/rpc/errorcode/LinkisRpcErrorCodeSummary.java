@@ -28,6 +28,9 @@ public enum LinkisRpcErrorCodeSummary implements LinkisErrorCode {
       10003, "The corresponding anti-sequence class was not found:{0}(找不到对应的反序列类:{0})"),
   CORRESPONDING_TO_INITIALIZE(
       10004, "The corresponding anti-sequence class:{0} failed to initialize(对应的反序列类:{0} 初始化失败)"),
+  UNKNOWN_RPC_CLASS_ID(
+      10006, "The rpc class id:{0} is not in the class dictionary(rpc类id:{0}不在类字典中)"),
+  INVALID_RPC_FRAME(10007, "Invalid binary rpc frame, reason: {0}(无效的二进制rpc帧，原因：{0})"),
   APPLICATION_IS_NOT_EXISTS(
       10051, "The instance:{0} of application {1} does not exist(应用程序:{0} 的实例:{1} 不存在)."),
   RPC_INIT_ERROR(10054, "Asyn RPC Consumer Thread has stopped!(Asyn RPC Consumer 线程已停止！)");
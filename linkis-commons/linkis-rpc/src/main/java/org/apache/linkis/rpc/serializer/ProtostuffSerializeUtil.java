@@ -42,8 +42,20 @@ public class ProtostuffSerializeUtil {
 
   private static Map<Class<?>, Schema<?>> schemaCache = new ConcurrentHashMap<>();
 
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
   public static <T> String serialize(T obj) {
+    return toHexString(serializeToBytes(obj));
+  }
 
+  /**
+   * Serialize the object to the raw protostuff bytes, used by the binary rpc transport which does
+   * not need the hex encoding
+   *
+   * @param obj
+   * @return
+   */
+  public static <T> byte[] serializeToBytes(T obj) {
     if (obj == null) {
       throw new NullPointerException();
     }
@@ -56,13 +68,21 @@ public class ProtostuffSerializeUtil {
     } finally {
       buffer.clear();
     }
-    return toHexString(data);
+    return data;
   }
 
   public static <T> T deserialize(String str, Class<T> clazz) {
+    return deserialize(toByteArray(str), clazz);
+  }
+
+  public static <T> T deserialize(byte[] data, Class<T> clazz) {
+    return deserialize(data, 0, data.length, clazz);
+  }
+
+  public static <T> T deserialize(byte[] data, int offset, int length, Class<T> clazz) {
     Schema<T> schema = getSchema(clazz);
     T obj = schema.newMessage();
-    ProtostuffIOUtil.mergeFrom(toByteArray(str), obj, schema);
+    ProtostuffIOUtil.mergeFrom(data, offset, length, obj, schema);
     return obj;
   }
 
@@ -102,12 +122,12 @@ public class ProtostuffSerializeUtil {
   public static String toHexString(byte[] byteArray) {
     if (byteArray == null) throw new IllegalArgumentException("this byteArray must not be null ");
 
-    final StringBuilder hexString = new StringBuilder();
+    final char[] hexChars = new char[byteArray.length * 2];
     for (int i = 0; i < byteArray.length; i++) {
-      if ((byteArray[i] & 0xff) < 0x10) // 0~F前面不零
-      hexString.append("0");
-      hexString.append(Integer.toHexString(0xFF & byteArray[i]));
+      int v = byteArray[i] & 0xFF;
+      hexChars[i * 2] = HEX_DIGITS[v >>> 4];
+      hexChars[i * 2 + 1] = HEX_DIGITS[v & 0x0F];
     }
-    return hexString.toString().toLowerCase();
+    return new String(hexChars);
   }
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc.serializer;
+
+import org.apache.linkis.protocol.Protocol;
+import org.apache.linkis.rpc.conf.RPCConfiguration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps the rpc protocol classes to compact ids for the binary rpc transport. The id of a class is
+ * the 64-bit FNV-1a hash of its name, so every service derives the same id without any
+ * coordination; the dictionary only has to know which classes exist, which is taken from the
+ * Protocol sub types found by RPCConfiguration.REFLECTIONS. Classes outside the dictionary are
+ * still transported by name.
+ */
+public class RPCClassDictionary {
+
+  private static final Logger logger = LoggerFactory.getLogger(RPCClassDictionary.class);
+
+  public static final long NO_CLASS_ID = 0L;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static volatile Map<Long, Class<?>> idToClass;
+  private static volatile Map<Class<?>, Long> classToId;
+
+  private static final Map<String, Class<?>> classNameCache = new ConcurrentHashMap<>();
+
+  private static void init() {
+    if (idToClass == null) {
+      synchronized (RPCClassDictionary.class) {
+        if (idToClass == null) {
+          Map<Long, Class<?>> ids = new HashMap<>();
+          Set<Long> collisions = new HashSet<>();
+          for (Class<?> clazz : RPCConfiguration.REFLECTIONS().getSubTypesOf(Protocol.class)) {
+            long id = classId(clazz.getName());
+            Class<?> exists = ids.put(id, clazz);
+            if (exists != null && exists != clazz) {
+              logger.warn(
+                  "rpc class {} and {} have the same class id, they will be sent by name.",
+                  exists.getName(),
+                  clazz.getName());
+              collisions.add(id);
+            }
+          }
+          collisions.forEach(ids::remove);
+          Map<Class<?>, Long> classes = new HashMap<>(ids.size());
+          ids.forEach((id, clazz) -> classes.put(clazz, id));
+          logger.info("init rpc class dictionary with {} protocol classes.", ids.size());
+          classToId = classes;
+          idToClass = ids;
+        }
+      }
+    }
+  }
+
+  /** 64-bit FNV-1a hash of the class name, never NO_CLASS_ID */
+  static long classId(String className) {
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : className.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= (b & 0xff);
+      hash *= FNV_PRIME;
+    }
+    return hash == NO_CLASS_ID ? 1L : hash;
+  }
+
+  /**
+   * @param clazz
+   * @return the id of the class, or NO_CLASS_ID if the class must be sent by name
+   */
+  public static long getClassId(Class<?> clazz) {
+    init();
+    Long id = classToId.get(clazz);
+    return id == null ? NO_CLASS_ID : id;
+  }
+
+  /**
+   * @param classId
+   * @return the class of the id, or null if it is not in the dictionary
+   */
+  public static Class<?> getClassById(long classId) {
+    init();
+    return idToClass.get(classId);
+  }
+
+  /** Class.forName with a cache, used for the classes that are sent by name */
+  public static Class<?> forName(String className) throws ClassNotFoundException {
+    Class<?> clazz = classNameCache.get(className);
+    if (clazz == null) {
+      clazz = Class.forName(className);
+      classNameCache.put(className, clazz);
+    }
+    return clazz;
+  }
+}
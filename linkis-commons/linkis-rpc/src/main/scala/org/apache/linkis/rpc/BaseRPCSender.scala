@@ -20,15 +20,16 @@ package org.apache.linkis.rpc
 import org.apache.linkis.DataWorkCloudApplication
 import org.apache.linkis.common.ServiceInstance
 import org.apache.linkis.common.exception.WarnException
-import org.apache.linkis.common.utils.Logging
+import org.apache.linkis.common.utils.{Logging, Utils}
 import org.apache.linkis.protocol.Protocol
 import org.apache.linkis.rpc.conf.RPCConfiguration.{
+  BDP_RPC_BINARY_ENABLE,
   BDP_RPC_SENDER_ASYN_CONSUMER_THREAD_FREE_TIME_MAX,
   BDP_RPC_SENDER_ASYN_CONSUMER_THREAD_MAX,
   BDP_RPC_SENDER_ASYN_QUEUE_CAPACITY
 }
 import org.apache.linkis.rpc.interceptor._
-import org.apache.linkis.rpc.transform.{RPCConsumer, RPCProduct}
+import org.apache.linkis.rpc.transform.{RPCConsumer, RPCFrame, RPCProduct}
 import org.apache.linkis.server.Message
 import org.apache.linkis.server.conf.ServerConfiguration
 
@@ -37,12 +38,13 @@ import java.util
 import scala.concurrent.duration.Duration
 import scala.runtime.BoxedUnit
 
-import feign.{Feign, Retryer}
+import feign.{Feign, FeignException, Retryer}
 import feign.slf4j.Slf4jLogger
 
 private[rpc] class BaseRPCSender extends Sender with Logging {
   private var name: String = _
   private var rpc: RPCReceiveRemote = _
+  @volatile private var binaryUnsupported = false
 
   protected def getRPCInterceptors: Array[RPCInterceptor] = Array.empty
 
@@ -88,31 +90,86 @@ private[rpc] class BaseRPCSender extends Sender with Logging {
     case _ => op
   }
 
-  override def ask(message: Any): Any = execute(message) {
-    val msg = RPCProduct.getRPCProduct.toMessage(message)
-    BaseRPCSender.addInstanceInfo(msg.getData)
-    val response = getRPC.receiveAndReply(msg)
-    RPCConsumer.getRPCConsumer.toObject(response)
+  /**
+   * Use the binary transport when it is enabled, a peer without the binary endpoints answers with
+   * 404/405/415 and is then called through json by this sender from now on
+   * 开启二进制传输时优先使用，对方不支持时回退到json
+   */
+  private def binaryOrJson(message: Any, duration: Long)(
+      binaryOp: Array[Byte] => Array[Byte]
+  )(jsonOp: => Any): Any = if (BDP_RPC_BINARY_ENABLE && !binaryUnsupported) {
+    val frame = RPCFrame.encodeRequest(
+      message,
+      ServiceInstance(
+        DataWorkCloudApplication.getApplicationName,
+        DataWorkCloudApplication.getInstance
+      ),
+      duration
+    )
+    val response = Utils.tryCatch[Option[Array[Byte]]](Some(binaryOp(frame))) {
+      case e: FeignException if BaseRPCSender.BINARY_UNSUPPORTED_STATUS.contains(e.status()) =>
+        logger.info(s"$this does not support binary rpc(status ${e.status()}), fall back to json.")
+        binaryUnsupported = true
+        None
+      case t: Throwable => throw t
+    }
+    response.map(RPCFrame.decodeResponse).getOrElse(jsonOp)
+  } else jsonOp
+
+  override def ask(message: Any): Any = {
+    RPCMessageBatcher.flush(this)
+    askIt(message)
+  }
+
+  private def askIt(message: Any): Any = execute(message) {
+    binaryOrJson(message, RPCFrame.NO_DURATION)(getRPC.receiveAndReplyBinary) {
+      val msg = RPCProduct.getRPCProduct.toMessage(message)
+      BaseRPCSender.addInstanceInfo(msg.getData)
+      val response = getRPC.receiveAndReply(msg)
+      RPCConsumer.getRPCConsumer.toObject(response)
+    }
+  }
+
+  override def ask(message: Any, timeout: Duration): Any = {
+    RPCMessageBatcher.flush(this)
+    askIt(message, timeout)
   }
 
-  override def ask(message: Any, timeout: Duration): Any = execute(message) {
-    val msg = RPCProduct.getRPCProduct.toMessage(message)
-    msg.data("duration", timeout.toMillis)
-    BaseRPCSender.addInstanceInfo(msg.getData)
-    val response = getRPC.receiveAndReplyInMills(msg)
-    RPCConsumer.getRPCConsumer.toObject(response)
+  private def askIt(message: Any, timeout: Duration): Any = execute(message) {
+    binaryOrJson(message, timeout.toMillis)(getRPC.receiveAndReplyBinary) {
+      val msg = RPCProduct.getRPCProduct.toMessage(message)
+      msg.data("duration", timeout.toMillis)
+      BaseRPCSender.addInstanceInfo(msg.getData)
+      val response = getRPC.receiveAndReplyInMills(msg)
+      RPCConsumer.getRPCConsumer.toObject(response)
+    }
   }
 
   private def sendIt(message: Any, op: Message => Message): Unit = execute(message) {
-    val msg = RPCProduct.getRPCProduct.toMessage(message)
-    BaseRPCSender.addInstanceInfo(msg.getData)
-    RPCConsumer.getRPCConsumer.toObject(op(msg)) match {
+    val response = binaryOrJson(message, RPCFrame.NO_DURATION)(getRPC.receiveBinary) {
+      val msg = RPCProduct.getRPCProduct.toMessage(message)
+      BaseRPCSender.addInstanceInfo(msg.getData)
+      RPCConsumer.getRPCConsumer.toObject(op(msg))
+    }
+    response match {
       case w: WarnException => logger.warn("RPC requests an alarm!(RPC请求出现告警！)", w)
       case _: BoxedUnit =>
     }
   }
 
-  override def send(message: Any): Unit = sendIt(message, getRPC.receive)
+  /**
+   * BatchableProtocol messages are queued and sent with the next batch when batching is enabled,
+   * any other message flushes the pending batch first so the order to the target is kept.
+   * 开启批量发送时可合并的消息先入队，其它消息发送前先发送已入队的消息以保证顺序
+   */
+  override def send(message: Any): Unit =
+    if (RPCMessageBatcher.isBatchable(message)) RPCMessageBatcher.add(this, message)
+    else {
+      RPCMessageBatcher.flush(this)
+      sendIt(message, getRPC.receive)
+    }
+
+  private[rpc] def sendDirectly(message: Any): Unit = sendIt(message, getRPC.receive)
 
   /**
    * Deliver is an asynchronous method that requests the target microservice asynchronously,
@@ -123,7 +180,10 @@ private[rpc] class BaseRPCSender extends Sender with Logging {
    *   请求的参数
    */
   override def deliver(message: Any): Unit =
-    BaseRPCSender.rpcSenderListenerBus.post(RPCMessageEvent(message, ServiceInstance(name, null)))
+    if (RPCMessageBatcher.isBatchable(message)) RPCMessageBatcher.add(this, message)
+    else {
+      BaseRPCSender.rpcSenderListenerBus.post(RPCMessageEvent(message, ServiceInstance(name, null)))
+    }
 
   protected def getRPCSenderListenerBus = BaseRPCSender.rpcSenderListenerBus
 
@@ -145,6 +205,8 @@ private[rpc] class BaseRPCSender extends Sender with Logging {
 
 private[rpc] object BaseRPCSender extends Logging {
 
+  private val BINARY_UNSUPPORTED_STATUS = Set(404, 405, 415)
+
   private val rpcSenderListenerBus =
     new AsynRPCMessageBus(BDP_RPC_SENDER_ASYN_QUEUE_CAPACITY.getValue, "RPC-Sender-Asyn-Thread")(
       BDP_RPC_SENDER_ASYN_CONSUMER_THREAD_MAX.getValue,
@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.protocol.{BatchableProtocol, BroadcastProtocol}
+import org.apache.linkis.rpc.conf.RPCConfiguration.{
+  BDP_RPC_SENDER_BATCH_ENABLE,
+  BDP_RPC_SENDER_BATCH_FLUSH_THREAD_MAX,
+  BDP_RPC_SENDER_BATCH_SIZE_MAX,
+  BDP_RPC_SENDER_BATCH_WINDOW
+}
+import org.apache.linkis.rpc.transform.RPCBatchMessage
+
+import java.util
+import java.util.concurrent.{ConcurrentHashMap, RejectedExecutionException, TimeUnit}
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicLong}
+
+import scala.collection.JavaConverters._
+
+/**
+ * The pending messages of one sender. Messages are appended under the batch lock, while flushes
+ * are serialized by a separate send lock so that two batches to the same instance never overtake
+ * each other.
+ */
+private[rpc] class RPCMessageBatch(sender: BaseRPCSender) extends Logging {
+
+  private val sendLock = new Object
+  private var messages = new util.ArrayList[Any]
+  private var firstEnqueueTime = 0L
+  private var lastActiveTime = System.currentTimeMillis
+  private var closed = false
+
+  /**
+   * Set while an async flush of this batch is queued or running, so that one is queued at most
+   */
+  private val flushScheduled = new AtomicBoolean(false)
+
+  /**
+   * @return
+   *   the number of pending messages, or -1 if this batch has been removed and a new one must be
+   *   used
+   */
+  def offer(message: Any): Int = synchronized {
+    if (closed) -1
+    else {
+      if (messages.isEmpty) firstEnqueueTime = System.currentTimeMillis
+      messages.add(message)
+      messages.size()
+    }
+  }
+
+  def isEmpty: Boolean = synchronized(messages.isEmpty)
+
+  def closeIfIdle(maxIdleTime: Long): Boolean = synchronized {
+    if (messages.isEmpty && System.currentTimeMillis - lastActiveTime > maxIdleTime) closed = true
+    closed
+  }
+
+  private def drain(): (util.List[Any], Long) = synchronized {
+    val pending = messages
+    if (!pending.isEmpty) {
+      messages = new util.ArrayList[Any]
+      lastActiveTime = System.currentTimeMillis
+    }
+    (pending, firstEnqueueTime)
+  }
+
+  /**
+   * @return
+   *   true if the caller should schedule an async flush, false if one is already queued or running
+   */
+  def markFlushScheduled(): Boolean = flushScheduled.compareAndSet(false, true)
+
+  def cancelFlushScheduled(): Unit = flushScheduled.set(false)
+
+  def flush(): Unit = sendLock synchronized {
+    // messages offered after the drain need a new flush
+    flushScheduled.set(false)
+    val (pending, enqueueTime) = drain()
+    if (!pending.isEmpty) {
+      Utils.tryCatch {
+        if (pending.size() == 1) sender.sendDirectly(pending.get(0))
+        else sender.sendDirectly(RPCBatchMessage(pending))
+        RPCMessageBatcher.recordBatch(pending.size(), System.currentTimeMillis - enqueueTime)
+      } { t =>
+        RPCMessageBatcher.recordFailure(pending.size())
+        logger.warn(s"$sender send batch of ${pending.size()} RPC messages failed!", t)
+      }
+    }
+  }
+
+}
+
+/**
+ * Coalesces BatchableProtocol messages by sender(i.e. target service instance) and flushes them
+ * when the batch window elapses or the batch reaches the max size.
+ * 按目标实例合并可批量发送的消息，达到时间窗口或最大条数时发送
+ */
+private[linkis] object RPCMessageBatcher extends Logging {
+
+  private val batches = new ConcurrentHashMap[BaseRPCSender, RPCMessageBatch]
+
+  private val batchSizeMax = BDP_RPC_SENDER_BATCH_SIZE_MAX.getValue
+  private val batchWindow = BDP_RPC_SENDER_BATCH_WINDOW.getValue.toLong
+  private val batchMaxIdleTime = TimeUnit.MINUTES.toMillis(10)
+
+  private val batchCount = new AtomicLong
+  private val batchedMessageCount = new AtomicLong
+  private val maxBatchSize = new AtomicLong
+  private val totalLatency = new AtomicLong
+  private val maxLatency = new AtomicLong
+  private val failedMessageCount = new AtomicLong
+
+  private val flushExecutor = Utils.newCachedThreadPool(
+    BDP_RPC_SENDER_BATCH_FLUSH_THREAD_MAX.getValue,
+    "RPC-Batch-Flush-Thread-",
+    true
+  )
+
+  @volatile private var started = false
+
+  private def startIfNeeded(): Unit = if (!started) synchronized {
+    if (!started) {
+      Utils.defaultScheduler.scheduleAtFixedRate(
+        new Runnable {
+          override def run(): Unit = Utils.tryAndWarn(flushAll())
+        },
+        batchWindow,
+        batchWindow,
+        TimeUnit.MILLISECONDS
+      )
+      // batched messages are only queued in memory, send them before the jvm exits
+      Utils.addShutdownHook(flushAllNow())
+      started = true
+      logger.info(s"RPC batch sender started with window ${batchWindow}ms, max size $batchSizeMax.")
+    }
+  }
+
+  def isBatchable(message: Any): Boolean = BDP_RPC_SENDER_BATCH_ENABLE && (message match {
+    case _: BroadcastProtocol => false
+    case _: BatchableProtocol => true
+    case _ => false
+  })
+
+  def add(sender: BaseRPCSender, message: Any): Unit = {
+    startIfNeeded()
+    var size = -1
+    while (size < 0) {
+      var batch = batches.get(sender)
+      if (batch == null) {
+        val newBatch = new RPCMessageBatch(sender)
+        batch = batches.putIfAbsent(sender, newBatch)
+        if (batch == null) batch = newBatch
+      }
+      size = batch.offer(message)
+    }
+    if (size >= batchSizeMax) flushAsync(sender)
+  }
+
+  /**
+   * Send the pending messages of this sender in the calling thread, called before a message which
+   * is not batchable is sent to keep the order. The batch is flushed even if it looks empty, since
+   * an async flush may have drained it and still be sending under the send lock.
+   */
+  def flush(sender: BaseRPCSender): Unit = if (BDP_RPC_SENDER_BATCH_ENABLE) {
+    val batch = batches.get(sender)
+    if (batch != null) batch.flush()
+  }
+
+  /**
+   * Queue a flush of this sender, unless one is already queued or running. If the flush threads are
+   * saturated, the batch is flushed in the calling thread.
+   */
+  private def flushAsync(sender: BaseRPCSender): Unit = {
+    val batch = batches.get(sender)
+    if (batch != null && batch.markFlushScheduled()) {
+      Utils.tryCatch(flushExecutor.execute(new Runnable {
+        override def run(): Unit = batch.flush()
+      })) {
+        case _: RejectedExecutionException =>
+          batch.cancelFlushScheduled()
+          batch.flush()
+        case t: Throwable =>
+          batch.cancelFlushScheduled()
+          throw t
+      }
+    }
+  }
+
+  private def flushAllNow(): Unit = {
+    logger.info(s"Flush the pending RPC messages of ${batches.size()} senders before exit.")
+    batches.values().asScala.foreach(batch => Utils.tryAndWarn(batch.flush()))
+  }
+
+  private def flushAll(): Unit = batches.asScala.foreach { case (sender, batch) =>
+    if (!batch.isEmpty) flushAsync(sender)
+    else if (batch.closeIfIdle(batchMaxIdleTime)) batches.remove(sender, batch)
+  }
+
+  private[rpc] def recordBatch(size: Int, latency: Long): Unit = {
+    batchCount.incrementAndGet()
+    batchedMessageCount.addAndGet(size)
+    totalLatency.addAndGet(latency)
+    updateMax(maxBatchSize, size)
+    updateMax(maxLatency, latency)
+  }
+
+  private[rpc] def recordFailure(size: Int): Unit = failedMessageCount.addAndGet(size)
+
+  private def updateMax(max: AtomicLong, value: Long): Unit = {
+    var current = max.get()
+    while (value > current && !max.compareAndSet(current, value)) current = max.get()
+  }
+
+  def getBatchCount: Long = batchCount.get()
+
+  def getBatchedMessageCount: Long = batchedMessageCount.get()
+
+  def getMaxBatchSize: Long = maxBatchSize.get()
+
+  def getAvgBatchSize: Double = {
+    val count = batchCount.get()
+    if (count == 0) 0d else batchedMessageCount.get().toDouble / count
+  }
+
+  /**
+   * Average time in milliseconds from the first message entering a batch to the batch being sent
+   */
+  def getAvgLatency: Double = {
+    val count = batchCount.get()
+    if (count == 0) 0d else totalLatency.get().toDouble / count
+  }
+
+  def getMaxLatency: Long = maxLatency.get()
+
+  def getFailedMessageCount: Long = failedMessageCount.get()
+
+}
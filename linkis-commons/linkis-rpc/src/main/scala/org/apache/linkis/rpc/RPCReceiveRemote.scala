@@ -17,6 +17,7 @@
 
 package org.apache.linkis.rpc
 
+import org.apache.linkis.rpc.conf.RPCConfiguration.RPC_BINARY_CONTENT_TYPE
 import org.apache.linkis.server.Message
 
 import org.springframework.web.bind.annotation.{RequestBody, RequestMapping, RequestMethod}
@@ -32,4 +33,20 @@ private[rpc] trait RPCReceiveRemote {
   @RequestMapping(value = Array("/rpc/replyInMills"), method = Array(RequestMethod.POST))
   def receiveAndReplyInMills(@RequestBody message: Message): Message
 
+  @RequestMapping(
+    value = Array("/rpc/binary/receive"),
+    method = Array(RequestMethod.POST),
+    consumes = Array(RPC_BINARY_CONTENT_TYPE),
+    produces = Array(RPC_BINARY_CONTENT_TYPE)
+  )
+  def receiveBinary(@RequestBody frame: Array[Byte]): Array[Byte]
+
+  @RequestMapping(
+    value = Array("/rpc/binary/receiveAndReply"),
+    method = Array(RequestMethod.POST),
+    consumes = Array(RPC_BINARY_CONTENT_TYPE),
+    produces = Array(RPC_BINARY_CONTENT_TYPE)
+  )
+  def receiveAndReplyBinary(@RequestBody frame: Array[Byte]): Array[Byte]
+
 }
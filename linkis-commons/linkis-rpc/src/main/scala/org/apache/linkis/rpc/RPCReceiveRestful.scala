@@ -17,16 +17,17 @@
 
 package org.apache.linkis.rpc
 
-import org.apache.linkis.common.utils.Logging
+import org.apache.linkis.common.utils.{Logging, Utils}
 import org.apache.linkis.protocol.BroadcastProtocol
 import org.apache.linkis.rpc.conf.RPCConfiguration.{
   BDP_RPC_RECEIVER_ASYN_CONSUMER_THREAD_FREE_TIME_MAX,
   BDP_RPC_RECEIVER_ASYN_CONSUMER_THREAD_MAX,
-  BDP_RPC_RECEIVER_ASYN_QUEUE_CAPACITY
+  BDP_RPC_RECEIVER_ASYN_QUEUE_CAPACITY,
+  RPC_BINARY_CONTENT_TYPE
 }
 import org.apache.linkis.rpc.errorcode.LinkisRpcErrorCodeSummary.TIMEOUT_PERIOD
 import org.apache.linkis.rpc.exception.DWCURIException
-import org.apache.linkis.rpc.transform.{RPCConsumer, RPCProduct}
+import org.apache.linkis.rpc.transform.{RPCBatchMessage, RPCConsumer, RPCFrame, RPCProduct}
 import org.apache.linkis.server.{catchIt, Message}
 
 import org.apache.commons.lang3.StringUtils
@@ -110,11 +111,18 @@ private[rpc] class RPCReceiveRestful extends RPCReceiveRemote with Logging {
     rpcReceiverListenerBus.addListener(new RPCMessageEventListener {
       override def onEvent(event: RPCMessageEvent): Unit = event.message match {
         case _: BroadcastProtocol =>
-        case _ =>
-          event.fold(logger.warn(s"cannot find a receiver to deal $event."))(
-            _.receive(event.message, event)
-          )
+        case batch: RPCBatchMessage =>
+          // dispatched one by one in this thread to keep the sending order
+          batch.getMessages.foreach { message =>
+            val messageEvent = RPCMessageEvent(message, event.serviceInstance)
+            Utils.tryCatch(dispatch(messageEvent))(onMessageEventError(messageEvent, _))
+          }
+        case _ => dispatch(event)
       }
+      private def dispatch(event: RPCMessageEvent): Unit =
+        event.fold(logger.warn(s"cannot find a receiver to deal $event."))(
+          _.receive(event.message, event)
+        )
       override def onMessageEventError(event: RPCMessageEvent, t: Throwable): Unit =
         logger.warn(s"deal RPC message failed! Message: " + event.message, t)
     })
@@ -185,4 +193,50 @@ private[rpc] class RPCReceiveRestful extends RPCReceiveRemote with Logging {
     receiveAndReplyWithMessage(message, _.receiveAndReply(_, timeout, _))
   }
 
+  /**
+   * Errors are turned into a Message by catchIt, the same as the json endpoints, and sent back in
+   * a message frame
+   */
+  private def catchBinary(op: => Array[Byte]): Array[Byte] =
+    Utils.tryCatch(op)(t => RPCFrame.encodeMessage(catchIt(throw t)))
+
+  @RequestMapping(
+    path = Array("/rpc/binary/receive"),
+    method = Array(RequestMethod.POST),
+    consumes = Array(RPC_BINARY_CONTENT_TYPE),
+    produces = Array(RPC_BINARY_CONTENT_TYPE)
+  )
+  override def receiveBinary(@RequestBody frame: Array[Byte]): Array[Byte] = catchBinary {
+    val request = RPCFrame.decodeRequest(frame)
+    rpcReceiverListenerBus.post(RPCMessageEvent(request.obj, request.serviceInstance))
+    RPCFrame.encodeResponse(Unit)
+  }
+
+  @RequestMapping(
+    path = Array("/rpc/binary/receiveAndReply"),
+    method = Array(RequestMethod.POST),
+    consumes = Array(RPC_BINARY_CONTENT_TYPE),
+    produces = Array(RPC_BINARY_CONTENT_TYPE)
+  )
+  override def receiveAndReplyBinary(@RequestBody frame: Array[Byte]): Array[Byte] =
+    catchBinary {
+      val request = RPCFrame.decodeRequest(frame)
+      val event = RPCMessageEvent(request.obj, request.serviceInstance)
+      event
+        .map { receiver =>
+          val reply =
+            if (request.duration == RPCFrame.NO_DURATION) {
+              receiver.receiveAndReply(request.obj, event)
+            } else {
+              receiver.receiveAndReply(
+                request.obj,
+                Duration(request.duration, TimeUnit.MILLISECONDS),
+                event
+              )
+            }
+          RPCFrame.encodeResponse(reply)
+        }
+        .getOrElse(RPCFrame.encodeMessage(RPCProduct.getRPCProduct.notFound()))
+    }
+
 }
@@ -51,6 +51,32 @@ object RPCConfiguration {
   val BDP_RPC_SENDER_ASYN_QUEUE_CAPACITY: CommonVars[Int] =
     CommonVars("wds.linkis.rpc.sender.asyn.queue.size.max", 2000)
 
+  /**
+   * Send rpc messages as raw protostuff frames instead of hex strings inside a json Message. Peers
+   * which do not support the binary endpoints are detected by their response status and fall back
+   * to json.
+   */
+  val BDP_RPC_BINARY_ENABLE: Boolean =
+    CommonVars("linkis.rpc.binary.transport.enable", false).getValue
+
+  final val RPC_BINARY_CONTENT_TYPE = "application/x-linkis-protostuff"
+
+  /**
+   * Coalesce BatchableProtocol messages to the same service instance and send them in one request.
+   * The receivers must be upgraded before enabling it.
+   */
+  val BDP_RPC_SENDER_BATCH_ENABLE: Boolean =
+    CommonVars("linkis.rpc.sender.batch.enable", false).getValue
+
+  val BDP_RPC_SENDER_BATCH_WINDOW: CommonVars[TimeType] =
+    CommonVars("linkis.rpc.sender.batch.window", new TimeType("50ms"))
+
+  val BDP_RPC_SENDER_BATCH_SIZE_MAX: CommonVars[Int] =
+    CommonVars("linkis.rpc.sender.batch.size.max", 200)
+
+  val BDP_RPC_SENDER_BATCH_FLUSH_THREAD_MAX: CommonVars[Int] =
+    CommonVars("linkis.rpc.sender.batch.flush.thread.max", 20)
+
   val PUBLIC_SERVICE_APP_PREFIX: String =
     CommonVars("wds.linkis.gateway.conf.publicservice.name", "linkis-ps-").getValue
 
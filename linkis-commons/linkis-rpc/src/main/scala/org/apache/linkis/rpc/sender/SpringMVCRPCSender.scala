@@ -20,7 +20,7 @@ package org.apache.linkis.rpc.sender
 import org.apache.linkis.common.ServiceInstance
 import org.apache.linkis.common.conf.{Configuration => DWCConfiguration}
 import org.apache.linkis.protocol.Protocol
-import org.apache.linkis.rpc.{BaseRPCSender, RPCMessageEvent, RPCSpringBeanCache}
+import org.apache.linkis.rpc.{BaseRPCSender, RPCMessageBatcher, RPCMessageEvent, RPCSpringBeanCache}
 import org.apache.linkis.rpc.conf.RPCConfiguration
 import org.apache.linkis.rpc.interceptor.{
   RPCInterceptor,
@@ -28,7 +28,7 @@ import org.apache.linkis.rpc.interceptor.{
   ServiceInstanceRPCInterceptorChain
 }
 import org.apache.linkis.rpc.message.utils.LoadBalancerOptionsUtils
-import org.apache.linkis.rpc.transform.RPCConsumer
+import org.apache.linkis.rpc.transform.{RPCConsumer, RPCFrame}
 import org.apache.linkis.server.{BDPJettyServerHelper, Message}
 
 import org.apache.commons.lang3.StringUtils
@@ -84,10 +84,15 @@ private[rpc] class SpringMVCRPCSender private[rpc] (
                 if (getRPCLoadBalancers.isEmpty) None
                 else {
                   val requestBody = SpringMVCRPCSender.getRequest(request).body()
-                  val requestStr = new String(requestBody, DWCConfiguration.BDP_ENCODING.getValue)
-                  val obj = RPCConsumer.getRPCConsumer.toObject(
-                    BDPJettyServerHelper.gson.fromJson(requestStr, classOf[Message])
-                  )
+                  val obj = if (RPCFrame.isFrame(requestBody)) {
+                    RPCFrame.decodeRequest(requestBody).obj
+                  } else {
+                    val requestStr =
+                      new String(requestBody, DWCConfiguration.BDP_ENCODING.getValue)
+                    RPCConsumer.getRPCConsumer.toObject(
+                      BDPJettyServerHelper.gson.fromJson(requestStr, classOf[Message])
+                    )
+                  }
                   obj match {
                     case protocol: Protocol =>
                       var serviceInstance: Option[ServiceInstance] = None
@@ -141,7 +146,8 @@ private[rpc] class SpringMVCRPCSender private[rpc] (
    *   Requested parameters(请求的参数)
    */
   override def deliver(message: Any): Unit =
-    getRPCSenderListenerBus.post(RPCMessageEvent(message, serviceInstance))
+    if (RPCMessageBatcher.isBatchable(message)) RPCMessageBatcher.add(this, message)
+    else getRPCSenderListenerBus.post(RPCMessageEvent(message, serviceInstance))
 
   override def equals(obj: Any): Boolean = if (obj == null) {
     false
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc.transform
+
+import org.apache.linkis.protocol.RetryableProtocol
+import org.apache.linkis.rpc.serializer.ProtostuffSerializeUtil
+
+import java.util
+
+import scala.collection.JavaConverters._
+
+/**
+ * Several BatchableProtocol messages sent to one service instance in a single request. Each
+ * message is kept as its class name and protostuff bytes, so the batch does not depend on
+ * protostuff's polymorphic object support, and the receiver dispatches them in the sending order.
+ * 合并发送的多条消息，接收端按发送顺序逐条分发
+ */
+case class RPCBatchMessage(classNames: util.List[String], values: util.List[Array[Byte]])
+    extends RetryableProtocol {
+
+  def size: Int = classNames.size()
+
+  def getMessages: Seq[Any] = classNames.asScala.zip(values.asScala).map {
+    case (className, value) =>
+      ProtostuffSerializeUtil.deserialize(value, RPCConsumer.getObjectClass(className))
+  }
+
+  override def toString: String = s"RPCBatchMessage(size: $size)"
+
+}
+
+object RPCBatchMessage {
+
+  def apply(messages: util.List[Any]): RPCBatchMessage = {
+    val classNames = new util.ArrayList[String](messages.size())
+    val values = new util.ArrayList[Array[Byte]](messages.size())
+    messages.asScala.foreach { message =>
+      classNames.add(message.getClass.getName)
+      values.add(ProtostuffSerializeUtil.serializeToBytes(message))
+    }
+    new RPCBatchMessage(classNames, values)
+  }
+
+}
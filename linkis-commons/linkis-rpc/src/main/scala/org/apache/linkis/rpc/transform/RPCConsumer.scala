@@ -22,7 +22,7 @@ import org.apache.linkis.common.utils.Utils
 import org.apache.linkis.rpc.errorcode.LinkisRpcErrorCodeSummary.CORRESPONDING_NOT_FOUND
 import org.apache.linkis.rpc.errorcode.LinkisRpcErrorCodeSummary.CORRESPONDING_TO_INITIALIZE
 import org.apache.linkis.rpc.exception.DWCURIException
-import org.apache.linkis.rpc.serializer.ProtostuffSerializeUtil
+import org.apache.linkis.rpc.serializer.{ProtostuffSerializeUtil, RPCClassDictionary}
 import org.apache.linkis.server.{EXCEPTION_MSG, JMap, Message}
 
 import java.text.MessageFormat
@@ -51,22 +51,7 @@ private[linkis] object RPCConsumer {
           val objectStr = data.get(OBJECT_VALUE).toString
           val objectClass = data.get(CLASS_VALUE).toString
           logger.debug("The corresponding anti-sequence is class {}", objectClass)
-          val clazz = Utils.tryThrow(Class.forName(objectClass)) {
-            case _: ClassNotFoundException =>
-              new DWCURIException(
-                CORRESPONDING_NOT_FOUND.getErrorCode,
-                MessageFormat.format(CORRESPONDING_NOT_FOUND.getErrorDesc, objectClass)
-              )
-            case t: ExceptionInInitializerError =>
-              val exception = new DWCURIException(
-                CORRESPONDING_TO_INITIALIZE.getErrorCode,
-                MessageFormat.format(CORRESPONDING_TO_INITIALIZE.getErrorDesc, objectClass)
-              )
-              exception.initCause(t)
-              exception
-            case t: Throwable => t
-          }
-          ProtostuffSerializeUtil.deserialize(objectStr, clazz)
+          ProtostuffSerializeUtil.deserialize(objectStr, getObjectClass(objectClass))
         case 4 =>
           val errorMsg = message.getData.get(EXCEPTION_MSG).asInstanceOf[JMap[String, Object]]
           ExceptionManager.generateException(errorMsg)
@@ -81,5 +66,22 @@ private[linkis] object RPCConsumer {
 
   }
 
+  private[rpc] def getObjectClass(objectClass: String): Class[_] =
+    Utils.tryThrow(RPCClassDictionary.forName(objectClass)) {
+      case _: ClassNotFoundException =>
+        new DWCURIException(
+          CORRESPONDING_NOT_FOUND.getErrorCode,
+          MessageFormat.format(CORRESPONDING_NOT_FOUND.getErrorDesc, objectClass)
+        )
+      case t: ExceptionInInitializerError =>
+        val exception = new DWCURIException(
+          CORRESPONDING_TO_INITIALIZE.getErrorCode,
+          MessageFormat.format(CORRESPONDING_TO_INITIALIZE.getErrorDesc, objectClass)
+        )
+        exception.initCause(t)
+        exception
+      case t: Throwable => t
+    }
+
   def getRPCConsumer: RPCConsumer = rpcConsumer
 }
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc.transform
+
+import org.apache.linkis.common.ServiceInstance
+import org.apache.linkis.rpc.errorcode.LinkisRpcErrorCodeSummary.{
+  INVALID_RPC_FRAME,
+  TRANSMITTED_BEAN_IS_NULL,
+  UNKNOWN_RPC_CLASS_ID
+}
+import org.apache.linkis.rpc.exception.DWCURIException
+import org.apache.linkis.rpc.serializer.{ProtostuffSerializeUtil, RPCClassDictionary}
+import org.apache.linkis.server.{BDPJettyServerHelper, Message}
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+import java.nio.charset.StandardCharsets
+import java.text.MessageFormat
+
+import scala.runtime.BoxedUnit
+
+private[linkis] case class RPCRequestFrame(
+    obj: Any,
+    serviceInstance: ServiceInstance,
+    duration: Long
+)
+
+/**
+ * Codec of the binary rpc transport(content type application/x-linkis-protostuff). A frame is
+ * laid out as:
+ * {{{
+ *   magic(2) version(1) frameType(1) [name(utf) instance(utf) duration(8)] body
+ * }}}
+ * where the bracketed part only exists in requests. The body of an object frame is the class
+ * reference, either the id from RPCClassDictionary or the class name, followed by the raw
+ * protostuff bytes. Error responses are carried as a json Message in a message frame, so they are
+ * turned into exceptions exactly like the json transport does.
+ */
+private[linkis] object RPCFrame {
+
+  private val MAGIC: Short = 0x4c52
+  private val VERSION: Byte = 1
+
+  private val OBJECT_FRAME: Byte = 0
+  private val UNIT_FRAME: Byte = 1
+  private val MESSAGE_FRAME: Byte = 2
+
+  private val CLASS_BY_ID: Byte = 0
+  private val CLASS_BY_NAME: Byte = 1
+
+  val NO_DURATION: Long = -1L
+
+  def encodeRequest(obj: Any, serviceInstance: ServiceInstance, duration: Long): Array[Byte] = {
+    if (obj == null) {
+      throw new DWCURIException(
+        TRANSMITTED_BEAN_IS_NULL.getErrorCode,
+        TRANSMITTED_BEAN_IS_NULL.getErrorDesc
+      )
+    }
+    val payload = ProtostuffSerializeUtil.serializeToBytes(obj)
+    val outputStream = new ByteArrayOutputStream(payload.length + 128)
+    val out = new DataOutputStream(outputStream)
+    writeHeader(out, OBJECT_FRAME)
+    out.writeUTF(Option(serviceInstance.getApplicationName).getOrElse(""))
+    out.writeUTF(Option(serviceInstance.getInstance).getOrElse(""))
+    out.writeLong(duration)
+    writeObject(out, obj, payload)
+    outputStream.toByteArray
+  }
+
+  def decodeRequest(frame: Array[Byte]): RPCRequestFrame = {
+    val inputStream = new ByteArrayInputStream(frame)
+    val in = new DataInputStream(inputStream)
+    val frameType = readHeader(in)
+    if (frameType != OBJECT_FRAME) {
+      throw invalidFrame(s"unexpected request frame type $frameType")
+    }
+    val serviceInstance = ServiceInstance(in.readUTF(), in.readUTF())
+    val duration = in.readLong()
+    RPCRequestFrame(readObject(frame, inputStream, in), serviceInstance, duration)
+  }
+
+  def encodeResponse(obj: Any): Array[Byte] = obj match {
+    case Unit | () | null | _: BoxedUnit =>
+      val outputStream = new ByteArrayOutputStream(4)
+      writeHeader(new DataOutputStream(outputStream), UNIT_FRAME)
+      outputStream.toByteArray
+    case _ =>
+      val payload = ProtostuffSerializeUtil.serializeToBytes(obj)
+      val outputStream = new ByteArrayOutputStream(payload.length + 16)
+      val out = new DataOutputStream(outputStream)
+      writeHeader(out, OBJECT_FRAME)
+      writeObject(out, obj, payload)
+      outputStream.toByteArray
+  }
+
+  def encodeMessage(message: Message): Array[Byte] = {
+    val outputStream = new ByteArrayOutputStream(256)
+    val out = new DataOutputStream(outputStream)
+    writeHeader(out, MESSAGE_FRAME)
+    out.write(BDPJettyServerHelper.gson.toJson(message).getBytes(StandardCharsets.UTF_8))
+    outputStream.toByteArray
+  }
+
+  /**
+   * Decode a response frame, message frames are handed to RPCConsumer so that error responses
+   * throw or return the same exceptions as the json transport
+   */
+  def decodeResponse(frame: Array[Byte]): Any = {
+    val inputStream = new ByteArrayInputStream(frame)
+    val in = new DataInputStream(inputStream)
+    readHeader(in) match {
+      case UNIT_FRAME => BoxedUnit.UNIT
+      case OBJECT_FRAME => readObject(frame, inputStream, in)
+      case MESSAGE_FRAME =>
+        val offset = frame.length - inputStream.available()
+        val json = new String(frame, offset, frame.length - offset, StandardCharsets.UTF_8)
+        RPCConsumer.getRPCConsumer.toObject(
+          BDPJettyServerHelper.gson.fromJson(json, classOf[Message])
+        )
+      case frameType => throw invalidFrame(s"unexpected response frame type $frameType")
+    }
+  }
+
+  /** Whether the bytes look like a binary rpc frame(是否为二进制rpc帧) */
+  def isFrame(bytes: Array[Byte]): Boolean =
+    bytes != null && bytes.length >= 4 && ((bytes(0) << 8) | (bytes(1) & 0xff)).toShort == MAGIC
+
+  private def writeHeader(out: DataOutputStream, frameType: Byte): Unit = {
+    out.writeShort(MAGIC)
+    out.writeByte(VERSION)
+    out.writeByte(frameType)
+  }
+
+  private def readHeader(in: DataInputStream): Byte = {
+    val magic = in.readShort()
+    if (magic != MAGIC) throw invalidFrame("wrong magic number")
+    val version = in.readByte()
+    if (version != VERSION) throw invalidFrame(s"unsupported version $version, expected $VERSION")
+    in.readByte()
+  }
+
+  private def writeObject(out: DataOutputStream, obj: Any, payload: Array[Byte]): Unit = {
+    val classId = RPCClassDictionary.getClassId(obj.getClass)
+    if (classId != RPCClassDictionary.NO_CLASS_ID) {
+      out.writeByte(CLASS_BY_ID)
+      out.writeLong(classId)
+    } else {
+      out.writeByte(CLASS_BY_NAME)
+      out.writeUTF(obj.getClass.getName)
+    }
+    out.write(payload)
+  }
+
+  private def readObject(
+      frame: Array[Byte],
+      inputStream: ByteArrayInputStream,
+      in: DataInputStream
+  ): Any = {
+    val clazz = in.readByte() match {
+      case CLASS_BY_ID =>
+        val classId = in.readLong()
+        val clazz = RPCClassDictionary.getClassById(classId)
+        if (clazz == null) {
+          throw new DWCURIException(
+            UNKNOWN_RPC_CLASS_ID.getErrorCode,
+            MessageFormat.format(UNKNOWN_RPC_CLASS_ID.getErrorDesc, classId.toString)
+          )
+        }
+        clazz
+      case CLASS_BY_NAME => RPCConsumer.getObjectClass(in.readUTF())
+      case classRef => throw invalidFrame(s"unknown class reference $classRef")
+    }
+    val offset = frame.length - inputStream.available()
+    ProtostuffSerializeUtil.deserialize(frame, offset, frame.length - offset, clazz)
+  }
+
+  private def invalidFrame(reason: String): DWCURIException =
+    new DWCURIException(
+      INVALID_RPC_FRAME.getErrorCode,
+      MessageFormat.format(INVALID_RPC_FRAME.getErrorDesc, reason)
+    )
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc
+
+import org.apache.linkis.rpc.transform.RPCBatchMessage
+
+import org.junit.jupiter.api.{Assertions, DisplayName, Test}
+import org.mockito.{ArgumentMatchers, Mockito}
+
+class RPCMessageBatchTest {
+
+  @Test
+  @DisplayName("flushScheduledOnceTest")
+  def flushScheduledOnceTest(): Unit = {
+    val sender = Mockito.mock(classOf[BaseRPCSender])
+    val batch = new RPCMessageBatch(sender)
+    Assertions.assertEquals(1, batch.offer("message-1"))
+    Assertions.assertTrue(batch.markFlushScheduled())
+    // a flush is already queued for this batch
+    Assertions.assertEquals(2, batch.offer("message-2"))
+    Assertions.assertFalse(batch.markFlushScheduled())
+
+    batch.flush()
+    Mockito
+      .verify(sender)
+      .sendDirectly(ArgumentMatchers.any(classOf[RPCBatchMessage]))
+    Assertions.assertTrue(batch.isEmpty)
+    // messages offered after the flush need a new one
+    Assertions.assertTrue(batch.markFlushScheduled())
+    batch.cancelFlushScheduled()
+    Assertions.assertTrue(batch.markFlushScheduled())
+  }
+
+  @Test
+  @DisplayName("flushSingleMessageTest")
+  def flushSingleMessageTest(): Unit = {
+    val sender = Mockito.mock(classOf[BaseRPCSender])
+    val batch = new RPCMessageBatch(sender)
+    batch.offer("message")
+    batch.flush()
+    batch.flush()
+    Mockito.verify(sender).sendDirectly("message")
+  }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc.transform
+
+import org.apache.linkis.rpc.serializer.ProtostuffSerializeUtil
+
+import java.util
+
+import org.junit.jupiter.api.{Assertions, DisplayName, Test}
+
+case class RPCBatchTestLog(execId: String, log: String)
+
+case class RPCBatchTestProgress(execId: String, progress: Float)
+
+class RPCBatchMessageTest {
+
+  @Test
+  @DisplayName("batchRoundTripTest")
+  def batchRoundTripTest(): Unit = {
+    val messages = new util.ArrayList[Any]
+    messages.add(RPCBatchTestLog("job-1", "line1"))
+    messages.add(RPCBatchTestProgress("job-1", 0.3f))
+    messages.add(RPCBatchTestLog("job-1", "line2"))
+    val batch = RPCBatchMessage(messages)
+    Assertions.assertEquals(3, batch.size)
+
+    val bytes = ProtostuffSerializeUtil.serializeToBytes(batch)
+    val decoded = ProtostuffSerializeUtil.deserialize(bytes, classOf[RPCBatchMessage])
+    val decodedMessages = decoded.getMessages
+    Assertions.assertEquals(3, decodedMessages.size)
+    Assertions.assertEquals(RPCBatchTestLog("job-1", "line1"), decodedMessages.head)
+    Assertions.assertEquals(RPCBatchTestProgress("job-1", 0.3f), decodedMessages(1))
+    Assertions.assertEquals(RPCBatchTestLog("job-1", "line2"), decodedMessages(2))
+  }
+
+  @Test
+  @DisplayName("batchMessageTest")
+  def batchMessageTest(): Unit = {
+    val messages = new util.ArrayList[Any]
+    messages.add(RPCBatchTestLog("job-2", "line"))
+    messages.add(RPCBatchTestLog("job-2", ""))
+    val message = RPCProduct.getRPCProduct.toMessage(RPCBatchMessage(messages))
+    val decoded = RPCConsumer.getRPCConsumer.toObject(message).asInstanceOf[RPCBatchMessage]
+    Assertions.assertEquals(
+      Seq(RPCBatchTestLog("job-2", "line"), RPCBatchTestLog("job-2", "")),
+      decoded.getMessages
+    )
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.rpc.transform
+
+import org.apache.linkis.common.ServiceInstance
+import org.apache.linkis.common.utils.Logging
+import org.apache.linkis.protocol.Protocol
+import org.apache.linkis.server.{BDPJettyServerHelper, Message}
+
+import java.nio.charset.StandardCharsets
+
+import scala.runtime.BoxedUnit
+
+import org.junit.jupiter.api.{Assertions, DisplayName, Tag, Test}
+
+case class RPCFrameTestRequest(id: String, progress: Float, lines: Array[String])
+
+/** Same fields as EngineConnStatusCallback, which linkis-rpc does not depend on */
+case class RPCFrameTestStatusCallback(
+    serviceInstance: ServiceInstance,
+    ticketId: String,
+    status: String,
+    initErrorMsg: String
+) extends Protocol
+
+/** Same fields as ResponseTaskLog */
+case class RPCFrameTestTaskLog(execId: String, log: String) extends Protocol
+
+class RPCFrameTest extends Logging {
+
+  @Test
+  @DisplayName("requestFrameTest")
+  def requestFrameTest(): Unit = {
+    val request = RPCFrameTestRequest("job-1", 0.5f, Array("line1", "line2"))
+    val frame =
+      RPCFrame.encodeRequest(request, ServiceInstance("linkis-cg-entrance", "localhost:9104"), 3000)
+    Assertions.assertTrue(RPCFrame.isFrame(frame))
+
+    val decoded = RPCFrame.decodeRequest(frame)
+    Assertions.assertEquals("linkis-cg-entrance", decoded.serviceInstance.getApplicationName)
+    Assertions.assertEquals("localhost:9104", decoded.serviceInstance.getInstance)
+    Assertions.assertEquals(3000L, decoded.duration)
+    val obj = decoded.obj.asInstanceOf[RPCFrameTestRequest]
+    Assertions.assertEquals("job-1", obj.id)
+    Assertions.assertEquals(0.5f, obj.progress)
+    Assertions.assertArrayEquals(Array[Object]("line1", "line2"), obj.lines.toArray[Object])
+  }
+
+  @Test
+  @DisplayName("responseFrameTest")
+  def responseFrameTest(): Unit = {
+    Assertions.assertEquals(BoxedUnit.UNIT, RPCFrame.decodeResponse(RPCFrame.encodeResponse(Unit)))
+    val response = RPCFrame.decodeResponse(
+      RPCFrame.encodeResponse(RPCFrameTestRequest("job-2", 1.0f, Array.empty))
+    )
+    Assertions.assertEquals("job-2", response.asInstanceOf[RPCFrameTestRequest].id)
+    Assertions.assertEquals(
+      BoxedUnit.UNIT,
+      RPCFrame.decodeResponse(RPCFrame.encodeMessage(RPCProduct.getRPCProduct.ok()))
+    )
+  }
+
+  @Test
+  @DisplayName("jsonIsNotFrameTest")
+  def jsonIsNotFrameTest(): Unit = {
+    Assertions.assertFalse(RPCFrame.isFrame("{\"method\":\"/rpc/message\"}".getBytes))
+    Assertions.assertFalse(RPCFrame.isFrame(null))
+  }
+
+  /**
+   * Encodes and decodes an engine conn status callback and task logs of 100 bytes and 10 KB through
+   * the JSON transport(a hex encoded object in a json Message) and the binary frame, and reports
+   * the round trips per second and the payload size of each.
+   */
+  @Test
+  @Tag("benchmark")
+  def benchmark(): Unit = {
+    val instance = ServiceInstance("linkis-cg-entrance", "localhost:9104")
+    val messages = Seq(
+      "status callback" -> RPCFrameTestStatusCallback(
+        ServiceInstance("linkis-cg-engineconn", "localhost:35467"),
+        "a3b5c7d9-0f1e-4d2c-8b6a-5e4f3d2c1b0a",
+        "Unlock",
+        ""
+      ),
+      "log 100B" -> RPCFrameTestTaskLog("exec_id_018030", "x" * 100),
+      "log 10KB" -> RPCFrameTestTaskLog("exec_id_018030", "x" * 10240)
+    )
+    val count = 20000
+    def json(message: Any): Array[Byte] =
+      BDPJettyServerHelper.gson
+        .toJson(RPCProduct.getRPCProduct.toMessage(message))
+        .getBytes(StandardCharsets.UTF_8)
+    def fromJson(bytes: Array[Byte]): Any = {
+      val text = new String(bytes, StandardCharsets.UTF_8)
+      val message = BDPJettyServerHelper.gson.fromJson(text, classOf[Message])
+      RPCConsumer.getRPCConsumer.toObject(message)
+    }
+    def binary(message: Any): Array[Byte] = RPCFrame.encodeRequest(message, instance, 0)
+    for (round <- 0 until 3; (name, message) <- messages) {
+      val jsonStart = System.nanoTime
+      (0 until count).foreach(_ => fromJson(json(message)))
+      val jsonTime = System.nanoTime - jsonStart
+      val binaryStart = System.nanoTime
+      (0 until count).foreach(_ => RPCFrame.decodeRequest(binary(message)))
+      val binaryTime = System.nanoTime - binaryStart
+      Assertions.assertEquals(message, fromJson(json(message)))
+      Assertions.assertEquals(message, RPCFrame.decodeRequest(binary(message)).obj)
+      logger.info(
+        s"round: $round, message: $name, json: ${count * 1000000000L / jsonTime} ops/s, " +
+          s"${json(message).length} bytes, binary: ${count * 1000000000L / binaryTime} ops/s, " +
+          s"${binary(message).length} bytes"
+      )
+    }
+  }
+
+}
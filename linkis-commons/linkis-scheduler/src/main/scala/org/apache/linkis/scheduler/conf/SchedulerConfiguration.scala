@@ -33,4 +33,15 @@ object SchedulerConfiguration {
   val FIFO_CONSUMER_IDLE_SCAN_INIT_TIME =
     CommonVars("wds.linkis.fifo.consumer.idle.scan.init.time", new TimeType("1s"))
 
+  val FIFO_CONSUMER_RETRY_WAIT_TIME =
+    CommonVars("wds.linkis.fifo.consumer.retry.wait.time", new TimeType("0s"))
+
+  /** Max time the consumer sleeps without a signal while all running slots are busy */
+  val FIFO_CONSUMER_STATE_WAIT_MAX_TIME =
+    CommonVars("wds.linkis.fifo.consumer.state.wait.max.time", new TimeType("1s"))
+
+  /** Run the jobs and their daemons on virtual threads, only takes effect on JDK 21+ */
+  val JOB_EXECUTOR_VIRTUAL_THREAD_ENABLED =
+    CommonVars("wds.linkis.scheduler.job.executor.virtual.thread.enabled", false)
+
 }
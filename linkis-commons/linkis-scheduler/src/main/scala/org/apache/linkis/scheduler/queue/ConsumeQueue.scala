@@ -60,6 +60,12 @@ abstract class ConsumeQueue {
    */
   def take(mills: Long): Option[SchedulerEvent]
 
+  /**
+   * Wake up the consumer blocked in take(mills), which then returns None if no event is
+   * waiting(唤醒在take(mills)中等待的Consumer)
+   */
+  def wakeUp(): Unit = {}
+
   /**
    * Get the latest SchedulerEvent of a group and move the pointer to the next one. If not, return
    * directly to None 获取某个group最新的SchedulerEvent，并移动指针到下一个。如果没有，直接返回None
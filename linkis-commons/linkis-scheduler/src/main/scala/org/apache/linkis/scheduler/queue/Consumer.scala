@@ -40,6 +40,12 @@ abstract class Consumer(schedulerContext: SchedulerContext, executeService: Exec
 
   def start(): Unit
 
+  /**
+   * Called when a job scheduled by this consumer completes or waits for retry, so that the
+   * consumer can schedule the next job without polling(Job完成或等待重试时通知Consumer)
+   */
+  def onJobStateChanged(job: Job): Unit = {}
+
   def shutdown(): Unit = {
     logger.info(s"$toString is ready to stop!")
     terminate = true
@@ -45,6 +45,11 @@ abstract class Job extends Runnable with SchedulerEvent with Closeable with Logg
    */
   private[queue] var consumerFuture: BDPFuture = _
 
+  /**
+   * the consumer which scheduled the job, notified when the job completes or waits for retry
+   */
+  @volatile private[queue] var consumer: Consumer = _
+
   protected var jobDaemon: Option[JobDaemon] = None
   private var eventListenerBus: ListenerEventBus[_ <: SchedulerListener, _ <: ScheduleEvent] = _
   private var executor: Executor = _
@@ -124,6 +129,8 @@ abstract class Job extends Runnable with SchedulerEvent with Closeable with Logg
         this.consumerFuture = null
       }
       if (super.isWaiting || super.isScheduled) transitionCompleted(errorExecuteResponse)
+      // the interrupted job frees its slot even if the executor never flips its state
+      notifyConsumer()
       logger.info(s"$toString execute failed. Reason: $errorMsg.", t)
     }
 
@@ -207,14 +214,20 @@ abstract class Job extends Runnable with SchedulerEvent with Closeable with Logg
     // TODO job start event
     case WaitForRetry =>
       jobListener.foreach(_.onJobWaitForRetry(this))
+      notifyConsumer()
     case _ =>
       jobDaemon.foreach(_.kill())
       jobListener.foreach(_.onJobCompleted(this))
 //      if(getJobInfo != null) logListener.foreach(_.onLogUpdate(this, getJobInfo.getMetric))
       logListener.foreach(_.onLogUpdate(this, LogUtils.generateInfo("job is completed.")))
+      notifyConsumer()
     // TODO job end event
   }
 
+  private def notifyConsumer(): Unit = if (consumer != null) {
+    Utils.tryAndWarnMsg(consumer.onJobStateChanged(this))(s"Failed to notify consumer of $toString")
+  }
+
   protected def transitionCompleted(executeCompleted: CompletedExecuteResponse): Unit = {
     val state = getState
     executeCompleted match {
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.scheduler.queue
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.scheduler.conf.SchedulerConfiguration
+
+import java.util
+import java.util.concurrent.{
+  AbstractExecutorService,
+  ExecutorService,
+  Executors,
+  FutureTask,
+  RunnableFuture,
+  ThreadFactory,
+  TimeUnit
+}
+
+/**
+ * Creates the executor service which runs the consumers, jobs and job daemons of a consumer
+ * manager. Each running job blocks one thread of it until it is completed, so with
+ * wds.linkis.scheduler.job.executor.virtual.thread.enabled=true and a JDK 21+ runtime the jobs run
+ * on virtual threads instead of the cached thread pool. It is created by reflection as the modules
+ * still target Java 8.
+ */
+object JobExecutorServiceFactory extends Logging {
+
+  private lazy val virtualThreadExecutorCreator: Option[String => ExecutorService] =
+    Utils.tryCatch[Option[String => ExecutorService]] {
+      val ofVirtual = classOf[Thread].getMethod("ofVirtual")
+      val builderClass = Class.forName("java.lang.Thread$Builder")
+      val name = builderClass.getMethod("name", classOf[String], java.lang.Long.TYPE)
+      val factory = builderClass.getMethod("factory")
+      val newThreadPerTaskExecutor =
+        classOf[Executors].getMethod("newThreadPerTaskExecutor", classOf[ThreadFactory])
+      Some { threadName: String =>
+        val builder = name.invoke(ofVirtual.invoke(null), threadName, java.lang.Long.valueOf(0))
+        newThreadPerTaskExecutor
+          .invoke(null, factory.invoke(builder))
+          .asInstanceOf[ExecutorService]
+      }
+    } { t =>
+      logger.warn(
+        s"Virtual threads are not supported by java ${System.getProperty("java.version")}, " +
+          s"use the cached thread pool instead(不支持虚拟线程，使用线程池). ${t.getMessage}"
+      )
+      None
+    }
+
+  def isVirtualThreadEnabled: Boolean =
+    SchedulerConfiguration.JOB_EXECUTOR_VIRTUAL_THREAD_ENABLED.getValue &&
+      virtualThreadExecutorCreator.isDefined
+
+  def createExecutorService(
+      threadNum: Int,
+      threadName: String,
+      isDaemon: Boolean = true
+  ): ExecutorService = if (isVirtualThreadEnabled) {
+    logger.info(s"Use virtual threads for the jobs of $threadName instead of a thread pool.")
+    new JobExecutorService(
+      Utils.newCachedThreadPool(threadNum, threadName + "Consumer-", isDaemon),
+      virtualThreadExecutorCreator.get(threadName)
+    )
+  } else {
+    Utils.newCachedThreadPool(threadNum, threadName, isDaemon)
+  }
+
+}
+
+/**
+ * Runs the consumers on platform threads and the other tasks(jobs and job daemons) on virtual
+ * threads. A consumer lives as long as its group and waits on monitors, which pins the carrier
+ * thread of a virtual thread before JDK 24, so the carriers would all be pinned once the count of
+ * groups reaches jdk.virtualThreadScheduler.maxPoolSize.
+ */
+private[queue] class JobExecutorService(
+    consumerExecutor: ExecutorService,
+    jobExecutor: ExecutorService
+) extends AbstractExecutorService {
+
+  private class ConsumerTask[T](consumer: Runnable, value: T)
+      extends FutureTask[T](consumer, value)
+
+  override protected def newTaskFor[T](runnable: Runnable, value: T): RunnableFuture[T] =
+    runnable match {
+      case _: Consumer => new ConsumerTask[T](runnable, value)
+      case _ => super.newTaskFor(runnable, value)
+    }
+
+  override def execute(command: Runnable): Unit = command match {
+    case _: Consumer | _: ConsumerTask[_] => consumerExecutor.execute(command)
+    case _ => jobExecutor.execute(command)
+  }
+
+  override def shutdown(): Unit = {
+    consumerExecutor.shutdown()
+    jobExecutor.shutdown()
+  }
+
+  override def shutdownNow(): util.List[Runnable] = {
+    val tasks = new util.ArrayList[Runnable](consumerExecutor.shutdownNow())
+    tasks.addAll(jobExecutor.shutdownNow())
+    tasks
+  }
+
+  override def isShutdown: Boolean = consumerExecutor.isShutdown && jobExecutor.isShutdown
+
+  override def isTerminated: Boolean = consumerExecutor.isTerminated && jobExecutor.isTerminated
+
+  override def awaitTermination(timeout: Long, unit: TimeUnit): Boolean = {
+    val deadline = System.nanoTime + unit.toNanos(timeout)
+    consumerExecutor.awaitTermination(timeout, unit) &&
+    jobExecutor.awaitTermination(deadline - System.nanoTime, TimeUnit.NANOSECONDS)
+  }
+
+}
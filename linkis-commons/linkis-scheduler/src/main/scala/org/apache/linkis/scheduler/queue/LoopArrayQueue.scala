@@ -29,6 +29,7 @@ class LoopArrayQueue(var group: Group) extends ConsumeQueue with Logging {
   private var flag = 0
   private var tail = 0
   private var takeIndex = 0
+  private var wakeUpFlag = false
 
   protected[this] var realSize = 0
 
@@ -184,7 +185,8 @@ class LoopArrayQueue(var group: Group) extends ConsumeQueue with Logging {
    */
   override def take(mills: Long): Option[SchedulerEvent] = {
     val t = readLock synchronized {
-      if (waitingSize == 0 || takeIndex > max) readLock.wait(mills)
+      if ((waitingSize == 0 || takeIndex > max) && !wakeUpFlag) readLock.wait(mills)
+      wakeUpFlag = false
       if (waitingSize == 0 || takeIndex > max) return None
       if (takeIndex < min) takeIndex = min
       val t = get(takeIndex)
@@ -195,6 +197,11 @@ class LoopArrayQueue(var group: Group) extends ConsumeQueue with Logging {
     t
   }
 
+  override def wakeUp(): Unit = readLock synchronized {
+    wakeUpFlag = true
+    readLock.notifyAll()
+  }
+
   /**
    * Get the latest SchedulerEvent of a group and move the pointer to the next one. If not, return
    * directly to None 获取某个group最新的SchedulerEvent，并移动指针到下一个。如果没有，直接返回None
@@ -17,22 +17,27 @@
 
 package org.apache.linkis.scheduler.queue.fifoqueue
 
-import org.apache.linkis.common.utils.Utils
 import org.apache.linkis.scheduler.SchedulerContext
 import org.apache.linkis.scheduler.errorcode.LinkisSchedulerErrorCodeSummary._
 import org.apache.linkis.scheduler.exception.SchedulerErrorException
 import org.apache.linkis.scheduler.listener.ConsumerListener
-import org.apache.linkis.scheduler.queue.{Consumer, ConsumerManager, Group, LoopArrayQueue}
+import org.apache.linkis.scheduler.queue.{
+  Consumer,
+  ConsumerManager,
+  Group,
+  JobExecutorServiceFactory,
+  LoopArrayQueue
+}
 
 import java.text.MessageFormat
-import java.util.concurrent.{ExecutorService, ThreadPoolExecutor}
+import java.util.concurrent.ExecutorService
 
 class FIFOConsumerManager(groupName: String) extends ConsumerManager {
 
   def this() = this(FIFOGroupFactory.FIFO_GROUP_NAME)
 
   private var group: Group = _
-  private var executorService: ThreadPoolExecutor = _
+  private var executorService: ExecutorService = _
   private var consumerListener: ConsumerListener = _
   private var consumerQueue: LoopArrayQueue = _
   private var consumer: Consumer = _
@@ -42,7 +47,10 @@ class FIFOConsumerManager(groupName: String) extends ConsumerManager {
     group = getSchedulerContext.getOrCreateGroupFactory.getOrCreateGroup(null)
     executorService = group match {
       case g: FIFOGroup =>
-        Utils.newCachedThreadPool(g.getMaxRunningJobs + 2, groupName + "-Thread-")
+        JobExecutorServiceFactory.createExecutorService(
+          g.getMaxRunningJobs + 2,
+          groupName + "-Thread-"
+        )
       case _ =>
         throw new SchedulerErrorException(
           NEED_SUPPORTED_GROUP.getErrorCode,
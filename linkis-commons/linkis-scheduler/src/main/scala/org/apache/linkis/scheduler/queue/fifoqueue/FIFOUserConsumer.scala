@@ -21,13 +21,21 @@ import org.apache.linkis.common.exception.{ErrorException, WarnException}
 import org.apache.linkis.common.log.LogUtils
 import org.apache.linkis.common.utils.Utils
 import org.apache.linkis.scheduler.SchedulerContext
+import org.apache.linkis.scheduler.conf.SchedulerConfiguration
 import org.apache.linkis.scheduler.errorcode.LinkisSchedulerErrorCodeSummary._
 import org.apache.linkis.scheduler.exception.SchedulerErrorException
 import org.apache.linkis.scheduler.executer.Executor
 import org.apache.linkis.scheduler.future.{BDPFuture, BDPFutureTask}
 import org.apache.linkis.scheduler.queue._
 
-import java.util.concurrent.{ExecutorService, Future}
+import java.util.concurrent.{
+  ConcurrentHashMap,
+  DelayQueue,
+  Delayed,
+  ExecutorService,
+  Future,
+  TimeUnit
+}
 
 import scala.beans.BeanProperty
 import scala.collection.mutable.ArrayBuffer
@@ -46,6 +54,23 @@ class FIFOUserConsumer(
 
   private var bdpFutureTask: BDPFuture = _
 
+  /**
+   * Jobs waiting for retry, ordered by the time they can be retried(等待重试的Job)
+   */
+  private val retryJobs = new DelayQueue[RetryJob]
+
+  /**
+   * Jobs already in retryJobs, a job may notify the consumer more than once in one WaitForRetry
+   * state(已在重试队列中的Job)
+   */
+  private val queuedRetryJobs = ConcurrentHashMap.newKeySet[Job]()
+
+  /**
+   * Signalled when a running job completes or waits for retry(运行中的Job完成或等待重试时发出信号)
+   */
+  private val jobStateLock = new Array[Byte](0)
+  private var jobStateChanged = false
+
   @BeanProperty
   var lastTime: Long = _
 
@@ -91,11 +116,59 @@ class FIFOUserConsumer(
 
   protected def askExecutorGap(): Unit = {}
 
+  override def onJobStateChanged(job: Job): Unit = {
+    if (job.isWaitForRetry && queuedRetryJobs.add(job)) retryJobs.put(new RetryJob(job))
+    jobStateLock synchronized {
+      jobStateChanged = true
+      jobStateLock.notifyAll()
+    }
+    // the consumer may wait for new jobs in the queue while a slot is free
+    if (queue != null) queue.wakeUp()
+  }
+
+  private def hasFreeSlot: Boolean = runningJobs.exists(job => job == null || job.isCompleted)
+
+  /**
+   * The time to wait for the next retry job, 0 means to wait until the state of a job changes
+   */
+  private def getRetryWaitTime: Long = Option(retryJobs.peek()) match {
+    case Some(retryJob) => math.max(retryJob.getDelay(TimeUnit.MILLISECONDS), 1)
+    case None => 0
+  }
+
+  private[fifoqueue] def getRetryJobNum: Int = retryJobs.size()
+
+  /**
+   * Take the next job whose retry wait time has elapsed
+   */
+  private[fifoqueue] def pollRetryJob(): Option[Job] = Option(retryJobs.poll()).map { retryJob =>
+    queuedRetryJobs.remove(retryJob.job)
+    retryJob.job
+  }
+
+  /**
+   * Wait until a running job completes or waits for retry(等待运行中的Job完成或进入重试), the wait
+   * is bounded in case a signal is missed
+   *
+   * @return
+   *   true if the state of a job changed, false if the wait timed out
+   */
+  private[fifoqueue] def waitForJobStateChanged(mills: Long): Boolean = jobStateLock synchronized {
+    val maxWaitTime = SchedulerConfiguration.FIFO_CONSUMER_STATE_WAIT_MAX_TIME.getValue.toLong
+    if (!jobStateChanged) {
+      jobStateLock.wait(if (mills > 0) math.min(mills, maxWaitTime) else maxWaitTime)
+    }
+    val changed = jobStateChanged
+    jobStateChanged = false
+    changed
+  }
+
   protected def loop(): Unit = {
     var isRetryJob = false
     def getWaitForRetryEvent: Option[SchedulerEvent] = {
-      val waitForRetryJobs = runningJobs.filter(job => job != null && job.isJobCanRetry)
-      waitForRetryJobs.find { job =>
+      var retryJob = pollRetryJob()
+      while (retryJob.isDefined) {
+        val job = retryJob.get
         isRetryJob = Utils.tryCatch(job.turnToRetry()) { t =>
           job.onFailure(
             "Job state flipped to Scheduled failed in Retry(Retry时，job状态翻转为Scheduled失败)！",
@@ -103,30 +176,28 @@ class FIFOUserConsumer(
           )
           false
         }
-        isRetryJob
+        if (isRetryJob) return Some(job)
+        retryJob = pollRetryJob()
       }
+      None
     }
     var event: Option[SchedulerEvent] = getWaitForRetryEvent
     if (event.isEmpty) {
-      val completedNums = runningJobs.filter(job => job == null || job.isCompleted)
-      if (completedNums.length < 1) {
-        Utils.tryQuietly(Thread.sleep(1000)) // TODO 还可以优化，通过实现JobListener进行优化
+      // no slot to run a new job, sleep until a running job completes instead of polling
+      if (!hasFreeSlot) {
+        waitForJobStateChanged(getRetryWaitTime)
         return
       }
-      while (event.isEmpty) {
-        val takeEvent = if (getRunningEvents.isEmpty) Option(queue.take()) else queue.take(3000)
-        event =
-          if (
-              takeEvent.exists(e =>
-                Utils.tryCatch(e.turnToScheduled()) { t =>
-                  takeEvent.get.asInstanceOf[Job].onFailure("Job状态翻转为Scheduled失败！", t)
-                  false
-                }
-              )
-          ) {
-            takeEvent
-          } else getWaitForRetryEvent
-      }
+      val retryWaitTime = getRetryWaitTime
+      val takeEvent =
+        if (retryWaitTime > 0) queue.take(retryWaitTime) else queue.take(Long.MaxValue)
+      event = takeEvent.filter(e =>
+        Utils.tryCatch(e.turnToScheduled()) { t =>
+          e.asInstanceOf[Job].onFailure("Job状态翻转为Scheduled失败！", t)
+          false
+        }
+      )
+      if (event.isEmpty) return
     }
     event.foreach { case job: Job =>
       Utils.tryCatch {
@@ -134,6 +205,7 @@ class FIFOUserConsumer(
           (fifoGroup.getMaxAskExecutorDuration, fifoGroup.getAskExecutorInterval)
         var executor: Option[Executor] = None
         job.consumerFuture = bdpFutureTask
+        job.consumer = this
         Utils.waitUntil(
           () => {
             executor = Utils.tryCatch(
@@ -183,6 +255,18 @@ class FIFOUserConsumer(
     }
   }
 
+  private class RetryJob(val job: Job) extends Delayed {
+    private val retryTime = System.currentTimeMillis +
+      SchedulerConfiguration.FIFO_CONSUMER_RETRY_WAIT_TIME.getValue.toLong
+
+    override def getDelay(unit: TimeUnit): Long =
+      unit.convert(retryTime - System.currentTimeMillis, TimeUnit.MILLISECONDS)
+
+    override def compareTo(o: Delayed): Int =
+      java.lang.Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS))
+
+  }
+
   private def putToRunningJobs(job: Job): Unit = {
     val index = runningJobs.indexWhere(f => f == null || f.isCompleted)
     runningJobs(index) = job
@@ -82,7 +82,7 @@ class ParallelConsumerManager(maxParallelismUsers: Int, schedulerName: String)
   } else {
     executorServiceLock.synchronized {
       if (executorService == null) {
-        executorService = Utils.newCachedThreadPool(
+        executorService = JobExecutorServiceFactory.createExecutorService(
           5 * maxParallelismUsers + 1,
           schedulerName + "-ThreadPool-",
           true
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.scheduler.queue
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.protocol.engine.EngineState
+import org.apache.linkis.scheduler.executer._
+import org.apache.linkis.scheduler.listener.ExecutorListener
+import org.apache.linkis.scheduler.queue.fifoqueue.FIFOGroupFactory
+import org.apache.linkis.scheduler.queue.parallelqueue.{
+  ParallelScheduler,
+  ParallelSchedulerContextImpl
+}
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.{Callable, CompletableFuture, ThreadPoolExecutor, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.concurrent.duration.Duration
+
+import org.junit.jupiter.api.{AfterEach, Tag, Test}
+import org.junit.jupiter.api.Assertions.{assertEquals, assertFalse, assertTrue}
+
+class JobExecutorServiceFactoryTest extends Logging {
+
+  import JobExecutorServiceFactoryTest._
+
+  @AfterEach
+  def after(): Unit = System.clearProperty(VIRTUAL_THREAD_ENABLED)
+
+  @Test
+  def testCachedThreadPoolByDefault(): Unit = {
+    val executorService = JobExecutorServiceFactory.createExecutorService(3, "Test-Thread-")
+    assertTrue(executorService.isInstanceOf[ThreadPoolExecutor])
+    assertEquals(3, executorService.asInstanceOf[ThreadPoolExecutor].getMaximumPoolSize)
+    executorService.shutdownNow()
+  }
+
+  @Test
+  def testVirtualThreadEnabled(): Unit = {
+    System.setProperty(VIRTUAL_THREAD_ENABLED, "true")
+    val executorService = JobExecutorServiceFactory.createExecutorService(3, "Test-Thread-")
+    val jobThread = executorService
+      .submit(new Callable[Thread] {
+        override def call(): Thread = Thread.currentThread
+      })
+      .get(10, TimeUnit.SECONDS)
+    val consumerThread = new CompletableFuture[Thread]
+    executorService.submit(new Consumer(null, executorService) {
+      override def run(): Unit = consumerThread.complete(Thread.currentThread)
+      override def setConsumeQueue(consumeQueue: ConsumeQueue): Unit = {}
+      override def getConsumeQueue: ConsumeQueue = null
+      override def getGroup: Group = null
+      override def setGroup(group: Group): Unit = {}
+      override def getRunningEvents: Array[SchedulerEvent] = Array.empty
+      override def start(): Unit = {}
+    })
+    // only JDK 21+ supports virtual threads, the others fall back to the cached thread pool
+    assertEquals(isVirtualThreadSupported, isVirtual(jobThread))
+    assertEquals(!isVirtualThreadSupported, executorService.isInstanceOf[ThreadPoolExecutor])
+    assertTrue(jobThread.getName.startsWith("Test-Thread-"))
+    // the consumers always run on platform threads
+    assertFalse(isVirtual(consumerThread.get(10, TimeUnit.SECONDS)))
+    executorService.shutdownNow()
+    assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS))
+  }
+
+  /**
+   * Soaks a parallel scheduler with 20k jobs running at the same time in 400 groups, more than the
+   * 256 carrier threads a JDK 21 virtual thread scheduler compensates pinning with, and reports the
+   * peak count of live platform threads and of running jobs, and the elapsed time, with the cached
+   * thread pool and with virtual threads.
+   */
+  @Test
+  @Tag("benchmark")
+  def benchmark(): Unit = {
+    val groupNum = 400
+    val jobsPerGroup = 50
+    for (virtualThreadEnabled <- Seq(false, true)) {
+      System.setProperty(VIRTUAL_THREAD_ENABLED, virtualThreadEnabled.toString)
+      val threadMXBean = ManagementFactory.getThreadMXBean
+      val baseThreads = threadMXBean.getThreadCount
+      val schedulerContext = new ParallelSchedulerContextImpl(groupNum)
+      schedulerContext.getOrCreateGroupFactory
+        .asInstanceOf[FIFOGroupFactory]
+        .setDefaultMaxRunningJobs(jobsPerGroup)
+      val executorManager = new SleepExecutorManager(10000)
+      schedulerContext.setExecutorManager(executorManager)
+      val scheduler = new ParallelScheduler(schedulerContext)
+      scheduler.init()
+      // the group of a job is the hash of its id, so pick one id for each group
+      val groupIds = (0 until groupNum).map { group =>
+        Iterator.from(0).map(i => s"user-$group-$i").find(_.hashCode % groupNum == group).get
+      }
+      val startTime = System.currentTimeMillis
+      val jobs = (0 until jobsPerGroup).flatMap { _ =>
+        groupIds.map { id =>
+          val job = new UserJob()
+          job.setId(id)
+          scheduler.submit(job)
+          job
+        }
+      }
+      var maxThreads = 0
+      Utils.waitUntil(
+        () => {
+          maxThreads = math.max(maxThreads, threadMXBean.getThreadCount - baseThreads)
+          jobs.forall(_.isCompleted)
+        },
+        Duration(10, TimeUnit.MINUTES)
+      )
+      val virtualThreadUsed = JobExecutorServiceFactory.isVirtualThreadEnabled
+      logger.info(
+        s"virtual threads: $virtualThreadUsed, groups: $groupNum, jobs: ${jobs.length}, " +
+          s"succeed: ${jobs.count(_.isSucceed)}, peak running jobs: " +
+          s"${executorManager.maxRunning.get}, peak platform threads: $maxThreads, " +
+          s"cost: ${System.currentTimeMillis - startTime}ms"
+      )
+      scheduler.shutdown()
+      schedulerContext.getOrCreateConsumerManager.getOrCreateExecutorService.shutdownNow()
+      assertFalse(jobs.exists(!_.isSucceed))
+      if (virtualThreadUsed) assertEquals(jobs.length, executorManager.maxRunning.get)
+    }
+  }
+
+}
+
+object JobExecutorServiceFactoryTest {
+
+  private val VIRTUAL_THREAD_ENABLED =
+    "wds.linkis.scheduler.job.executor.virtual.thread.enabled"
+
+  private val isVirtualThreadSupported =
+    Utils.tryCatch(classOf[Thread].getMethod("ofVirtual") != null)(_ => false)
+
+  private def isVirtual(thread: Thread): Boolean = Utils.tryCatch {
+    classOf[Thread].getMethod("isVirtual").invoke(thread).asInstanceOf[Boolean]
+  }(_ => false)
+
+  /** An executor manager whose only executor succeeds after executeMills, counting running jobs */
+  private class SleepExecutorManager(executeMills: Long) extends ExecutorManager {
+
+    val running = new AtomicInteger
+    val maxRunning = new AtomicInteger
+
+    private val executor = new Executor {
+      override def getId: Long = 0
+      override def execute(executeRequest: ExecuteRequest): ExecuteResponse = {
+        val current = running.incrementAndGet()
+        var max = maxRunning.get
+        while (current > max && !maxRunning.compareAndSet(max, current)) max = maxRunning.get
+        try Thread.sleep(executeMills)
+        finally running.decrementAndGet()
+        SuccessExecuteResponse()
+      }
+      override def state: ExecutorState.ExecutorState = EngineState.Idle
+      override def getExecutorInfo: ExecutorInfo = ExecutorInfo(0, state)
+      override def close(): Unit = {}
+    }
+
+    override def setExecutorListener(engineListener: ExecutorListener): Unit = {}
+    override protected def createExecutor(event: SchedulerEvent): Executor = executor
+    override def askExecutor(event: SchedulerEvent): Option[Executor] = Some(executor)
+    override def askExecutor(event: SchedulerEvent, wait: Duration): Option[Executor] =
+      Some(executor)
+    override def getById(id: Long): Option[Executor] = Some(executor)
+    override def getByGroup(groupName: String): Array[Executor] = Array(executor)
+    override def delete(executor: Executor): Unit = {}
+    override def shutdown(): Unit = {}
+
+  }
+
+}
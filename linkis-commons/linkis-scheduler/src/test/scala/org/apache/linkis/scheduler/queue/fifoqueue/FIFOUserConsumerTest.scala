@@ -17,10 +17,27 @@
 
 package org.apache.linkis.scheduler.queue.fifoqueue
 
-import org.junit.jupiter.api.Assertions.{assertFalse, assertNotNull, assertTrue}
-import org.junit.jupiter.api.Test
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.protocol.engine.EngineState
+import org.apache.linkis.scheduler.exception.LinkisJobRetryException
+import org.apache.linkis.scheduler.executer._
+import org.apache.linkis.scheduler.listener.ExecutorListener
+import org.apache.linkis.scheduler.queue.{SchedulerEvent, UserJob}
+import org.apache.linkis.scheduler.queue.parallelqueue.{
+  ParallelScheduler,
+  ParallelSchedulerContextImpl
+}
+
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+import scala.concurrent.duration.Duration
+
+import org.junit.jupiter.api.Assertions.{assertEquals, assertFalse, assertNotNull, assertTrue}
+import org.junit.jupiter.api.{Tag, Test}
 
-class FIFOUserConsumerTest {
+class FIFOUserConsumerTest extends Logging {
+
+  import FIFOUserConsumerTest._
 
   @Test
   def testStart: Unit = {
@@ -36,4 +53,160 @@ class FIFOUserConsumerTest {
     assertTrue(consumer.terminate)
   }
 
+  @Test
+  def testFreedSlotWakesConsumer: Unit = {
+    val schedulerContext = new FIFOSchedulerContextImpl(100)
+    schedulerContext.setExecutorManager(newExecutorManager(100))
+    val scheduler = new FIFOScheduler(schedulerContext)
+    scheduler.init()
+    // the FIFO group runs one job at a time
+    val jobs = (0 until 5).map(_ => new UserJob())
+    jobs.foreach(scheduler.submit)
+    Utils.waitUntil(() => jobs.forall(_.isCompleted), Duration(10, TimeUnit.SECONDS))
+    jobs.foreach(job => assertTrue(job.isSucceed))
+    // the next job only starts once the previous one completes
+    jobs.sliding(2).foreach(pair => assertTrue(pair(1).getStartTime >= pair(0).getEndTime))
+    scheduler.shutdown()
+  }
+
+  @Test
+  def testJobStateChangeReleasesWaitingConsumer: Unit = {
+    val schedulerContext = new FIFOSchedulerContextImpl(100)
+    val consumerManager = new FIFOConsumerManager
+    consumerManager.setSchedulerContext(schedulerContext)
+    val consumer = consumerManager.listConsumers()(0).asInstanceOf[FIFOUserConsumer]
+    // a signal sent before the consumer waits is not lost
+    consumer.onJobStateChanged(new UserJob())
+    assertTrue(consumer.waitForJobStateChanged(Long.MaxValue))
+
+    // the waiter only stops on a signal, the bounded waits in between time out
+    val released = new CountDownLatch(1)
+    val waiter = new Thread(new Runnable {
+      override def run(): Unit = {
+        while (!consumer.waitForJobStateChanged(Long.MaxValue)) {}
+        released.countDown()
+      }
+    })
+    waiter.setDaemon(true)
+    waiter.start()
+    Utils.waitUntil(
+      () => waiter.getState == Thread.State.TIMED_WAITING,
+      Duration(10, TimeUnit.SECONDS)
+    )
+    assertEquals(1, released.getCount)
+    consumer.onJobStateChanged(new UserJob())
+    assertTrue(released.await(10, TimeUnit.SECONDS))
+  }
+
+  @Test
+  def testRetryJobEnqueuedOncePerFailure: Unit = {
+    val schedulerContext = new FIFOSchedulerContextImpl(100)
+    val consumerManager = new FIFOConsumerManager
+    consumerManager.setSchedulerContext(schedulerContext)
+    val consumer = consumerManager.listConsumers()(0).asInstanceOf[FIFOUserConsumer]
+    val job = new UserJob()
+    job.setId("retry-job")
+    job.consumer = consumer
+    assertTrue(job.turnToScheduled())
+    (1 to 2).foreach { failure =>
+      // onFailure notifies the consumer both on WaitForRetry and after the job is interrupted
+      job.onFailure(s"failure $failure", new LinkisJobRetryException(s"retry $failure"))
+      assertTrue(job.isWaitForRetry)
+      assertEquals(1, consumer.getRetryJobNum)
+      assertEquals(Some(job), consumer.pollRetryJob())
+      assertEquals(None, consumer.pollRetryJob())
+      assertTrue(job.turnToRetry())
+    }
+    assertEquals(2, job.getRetryNum)
+  }
+
+  /**
+   * Reports the dispatch latency, from a job being runnable(submitted and the slot of its group
+   * free) to it being started, and the threads used by the scheduler against the number of active
+   * user groups.
+   */
+  @Test
+  @Tag("benchmark")
+  def benchmark(): Unit = {
+    val jobsPerGroup = 20
+    for (groupNum <- Seq(1, 10, 100, 500)) {
+      val baseThreads = Thread.activeCount
+      val schedulerContext = new ParallelSchedulerContextImpl(groupNum)
+      schedulerContext.setExecutorManager(newExecutorManager(2))
+      val scheduler = new ParallelScheduler(schedulerContext)
+      scheduler.init()
+      // the group of a job is the hash of its id, so pick one id for each group
+      val groupIds = (0 until groupNum).map { group =>
+        Iterator.from(0).map(i => s"user-$group-$i").find(_.hashCode % groupNum == group).get
+      }
+      val submitted = (0 until jobsPerGroup).flatMap { _ =>
+        groupIds.map { id =>
+          val job = new UserJob()
+          job.setId(id)
+          val submitTime = System.currentTimeMillis
+          scheduler.submit(job)
+          (id, submitTime, job)
+        }
+      }
+      var maxThreads = 0
+      Utils.waitUntil(
+        () => {
+          maxThreads = math.max(maxThreads, Thread.activeCount - baseThreads)
+          submitted.forall(_._3.isCompleted)
+        },
+        Duration(5, TimeUnit.MINUTES)
+      )
+      // jobs of a group run one at a time in the order they were submitted
+      val latencies = submitted
+        .groupBy(_._1)
+        .values
+        .flatMap { groupJobs =>
+          var lastEndTime = 0L
+          groupJobs.map { case (_, submitTime, job) =>
+            val latency = job.getStartTime - math.max(submitTime, lastEndTime)
+            lastEndTime = job.getEndTime
+            latency
+          }
+        }
+        .toArray
+        .sorted
+      def percentile(p: Double): Long = latencies(((latencies.length - 1) * p).toInt)
+      logger.info(
+        s"groups: $groupNum, jobs: ${latencies.length}, dispatch latency p50: " +
+          s"${percentile(0.5)}ms, p99: ${percentile(0.99)}ms, threads: $maxThreads"
+      )
+      scheduler.shutdown()
+      schedulerContext.getOrCreateConsumerManager.getOrCreateExecutorService.shutdownNow()
+    }
+  }
+
+}
+
+object FIFOUserConsumerTest {
+
+  /** An executor manager whose only executor succeeds after executeMills */
+  private def newExecutorManager(executeMills: Long): ExecutorManager = {
+    val executor = new Executor {
+      override def getId: Long = 0
+      override def execute(executeRequest: ExecuteRequest): ExecuteResponse = {
+        Thread.sleep(executeMills)
+        SuccessExecuteResponse()
+      }
+      override def state: ExecutorState.ExecutorState = EngineState.Idle
+      override def getExecutorInfo: ExecutorInfo = ExecutorInfo(0, state)
+      override def close(): Unit = {}
+    }
+    new ExecutorManager {
+      override def setExecutorListener(engineListener: ExecutorListener): Unit = {}
+      override protected def createExecutor(event: SchedulerEvent): Executor = executor
+      override def askExecutor(event: SchedulerEvent): Option[Executor] = Some(executor)
+      override def askExecutor(event: SchedulerEvent, wait: Duration): Option[Executor] =
+        Some(executor)
+      override def getById(id: Long): Option[Executor] = Some(executor)
+      override def getByGroup(groupName: String): Array[Executor] = Array(executor)
+      override def delete(executor: Executor): Unit = {}
+      override def shutdown(): Unit = {}
+    }
+  }
+
 }
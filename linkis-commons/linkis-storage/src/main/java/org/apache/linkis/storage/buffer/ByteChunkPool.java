@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.buffer;
+
+import org.apache.linkis.storage.conf.LinkisStorageConf;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of byte chunks in a few fixed size classes, shared by all result set writers of the JVM.
+ * Chunks are returned by ChunkedByteBuffer once their content has been written out, idle chunks
+ * above the configured limit are left to the GC. The chunks of a buffer that is collected without
+ * being cleared, e.g. by a writer never closed, are released once the collection is noticed, so
+ * that they do not stay counted as used(结果集写入共享的字节块池，按固定大小分级缓存)
+ */
+public class ByteChunkPool {
+
+  static final int[] CHUNK_SIZES = new int[] {1024, 8 * 1024, 64 * 1024};
+
+  private static final ByteChunkPool INSTANCE =
+      new ByteChunkPool(LinkisStorageConf.RESULT_SET_BUFFER_POOL_MAX_BYTES);
+
+  private final Queue<byte[]>[] slabs;
+
+  private final AtomicLong[] pooledBytes;
+
+  private final long maxPooledBytesPerClass;
+
+  /** Bytes of the chunks currently held by buffers(当前被缓冲区持有的字节数) */
+  private final AtomicLong usedBytes = new AtomicLong(0);
+
+  /** Enqueued by the GC when a registered buffer is collected(缓冲区被回收后由GC入队) */
+  private final ReferenceQueue<ChunkedByteBuffer> collectedBuffers = new ReferenceQueue<>();
+
+  /** Keeps the buffer references reachable until they are enqueued */
+  private final Set<BufferReference> bufferReferences = ConcurrentHashMap.newKeySet();
+
+  @SuppressWarnings("unchecked")
+  ByteChunkPool(long maxPooledBytes) {
+    this.maxPooledBytesPerClass = maxPooledBytes / CHUNK_SIZES.length;
+    this.slabs = new Queue[CHUNK_SIZES.length];
+    this.pooledBytes = new AtomicLong[CHUNK_SIZES.length];
+    for (int i = 0; i < CHUNK_SIZES.length; i++) {
+      slabs[i] = new ConcurrentLinkedQueue<>();
+      pooledBytes[i] = new AtomicLong(0);
+    }
+  }
+
+  public static ByteChunkPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Take a chunk of the given size class, a new one is allocated when the slab is empty
+   *
+   * @param sizeClass index into CHUNK_SIZES, larger values are capped to the biggest class
+   * @return
+   */
+  public byte[] acquire(int sizeClass) {
+    int index = Math.min(sizeClass, CHUNK_SIZES.length - 1);
+    byte[] chunk = slabs[index].poll();
+    if (chunk == null) {
+      chunk = new byte[CHUNK_SIZES[index]];
+    } else {
+      pooledBytes[index].addAndGet(-chunk.length);
+    }
+    usedBytes.addAndGet(chunk.length);
+    return chunk;
+  }
+
+  public void release(byte[] chunk) {
+    usedBytes.addAndGet(-chunk.length);
+    int index = sizeClassOf(chunk.length);
+    if (index < 0) {
+      return;
+    }
+    if (pooledBytes[index].addAndGet(chunk.length) <= maxPooledBytesPerClass) {
+      slabs[index].offer(chunk);
+    } else {
+      pooledBytes[index].addAndGet(-chunk.length);
+    }
+  }
+
+  /**
+   * Track a buffer so that the chunks it holds are released if it is collected without clear()
+   *
+   * @param buffer
+   * @param chunks the chunk list of the buffer, it must not reference the buffer itself
+   */
+  void register(ChunkedByteBuffer buffer, List<byte[]> chunks) {
+    releaseCollectedBuffers();
+    bufferReferences.add(new BufferReference(buffer, chunks, collectedBuffers));
+  }
+
+  private void releaseCollectedBuffers() {
+    Reference<? extends ChunkedByteBuffer> reference;
+    while ((reference = collectedBuffers.poll()) != null) {
+      BufferReference bufferReference = (BufferReference) reference;
+      if (bufferReferences.remove(bufferReference)) {
+        for (byte[] chunk : bufferReference.chunks) {
+          release(chunk);
+        }
+        bufferReference.chunks.clear();
+      }
+    }
+  }
+
+  private static int sizeClassOf(int length) {
+    for (int i = 0; i < CHUNK_SIZES.length; i++) {
+      if (CHUNK_SIZES[i] == length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Bytes of the chunks not released yet, the chunks of collected buffers are released first
+   *
+   * @return
+   */
+  public long getUsedBytes() {
+    releaseCollectedBuffers();
+    return usedBytes.get();
+  }
+
+  public long getPooledBytes() {
+    long total = 0;
+    for (AtomicLong bytes : pooledBytes) {
+      total += bytes.get();
+    }
+    return total;
+  }
+
+  private static class BufferReference extends PhantomReference<ChunkedByteBuffer> {
+
+    private final List<byte[]> chunks;
+
+    BufferReference(
+        ChunkedByteBuffer buffer,
+        List<byte[]> chunks,
+        ReferenceQueue<ChunkedByteBuffer> referenceQueue) {
+      super(buffer, referenceQueue);
+      this.chunks = chunks;
+    }
+  }
+}
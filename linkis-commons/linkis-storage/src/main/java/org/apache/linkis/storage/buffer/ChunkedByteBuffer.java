@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.buffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A growable byte buffer made of chunks taken from ByteChunkPool. The first chunk is small so that
+ * tiny result sets stay cheap, later chunks use the bigger size classes. Content is written out
+ * chunk by chunk without being copied into one contiguous array first. Not thread safe
+ * 由字节块组成的可增长缓冲区，写出时按块直接写入输出流，无需额外拷贝，非线程安全
+ */
+public class ChunkedByteBuffer {
+
+  private final ByteChunkPool pool;
+
+  private final List<byte[]> chunks = new ArrayList<>();
+
+  /** Bytes used in the last chunk(最后一个块中已使用的字节数) */
+  private int lastChunkSize = 0;
+
+  private long size = 0;
+
+  public ChunkedByteBuffer() {
+    this(ByteChunkPool.getInstance());
+  }
+
+  public ChunkedByteBuffer(ByteChunkPool pool) {
+    this.pool = pool;
+    pool.register(this, chunks);
+  }
+
+  public void write(byte[] bytes) {
+    write(bytes, 0, bytes.length);
+  }
+
+  public void write(byte[] bytes, int off, int len) {
+    while (len > 0) {
+      if (chunks.isEmpty() || lastChunkSize == lastChunk().length) {
+        chunks.add(pool.acquire(chunks.size()));
+        lastChunkSize = 0;
+      }
+      byte[] chunk = lastChunk();
+      int copyLen = Math.min(len, chunk.length - lastChunkSize);
+      System.arraycopy(bytes, off, chunk, lastChunkSize, copyLen);
+      lastChunkSize += copyLen;
+      off += copyLen;
+      len -= copyLen;
+      size += copyLen;
+    }
+  }
+
+  private byte[] lastChunk() {
+    return chunks.get(chunks.size() - 1);
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Write all the content to the output stream, chunk by chunk(按块将内容写入输出流)
+   *
+   * @param outputStream
+   * @throws IOException
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    for (int i = 0; i < chunks.size(); i++) {
+      byte[] chunk = chunks.get(i);
+      outputStream.write(chunk, 0, i == chunks.size() - 1 ? lastChunkSize : chunk.length);
+    }
+  }
+
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[(int) size];
+    int pos = 0;
+    for (int i = 0; i < chunks.size(); i++) {
+      byte[] chunk = chunks.get(i);
+      int len = i == chunks.size() - 1 ? lastChunkSize : chunk.length;
+      System.arraycopy(chunk, 0, bytes, pos, len);
+      pos += len;
+    }
+    return bytes;
+  }
+
+  /** Drop the content and give all chunks back to the pool(清空内容并将所有块归还到池中) */
+  public void clear() {
+    for (byte[] chunk : chunks) {
+      pool.release(chunk);
+    }
+    chunks.clear();
+    lastChunkSize = 0;
+    size = 0;
+  }
+}
@@ -36,6 +36,29 @@ public class LinkisStorageConf {
 
   public static final long ROW_BYTE_MAX_LEN = ByteTimeUtils.byteStringAsBytes(ROW_BYTE_MAX_LEN_STR);
 
+  /**
+   * Max bytes of idle chunks kept by the result set buffer pool, split evenly between the chunk size
+   * classes
+   */
+  public static final long RESULT_SET_BUFFER_POOL_MAX_BYTES =
+      ByteTimeUtils.byteStringAsBytes(
+          CommonVars.apply("linkis.storage.resultset.buffer.pool.max", "32m").getValue());
+
+  /**
+   * Write table records with the binary (v2) Dolphin record layout. Readers always accept both
+   * layouts, so this should only be switched on once every reader of the result files has been
+   * upgraded.
+   */
+  public static final boolean TABLE_RESULT_BINARY_RECORD_ENABLED =
+      CommonVars.apply("linkis.storage.resultset.table.binary.record.enable", false).getValue();
+
+  /**
+   * Record the offset of every n-th row of a result set file into a sidecar row index, so that
+   * paging can seek to the requested rows. Result sets with less rows get no index, 0 disables it
+   */
+  public static final int RESULT_SET_ROW_INDEX_INTERVAL =
+      CommonVars.apply("linkis.storage.resultset.row.index.interval", 1000).getValue();
+
   public static final String FILE_TYPE =
       CommonVars.apply(
               "wds.linkis.storage.file.type",
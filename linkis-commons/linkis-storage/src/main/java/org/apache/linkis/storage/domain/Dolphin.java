@@ -63,6 +63,25 @@ public class Dolphin {
 
   public static final int FILE_EMPTY = 31;
 
+  /**
+   * First byte of a binary(v2) table record. Legacy records always start with the ASCII digits of
+   * the column index length, so the two layouts can be told apart by this byte
+   * 二进制(v2)表格记录的首字节，旧格式记录总是以数字开头，通过该字节区分两种格式
+   */
+  public static final byte TABLE_RECORD_V2_MARKER = 0x02;
+
+  /**
+   * First byte of a columnar batch of table records, whose rows are stored column by column with
+   * fixed width numeric values. Batches are binary, so they are only written into result set files
+   * and never kept as String content
+   * 列式批量表格记录的首字节，批量记录为二进制格式，只写入结果集文件
+   */
+  public static final byte TABLE_RECORD_BATCH_MARKER = 0x03;
+
+  private static final int VAR_INT_PAYLOAD_BITS = 6;
+  private static final int VAR_INT_PAYLOAD_MASK = 0x3F;
+  private static final int VAR_INT_CONTINUE_FLAG = 0x40;
+
   public static byte[] getBytes(Object value) {
     return value.toString().getBytes(CHAR_SET);
   }
@@ -103,6 +122,11 @@ public class Dolphin {
    * @return
    */
   public static byte[] getIntBytes(int value) {
+    if (value >= 0) {
+      byte[] bytes = new byte[INT_LEN];
+      writeIntBytes(bytes, 0, value);
+      return bytes;
+    }
     String str = Integer.toString(value);
     StringBuilder res = new StringBuilder();
     for (int i = 0; i < INT_LEN - str.length(); i++) {
@@ -112,6 +136,105 @@ public class Dolphin {
     return Dolphin.getBytes(res.toString());
   }
 
+  /**
+   * Write a non-negative integer at a fixed length into bytes[pos, pos + INT_LEN)
+   * 将非负整数按固定长度写入byte数组
+   *
+   * @param bytes
+   * @param pos
+   * @param value
+   */
+  public static void writeIntBytes(byte[] bytes, int pos, int value) {
+    for (int i = pos + INT_LEN - 1; i >= pos; i--) {
+      bytes[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  /**
+   * Parse the ASCII digits of bytes[start, start + len) as an int without creating a String
+   * 直接从byte数组中解析整数，不创建String
+   *
+   * @param bytes
+   * @param start
+   * @param len
+   * @return
+   */
+  public static int parseInt(byte[] bytes, int start, int len) {
+    if (len <= 0) {
+      throw new NumberFormatException("Empty integer bytes at index " + start);
+    }
+    long value = 0;
+    for (int i = start; i < start + len; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) {
+        throw new NumberFormatException("For input string: " + getString(bytes, start, len));
+      }
+      value = value * 10 + digit;
+      if (value > Integer.MAX_VALUE) {
+        throw new NumberFormatException("For input string: " + getString(bytes, start, len));
+      }
+    }
+    return (int) value;
+  }
+
+  /**
+   * The number of bytes writeVarInt uses for a non-negative value(写入变长整数所需的字节数)
+   *
+   * @param value
+   * @return
+   */
+  public static int varIntLen(int value) {
+    int len = 1;
+    while ((value >>>= VAR_INT_PAYLOAD_BITS) != 0) {
+      len++;
+    }
+    return len;
+  }
+
+  /**
+   * Write a non-negative int as a variable length integer. Every byte carries 6 bits of payload and
+   * uses 0x40 as continuation flag, so the output stays in the ASCII range and survives the
+   * String round trip of result sets that are kept in memory
+   * 写入变长整数，每个字节保存6位数据，0x40为延续标志，保证输出仍为ASCII字符
+   *
+   * @param bytes
+   * @param pos
+   * @param value
+   * @return the position after the written value
+   */
+  public static int writeVarInt(byte[] bytes, int pos, int value) {
+    while ((value & ~VAR_INT_PAYLOAD_MASK) != 0) {
+      bytes[pos++] = (byte) ((value & VAR_INT_PAYLOAD_MASK) | VAR_INT_CONTINUE_FLAG);
+      value >>>= VAR_INT_PAYLOAD_BITS;
+    }
+    bytes[pos++] = (byte) value;
+    return pos;
+  }
+
+  /**
+   * Read a variable length integer written by writeVarInt(读取变长整数)
+   *
+   * @param bytes
+   * @param pos
+   * @return
+   */
+  public static int readVarInt(byte[] bytes, int pos) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      if (pos >= bytes.length || shift > Integer.SIZE) {
+        throw new StorageWarnException(
+            FAILED_TO_READ_INTEGER.getErrorCode(), FAILED_TO_READ_INTEGER.getErrorDesc());
+      }
+      b = bytes[pos++];
+      value |= (b & VAR_INT_PAYLOAD_MASK) << shift;
+      shift += VAR_INT_PAYLOAD_BITS;
+    } while ((b & VAR_INT_CONTINUE_FLAG) != 0);
+    return value;
+  }
+
   public static String getType(InputStream inputStream) throws IOException {
     byte[] bytes = new byte[100];
     int len = StorageUtils.readBytes(inputStream, bytes, Dolphin.MAGIC_LEN + INT_LEN);
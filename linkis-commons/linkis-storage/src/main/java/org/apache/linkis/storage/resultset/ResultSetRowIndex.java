@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.resultset;
+
+import org.apache.linkis.common.io.Fs;
+import org.apache.linkis.common.io.FsPath;
+import org.apache.linkis.storage.domain.Dolphin;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sparse row offset index of a result set file: the byte offset of every interval-th row, so that
+ * a reader can seek close to a page instead of scanning all the rows before it. The index is kept
+ * in a sidecar file next to the result set(path + ".idx"), the result set file itself is not
+ * changed and stays readable by older readers.
+ * 结果集文件的稀疏行偏移索引，每隔interval行记录一次字节偏移，保存在结果集旁的.idx文件中
+ */
+public class ResultSetRowIndex {
+  private static final Logger logger = LoggerFactory.getLogger(ResultSetRowIndex.class);
+
+  public static final String INDEX_FILE_SUFFIX = ".idx";
+
+  private static final byte[] MAGIC = "dolphinidx".getBytes(Dolphin.CHAR_SET);
+
+  private static final int VERSION = 1;
+
+  private final int interval;
+  private long[] offsets = new long[16];
+  private int size = 0;
+  private int rowNum = -1;
+  private long dataLength = -1;
+
+  public ResultSetRowIndex(int interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Row index interval must be positive: " + interval);
+    }
+    this.interval = interval;
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  /** Number of the rows of the result set, -1 if the index is not complete */
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  /** Length of the indexed result set file in bytes, -1 if the index is not complete */
+  public long getDataLength() {
+    return dataLength;
+  }
+
+  /** Number of the recorded offsets */
+  public int size() {
+    return size;
+  }
+
+  public boolean isComplete() {
+    return rowNum >= 0;
+  }
+
+  /**
+   * Record the offset of the row size() * interval
+   *
+   * @param offset
+   */
+  public void add(long offset) {
+    if (size == offsets.length) {
+      offsets = Arrays.copyOf(offsets, size * 2);
+    }
+    offsets[size++] = offset;
+  }
+
+  /**
+   * Close the index once all the rows have been recorded
+   *
+   * @param rowNum
+   * @param dataLength
+   */
+  public void complete(int rowNum, long dataLength) {
+    if (size != (rowNum + interval - 1) / interval) {
+      throw new IllegalStateException(
+          "Row index has " + size + " offsets, which does not match " + rowNum + " rows");
+    }
+    this.rowNum = rowNum;
+    this.dataLength = dataLength;
+  }
+
+  /**
+   * The offset of the row checkpoint * interval
+   *
+   * @param checkpoint
+   * @return
+   */
+  public long getOffset(int checkpoint) {
+    if (checkpoint < 0 || checkpoint >= size) {
+      throw new IndexOutOfBoundsException("Checkpoint: " + checkpoint + ", size: " + size);
+    }
+    return offsets[checkpoint];
+  }
+
+  public void writeTo(OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.write(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(interval);
+    out.writeInt(rowNum);
+    out.writeLong(dataLength);
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      out.writeLong(offsets[i]);
+    }
+    out.flush();
+  }
+
+  /**
+   * @param inputStream
+   * @return the index, or null if the content is not a complete row index
+   * @throws IOException
+   */
+  public static ResultSetRowIndex readFrom(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    byte[] magic = new byte[MAGIC.length];
+    in.readFully(magic);
+    if (!Arrays.equals(MAGIC, magic) || in.readInt() != VERSION) {
+      return null;
+    }
+    int interval = in.readInt();
+    int rowNum = in.readInt();
+    long dataLength = in.readLong();
+    int size = in.readInt();
+    if (interval <= 0 || rowNum < 0 || dataLength < 0 || size < 0) {
+      return null;
+    }
+    ResultSetRowIndex index = new ResultSetRowIndex(interval);
+    index.offsets = new long[Math.max(size, 1)];
+    for (int i = 0; i < size; i++) {
+      index.add(in.readLong());
+    }
+    index.complete(rowNum, dataLength);
+    return index;
+  }
+
+  public static FsPath getIndexPath(FsPath resultSetPath) {
+    return new FsPath(resultSetPath.getSchemaPath() + INDEX_FILE_SUFFIX);
+  }
+
+  public static boolean isIndexPath(String path) {
+    return path != null && path.endsWith(Dolphin.DOLPHIN_FILE_SUFFIX + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * Load the index of a result set file. A missing, broken or stale index(written for a file of
+   * another length) is ignored, so callers can always fall back to scanning.
+   * 加载结果集的行索引，索引不存在、损坏或与文件长度不一致时返回null
+   *
+   * @param fs
+   * @param resultSetPath
+   * @param fileLength the current length of the result set file
+   * @return null if there is no usable index
+   */
+  public static ResultSetRowIndex load(Fs fs, FsPath resultSetPath, long fileLength) {
+    FsPath indexPath = getIndexPath(resultSetPath);
+    InputStream inputStream = null;
+    try {
+      if (!fs.exists(indexPath)) {
+        return null;
+      }
+      inputStream = fs.read(indexPath);
+      ResultSetRowIndex index = readFrom(inputStream);
+      if (index == null || index.getDataLength() != fileLength) {
+        logger.info("Ignore the stale row index {}", indexPath.getPath());
+        return null;
+      }
+      return index;
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to load the row index {}", indexPath.getPath(), e);
+      return null;
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  /**
+   * Write the index next to the result set file, failures are only logged since the index is just
+   * an optimization
+   *
+   * @param fs
+   * @param resultSetPath
+   * @param index
+   */
+  public static void save(Fs fs, FsPath resultSetPath, ResultSetRowIndex index) {
+    if (!index.isComplete()) {
+      return;
+    }
+    FsPath indexPath = getIndexPath(resultSetPath);
+    OutputStream outputStream = null;
+    try {
+      outputStream = fs.write(indexPath, true);
+      index.writeTo(outputStream);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to save the row index {}: {}", indexPath.getPath(), e.getMessage());
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+    }
+  }
+}
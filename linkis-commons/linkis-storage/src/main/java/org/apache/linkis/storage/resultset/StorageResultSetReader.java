@@ -18,6 +18,7 @@
 package org.apache.linkis.storage.resultset;
 
 import org.apache.linkis.common.io.Fs;
+import org.apache.linkis.common.io.FsPath;
 import org.apache.linkis.common.io.MetaData;
 import org.apache.linkis.common.io.Record;
 import org.apache.linkis.common.io.resultset.ResultDeserializer;
@@ -25,6 +26,8 @@ import org.apache.linkis.common.io.resultset.ResultSet;
 import org.apache.linkis.common.io.resultset.ResultSetReader;
 import org.apache.linkis.storage.domain.Dolphin;
 import org.apache.linkis.storage.exception.StorageWarnException;
+import org.apache.linkis.storage.resultset.table.TableRecordBatch;
+import org.apache.linkis.storage.resultset.table.TableResultDeserializer;
 import org.apache.linkis.storage.utils.StorageUtils;
 
 import org.apache.commons.io.IOUtils;
@@ -33,6 +36,7 @@ import org.apache.commons.lang3.StringUtils;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.slf4j.Logger;
@@ -43,6 +47,9 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
 
   private static final Logger logger = LoggerFactory.getLogger(StorageResultSetReader.class);
 
+  /** Marker, row count and column count of a columnar record batch */
+  private static final int BATCH_HEADER_LEN = 1 + Integer.BYTES * 2;
+
   private final ResultSet<K, V> resultSet;
   private final InputStream inputStream;
   private final ResultDeserializer<K, V> deserializer;
@@ -51,9 +58,22 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
   private int colCount = 0;
   private int rowCount = 0;
   private Fs fs;
+  /** Bytes consumed from the input stream(已读取的字节数) */
+  private long position = 0;
+  /** Index of the next record(下一条记录的行号) */
+  private int recordIndex = 0;
+  /** Complete row index used to seek, null if the file is scanned */
+  private ResultSetRowIndex rowIndex;
+  /** Row index built while scanning a file without index, saved once the scan reaches the end */
+  private ResultSetRowIndex indexBuilder;
+
+  private Fs indexFs;
+  private FsPath indexResultSetPath;
+  private long fileLength = -1;
+  /** Columnar batch whose rows are being returned, and the index of its next row */
+  private TableRecordBatch batch;
 
-  private final int READ_CACHE = 1024;
-  private final byte[] bytes = new byte[READ_CACHE];
+  private int batchIndex = 0;
 
   public StorageResultSetReader(ResultSet<K, V> resultSet, InputStream inputStream) {
     super(resultSet, inputStream);
@@ -67,6 +87,7 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
   }
 
   public void init() throws IOException {
+    position += Dolphin.MAGIC_LEN + Dolphin.INT_LEN;
     String resType = Dolphin.getType(inputStream);
     if (!StringUtils.equals(resultSet.resultSetType(), resType)) {
       throw new RuntimeException(
@@ -83,23 +104,15 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
       logger.info("Read finished(读取完毕)");
       return null;
     }
+    position += Dolphin.INT_LEN;
 
-    byte[] rowBuffer = new byte[0];
-    int len = 0;
-
-    while (rowLen > 0 && len >= 0) {
-      if (rowLen > READ_CACHE) {
-        len = StorageUtils.readBytes(inputStream, bytes, READ_CACHE);
-      } else {
-        len = StorageUtils.readBytes(inputStream, bytes, rowLen);
-      }
-
-      if (len > 0) {
-        rowLen -= len;
-        rowBuffer = Arrays.copyOf(rowBuffer, rowBuffer.length + len);
-        System.arraycopy(bytes, 0, rowBuffer, rowBuffer.length - len, len);
-      }
+    // Read the whole row at once into an array of the exact size, instead of growing it per chunk
+    byte[] rowBuffer = new byte[rowLen];
+    int len = StorageUtils.readBytes(inputStream, rowBuffer, rowLen);
+    if (len < rowLen) {
+      rowBuffer = Arrays.copyOf(rowBuffer, Math.max(len, 0));
     }
+    position += Math.max(len, 0);
     rowCount++;
     return rowBuffer;
   }
@@ -122,6 +135,32 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
     return fs;
   }
 
+  /**
+   * Use the sidecar row index of the result set file to seek when skipping records. Without a
+   * usable index the records are scanned as before, and an index is built on the way and saved
+   * when the scan reaches the end of the file, so legacy files get their index on the first full
+   * read.
+   * 使用结果集的行索引跳过记录，没有索引时在顺序读取到文件末尾后补建索引
+   *
+   * @param fs not closed by this reader
+   * @param resultSetPath
+   * @param fileLength the length of the result set file
+   * @param interval interval of the built index, no index is built if not positive
+   */
+  public void setRowIndex(Fs fs, FsPath resultSetPath, long fileLength, int interval) {
+    this.rowIndex = ResultSetRowIndex.load(fs, resultSetPath, fileLength);
+    if (rowIndex == null && interval > 0 && fileLength > 0) {
+      this.indexFs = fs;
+      this.indexResultSetPath = resultSetPath;
+      this.fileLength = fileLength;
+      this.indexBuilder = new ResultSetRowIndex(interval);
+    }
+  }
+
+  public ResultSetRowIndex getRowIndex() {
+    return rowIndex;
+  }
+
   @Override
   public MetaData getMetaData() {
     if (metaData == null) {
@@ -140,16 +179,147 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
     if (recordNum < 0) return -1;
 
     if (metaData == null) getMetaData();
-    for (int i = recordNum; i > 0; i--) {
+    int remaining = recordNum - skipBatchRows(recordNum);
+    remaining -= seek(remaining);
+    while (remaining > 0) {
       try {
-        inputStream.skip(Dolphin.readInt(inputStream));
+        markRecord();
+        int rowLen = Dolphin.readInt(inputStream);
+        position += Dolphin.INT_LEN;
+        remaining -= skipRecord(rowLen, remaining);
       } catch (Throwable t) {
-        return recordNum - i;
+        onReadFinished();
+        return recordNum - remaining;
       }
     }
     return recordNum;
   }
 
+  /** Skip the rows left in the current batch */
+  private int skipBatchRows(int recordNum) {
+    if (batch == null) return 0;
+    int skipped = Math.min(recordNum, batch.size() - batchIndex);
+    batchIndex += skipped;
+    recordIndex += skipped;
+    return skipped;
+  }
+
+  /**
+   * Skip the record of rowLen bytes following the row length. A columnar batch is skipped as a
+   * whole by its row count, unless the target row is inside of it, then the batch is decoded and
+   * the rows before the target are skipped
+   *
+   * @return the number of the rows skipped
+   */
+  private int skipRecord(int rowLen, int recordNum) throws IOException {
+    if (rowLen < BATCH_HEADER_LEN || !(deserializer instanceof TableResultDeserializer)) {
+      position += skipBytes(rowLen);
+      recordIndex++;
+      return 1;
+    }
+    byte[] header = new byte[BATCH_HEADER_LEN];
+    int len = StorageUtils.readBytes(inputStream, header, 1);
+    position += Math.max(len, 0);
+    if (len < 1 || !TableResultDeserializer.isRecordBatch(header)) {
+      position += skipBytes(rowLen - 1);
+      recordIndex++;
+      return 1;
+    }
+    // the rows inside of batches are not indexed
+    indexBuilder = null;
+    len = StorageUtils.readBytes(inputStream, header, 1, BATCH_HEADER_LEN - 1);
+    position += Math.max(len, 0);
+    if (len < BATCH_HEADER_LEN - 1) {
+      throw new IOException("The record batch at " + position + " is truncated");
+    }
+    int batchRows = ByteBuffer.wrap(header, 1, Integer.BYTES).getInt();
+    if (batchRows <= recordNum) {
+      position += skipBytes(rowLen - BATCH_HEADER_LEN);
+      recordIndex += batchRows;
+      return batchRows;
+    }
+    byte[] bytes = Arrays.copyOf(header, rowLen);
+    len = StorageUtils.readBytes(inputStream, bytes, BATCH_HEADER_LEN, rowLen - BATCH_HEADER_LEN);
+    position += Math.max(len, 0);
+    startBatch(bytes);
+    return skipBatchRows(recordNum);
+  }
+
+  private void startBatch(byte[] bytes) {
+    batch = ((TableResultDeserializer) deserializer).createRecordBatch(bytes);
+    batchIndex = 0;
+    indexBuilder = null;
+  }
+
+  /**
+   * Jump to the last indexed row before the target record
+   *
+   * @param recordNum
+   * @return the number of the records jumped over
+   */
+  private int seek(int recordNum) throws IOException {
+    if (rowIndex == null) return 0;
+    long target = Math.min((long) recordIndex + recordNum, rowIndex.getRowNum());
+    int row;
+    long offset;
+    if (target == rowIndex.getRowNum()) {
+      row = rowIndex.getRowNum();
+      offset = rowIndex.getDataLength();
+    } else {
+      int checkpoint = (int) (target / rowIndex.getInterval());
+      row = checkpoint * rowIndex.getInterval();
+      offset = rowIndex.getOffset(checkpoint);
+    }
+    if (row <= recordIndex || offset < position) return 0;
+    long skipped = skipBytes(offset - position);
+    position += skipped;
+    if (position != offset) {
+      throw new IOException(
+          "Failed to seek to row " + row + " at " + offset + ", the row index is out of date");
+    }
+    int seeked = row - recordIndex;
+    recordIndex = row;
+    return seeked;
+  }
+
+  /** Skip bytes with InputStream.skip, which seeks on file streams instead of reading */
+  private long skipBytes(long len) throws IOException {
+    long remaining = len;
+    while (remaining > 0) {
+      long skipped = inputStream.skip(remaining);
+      if (skipped <= 0) {
+        if (inputStream.read() < 0) break;
+        skipped = 1;
+      }
+      remaining -= skipped;
+    }
+    return len - remaining;
+  }
+
+  private void markRecord() {
+    if (indexBuilder != null
+        && recordIndex % indexBuilder.getInterval() == 0
+        && recordIndex / indexBuilder.getInterval() == indexBuilder.size()) {
+      indexBuilder.add(position);
+    }
+  }
+
+  private void onReadFinished() {
+    if (indexBuilder == null) return;
+    ResultSetRowIndex builtIndex = indexBuilder;
+    indexBuilder = null;
+    // an unfinished or truncated file gets no index
+    if (position != fileLength || recordIndex < builtIndex.getInterval()) return;
+    try {
+      builtIndex.complete(recordIndex, position);
+    } catch (IllegalStateException e) {
+      logger.warn("Skip the row index of {}", indexResultSetPath, e);
+      return;
+    }
+    ResultSetRowIndex.save(indexFs, indexResultSetPath, builtIndex);
+    rowIndex = builtIndex;
+  }
+
   @Override
   public long getPosition() throws IOException {
     return rowCount;
@@ -158,8 +328,26 @@ public class StorageResultSetReader<K extends MetaData, V extends Record>
   @Override
   public boolean hasNext() throws IOException {
     if (metaData == null) getMetaData();
+    if (batch != null) {
+      if (batchIndex < batch.size()) {
+        row = batch.getRecord(batchIndex++);
+        recordIndex++;
+        return true;
+      }
+      batch = null;
+    }
+    markRecord();
     byte[] line = readLine();
-    if (line == null) return false;
+    if (line == null) {
+      onReadFinished();
+      return false;
+    }
+    if (deserializer instanceof TableResultDeserializer
+        && TableResultDeserializer.isRecordBatch(line)) {
+      startBatch(line);
+      return hasNext();
+    }
+    recordIndex++;
     row = deserializer.createRecord(line);
     if (row == null) return false;
     return true;
@@ -22,8 +22,11 @@ import org.apache.linkis.common.io.resultset.*;
 import org.apache.linkis.common.io.resultset.ResultSetWriter;
 import org.apache.linkis.common.utils.*;
 import org.apache.linkis.storage.*;
+import org.apache.linkis.storage.buffer.ByteChunkPool;
+import org.apache.linkis.storage.buffer.ChunkedByteBuffer;
 import org.apache.linkis.storage.conf.*;
 import org.apache.linkis.storage.domain.*;
+import org.apache.linkis.storage.resultset.table.TableRecordBatch;
 import org.apache.linkis.storage.utils.*;
 
 import org.apache.commons.io.IOUtils;
@@ -31,8 +34,7 @@ import org.apache.hadoop.hdfs.client.HdfsDataOutputStream;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +43,11 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
     extends ResultSetWriter<K, V> {
   private static final Logger logger = LoggerFactory.getLogger(StorageResultSetWriter.class);
 
+  /** Times the cached content of a writer was spilled to the file system(缓存写入文件系统的次数) */
+  private static final AtomicLong SPILL_COUNT = new AtomicLong(0);
+
+  private static final AtomicLong SPILLED_BYTES = new AtomicLong(0);
+
   private final ResultSet<K, V> resultSet;
   private final long maxCacheSize;
   private final FsPath storePath;
@@ -49,11 +56,19 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
   private boolean moveToWriteRow = false;
   private OutputStream outputStream = null;
   private int rowCount = 0;
-  private final List<Byte> buffer = new ArrayList<Byte>();
+  /** Bytes written by writeLine, cached or not(已写入的字节数) */
+  private long writtenBytes = 0;
+  /** Offsets of the rows for the sidecar row index, null if no index is built */
+  private ResultSetRowIndex rowIndex = null;
+  private final ChunkedByteBuffer buffer = new ChunkedByteBuffer();
+  /** The cached content once the writer is closed without a file(关闭后仍保留在内存中的结果) */
+  private byte[] closedBytes = null;
   private Fs fs = null;
   private MetaData rMetaData = null;
   private String proxyUser = StorageUtils.getJvmUser();
   private boolean fileCreated = false;
+  /** Columnar batches are binary, so the content is always written into the file */
+  private boolean hasRecordBatch = false;
   private boolean closed = false;
   private final Object WRITER_LOCK_CREATE = new Object();
   private final Object WRITER_LOCK_CLOSE = new Object();
@@ -65,6 +80,9 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
     this.storePath = storePath;
 
     this.serializer = resultSet.createResultSetSerializer();
+    if (storePath != null && LinkisStorageConf.RESULT_SET_ROW_INDEX_INTERVAL > 0) {
+      this.rowIndex = new ResultSetRowIndex(LinkisStorageConf.RESULT_SET_ROW_INDEX_INTERVAL);
+    }
   }
 
   public MetaData getMetaData() {
@@ -76,7 +94,7 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
   }
 
   public boolean isEmpty() {
-    return rMetaData == null && buffer.size() <= Dolphin.FILE_EMPTY;
+    return rMetaData == null && getCachedSize() <= Dolphin.FILE_EMPTY;
   }
 
   public void init() {
@@ -128,15 +146,17 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
       flush();
       outputStream.write(bytes);
     } else {
-      for (byte b : bytes) {
-        buffer.add(b);
-      }
+      buffer.write(bytes);
     }
+    writtenBytes += bytes.length;
   }
 
   @Override
   public String toString() {
-    if (outputStream == null) {
+    if (hasRecordBatch && !closed) {
+      flush();
+    }
+    if (outputStream == null && !hasRecordBatch) {
       if (isEmpty()) {
         return "";
       }
@@ -148,11 +168,17 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
   }
 
   private byte[] getBytes() {
-    byte[] byteArray = new byte[buffer.size()];
-    for (int i = 0; i < buffer.size(); i++) {
-      byteArray[i] = buffer.get(i);
+    if (closedBytes != null) {
+      return closedBytes;
     }
-    return byteArray;
+    return buffer.toByteArray();
+  }
+
+  private long getCachedSize() {
+    if (closedBytes != null) {
+      return closedBytes.length;
+    }
+    return buffer.size();
   }
 
   @Override
@@ -163,6 +189,8 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
   @Override
   public void addMetaDataAndRecordString(String content) {
     if (!moveToWriteRow) {
+      // the rows inside the content are unknown
+      rowIndex = null;
       byte[] bytes = content.getBytes(Dolphin.CHAR_SET);
       try {
         writeLine(bytes, false);
@@ -193,15 +221,57 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
   @Override
   public void addRecord(Record record) {
     if (moveToWriteRow) {
+      if (record instanceof TableRecordBatch) {
+        addRecordBatch((TableRecordBatch) record);
+        return;
+      }
+      if (rowIndex != null && rowCount % rowIndex.getInterval() == 0) {
+        rowIndex.add(writtenBytes);
+      }
       rowCount++;
       try {
         writeLine(serializer.recordToBytes(record), false);
       } catch (IOException e) {
+        rowIndex = null;
         logger.warn("addMetaDataAndRecordString failed", e);
       }
     }
   }
 
+  /**
+   * Write the batch as one columnar record. Without a store path the content is kept as String, so
+   * the rows are written one by one instead. A batch that needs more bytes than a single row may
+   * have is split in halves. The rows inside of batches are not indexed
+   * 将批量记录作为一条列式记录写入，没有存储路径时逐行写入，超过单行上限时对半拆分
+   *
+   * @param batch
+   */
+  private void addRecordBatch(TableRecordBatch batch) {
+    if (storePath == null || batch.size() <= 1) {
+      for (int i = 0; i < batch.size(); i++) {
+        addRecord(batch.getRecord(i));
+      }
+      return;
+    }
+    byte[] bytes;
+    try {
+      bytes = serializer.recordToBytes(batch);
+    } catch (IllegalArgumentException e) {
+      int half = batch.size() / 2;
+      addRecordBatch(batch.slice(0, half));
+      addRecordBatch(batch.slice(half, batch.size()));
+      return;
+    }
+    rowIndex = null;
+    try {
+      writeLine(bytes, false);
+      hasRecordBatch = true;
+      rowCount += batch.size();
+    } catch (IOException e) {
+      logger.warn("addRecordBatch failed", e);
+    }
+  }
+
   public void closeFs() {
     if (fs != null) {
       IOUtils.closeQuietly(fs);
@@ -223,25 +293,46 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
       }
     }
     try {
-      if (outputStream != null) {
+      if (outputStream != null || hasRecordBatch) {
         flush();
+      } else if (!buffer.isEmpty()) {
+        // keep the content for toString() and give the chunks back to the pool
+        closedBytes = buffer.toByteArray();
       }
     } finally {
+      buffer.clear();
       if (outputStream != null) {
         IOUtils.closeQuietly(outputStream);
         outputStream = null;
+        saveRowIndex();
       }
       closeFs();
     }
   }
 
+  private void saveRowIndex() {
+    if (rowIndex == null || fs == null || rowCount < rowIndex.getInterval()) {
+      return;
+    }
+    try {
+      rowIndex.complete(rowCount, writtenBytes);
+      ResultSetRowIndex.save(fs, storePath, rowIndex);
+    } catch (IllegalStateException e) {
+      logger.warn("Skip the row index of {}", storePath, e);
+    } finally {
+      rowIndex = null;
+    }
+  }
+
   @Override
   public void flush() {
     createNewFile();
     if (outputStream != null) {
       try {
         if (!buffer.isEmpty()) {
-          outputStream.write(getBytes());
+          buffer.writeTo(outputStream);
+          SPILL_COUNT.incrementAndGet();
+          SPILLED_BYTES.addAndGet(buffer.size());
           buffer.clear();
         }
         if (outputStream instanceof HdfsDataOutputStream) {
@@ -257,4 +348,26 @@ public class StorageResultSetWriter<K extends MetaData, V extends Record>
       logger.debug("the writer had been closed, but flush() was still called.");
     }
   }
+
+  public static long getSpillCount() {
+    return SPILL_COUNT.get();
+  }
+
+  public static long getSpilledBytes() {
+    return SPILLED_BYTES.get();
+  }
+
+  /**
+   * Bytes of the unreleased chunks of all the writers: the open ones, and the ones dropped without
+   * close() until their buffer is collected(所有写入器未释放的字节块大小)
+   *
+   * @return
+   */
+  public static long getCachedBytes() {
+    return ByteChunkPool.getInstance().getUsedBytes();
+  }
+
+  public static long getPooledBytes() {
+    return ByteChunkPool.getInstance().getPooledBytes();
+  }
 }
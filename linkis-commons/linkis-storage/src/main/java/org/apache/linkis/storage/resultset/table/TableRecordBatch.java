@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.resultset.table;
+
+import org.apache.linkis.common.io.Record;
+import org.apache.linkis.storage.resultset.ResultRecord;
+
+import java.util.Arrays;
+
+/**
+ * A batch of table rows kept column by column. The values keep their Java types(Boolean, Integer,
+ * Long, Double...), so a whole batch is written as one columnar record of the table result set
+ * without converting every cell to a String. Readers get the rows back one by one as TableRecord.
+ * 按列保存的一批表格行，整批作为一条列式记录写入结果集，避免逐个单元格转换为字符串
+ */
+public class TableRecordBatch implements ResultRecord {
+
+  private final Object[][] columns;
+
+  private int size;
+
+  public TableRecordBatch(int colCount, int capacity) {
+    this(new Object[colCount][capacity], 0);
+  }
+
+  TableRecordBatch(Object[][] columns, int size) {
+    this.columns = columns;
+    this.size = size;
+  }
+
+  /**
+   * Append a row to the batch
+   *
+   * @param row
+   * @return false if the batch is full
+   */
+  public boolean addRow(Object[] row) {
+    if (isFull()) {
+      return false;
+    }
+    for (int i = 0; i < columns.length; i++) {
+      columns[i][size] = i < row.length ? row[i] : null;
+    }
+    size++;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isFull() {
+    return columns.length == 0 || size >= columns[0].length;
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+
+  public Object getValue(int colIndex, int rowIndex) {
+    return columns[colIndex][rowIndex];
+  }
+
+  public TableRecord getRecord(int rowIndex) {
+    Object[] row = new Object[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      row[i] = columns[i][rowIndex];
+    }
+    return new TableRecord(row);
+  }
+
+  /**
+   * Copy the rows [from, to) into a new batch
+   *
+   * @param from
+   * @param to
+   * @return
+   */
+  public TableRecordBatch slice(int from, int to) {
+    Object[][] sliced = new Object[columns.length][];
+    for (int i = 0; i < columns.length; i++) {
+      sliced[i] = new Object[to - from];
+      System.arraycopy(columns[i], from, sliced[i], 0, to - from);
+    }
+    return new TableRecordBatch(sliced, to - from);
+  }
+
+  /** Remove all the rows, so that the batch can be filled again(清空批量记录以便复用) */
+  public void clear() {
+    for (Object[] column : columns) {
+      Arrays.fill(column, 0, size, null);
+    }
+    size = 0;
+  }
+
+  @Override
+  public Record cloneRecord() {
+    return slice(0, size);
+  }
+}
@@ -23,6 +23,8 @@ import org.apache.linkis.storage.domain.DataType;
 import org.apache.linkis.storage.domain.Dolphin;
 import org.apache.linkis.storage.exception.StorageWarnException;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -69,32 +71,215 @@ public class TableResultDeserializer extends ResultDeserializer<TableMetaData, T
   /**
    * colByteLen:All column fields are long(所有列字段长 记录的长度) colString：Obtain column
    * length(获得列长)：10，20，21 colArray：Column length array(列长数组) Get data by column length(通过列长获得数据)
+   * Records written in the binary(v2) layout start with Dolphin.TABLE_RECORD_V2_MARKER and are
+   * decoded by createBinaryRecord(二进制格式的记录由createBinaryRecord解析)
    *
    * @param bytes
    * @return
    */
   @Override
   public TableRecord createRecord(byte[] bytes) {
-    int colByteLen = Integer.parseInt(Dolphin.getString(bytes, 0, Dolphin.INT_LEN));
-    String colString = Dolphin.getString(bytes, Dolphin.INT_LEN, colByteLen);
-    String[] colArray;
-    if (colString.endsWith(Dolphin.COL_SPLIT)) {
-      colArray = colString.substring(0, colString.length() - 1).split(Dolphin.COL_SPLIT);
-    } else {
-      colArray = colString.split(Dolphin.COL_SPLIT);
+    if (bytes.length > 0 && bytes[0] == Dolphin.TABLE_RECORD_V2_MARKER) {
+      return createBinaryRecord(bytes);
     }
-    int index = Dolphin.INT_LEN + colByteLen;
-    Object[] data = new Object[colArray.length];
-    for (int i = 0; i < colArray.length; i++) {
-      int len = Integer.parseInt(colArray[i]);
-      String res = Dolphin.getString(bytes, index, len);
+    int colByteLen = Dolphin.parseInt(bytes, 0, Dolphin.INT_LEN);
+    int colEnd = Dolphin.INT_LEN + colByteLen;
+    // Count the columns first, the column index always ends with a comma when written by Linkis
+    int colCount = 0;
+    for (int i = Dolphin.INT_LEN; i < colEnd; i++) {
+      if (bytes[i] == Dolphin.COL_SPLIT_BYTES[0]) {
+        colCount++;
+      }
+    }
+    if (colByteLen > 0 && bytes[colEnd - 1] != Dolphin.COL_SPLIT_BYTES[0]) {
+      colCount++;
+    }
+    Object[] data = new Object[colCount];
+    int lenStart = Dolphin.INT_LEN;
+    int index = colEnd;
+    for (int i = 0; i < colCount; i++) {
+      int lenEnd = lenStart;
+      while (lenEnd < colEnd && bytes[lenEnd] != Dolphin.COL_SPLIT_BYTES[0]) {
+        lenEnd++;
+      }
+      int len = Dolphin.parseInt(bytes, lenStart, lenEnd - lenStart);
+      lenStart = lenEnd + 1;
+      data[i] = toValue(i, bytes, index, len);
       index += len;
-      if (i >= metaData.columns.length) {
-        data[i] = res;
-      } else {
-        data[i] = DataType.toValue(metaData.columns[i].getDataType(), res);
+    }
+    return new TableRecord(data);
+  }
+
+  /**
+   * Decode a binary(v2) record: v2 marker, column count (varint), then a varint length followed by
+   * the real data for each column(解析二进制(v2)格式的记录)
+   *
+   * @param bytes
+   * @return
+   */
+  private TableRecord createBinaryRecord(byte[] bytes) {
+    int index = 1;
+    int colCount = Dolphin.readVarInt(bytes, index);
+    index += Dolphin.varIntLen(colCount);
+    Object[] data = new Object[colCount];
+    for (int i = 0; i < colCount; i++) {
+      int len = Dolphin.readVarInt(bytes, index);
+      index += Dolphin.varIntLen(len);
+      if (index + len > bytes.length) {
+        throw new StorageWarnException(
+            PARSING_METADATA_FAILED.getErrorCode(), PARSING_METADATA_FAILED.getErrorDesc());
       }
+      data[i] = toValue(i, bytes, index, len);
+      index += len;
     }
     return new TableRecord(data);
   }
+
+  /**
+   * Records written as a columnar batch start with Dolphin.TABLE_RECORD_BATCH_MARKER, they are
+   * decoded by createRecordBatch instead of createRecord(列式批量记录由createRecordBatch解析)
+   *
+   * @param bytes
+   * @return
+   */
+  public static boolean isRecordBatch(byte[] bytes) {
+    return bytes.length > 0 && bytes[0] == Dolphin.TABLE_RECORD_BATCH_MARKER;
+  }
+
+  /**
+   * Decode a columnar batch written by TableResultSerializer: batch marker, row count and column
+   * count, then the vector type, validity bitmap and values of every column. Numeric values are
+   * read straight from the bytes, and text values are converted by their metadata type the same as
+   * the values of single records(解析列式批量记录)
+   *
+   * @param bytes
+   * @return
+   */
+  public TableRecordBatch createRecordBatch(byte[] bytes) {
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      buffer.position(1);
+      int rowCount = buffer.getInt();
+      int colCount = buffer.getInt();
+      int bitmapLen = (rowCount + 7) / 8;
+      Object[][] columns = new Object[colCount][];
+      for (int i = 0; i < colCount; i++) {
+        byte vectorType = buffer.get();
+        int bitmapPos = buffer.position();
+        buffer.position(bitmapPos + bitmapLen);
+        Object[] column = new Object[rowCount];
+        if (vectorType == TableResultSerializer.VECTOR_UTF8) {
+          int offsetPos = buffer.position();
+          int dataPos = offsetPos + Integer.BYTES * (rowCount + 1);
+          for (int row = 0; row < rowCount; row++) {
+            int start = buffer.getInt(offsetPos + Integer.BYTES * row);
+            int end = buffer.getInt(offsetPos + Integer.BYTES * (row + 1));
+            column[row] =
+                isValid(bytes, bitmapPos, row)
+                    ? toValue(i, bytes, dataPos + start, end - start)
+                    : toValue(i, Dolphin.NULL_BYTES, 0, Dolphin.NULL_BYTES.length);
+          }
+          buffer.position(dataPos + buffer.getInt(offsetPos + Integer.BYTES * rowCount));
+        } else {
+          DataType dataType =
+              i < metaData.columns.length ? metaData.columns[i].getDataType() : null;
+          for (int row = 0; row < rowCount; row++) {
+            Object value = readValue(vectorType, dataType, buffer);
+            column[row] = isValid(bytes, bitmapPos, row) ? value : null;
+          }
+        }
+        columns[i] = column;
+      }
+      return new TableRecordBatch(columns, rowCount);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      logger.warn("Failed to parse the record batch", e);
+      throw new StorageWarnException(
+          PARSING_METADATA_FAILED.getErrorCode(), PARSING_METADATA_FAILED.getErrorDesc());
+    }
+  }
+
+  private static boolean isValid(byte[] bytes, int bitmapPos, int row) {
+    return (bytes[bitmapPos + (row >> 3)] & (1 << (row & 7))) != 0;
+  }
+
+  private static Object readValue(byte vectorType, DataType dataType, ByteBuffer buffer) {
+    switch (vectorType) {
+      case TableResultSerializer.VECTOR_BOOL:
+        return buffer.get() != 0;
+      case TableResultSerializer.VECTOR_INT32:
+        int value = buffer.getInt();
+        return dataType == DataType.ShortIntType ? (Object) (short) value : (Object) value;
+      case TableResultSerializer.VECTOR_INT64:
+        return buffer.getLong();
+      case TableResultSerializer.VECTOR_FLOAT32:
+        return buffer.getFloat();
+      case TableResultSerializer.VECTOR_FLOAT64:
+        return buffer.getDouble();
+      default:
+        throw new IllegalArgumentException("Unknown vector type " + vectorType);
+    }
+  }
+
+  /**
+   * Integral columns are parsed straight from the bytes, all other types go through
+   * DataType.toValue(整数类型的列直接从byte解析，其他类型通过DataType.toValue转换)
+   */
+  private Object toValue(int colIndex, byte[] bytes, int start, int len) {
+    if (colIndex >= metaData.columns.length) {
+      return Dolphin.getString(bytes, start, len);
+    }
+    DataType dataType = metaData.columns[colIndex].getDataType();
+    switch (dataType) {
+      case ShortIntType:
+      case IntType:
+      case LongType:
+      case BigIntType:
+        Object value = parseIntegral(dataType, bytes, start, len);
+        if (value != null) {
+          return value;
+        }
+        break;
+      default:
+    }
+    return DataType.toValue(dataType, Dolphin.getString(bytes, start, len));
+  }
+
+  /**
+   * Returns null when the bytes are not a plain decimal number in the range of the type, the
+   * caller then falls back to DataType.toValue which keeps the original null and error handling
+   */
+  private static Object parseIntegral(DataType dataType, byte[] bytes, int start, int len) {
+    int i = start;
+    int end = start + len;
+    boolean negative = false;
+    if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      i++;
+    }
+    // at most 18 digits so that the value can not overflow a long
+    if (i == end || end - i > 18) {
+      return null;
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = bytes[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return null;
+      }
+      value = value * 10 + digit;
+    }
+    if (negative) {
+      value = -value;
+    }
+    switch (dataType) {
+      case ShortIntType:
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE ? (Short) (short) value : null;
+      case IntType:
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE
+            ? (Integer) (int) value
+            : null;
+      default:
+        return value;
+    }
+  }
 }
@@ -20,18 +20,57 @@ package org.apache.linkis.storage.resultset.table;
 import org.apache.linkis.common.io.MetaData;
 import org.apache.linkis.common.io.Record;
 import org.apache.linkis.common.io.resultset.ResultSerializer;
+import org.apache.linkis.storage.conf.LinkisStorageConf;
 import org.apache.linkis.storage.domain.Column;
+import org.apache.linkis.storage.domain.DataType;
 import org.apache.linkis.storage.domain.Dolphin;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 public class TableResultSerializer extends ResultSerializer {
 
+  private static final int INIT_ROW_BUFFER_SIZE = 1024;
+
+  private static final boolean UTF8_CHARSET = StandardCharsets.UTF_8.equals(Dolphin.CHAR_SET);
+
+  /** Vector types of the columns of a record batch(批量记录中列的存储类型) */
+  static final byte VECTOR_UTF8 = 0;
+  static final byte VECTOR_BOOL = 1;
+  static final byte VECTOR_INT32 = 2;
+  static final byte VECTOR_INT64 = 3;
+  static final byte VECTOR_FLOAT32 = 4;
+  static final byte VECTOR_FLOAT64 = 5;
+
+  /** Marker, row count and column count of a record batch */
+  static final int BATCH_HEADER_LEN = 1 + Integer.BYTES * 2;
+
+  private final boolean binaryRecord;
+
+  /** Reused between records so that a row costs one allocation(行缓存，在记录之间复用) */
+  private byte[] rowBuffer = new byte[INIT_ROW_BUFFER_SIZE];
+
+  private int position = 0;
+
+  /** Types of the columns written by metaDataToBytes, null if unknown */
+  private DataType[] columnTypes;
+
+  public TableResultSerializer() {
+    this(LinkisStorageConf.TABLE_RESULT_BINARY_RECORD_ENABLED);
+  }
+
+  public TableResultSerializer(boolean binaryRecord) {
+    this.binaryRecord = binaryRecord;
+  }
+
   @Override
   public byte[] metaDataToBytes(MetaData metaData) {
     TableMetaData tableMetaData = (TableMetaData) metaData;
+    columnTypes =
+        Arrays.stream(tableMetaData.columns).map(Column::getDataType).toArray(DataType[]::new);
     Object[] objects =
         Arrays.stream(tableMetaData.columns).map(Column::toArray).flatMap(Arrays::stream).toArray();
     return lineToBytes(objects);
@@ -39,7 +78,13 @@ public class TableResultSerializer extends ResultSerializer {
 
   @Override
   public byte[] recordToBytes(Record record) {
+    if (record instanceof TableRecordBatch) {
+      return batchToBytes((TableRecordBatch) record);
+    }
     TableRecord tableRecord = (TableRecord) record;
+    if (binaryRecord) {
+      return binaryLineToBytes(tableRecord.row);
+    }
     return lineToBytes(tableRecord.row);
   }
 
@@ -73,6 +118,309 @@ public class TableResultSerializer extends ResultSerializer {
     return toByteArray(length, colByteLen, colIndex, dataBytes);
   }
 
+  /**
+   * Convert a row of data to the binary(v2) record layout: line length (fixed length) v2 marker
+   * column count (varint) and then a varint length followed by the real data for each column. For
+   * example the row [peace, 1] is written as the bytes: 0000000010 0x02 0x02 0x05 peace 0x01 1.
+   * Strings are encoded straight into the reused row buffer, so no intermediate byte array is
+   * created per column 将一行数据转换为二进制(v2)格式：行长(固定长度) v2标识 列数(变长整数) 每列的长度(变长整数)及真实数据
+   *
+   * @param line
+   * @return
+   */
+  private byte[] binaryLineToBytes(Object[] line) {
+    position = Dolphin.INT_LEN;
+    ensureCapacity(1 + Dolphin.varIntLen(line.length));
+    rowBuffer[position++] = Dolphin.TABLE_RECORD_V2_MARKER;
+    position = Dolphin.writeVarInt(rowBuffer, position, line.length);
+    for (Object data : line) {
+      if (data == null) {
+        writeBytes(Dolphin.NULL_BYTES);
+      } else if (UTF8_CHARSET) {
+        writeUtf8(data instanceof String ? (String) data : data.toString());
+      } else {
+        writeBytes(Dolphin.getBytes(data));
+      }
+    }
+    Dolphin.writeIntBytes(rowBuffer, 0, position - Dolphin.INT_LEN);
+    return Arrays.copyOf(rowBuffer, position);
+  }
+
+  /**
+   * Convert a batch of rows to the columnar layout: line length (fixed length) batch marker, row
+   * count and column count (int32), and then for each column its vector type (1 byte), a validity
+   * bitmap with one bit per row that is set for the non null values, and the values. Boolean and
+   * numeric columns are stored as fixed width big-endian values, all other columns as int32 end
+   * offsets of the rows followed by the UTF-8 bytes. A column is only stored as numbers if its
+   * metadata type and all its values match, so the rows decode to the same values as the rows
+   * written one by one 将一批数据按列转换为二进制格式：行长(固定长度) 批量标识 行数 列数，每列的类型 非空位图及数据
+   *
+   * @param batch
+   * @return
+   * @throws IllegalArgumentException if the batch needs more bytes than a single row may have
+   */
+  private byte[] batchToBytes(TableRecordBatch batch) {
+    int rowCount = batch.size();
+    int colCount = batch.getColumnCount();
+    int bitmapLen = (rowCount + 7) / 8;
+    byte[] vectorTypes = new byte[colCount];
+    int[][] textLens = new int[colCount][];
+    long length = BATCH_HEADER_LEN;
+    for (int i = 0; i < colCount; i++) {
+      vectorTypes[i] = vectorType(batch, i);
+      length += 1 + bitmapLen;
+      if (vectorTypes[i] == VECTOR_UTF8) {
+        textLens[i] = new int[rowCount];
+        length += (long) Integer.BYTES * (rowCount + 1);
+        for (int row = 0; row < rowCount; row++) {
+          Object value = batch.getValue(i, row);
+          if (value != null) {
+            textLens[i][row] =
+                UTF8_CHARSET ? utf8Length(toText(value)) : Dolphin.getBytes(value).length;
+            length += textLens[i][row];
+          }
+        }
+      } else {
+        length += (long) valueWidth(vectorTypes[i]) * rowCount;
+      }
+    }
+    // the line length is counted as well, the same as the row size check of the writer
+    if (Dolphin.INT_LEN + length > LinkisStorageConf.ROW_BYTE_MAX_LEN) {
+      throw new IllegalArgumentException(
+          String.format(
+              "A batch of %d rows needs %d bytes, more than %s",
+              rowCount, Dolphin.INT_LEN + length, LinkisStorageConf.ROW_BYTE_MAX_LEN_STR));
+    }
+    byte[] bytes = new byte[Dolphin.INT_LEN + (int) length];
+    Dolphin.writeIntBytes(bytes, 0, (int) length);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    buffer.position(Dolphin.INT_LEN);
+    buffer.put(Dolphin.TABLE_RECORD_BATCH_MARKER).putInt(rowCount).putInt(colCount);
+    for (int i = 0; i < colCount; i++) {
+      byte vectorType = vectorTypes[i];
+      buffer.put(vectorType);
+      int bitmapPos = buffer.position();
+      for (int row = 0; row < rowCount; row++) {
+        if (batch.getValue(i, row) != null) {
+          bytes[bitmapPos + (row >> 3)] |= (byte) (1 << (row & 7));
+        }
+      }
+      buffer.position(bitmapPos + bitmapLen);
+      if (vectorType == VECTOR_UTF8) {
+        writeTextVector(batch, i, textLens[i], buffer);
+      } else {
+        for (int row = 0; row < rowCount; row++) {
+          writeValue(vectorType, batch.getValue(i, row), buffer);
+        }
+      }
+    }
+    return bytes;
+  }
+
+  /** Numeric vector only if both the metadata type and the values of the column agree */
+  private byte vectorType(TableRecordBatch batch, int colIndex) {
+    if (columnTypes == null || colIndex >= columnTypes.length) {
+      return VECTOR_UTF8;
+    }
+    byte vectorType;
+    switch (columnTypes[colIndex]) {
+      case BooleanType:
+        vectorType = VECTOR_BOOL;
+        break;
+      case ShortIntType:
+      case IntType:
+        vectorType = VECTOR_INT32;
+        break;
+      case LongType:
+      case BigIntType:
+        vectorType = VECTOR_INT64;
+        break;
+      case FloatType:
+        vectorType = VECTOR_FLOAT32;
+        break;
+      case DoubleType:
+        vectorType = VECTOR_FLOAT64;
+        break;
+      default:
+        return VECTOR_UTF8;
+    }
+    DataType dataType = columnTypes[colIndex];
+    for (int row = 0; row < batch.size(); row++) {
+      Object value = batch.getValue(colIndex, row);
+      if (value != null && !matches(dataType, value)) {
+        return VECTOR_UTF8;
+      }
+    }
+    return vectorType;
+  }
+
+  private static boolean matches(DataType dataType, Object value) {
+    switch (dataType) {
+      case BooleanType:
+        return value instanceof Boolean;
+      case ShortIntType:
+        return value instanceof Short || value instanceof Byte;
+      case IntType:
+        return value instanceof Integer || value instanceof Short || value instanceof Byte;
+      case LongType:
+      case BigIntType:
+        return value instanceof Long
+            || value instanceof Integer
+            || value instanceof Short
+            || value instanceof Byte;
+      case FloatType:
+        return value instanceof Float;
+      case DoubleType:
+        return value instanceof Double;
+      default:
+        return false;
+    }
+  }
+
+  private static int valueWidth(byte vectorType) {
+    switch (vectorType) {
+      case VECTOR_BOOL:
+        return 1;
+      case VECTOR_INT32:
+      case VECTOR_FLOAT32:
+        return Integer.BYTES;
+      default:
+        return Long.BYTES;
+    }
+  }
+
+  /** Null values are written as zero, the validity bitmap tells them apart */
+  private static void writeValue(byte vectorType, Object value, ByteBuffer buffer) {
+    switch (vectorType) {
+      case VECTOR_BOOL:
+        buffer.put((byte) (value != null && (Boolean) value ? 1 : 0));
+        break;
+      case VECTOR_INT32:
+        buffer.putInt(value == null ? 0 : ((Number) value).intValue());
+        break;
+      case VECTOR_INT64:
+        buffer.putLong(value == null ? 0L : ((Number) value).longValue());
+        break;
+      case VECTOR_FLOAT32:
+        buffer.putFloat(value == null ? 0F : (Float) value);
+        break;
+      default:
+        buffer.putDouble(value == null ? 0D : (Double) value);
+    }
+  }
+
+  private static void writeTextVector(
+      TableRecordBatch batch, int colIndex, int[] lens, ByteBuffer buffer) {
+    int end = 0;
+    buffer.putInt(end);
+    for (int len : lens) {
+      end += len;
+      buffer.putInt(end);
+    }
+    byte[] bytes = buffer.array();
+    int pos = buffer.position();
+    for (int row = 0; row < lens.length; row++) {
+      Object value = batch.getValue(colIndex, row);
+      if (value == null) {
+        continue;
+      }
+      if (UTF8_CHARSET) {
+        pos = encodeUtf8(toText(value), bytes, pos);
+      } else {
+        byte[] valueBytes = Dolphin.getBytes(value);
+        System.arraycopy(valueBytes, 0, bytes, pos, valueBytes.length);
+        pos += valueBytes.length;
+      }
+    }
+    buffer.position(pos);
+  }
+
+  private static String toText(Object value) {
+    return value instanceof String ? (String) value : value.toString();
+  }
+
+  private void writeBytes(byte[] bytes) {
+    ensureCapacity(Dolphin.varIntLen(bytes.length) + bytes.length);
+    position = Dolphin.writeVarInt(rowBuffer, position, bytes.length);
+    System.arraycopy(bytes, 0, rowBuffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  /**
+   * Encode the string as UTF-8 into the row buffer. Unpaired surrogates are replaced with '?' the
+   * same way String.getBytes does, so both record layouts decode to the same value
+   */
+  private void writeUtf8(String value) {
+    int byteLen = utf8Length(value);
+    ensureCapacity(Dolphin.varIntLen(byteLen) + byteLen);
+    position = Dolphin.writeVarInt(rowBuffer, position, byteLen);
+    position = encodeUtf8(value, rowBuffer, position);
+  }
+
+  /** The number of bytes encodeUtf8 writes for the string */
+  private static int utf8Length(String value) {
+    int strLen = value.length();
+    int byteLen = 0;
+    for (int i = 0; i < strLen; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        byteLen += 1;
+      } else if (c < 0x800) {
+        byteLen += 2;
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < strLen
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        byteLen += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        byteLen += 1;
+      } else {
+        byteLen += 3;
+      }
+    }
+    return byteLen;
+  }
+
+  /**
+   * Encode the string as UTF-8 into buf from pos on, which must have room for utf8Length bytes
+   *
+   * @return the position after the encoded string
+   */
+  private static int encodeUtf8(String value, byte[] buf, int pos) {
+    int strLen = value.length();
+    for (int i = 0; i < strLen; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        buf[pos++] = (byte) c;
+      } else if (c < 0x800) {
+        buf[pos++] = (byte) (0xC0 | (c >> 6));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < strLen
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+        buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        buf[pos++] = (byte) '?';
+      } else {
+        buf[pos++] = (byte) (0xE0 | (c >> 12));
+        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+    return pos;
+  }
+
+  private void ensureCapacity(int extra) {
+    int required = position + extra;
+    if (required > rowBuffer.length) {
+      rowBuffer = Arrays.copyOf(rowBuffer, Math.max(required, rowBuffer.length << 1));
+    }
+  }
+
   /**
    * Splice a row of data into a byte array(将一行的数据拼接成byte数组)
    *
@@ -85,26 +433,24 @@ public class TableResultSerializer extends ResultSerializer {
    */
   public static byte[] toByteArray(
       int length, int colByteLen, List<byte[]> colIndex, List<byte[]> dataBytes) {
-    List<Byte> row = new ArrayList<>();
-    colIndex.addAll(dataBytes);
-
-    for (byte intByte : Dolphin.getIntBytes(length)) {
-      row.add(intByte);
+    int size = Dolphin.INT_LEN * 2;
+    for (byte[] bytes : colIndex) {
+      size += bytes.length;
     }
-
-    for (byte colByte : Dolphin.getIntBytes(colByteLen)) {
-      row.add(colByte);
+    for (byte[] bytes : dataBytes) {
+      size += bytes.length;
     }
-
-    colIndex.forEach(
-        bytes -> {
-          for (byte b : bytes) {
-            row.add(b);
-          }
-        });
-    byte[] result = new byte[row.size()];
-    for (int i = 0; i < result.length; i++) {
-      result[i] = row.get(i);
+    byte[] result = new byte[size];
+    System.arraycopy(Dolphin.getIntBytes(length), 0, result, 0, Dolphin.INT_LEN);
+    System.arraycopy(Dolphin.getIntBytes(colByteLen), 0, result, Dolphin.INT_LEN, Dolphin.INT_LEN);
+    int pos = Dolphin.INT_LEN * 2;
+    for (byte[] bytes : colIndex) {
+      System.arraycopy(bytes, 0, result, pos, bytes.length);
+      pos += bytes.length;
+    }
+    for (byte[] bytes : dataBytes) {
+      System.arraycopy(bytes, 0, result, pos, bytes.length);
+      pos += bytes.length;
     }
     return result;
   }
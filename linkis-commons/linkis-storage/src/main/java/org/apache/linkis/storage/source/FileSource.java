@@ -24,6 +24,8 @@ import org.apache.linkis.storage.conf.LinkisStorageConf;
 import org.apache.linkis.storage.exception.StorageWarnException;
 import org.apache.linkis.storage.resultset.ResultSetFactory;
 import org.apache.linkis.storage.resultset.ResultSetReaderFactory;
+import org.apache.linkis.storage.resultset.ResultSetRowIndex;
+import org.apache.linkis.storage.resultset.StorageResultSetReader;
 import org.apache.linkis.storage.script.ScriptFsReader;
 import org.apache.linkis.storage.utils.StorageConfiguration;
 
@@ -91,6 +93,7 @@ public interface FileSource extends Closeable {
     // Filter non-table result sets
     FileSplit[] fileSplits =
         Arrays.stream(fsPaths)
+            .filter(fsPath -> !ResultSetRowIndex.isIndexPath(fsPath.getPath()))
             .map(fsPath -> createResultSetFileSplit(fsPath, fs))
             .filter(FileSource::isTableResultSet)
             .toArray(FileSplit[]::new);
@@ -144,9 +147,28 @@ public interface FileSource extends Closeable {
     } catch (IOException e) {
       logger.warn("FileSource createResultSetFileSplit failed", e);
     }
+    if (resultsetReader instanceof StorageResultSetReader) {
+      setRowIndex((StorageResultSetReader<?, ?>) resultsetReader, fsPath, fs);
+    }
     return new FileSplit(resultsetReader, resultset.resultSetType());
   }
 
+  static void setRowIndex(StorageResultSetReader<?, ?> reader, FsPath fsPath, Fs fs) {
+    int interval = LinkisStorageConf.RESULT_SET_ROW_INDEX_INTERVAL;
+    if (interval <= 0) {
+      return;
+    }
+    try {
+      long fileLength = fsPath.getLength();
+      if (fileLength <= 0) {
+        fileLength = fs.get(fsPath.getPath()).getLength();
+      }
+      reader.setRowIndex(fs, fsPath, fileLength, interval);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to get the row index of {}, scan the rows instead", fsPath.getPath(), e);
+    }
+  }
+
   static FileSplit createTextFileSplit(FsPath fsPath, InputStream is) {
     ScriptFsReader scriptFsReader =
         ScriptFsReader.getScriptFsReader(
@@ -224,6 +224,15 @@ public class StorageUtils {
   }
 
   public static int readBytes(InputStream inputStream, byte[] bytes, int len) {
+    return readBytes(inputStream, bytes, 0, len);
+  }
+
+  /**
+   * Read len bytes into bytes[off, off + len), less only if the stream ends
+   *
+   * @return the number of the bytes read
+   */
+  public static int readBytes(InputStream inputStream, byte[] bytes, int off, int len) {
     int readLen = 0;
     try {
       int count = 0;
@@ -233,7 +242,7 @@ public class StorageUtils {
       // com.amazonaws.services.s3.model.S3InputStream to read .dolphin files, you need to add the
       // condition readLen >= 0 in the loop.
       while (readLen < len && readLen >= 0) {
-        count = inputStream.read(bytes, readLen, len - readLen);
+        count = inputStream.read(bytes, off + readLen, len - readLen);
 
         if (count == -1 && inputStream.available() < 1) {
           return readLen;
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.buffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ChunkedByteBufferTest {
+
+  @Test
+  void testWriteAcrossChunks() throws IOException {
+    ByteChunkPool pool = new ByteChunkPool(1024 * 1024);
+    ChunkedByteBuffer buffer = new ChunkedByteBuffer(pool);
+    byte[] data = new byte[200 * 1024];
+    new Random(7).nextBytes(data);
+    for (int off = 0; off < data.length; off += 1000) {
+      buffer.write(data, off, Math.min(1000, data.length - off));
+    }
+    Assertions.assertEquals(data.length, buffer.size());
+    Assertions.assertArrayEquals(data, buffer.toByteArray());
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    buffer.writeTo(outputStream);
+    Assertions.assertArrayEquals(data, outputStream.toByteArray());
+    Assertions.assertTrue(pool.getUsedBytes() >= data.length);
+  }
+
+  @Test
+  void testClearRecyclesChunks() {
+    ByteChunkPool pool = new ByteChunkPool(1024 * 1024);
+    ChunkedByteBuffer buffer = new ChunkedByteBuffer(pool);
+    buffer.write(new byte[10 * 1024]);
+    long used = pool.getUsedBytes();
+    buffer.clear();
+    Assertions.assertTrue(buffer.isEmpty());
+    Assertions.assertEquals(0, pool.getUsedBytes());
+    Assertions.assertEquals(used, pool.getPooledBytes());
+
+    buffer.write(new byte[] {1, 2, 3});
+    Assertions.assertArrayEquals(new byte[] {1, 2, 3}, buffer.toByteArray());
+    Assertions.assertEquals(used - ByteChunkPool.CHUNK_SIZES[0], pool.getPooledBytes());
+  }
+
+  @Test
+  void testCollectedBufferReleasesChunks() throws InterruptedException {
+    ByteChunkPool pool = new ByteChunkPool(1024 * 1024);
+    new ChunkedByteBuffer(pool).write(new byte[10 * 1024]);
+    Assertions.assertTrue(pool.getUsedBytes() > 0);
+    for (int i = 0; i < 100 && pool.getUsedBytes() > 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    Assertions.assertEquals(0, pool.getUsedBytes());
+  }
+
+  @Test
+  void testPoolLimit() {
+    ByteChunkPool pool = new ByteChunkPool(0);
+    ChunkedByteBuffer buffer = new ChunkedByteBuffer(pool);
+    buffer.write(new byte[4096]);
+    buffer.clear();
+    Assertions.assertEquals(0, pool.getPooledBytes());
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.resultset;
+
+import org.apache.linkis.common.io.Fs;
+import org.apache.linkis.common.io.FsPath;
+import org.apache.linkis.common.io.MetaData;
+import org.apache.linkis.common.io.Record;
+import org.apache.linkis.common.io.resultset.ResultSet;
+import org.apache.linkis.common.io.resultset.ResultSetWriter;
+import org.apache.linkis.storage.FSFactory;
+import org.apache.linkis.storage.LineMetaData;
+import org.apache.linkis.storage.LineRecord;
+import org.apache.linkis.storage.domain.Dolphin;
+import org.apache.linkis.storage.source.FileSource;
+
+import org.apache.commons.math3.util.Pair;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultSetRowIndexTest {
+
+  private static final int ROW_NUM = 2500;
+
+  @TempDir Path tempDir;
+
+  private FsPath writeResultSet() throws IOException {
+    ResultSet<? extends MetaData, ? extends Record> resultSet =
+        ResultSetFactory.getInstance().getResultSetByType(ResultSetFactory.TEXT_TYPE);
+    ResultSetWriter<? extends MetaData, ? extends Record> writer =
+        ResultSetWriterFactory.getResultSetWriter(resultSet, Long.MAX_VALUE, null);
+    writer.addMetaData(new LineMetaData(null));
+    for (int i = 0; i < ROW_NUM; i++) {
+      writer.addRecord(new LineRecord("line-" + i));
+    }
+    writer.close();
+    File file = tempDir.resolve("_0.dolphin").toFile();
+    Files.write(file.toPath(), writer.toString().getBytes(Dolphin.CHAR_SET));
+    return new FsPath(file.getAbsolutePath());
+  }
+
+  private List<String[]> page(Fs fs, FsPath fsPath, int page, int pageSize) throws IOException {
+    try (FileSource fileSource = FileSource.create(fsPath, fs)) {
+      Pair<Object, List<String[]>>[] result = fileSource.page(page, pageSize).collect();
+      return result[0].getSecond();
+    }
+  }
+
+  @Test
+  void testWriteAndRead() throws IOException {
+    ResultSetRowIndex index = new ResultSetRowIndex(10);
+    index.add(27L);
+    index.add(200L);
+    Assertions.assertThrows(IllegalStateException.class, () -> index.complete(21, 300L));
+    index.complete(15, 300L);
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    index.writeTo(outputStream);
+    ResultSetRowIndex read =
+        ResultSetRowIndex.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+    Assertions.assertEquals(10, read.getInterval());
+    Assertions.assertEquals(15, read.getRowNum());
+    Assertions.assertEquals(300L, read.getDataLength());
+    Assertions.assertEquals(2, read.size());
+    Assertions.assertEquals(200L, read.getOffset(1));
+
+    Assertions.assertNull(
+        ResultSetRowIndex.readFrom(new ByteArrayInputStream("dolphin0000000001".getBytes())));
+    Assertions.assertTrue(ResultSetRowIndex.isIndexPath("/tmp/_0.dolphin.idx"));
+    Assertions.assertFalse(ResultSetRowIndex.isIndexPath("/tmp/_0.dolphin"));
+  }
+
+  @Test
+  void testPageWithIndex() throws IOException {
+    FsPath fsPath = writeResultSet();
+    Fs fs = FSFactory.getFs(fsPath);
+    fs.init(null);
+    long fileLength = new File(fsPath.getPath()).length();
+    Assertions.assertNull(ResultSetRowIndex.load(fs, fsPath, fileLength));
+
+    // a legacy file without index is scanned, and the index is built on the way
+    List<String[]> rows = page(fs, fsPath, 3, 100);
+    Assertions.assertEquals(100, rows.size());
+    Assertions.assertEquals("line-200", rows.get(0)[0]);
+    try (FileSource fileSource = FileSource.create(fsPath, fs)) {
+      Assertions.assertEquals(ROW_NUM, fileSource.getFileInfo(-1)[0].getSecond());
+    }
+    ResultSetRowIndex index = ResultSetRowIndex.load(fs, fsPath, fileLength);
+    Assertions.assertNotNull(index);
+    Assertions.assertEquals(ROW_NUM, index.getRowNum());
+    Assertions.assertEquals(3, index.size());
+
+    // pages are read by seeking to the indexed rows
+    rows = page(fs, fsPath, 21, 100);
+    Assertions.assertEquals(100, rows.size());
+    Assertions.assertEquals("line-2000", rows.get(0)[0]);
+    Assertions.assertEquals("line-2099", rows.get(99)[0]);
+    rows = page(fs, fsPath, 25, 120);
+    Assertions.assertEquals(0, rows.size());
+    rows = page(fs, fsPath, 13, 200);
+    Assertions.assertEquals(100, rows.size());
+    Assertions.assertEquals("line-2400", rows.get(0)[0]);
+    Assertions.assertEquals("line-2499", rows.get(99)[0]);
+    try (FileSource fileSource = FileSource.create(fsPath, fs)) {
+      Assertions.assertEquals(ROW_NUM, fileSource.getFileInfo(-1)[0].getSecond());
+    }
+    try (FileSource fileSource = FileSource.create(fsPath, fs)) {
+      Assertions.assertEquals(1500, fileSource.getFileInfo(1500)[0].getSecond());
+    }
+
+    // an index of another file length is ignored
+    Files.write(
+        new File(fsPath.getPath()).toPath(),
+        Dolphin.getIntBytes(0),
+        StandardOpenOption.APPEND);
+    Assertions.assertNull(ResultSetRowIndex.load(fs, fsPath, fileLength + Dolphin.INT_LEN));
+    fs.close();
+  }
+}
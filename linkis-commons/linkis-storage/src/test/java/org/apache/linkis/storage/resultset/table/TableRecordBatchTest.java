@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.resultset.table;
+
+import org.apache.linkis.common.io.FsPath;
+import org.apache.linkis.common.io.resultset.ResultSetWriter;
+import org.apache.linkis.storage.conf.LinkisStorageConf;
+import org.apache.linkis.storage.domain.Column;
+import org.apache.linkis.storage.domain.DataType;
+import org.apache.linkis.storage.domain.Dolphin;
+import org.apache.linkis.storage.resultset.ResultSetWriterFactory;
+import org.apache.linkis.storage.resultset.StorageResultSetReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TableRecordBatchTest {
+
+  private static final Column[] COLUMNS =
+      new Column[] {
+        new Column("name", DataType.StringType, ""),
+        new Column("age", DataType.IntType, ""),
+        new Column("id", DataType.BigIntType, ""),
+        new Column("score", DataType.DoubleType, ""),
+        new Column("flag", DataType.BooleanType, "")
+      };
+
+  private static Object[] row(int i) {
+    return new Object[] {
+      i % 7 == 0 ? null : "名字-" + i, i % 5 == 0 ? null : i, i * 1000000000L, i / 3.0, i % 2 == 0
+    };
+  }
+
+  /** A batch of one text column with two rows of the given lengths */
+  private static TableRecordBatch textBatch(int firstLen, int secondLen) {
+    TableRecordBatch batch = new TableRecordBatch(1, 2);
+    batch.addRow(new Object[] {text(firstLen)});
+    batch.addRow(new Object[] {text(secondLen)});
+    return batch;
+  }
+
+  private static String text(int len) {
+    char[] chars = new char[len];
+    Arrays.fill(chars, 'x');
+    return new String(chars);
+  }
+
+  /** Value bytes of a two rows text batch that make it exactly ROW_BYTE_MAX_LEN long */
+  private static int textLenAtRowSizeLimit() {
+    int overhead = new TableResultSerializer(false).recordToBytes(textBatch(0, 0)).length;
+    return (int) LinkisStorageConf.ROW_BYTE_MAX_LEN - overhead;
+  }
+
+  private static byte[] writeResultSet(TableResultSerializer serializer, List<Object[]> rows)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(new TableResultSet().getResultSetHeader());
+    out.write(serializer.metaDataToBytes(new TableMetaData(COLUMNS)));
+    int index = 0;
+    // single records mixed with batches of 100 and 1 rows
+    for (int size : new int[] {0, 100, 0, 1, 0}) {
+      if (size == 0) {
+        out.write(serializer.recordToBytes(new TableRecord(rows.get(index++))));
+      } else {
+        TableRecordBatch batch = new TableRecordBatch(COLUMNS.length, size);
+        while (batch.addRow(rows.get(index))) {
+          index++;
+        }
+        out.write(serializer.recordToBytes(batch));
+      }
+    }
+    Assertions.assertEquals(rows.size(), index);
+    return out.toByteArray();
+  }
+
+  private static StorageResultSetReader<TableMetaData, TableRecord> createReader(byte[] bytes) {
+    StorageResultSetReader<TableMetaData, TableRecord> reader =
+        new StorageResultSetReader<>(new TableResultSet(), new ByteArrayInputStream(bytes));
+    reader.getMetaData();
+    return reader;
+  }
+
+  @Test
+  void testBatchDecodesToSameValues() throws IOException {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 104; i++) {
+      rows.add(row(i));
+    }
+    TableResultSerializer serializer = new TableResultSerializer(false);
+    StorageResultSetReader<TableMetaData, TableRecord> reader =
+        createReader(writeResultSet(serializer, rows));
+    TableResultDeserializer deserializer = new TableResultDeserializer();
+    byte[] metaBytes = serializer.metaDataToBytes(new TableMetaData(COLUMNS));
+    deserializer.createMetaData(Arrays.copyOfRange(metaBytes, Dolphin.INT_LEN, metaBytes.length));
+    for (Object[] row : rows) {
+      byte[] bytes = serializer.recordToBytes(new TableRecord(row));
+      Object[] expected =
+          deserializer.createRecord(Arrays.copyOfRange(bytes, Dolphin.INT_LEN, bytes.length)).row;
+      Assertions.assertTrue(reader.hasNext());
+      Assertions.assertArrayEquals(expected, ((TableRecord) reader.getRecord()).row);
+    }
+    Assertions.assertFalse(reader.hasNext());
+  }
+
+  @Test
+  void testSkipBatches() throws IOException {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 104; i++) {
+      rows.add(row(i));
+    }
+    byte[] bytes = writeResultSet(new TableResultSerializer(false), rows);
+    for (int skip : new int[] {1, 50, 101, 102, 103}) {
+      StorageResultSetReader<TableMetaData, TableRecord> reader = createReader(bytes);
+      Assertions.assertEquals(skip, reader.skip(skip));
+      Assertions.assertTrue(reader.hasNext());
+      Assertions.assertEquals(rows.get(skip)[2], ((TableRecord) reader.getRecord()).row[2]);
+    }
+    StorageResultSetReader<TableMetaData, TableRecord> reader = createReader(bytes);
+    Assertions.assertEquals(104, reader.skip(200));
+    Assertions.assertFalse(reader.hasNext());
+  }
+
+  @Test
+  void testMixedColumnFallsBackToText() {
+    TableResultSerializer serializer = new TableResultSerializer(false);
+    serializer.metaDataToBytes(new TableMetaData(COLUMNS));
+    TableRecordBatch batch = new TableRecordBatch(COLUMNS.length, 2);
+    Object[] mixed = row(1);
+    mixed[1] = "abc";
+    batch.addRow(mixed);
+    batch.addRow(row(2));
+    byte[] bytes = serializer.recordToBytes(batch);
+    TableResultDeserializer deserializer = new TableResultDeserializer();
+    byte[] metaBytes = serializer.metaDataToBytes(new TableMetaData(COLUMNS));
+    deserializer.createMetaData(Arrays.copyOfRange(metaBytes, Dolphin.INT_LEN, metaBytes.length));
+    TableRecordBatch decoded =
+        deserializer.createRecordBatch(Arrays.copyOfRange(bytes, Dolphin.INT_LEN, bytes.length));
+    Assertions.assertEquals(2, decoded.size());
+    Assertions.assertEquals("abc", decoded.getValue(1, 0));
+    Assertions.assertEquals(2, decoded.getValue(1, 1));
+    Assertions.assertEquals(Boolean.TRUE, decoded.getValue(4, 1));
+  }
+
+  @Test
+  void testBatchAtRowSizeLimit() {
+    TableResultSerializer serializer = new TableResultSerializer(false);
+    int textLen = textLenAtRowSizeLimit();
+    byte[] bytes = serializer.recordToBytes(textBatch(textLen / 2, textLen - textLen / 2));
+    Assertions.assertEquals(LinkisStorageConf.ROW_BYTE_MAX_LEN, bytes.length);
+    // one byte more only with the line length counted, the writer would reject it
+    Assertions.assertThrows(
+        IllegalArgumentException.class,
+        () -> serializer.recordToBytes(textBatch(textLen / 2, textLen - textLen / 2 + 1)));
+  }
+
+  @Test
+  void testWriterSplitsBatchOverRowSizeLimit(@TempDir Path tempDir) throws IOException {
+    File file = tempDir.resolve("_0.dolphin").toFile();
+    ResultSetWriter<TableMetaData, TableRecord> writer =
+        ResultSetWriterFactory.getResultSetWriter(
+            new TableResultSet(), Long.MAX_VALUE, new FsPath(file.getAbsolutePath()));
+    writer.addMetaData(new TableMetaData(new Column[] {COLUMNS[0]}));
+    int textLen = textLenAtRowSizeLimit();
+    int firstLen = textLen / 2;
+    int secondLen = textLen - firstLen + 1;
+    writer.addRecord(textBatch(firstLen, secondLen));
+    writer.close();
+
+    StorageResultSetReader<TableMetaData, TableRecord> reader =
+        new StorageResultSetReader<>(
+            new TableResultSet(), new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+    reader.getMetaData();
+    // the batch is split into single rows instead of being dropped
+    for (int len : new int[] {firstLen, secondLen}) {
+      Assertions.assertTrue(reader.hasNext());
+      Assertions.assertEquals(len, ((String) ((TableRecord) reader.getRecord()).row[0]).length());
+    }
+    Assertions.assertFalse(reader.hasNext());
+  }
+}
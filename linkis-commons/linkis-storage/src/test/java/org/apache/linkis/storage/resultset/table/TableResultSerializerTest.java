@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.storage.resultset.table;
+
+import org.apache.linkis.storage.domain.Column;
+import org.apache.linkis.storage.domain.DataType;
+import org.apache.linkis.storage.domain.Dolphin;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class TableResultSerializerTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(TableResultSerializerTest.class);
+
+  private static final Column[] COLUMNS =
+      new Column[] {
+        new Column("name", DataType.StringType, ""),
+        new Column("age", DataType.IntType, ""),
+        new Column("id", DataType.BigIntType, ""),
+        new Column("score", DataType.DoubleType, "")
+      };
+
+  private TableResultDeserializer createDeserializer(TableResultSerializer serializer) {
+    return createDeserializer(serializer, COLUMNS);
+  }
+
+  private TableResultDeserializer createDeserializer(
+      TableResultSerializer serializer, Column[] columns) {
+    TableResultDeserializer deserializer = new TableResultDeserializer();
+    byte[] metaBytes = serializer.metaDataToBytes(new TableMetaData(columns));
+    deserializer.createMetaData(Arrays.copyOfRange(metaBytes, Dolphin.INT_LEN, metaBytes.length));
+    return deserializer;
+  }
+
+  private Object[] roundTrip(TableResultSerializer serializer, Object[] row) {
+    byte[] bytes = serializer.recordToBytes(new TableRecord(row));
+    Assertions.assertEquals(
+        bytes.length - Dolphin.INT_LEN, Dolphin.parseInt(bytes, 0, Dolphin.INT_LEN));
+    return createDeserializer(serializer)
+        .createRecord(Arrays.copyOfRange(bytes, Dolphin.INT_LEN, bytes.length))
+        .row;
+  }
+
+  @Test
+  void testLegacyRecordLayout() {
+    byte[] bytes =
+        new TableResultSerializer(false).recordToBytes(new TableRecord(new Object[] {"peace", 1}));
+    Assertions.assertEquals("000000002000000000045,1,peace1", new String(bytes, Dolphin.CHAR_SET));
+  }
+
+  @Test
+  void testBinaryAndLegacyDecodeToSameValues() {
+    Object[][] rows =
+        new Object[][] {
+          {"peace", 1, 10L, 1.5},
+          {null, "NULL", "-9223372036854775808", null},
+          {"中文,\t" + String.join("", java.util.Collections.nCopies(100, "x")), -5, "x", 0.0}
+        };
+    for (Object[] row : rows) {
+      Object[] legacy = roundTrip(new TableResultSerializer(false), row);
+      Object[] binary = roundTrip(new TableResultSerializer(true), row);
+      Assertions.assertArrayEquals(legacy, binary);
+    }
+    Object[] values = roundTrip(new TableResultSerializer(true), rows[0]);
+    Assertions.assertEquals(Integer.valueOf(1), values[1]);
+    Assertions.assertEquals(Long.valueOf(10L), values[2]);
+  }
+
+  @Test
+  void testBinaryRecordSurvivesStringRoundTrip() {
+    byte[] bytes =
+        new TableResultSerializer(true)
+            .recordToBytes(
+                new TableRecord(
+                    new Object[] {String.join("", java.util.Collections.nCopies(5000, "数")), 1}));
+    Assertions.assertEquals(Dolphin.TABLE_RECORD_V2_MARKER, bytes[Dolphin.INT_LEN]);
+    byte[] copy = new String(bytes, Dolphin.CHAR_SET).getBytes(Dolphin.CHAR_SET);
+    Assertions.assertArrayEquals(bytes, copy);
+  }
+
+  @Test
+  void testVarInt() {
+    byte[] bytes = new byte[8];
+    for (int value : new int[] {0, 63, 64, 4096, Integer.MAX_VALUE}) {
+      int end = Dolphin.writeVarInt(bytes, 0, value);
+      Assertions.assertEquals(Dolphin.varIntLen(value), end);
+      Assertions.assertEquals(value, Dolphin.readVarInt(bytes, 0));
+    }
+  }
+
+  /**
+   * Round-trips a wide table, 200 columns of strings, ints, bigints and doubles, through the legacy
+   * and the v2 layout, and reports the rows per second of encoding and of decoding and the bytes
+   * per row of each layout.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmark() {
+    int colNum = 200;
+    int rowNum = 20000;
+    DataType[] types =
+        new DataType[] {
+          DataType.StringType, DataType.IntType, DataType.BigIntType, DataType.DoubleType
+        };
+    Column[] columns = new Column[colNum];
+    for (int i = 0; i < colNum; i++) {
+      columns[i] = new Column("col_" + i, types[i % types.length], "");
+    }
+    TableRecord[] records = new TableRecord[rowNum];
+    for (int r = 0; r < rowNum; r++) {
+      Object[] row = new Object[colNum];
+      for (int i = 0; i < colNum; i++) {
+        switch (i % types.length) {
+          case 0:
+            row[i] = "value_" + r + "_" + i;
+            break;
+          case 1:
+            row[i] = r * i;
+            break;
+          case 2:
+            row[i] = (long) r * Integer.MAX_VALUE + i;
+            break;
+          default:
+            row[i] = r / (i + 1.0);
+        }
+      }
+      records[r] = new TableRecord(row);
+    }
+    for (int round = 0; round < 3; round++) {
+      for (boolean binaryRecord : new boolean[] {false, true}) {
+        TableResultSerializer serializer = new TableResultSerializer(binaryRecord);
+        byte[][] encoded = new byte[rowNum][];
+        long start = System.nanoTime();
+        for (int r = 0; r < rowNum; r++) {
+          encoded[r] = serializer.recordToBytes(records[r]);
+        }
+        long encodeTime = System.nanoTime() - start;
+        long totalBytes = 0;
+        for (int r = 0; r < rowNum; r++) {
+          totalBytes += encoded[r].length;
+          encoded[r] = Arrays.copyOfRange(encoded[r], Dolphin.INT_LEN, encoded[r].length);
+        }
+        TableResultDeserializer deserializer = createDeserializer(serializer, columns);
+        start = System.nanoTime();
+        for (int r = 0; r < rowNum; r++) {
+          deserializer.createRecord(encoded[r]);
+        }
+        long decodeTime = System.nanoTime() - start;
+        logger.info(
+            "round: {}, layout: {}, columns: {}, rows: {}, encode: {} rows/s, decode: {} rows/s, "
+                + "{} bytes/row",
+            round,
+            binaryRecord ? "v2" : "legacy",
+            colNum,
+            rowNum,
+            rowNum * 1000000000L / encodeTime,
+            rowNum * 1000000000L / decodeTime,
+            totalBytes / rowNum);
+      }
+    }
+  }
+}
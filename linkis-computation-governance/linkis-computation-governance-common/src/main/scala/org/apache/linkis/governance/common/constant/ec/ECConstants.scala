@@ -31,6 +31,42 @@ object ECConstants {
 
   val EC_TOTAL_LOCK_TIME_MILLS_KEY = "totalLockTimeMills"
 
+  val EC_RESULT_SET_CACHED_BYTES_KEY = "resultSetCachedBytes"
+
+  val EC_RESULT_SET_POOLED_BYTES_KEY = "resultSetPooledBytes"
+
+  val EC_RESULT_SET_SPILL_COUNT_KEY = "resultSetSpillCount"
+
+  val EC_RESULT_SET_SPILLED_BYTES_KEY = "resultSetSpilledBytes"
+
+  val EC_RPC_BATCH_COUNT_KEY = "rpcBatchCount"
+
+  val EC_RPC_BATCH_AVG_SIZE_KEY = "rpcBatchAvgSize"
+
+  val EC_RPC_BATCH_MAX_SIZE_KEY = "rpcBatchMaxSize"
+
+  val EC_RPC_BATCH_AVG_LATENCY_MILLS_KEY = "rpcBatchAvgLatencyMills"
+
+  val EC_RPC_BATCH_MAX_LATENCY_MILLS_KEY = "rpcBatchMaxLatencyMills"
+
+  val EC_RPC_BATCH_FAILED_MESSAGES_KEY = "rpcBatchFailedMessages"
+
+  val EC_CONCURRENT_TASK_QUEUE_SIZE_KEY = "concurrentTaskQueueSize"
+
+  val EC_CONCURRENT_TASK_DISPATCH_COUNT_KEY = "concurrentTaskDispatchCount"
+
+  val EC_CONCURRENT_TASK_AVG_DISPATCH_LATENCY_MILLS_KEY = "concurrentTaskAvgDispatchLatencyMills"
+
+  val EC_CONCURRENT_TASK_MAX_DISPATCH_LATENCY_MILLS_KEY = "concurrentTaskMaxDispatchLatencyMills"
+
+  val EC_CONCURRENT_TASK_FAILED_COUNT_KEY = "concurrentTaskFailedCount"
+
+  val ECM_BML_RESOURCE_CACHE_HIT_COUNT_KEY = "bmlResourceCacheHitCount"
+
+  val ECM_BML_RESOURCE_CACHE_MISS_COUNT_KEY = "bmlResourceCacheMissCount"
+
+  val ECM_BML_RESOURCE_LOCALIZATION_TIME_MILLS_KEY = "bmlResourceLocalizationTimeMills"
+
   val YARN_QUEUE_NAME_KEY = "yarnqueueName"
 
   val YARN_QUEUE_NAME_CONFIG_KEY = "wds.linkis.rm.yarnqueue"
@@ -18,7 +18,7 @@
 package org.apache.linkis.governance.common.protocol.task
 
 import org.apache.linkis.governance.common.entity.ExecutionNodeStatus
-import org.apache.linkis.protocol.{BroadcastProtocol, RetryableProtocol}
+import org.apache.linkis.protocol.{BatchableProtocol, BroadcastProtocol, RetryableProtocol}
 import org.apache.linkis.protocol.engine.JobProgressInfo
 import org.apache.linkis.protocol.message.RequestProtocol
 
@@ -32,6 +32,7 @@ case class ResponseTaskProgress(
     progressInfo: Array[JobProgressInfo]
 ) extends RetryableProtocol
     with RequestProtocol
+    with BatchableProtocol
 
 case class ResponseEngineLock(lock: String)
 
@@ -70,6 +71,7 @@ case class ResponseEngineStatus(
 case class ResponseTaskLog(execId: String, log: String)
     extends RetryableProtocol
     with RequestProtocol
+    with BatchableProtocol
 
 case class ResponseTaskError(execId: String, errorMsg: String)
     extends RetryableProtocol
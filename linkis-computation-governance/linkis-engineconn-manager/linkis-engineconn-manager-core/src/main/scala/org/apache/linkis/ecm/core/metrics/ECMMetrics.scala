@@ -37,4 +37,20 @@ trait ECMMetrics {
 
   def increaseFailedEngineConn(engineConn: EngineConn): Unit
 
+  def increaseBmlResourceCacheHit(): Unit
+
+  def increaseBmlResourceCacheMiss(): Unit
+
+  /**
+   * @param costMs
+   *   the time spent to localize one bml resource into the work dir of an engineconn
+   */
+  def addBmlResourceLocalizationTime(costMs: Long): Unit
+
+  def getBmlResourceCacheHitCount: Long
+
+  def getBmlResourceCacheMissCount: Long
+
+  def getBmlResourceLocalizationTime: Long
+
 }
@@ -18,7 +18,6 @@
 package org.apache.linkis.ecm.server.operator;
 
 import org.apache.linkis.common.conf.CommonVars;
-import org.apache.linkis.common.utils.Utils;
 import org.apache.linkis.ecm.server.conf.ECMConfiguration;
 import org.apache.linkis.ecm.server.exception.ECMErrorException;
 import org.apache.linkis.manager.common.operator.Operator;
@@ -30,9 +29,7 @@ import org.apache.commons.lang3.tuple.Triple;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -60,6 +57,8 @@ public class EngineConnLogOperator implements Operator {
   public static final CommonVars<Integer> MULTILINE_MAX =
       CommonVars.apply("linkis.engineconn.log.multiline.max", 500);
 
+  private static final int REVERSED_READER_BLOCK_SIZE = 64 * 1024;
+
   @Override
   public String[] getNames() {
     return new String[] {OPERATOR_NAME};
@@ -79,10 +78,10 @@ public class EngineConnLogOperator implements Operator {
               CANNOT_FETCH_MORE_THAN.getErrorDesc(),
               EngineConnLogOperator.MAX_LOG_FETCH_SIZE.getValue().toString()));
     } else if (lastRows > 0) {
-      String logs = Utils.exec(new String[] {"tail", "-n", lastRows + "", logPath.getPath()}, 5000);
+      List<String> logs = readLastLines(logPath, lastRows);
       Map<String, Object> stringObjectHashMap = new HashMap<>();
-      stringObjectHashMap.put("logs", logs.split("\n"));
-      stringObjectHashMap.put("rows", logs.length());
+      stringObjectHashMap.put("logs", logs.toArray(new String[0]));
+      stringObjectHashMap.put("rows", logs.size());
       return stringObjectHashMap;
     }
 
@@ -94,24 +93,29 @@ public class EngineConnLogOperator implements Operator {
     String[] onlyKeywordList =
         StringUtils.isNotEmpty(onlyKeywords) ? onlyKeywords.split(",") : new String[0];
 
-    RandomAccessFile randomReader = null;
+    LogFileIndex.LineReader lineReader = null;
     ReversedLinesFileReader reversedReader = null;
     try {
+      int readLine = 0, skippedLine = 0, lineNum = 0;
       if (enableTail) {
         logger.info("enable log operator from tail to read");
-        reversedReader = new ReversedLinesFileReader(logPath, Charset.defaultCharset());
+        reversedReader =
+            new ReversedLinesFileReader(
+                logPath, REVERSED_READER_BLOCK_SIZE, Charset.defaultCharset());
       } else {
-        randomReader = new RandomAccessFile(logPath, "r");
+        // seek to fromLine through the line index of the log, instead of skipping the lines
+        skippedLine = Math.max(fromLine - 1, 0);
+        lineReader = LogFileIndex.open(logPath, skippedLine);
+        lineNum = (int) lineReader.getLineNumber();
       }
 
       ArrayList<String> logs = new ArrayList<>(pageSize);
-      int readLine = 0, skippedLine = 0, lineNum = 0;
       boolean rowIgnore = false;
       int ignoreLine = 0;
       Pattern linePattern = Pattern.compile(EngineConnLogOperator.MULTILINE_PATTERN.getValue());
 
       int maxMultiline = MULTILINE_MAX.getValue();
-      String line = randomAndReversedReadLine(randomReader, reversedReader);
+      String line = randomAndReversedReadLine(lineReader, reversedReader);
 
       while (readLine < pageSize && line != null) {
         lineNum += 1;
@@ -140,7 +144,7 @@ public class EngineConnLogOperator implements Operator {
             readLine += 1;
           }
         }
-        line = randomAndReversedReadLine(randomReader, reversedReader);
+        line = randomAndReversedReadLine(lineReader, reversedReader);
       }
 
       if (enableTail) {
@@ -158,25 +162,39 @@ public class EngineConnLogOperator implements Operator {
       throw new ECMErrorException(
           LOG_IS_NOT_EXISTS.getErrorCode(), LOG_IS_NOT_EXISTS.getErrorDesc());
     } finally {
-      IOUtils.closeQuietly(randomReader);
+      IOUtils.closeQuietly(lineReader);
       IOUtils.closeQuietly(reversedReader);
     }
   }
 
   private String randomAndReversedReadLine(
-      RandomAccessFile randomReader, ReversedLinesFileReader reversedReader) throws IOException {
-    if (randomReader != null) {
-      String line = randomReader.readLine();
-      if (line != null) {
-        return new String(line.getBytes(StandardCharsets.ISO_8859_1), Charset.defaultCharset());
-      } else {
-        return null;
-      }
+      LogFileIndex.LineReader lineReader, ReversedLinesFileReader reversedReader)
+      throws IOException {
+    if (lineReader != null) {
+      return lineReader.readLine();
     } else {
       return reversedReader.readLine();
     }
   }
 
+  /** Read the last lines from the end of the log, without reading the lines before them */
+  private List<String> readLastLines(File logPath, int lastRows) {
+    LinkedList<String> logs = new LinkedList<>();
+    try (ReversedLinesFileReader reversedReader =
+        new ReversedLinesFileReader(
+            logPath, REVERSED_READER_BLOCK_SIZE, Charset.defaultCharset())) {
+      String line;
+      while (logs.size() < lastRows && (line = reversedReader.readLine()) != null) {
+        logs.addFirst(line);
+      }
+      return logs;
+    } catch (IOException e) {
+      logger.info("EngineConnLogOperator read last lines failed", e);
+      throw new ECMErrorException(
+          LOG_IS_NOT_EXISTS.getErrorCode(), LOG_IS_NOT_EXISTS.getErrorDesc());
+    }
+  }
+
   protected File getLogPath(Map<String, Object> parameters) {
     String logType = getAs(parameters, "logType", EngineConnLogOperator.LOG_FILE_NAME.getValue());
 
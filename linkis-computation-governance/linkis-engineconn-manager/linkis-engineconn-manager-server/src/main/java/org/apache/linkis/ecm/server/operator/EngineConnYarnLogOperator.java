@@ -56,6 +56,7 @@ public class EngineConnYarnLogOperator extends EngineConnLogOperator {
         if (logFile.exists() && logFile.getName().startsWith(".")) {
           // If is a temporary file, drop it
           logger.info(String.format("Delete the temporary yarn log file: [%s]", logPath));
+          LogFileIndex.remove(logFile);
           if (!logFile.delete()) {
             logger.warn(String.format("Fail to delete the temporary yarn log file: [%s]", logPath));
           }
@@ -0,0 +1,357 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.ecm.server.operator;
+
+import org.apache.linkis.common.conf.CommonVars;
+import org.apache.linkis.common.utils.ByteTimeUtils;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sparse line number to byte offset index of a log file, so that a page of the log can be read by
+ * seeking close to its first line instead of reading all the lines before it. The index is built
+ * incrementally as the log grows, and only as far as the requested lines. Lines end with \n, \r or
+ * \r\n, the same as RandomAccessFile.readLine. The indexes of all the log files are kept in an LRU
+ * map bounded by the memory of their offsets.
+ * 日志文件的稀疏行号到字节偏移索引，随日志增长增量构建，所有索引的内存总量有上限
+ */
+public class LogFileIndex {
+  private static final Logger logger = LoggerFactory.getLogger(LogFileIndex.class);
+
+  public static final CommonVars<Integer> LOG_INDEX_INTERVAL =
+      CommonVars.apply("linkis.engineconn.log.index.interval", 1000);
+
+  /** Max bytes of the offsets kept by all the log indexes of the ECM */
+  public static final long LOG_INDEX_MAX_MEMORY =
+      ByteTimeUtils.byteStringAsBytes(
+          CommonVars.apply("linkis.engineconn.log.index.memory.max", "32m").getValue());
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final Map<String, LogFileIndex> INDEXES = new LinkedHashMap<>(16, 0.75f, true);
+
+  private static long indexesMemory = 0L;
+
+  private final File file;
+  private Object fileKey;
+  private int interval;
+  private long[] offsets;
+  private int size;
+  // number of the lines ended before indexedLength
+  private long lineCount;
+  // offset right after the last line end that has been scanned
+  private long indexedLength;
+  private boolean lastByteCR;
+  // memory of the index counted into indexesMemory, guarded by INDEXES
+  private long accountedMemory = 0L;
+
+  LogFileIndex(File file, int interval) {
+    this.file = file;
+    this.interval = interval;
+    reset(null);
+  }
+
+  private void reset(Object fileKey) {
+    this.fileKey = fileKey;
+    offsets = new long[16];
+    offsets[0] = 0L;
+    size = 1;
+    lineCount = 0L;
+    indexedLength = 0L;
+    lastByteCR = false;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public synchronized int getInterval() {
+    return interval;
+  }
+
+  /** Number of the lines scanned so far, the last line is counted only if it has ended */
+  public synchronized long getLineCount() {
+    return lineCount;
+  }
+
+  synchronized long memory() {
+    return (long) offsets.length * Long.BYTES;
+  }
+
+  /**
+   * Scan the log from the indexed length on, until more than untilLine lines are indexed or the
+   * end of the file is reached. The index is rebuilt if the file has been replaced or truncated.
+   *
+   * @param untilLine the 0-based line number to index, Long.MAX_VALUE to scan the whole file
+   * @throws IOException
+   */
+  synchronized void refresh(long untilLine) throws IOException {
+    BasicFileAttributes attributes =
+        Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+    Object currentKey = attributes.fileKey();
+    if (!Objects.equals(fileKey, currentKey) || attributes.size() < indexedLength) {
+      if (indexedLength > 0) {
+        logger.info("Log file {} has been rotated, rebuild the line index.", file.getPath());
+      }
+      reset(currentKey);
+    }
+    if (lineCount > untilLine || attributes.size() <= indexedLength) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      long position = indexedLength;
+      while (lineCount <= untilLine) {
+        buffer.clear();
+        int len = channel.read(buffer, position);
+        if (len <= 0) {
+          break;
+        }
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < len; i++) {
+          byte b = bytes[i];
+          if (b == '\n') {
+            if (lastByteCR) {
+              // the \n of \r\n, the line has been counted at \r
+              indexedLength = position + i + 1;
+            } else {
+              endLine(position + i + 1);
+            }
+            lastByteCR = false;
+          } else if (b == '\r') {
+            endLine(position + i + 1);
+            lastByteCR = true;
+          } else {
+            lastByteCR = false;
+          }
+        }
+        position += len;
+      }
+    }
+  }
+
+  private void endLine(long nextLineOffset) {
+    lineCount += 1;
+    indexedLength = nextLineOffset;
+    if (lineCount % interval == 0) {
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      offsets[size++] = nextLineOffset;
+    }
+  }
+
+  /** Drop every other offset and double the interval, to halve the memory of the index */
+  synchronized void coarsen() {
+    int newSize = (size + 1) / 2;
+    long[] newOffsets = new long[Math.max(newSize, 16)];
+    for (int i = 0; i < newSize; i++) {
+      newOffsets[i] = offsets[i * 2];
+    }
+    offsets = newOffsets;
+    size = newSize;
+    interval *= 2;
+  }
+
+  /**
+   * Open a reader of the log from the given line on. Only the lines after the closest indexed line
+   * are skipped, and the reader is buffered.
+   *
+   * @param fromLine the 0-based number of the first line to read
+   * @return the reader, whose line number is less than fromLine if the log has less lines
+   * @throws IOException
+   */
+  public LineReader open(long fromLine) throws IOException {
+    long lineNumber;
+    long offset;
+    synchronized (this) {
+      refresh(fromLine);
+      int checkpoint = (int) Math.min(fromLine / interval, size - 1);
+      lineNumber = (long) checkpoint * interval;
+      offset = offsets[checkpoint];
+    }
+    LineReader reader = new LineReader(file, offset, lineNumber, Charset.defaultCharset());
+    try {
+      while (reader.getLineNumber() < fromLine && reader.skipLine()) {
+        // skip to fromLine
+      }
+    } catch (IOException | RuntimeException e) {
+      IOUtils.closeQuietly(reader);
+      throw e;
+    }
+    return reader;
+  }
+
+  /**
+   * Get the index of the log file, an empty index is created on the first use
+   *
+   * @param file
+   * @return
+   */
+  public static LogFileIndex get(File file) {
+    String key = file.getAbsolutePath();
+    synchronized (INDEXES) {
+      LogFileIndex index = INDEXES.get(key);
+      if (index == null) {
+        index = new LogFileIndex(file, LOG_INDEX_INTERVAL.getValue());
+        INDEXES.put(key, index);
+        index.accountedMemory = index.memory();
+        indexesMemory += index.accountedMemory;
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Open a reader of the log file from the given line on, through its index. The total memory of
+   * the indexes is kept within LOG_INDEX_MAX_MEMORY by evicting the least recently used ones.
+   *
+   * @param file
+   * @param fromLine the 0-based number of the first line to read
+   * @return
+   * @throws IOException
+   */
+  public static LineReader open(File file, long fromLine) throws IOException {
+    LogFileIndex index = get(file);
+    LineReader reader = index.open(fromLine);
+    account(index);
+    return reader;
+  }
+
+  public static void remove(File file) {
+    synchronized (INDEXES) {
+      LogFileIndex index = INDEXES.remove(file.getAbsolutePath());
+      if (index != null) {
+        indexesMemory -= index.accountedMemory;
+      }
+    }
+  }
+
+  /** Count the growth of the index, and evict or coarsen indexes when over the memory limit */
+  private static void account(LogFileIndex grown) {
+    synchronized (INDEXES) {
+      if (INDEXES.get(grown.file.getAbsolutePath()) != grown
+          || grown.memory() == grown.accountedMemory) {
+        return;
+      }
+      indexesMemory += grown.memory() - grown.accountedMemory;
+      grown.accountedMemory = grown.memory();
+      Iterator<LogFileIndex> iterator = INDEXES.values().iterator();
+      while (indexesMemory > LOG_INDEX_MAX_MEMORY && iterator.hasNext()) {
+        LogFileIndex index = iterator.next();
+        if (index != grown) {
+          iterator.remove();
+          indexesMemory -= index.accountedMemory;
+        }
+      }
+      // a single huge log, index it more sparsely
+      while (indexesMemory > LOG_INDEX_MAX_MEMORY && grown.memory() > 16 * Long.BYTES) {
+        grown.coarsen();
+        indexesMemory += grown.memory() - grown.accountedMemory;
+        grown.accountedMemory = grown.memory();
+        logger.info(
+            "Line index of {} exceeds the memory limit, coarsen it to every {} lines.",
+            grown.file.getPath(),
+            grown.getInterval());
+      }
+    }
+  }
+
+  /** Buffered forward reader of the lines of a log file */
+  public static class LineReader implements Closeable {
+    private final InputStream in;
+    private final Charset charset;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private long lineNumber;
+
+    LineReader(File file, long offset, long lineNumber, Charset charset) throws IOException {
+      FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      this.in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+      this.charset = charset;
+      this.lineNumber = lineNumber;
+      if (offset > 0) {
+        // the offset may point to the \n of a \r\n line end
+        channel.position(offset - 1);
+        if (in.read() == '\r') {
+          skipLF();
+        }
+      }
+    }
+
+    /** The 0-based number of the next line to read */
+    public long getLineNumber() {
+      return lineNumber;
+    }
+
+    public String readLine() throws IOException {
+      line.reset();
+      return readLine(true) ? new String(line.toByteArray(), charset) : null;
+    }
+
+    boolean skipLine() throws IOException {
+      return readLine(false);
+    }
+
+    private boolean readLine(boolean keep) throws IOException {
+      int b = in.read();
+      if (b == -1) {
+        return false;
+      }
+      while (b != -1 && b != '\n' && b != '\r') {
+        if (keep) {
+          line.write(b);
+        }
+        b = in.read();
+      }
+      if (b == '\r') {
+        skipLF();
+      }
+      lineNumber += 1;
+      return true;
+    }
+
+    private void skipLF() throws IOException {
+      in.mark(1);
+      if (in.read() != '\n') {
+        in.reset();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
@@ -97,6 +97,21 @@ object ECMConfiguration {
     s"$ENGINECONN_ROOT_DIR${File.separator}engineConnPublickDir"
   ).getValue
 
+  /**
+   * Node-local cache of the downloaded bml resources, shared by the engineconns launched on this
+   * node and bounded by the total size of the cached files
+   */
+  val ECM_BML_CACHE_ENABLED: Boolean =
+    CommonVars[Boolean]("linkis.ecm.bml.cache.enable", false).getValue
+
+  val ECM_BML_CACHE_DIR: String = CommonVars(
+    "linkis.ecm.bml.cache.dir",
+    s"$ENGINECONN_ROOT_DIR${File.separator}bmlResourceCache"
+  ).getValue
+
+  val ECM_BML_CACHE_MAX_SIZE: Long =
+    ByteTimeUtils.byteStringAsBytes(CommonVars("linkis.ecm.bml.cache.max.size", "10g").getValue)
+
   val ECM_LAUNCH_MAX_THREAD_SIZE: Int =
     CommonVars("wds.linkis.ecm.launch.max.thread.size", 100).getValue
 
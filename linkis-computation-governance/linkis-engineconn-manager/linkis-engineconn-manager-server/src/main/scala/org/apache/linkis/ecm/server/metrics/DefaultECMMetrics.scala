@@ -23,7 +23,7 @@ import org.apache.linkis.manager.common.entity.enumeration.NodeStatus
 import org.apache.linkis.manager.common.entity.enumeration.NodeStatus._
 
 import java.util.concurrent.ConcurrentHashMap
-import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong}
 
 import scala.collection.JavaConverters._
 
@@ -37,6 +37,12 @@ class DefaultECMMetrics extends ECMMetrics {
 
   private val failedEngineConnCount = new AtomicInteger(0)
 
+  private val bmlResourceCacheHitCount = new AtomicLong(0)
+
+  private val bmlResourceCacheMissCount = new AtomicLong(0)
+
+  private val bmlResourceLocalizationTime = new AtomicLong(0)
+
   private val startingEngineConnMap = new ConcurrentHashMap[String, EngineConn](64)
 
   private val runningEngineConnMap = new ConcurrentHashMap[String, EngineConn](64)
@@ -108,4 +114,17 @@ class DefaultECMMetrics extends ECMMetrics {
     decreaseEngineConnMetric(engineConn, failedEngineConnMap, failedEngineConnCount)
   }
 
+  override def increaseBmlResourceCacheHit(): Unit = bmlResourceCacheHitCount.incrementAndGet()
+
+  override def increaseBmlResourceCacheMiss(): Unit = bmlResourceCacheMissCount.incrementAndGet()
+
+  override def addBmlResourceLocalizationTime(costMs: Long): Unit =
+    bmlResourceLocalizationTime.addAndGet(costMs)
+
+  override def getBmlResourceCacheHitCount: Long = bmlResourceCacheHitCount.get()
+
+  override def getBmlResourceCacheMissCount: Long = bmlResourceCacheMissCount.get()
+
+  override def getBmlResourceLocalizationTime: Long = bmlResourceLocalizationTime.get()
+
 }
@@ -23,11 +23,13 @@ import org.apache.linkis.common.io.FsPath
 import org.apache.linkis.common.utils.{Logging, Utils, ZipUtils}
 import org.apache.linkis.ecm.core.engineconn.EngineConn
 import org.apache.linkis.ecm.core.launch.EngineConnManagerEnv
+import org.apache.linkis.ecm.core.metrics.ECMMetrics
 import org.apache.linkis.ecm.errorcode.EngineconnServerErrorCodeSummary._
+import org.apache.linkis.ecm.server.LinkisECMApplication
 import org.apache.linkis.ecm.server.conf.ECMConfiguration._
 import org.apache.linkis.ecm.server.exception.ECMErrorException
 import org.apache.linkis.ecm.server.service.{LocalDirsHandleService, ResourceLocalizationService}
-import org.apache.linkis.ecm.server.util.ECMUtils
+import org.apache.linkis.ecm.server.util.{BmlResourceCache, ECMUtils}
 import org.apache.linkis.manager.common.protocol.bml.BmlResource
 import org.apache.linkis.manager.engineplugin.common.launch.entity.EngineConnLaunchRequest
 import org.apache.linkis.manager.engineplugin.common.launch.process.ProcessEngineConnLaunchRequest
@@ -36,6 +38,8 @@ import org.apache.linkis.storage.FSFactory
 import org.apache.linkis.storage.fs.FileSystem
 import org.apache.linkis.storage.utils.{FileSystemUtils, StorageUtils}
 
+import org.apache.commons.lang3.StringUtils
+
 import org.springframework.core.env.Environment
 
 import java.io.File
@@ -129,11 +133,71 @@ class BmlResourceLocalizationService extends ResourceLocalizationService with Lo
     noSchemaPath
   }
 
+  private def getECMMetrics: Option[ECMMetrics] =
+    Option(LinkisECMApplication.getContext).map(_.getECMMetrics)
+
   def downloadBmlResource(
       request: ProcessEngineConnLaunchRequest,
       linkDirs: mutable.HashMap[String, String],
       resource: BmlResource,
       workDir: String
+  ): Unit = {
+    val startTime = System.currentTimeMillis
+    if (
+        ECM_BML_CACHE_ENABLED && StringUtils.isNotBlank(resource.getVersion) &&
+        resource.getVisibility != BmlResource.BmlResourceVisibility.Label
+    ) {
+      localizeBmlResourceFromCache(request, resource, workDir)
+    } else {
+      localizeBmlResource(request, linkDirs, resource, workDir)
+    }
+    getECMMetrics.foreach(_.addBmlResourceLocalizationTime(System.currentTimeMillis - startTime))
+  }
+
+  /**
+   * Hard link the resource from the node-local cache into the work dir, the resource is unpacked
+   * into the cache the same way as it is unpacked into the public dir or the work dir otherwise
+   */
+  private def localizeBmlResourceFromCache(
+      request: ProcessEngineConnLaunchRequest,
+      resource: BmlResource,
+      workDir: String
+  ): Unit = {
+    val fileName = resource.getFileName
+    val isPublic = resource.getVisibility == BmlResource.BmlResourceVisibility.Public
+    val key = BmlResourceCache.getKey(
+      resource.getResourceId,
+      resource.getVersion,
+      resource.getVisibility.toString
+    )
+    val hit = BmlResourceCache.getCache.localize(key, new File(workDir)) { dir =>
+      ECMUtils.downLoadBmlResourceToLocal(resource, request.user, dir.getPath)
+      val filePath = schema + dir.getPath + File.separator + fileName
+      val unzipDir =
+        if (isPublic) {
+          Some(dir.getPath + File.separator + fileName.substring(0, fileName.lastIndexOf(".")))
+        } else if (fileName != null && fileName.endsWith(".zip")) {
+          Some(dir.getPath)
+        } else None
+      unzipDir.foreach { unzipDir =>
+        FileSystemUtils.mkdirs(fs, new FsPath(schema + unzipDir), Utils.getJvmUser)
+        ZipUtils.unzip(filePath, schema + unzipDir)
+        fs.delete(new FsPath(filePath))
+      }
+    }
+    getECMMetrics.foreach { metrics =>
+      if (hit) metrics.increaseBmlResourceCacheHit() else metrics.increaseBmlResourceCacheMiss()
+    }
+    logger.info(
+      s"Localized BmlResource(resourceId: ${resource.getResourceId}, version: ${resource.getVersion}, fileName: $fileName) to path $workDir, cache hit: $hit."
+    )
+  }
+
+  private def localizeBmlResource(
+      request: ProcessEngineConnLaunchRequest,
+      linkDirs: mutable.HashMap[String, String],
+      resource: BmlResource,
+      workDir: String
   ): Unit = {
     val resourceId = resource.getResourceId
     val version = resource.getVersion
@@ -27,6 +27,7 @@ import org.apache.linkis.ecm.server.listener.{ECMClosedEvent, ECMReadyEvent}
 import org.apache.linkis.ecm.server.report.DefaultECMHealthReport
 import org.apache.linkis.ecm.server.service.ECMHealthService
 import org.apache.linkis.ecm.server.util.ECMUtils
+import org.apache.linkis.governance.common.constant.ec.ECConstants
 import org.apache.linkis.manager.common.entity.enumeration.{NodeHealthy, NodeStatus}
 import org.apache.linkis.manager.common.entity.metrics.{NodeHealthyInfo, NodeOverLoadInfo}
 import org.apache.linkis.manager.common.entity.resource.{CommonNodeResource, LoadInstanceResource}
@@ -37,7 +38,9 @@ import org.apache.linkis.manager.common.protocol.node.{
 }
 import org.apache.linkis.rpc.Sender
 import org.apache.linkis.rpc.message.annotation.Receiver
+import org.apache.linkis.server.BDPJettyServerHelper
 
+import java.util
 import java.util.Date
 import java.util.concurrent.TimeUnit
 
@@ -112,7 +115,7 @@ class DefaultECMHealthService extends ECMHealthService with ECMEventListener {
     resource.setMaxResource(maxResource)
     resource.setMinResource(minResource)
     heartbeat.setNodeResource(resource)
-    heartbeat.setHeartBeatMsg("")
+    heartbeat.setHeartBeatMsg(getHeartBeatMsg)
     val nodeHealthyInfo = new NodeHealthyInfo
     nodeHealthyInfo.setMsg("")
     nodeHealthyInfo.setNodeHealthy(getNodeHealthy)
@@ -120,6 +123,28 @@ class DefaultECMHealthService extends ECMHealthService with ECMEventListener {
     heartbeat
   }
 
+  /** The bml resource cache metrics of the ECM(ECM的BML资源缓存指标) */
+  private def getHeartBeatMsg: String = {
+    val metrics = LinkisECMApplication.getContext.getECMMetrics
+    val msgMap = new util.HashMap[String, Object]()
+    msgMap.put(
+      ECConstants.ECM_BML_RESOURCE_CACHE_HIT_COUNT_KEY,
+      metrics.getBmlResourceCacheHitCount.asInstanceOf[Object]
+    )
+    msgMap.put(
+      ECConstants.ECM_BML_RESOURCE_CACHE_MISS_COUNT_KEY,
+      metrics.getBmlResourceCacheMissCount.asInstanceOf[Object]
+    )
+    msgMap.put(
+      ECConstants.ECM_BML_RESOURCE_LOCALIZATION_TIME_MILLS_KEY,
+      metrics.getBmlResourceLocalizationTime.asInstanceOf[Object]
+    )
+    Utils.tryCatch(BDPJettyServerHelper.gson.toJson(msgMap)) { case e: Exception =>
+      logger.warn(s"Failed to build the heartbeat msg of ECM: ${e.getMessage}")
+      ""
+    }
+  }
+
   override def generateHealthReport(reportTime: Long): ECMHealthReport = {
     // TODO: 历史查询
     null
@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.ecm.server.util
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.ecm.server.conf.ECMConfiguration._
+
+import org.apache.commons.codec.binary.Hex
+import org.apache.commons.io.{FileUtils, IOUtils}
+
+import java.io.{File, FileInputStream, FileOutputStream, IOException}
+import java.nio.charset.StandardCharsets
+import java.nio.file._
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.MessageDigest
+import java.util
+import java.util.{Properties, UUID}
+import java.util.concurrent.{CompletableFuture, ConcurrentHashMap, ExecutionException}
+
+import scala.collection.JavaConverters._
+
+/**
+ * Node-local cache of the bml resources. An entry holds the localized content of a resource
+ * version(downloaded and unzipped) together with the MD5 of that content, and is materialized into
+ * the work dirs of the engineconns by hard links, falling back to copies when the work dir is on
+ * another file system. Hence evicting an entry never breaks a running engineconn. The cached files
+ * are read-only, so an engineconn can not modify the shared content through its link. Entries are
+ * evicted in LRU order once the total size exceeds maxSize, concurrent launches of the same
+ * resource share one download, and entries left by a previous ECM process are validated against
+ * their MD5 before the first use.
+ * ECM节点本地的BML资源缓存，按LRU淘汰，通过硬链接物化到引擎工作目录
+ */
+class BmlResourceCache(cacheDir: File, maxSize: Long) extends Logging {
+
+  import BmlResourceCache._
+
+  private class Entry(val key: String, val dir: File, val size: Long, val md5: String) {
+
+    /** false for the entries recovered from disk until their MD5 has been checked */
+    @volatile var validated: Boolean = true
+
+    /** number of the launches materializing the entry, guarded by entries */
+    var inUse: Int = 0
+
+    def contentDir: File = new File(dir, CONTENT_DIR)
+  }
+
+  private val entries = new util.LinkedHashMap[String, Entry](16, 0.75f, true)
+
+  private var totalSize = 0L
+
+  private val loading = new ConcurrentHashMap[String, CompletableFuture[Entry]]()
+
+  recover()
+
+  /**
+   * Materialize the resource into targetDir, downloading it first on a miss.
+   *
+   * @param key
+   *   identifies the resource version and its layout, see BmlResourceCache.getKey
+   * @param fill
+   *   downloads the resource into the given empty dir
+   * @return
+   *   true if the resource is served from the cache without a download
+   */
+  def localize(key: String, targetDir: File)(fill: File => Unit): Boolean = {
+    var entry = acquire(key)
+    val hit = entry != null
+    while (entry == null) {
+      entry = load(key, fill)
+    }
+    Utils.tryFinally(materialize(entry.contentDir.toPath, targetDir.toPath))(release(entry))
+    hit
+  }
+
+  def size: Long = entries.synchronized(totalSize)
+
+  def contains(key: String): Boolean = entries.synchronized(entries.containsKey(key))
+
+  /** @return the entry with its in use count increased, null on a miss */
+  private def acquire(key: String): Entry = {
+    val entry = entries.synchronized {
+      val entry = entries.get(key)
+      if (entry != null) entry.inUse += 1
+      entry
+    }
+    if (entry == null || entry.validated) {
+      entry
+    } else if (Utils.tryCatch(validate(entry))(_ => false)) {
+      entry.validated = true
+      entry
+    } else {
+      logger.warn(s"Drop the bml resource cache ${entry.dir.getPath}, its content is corrupted")
+      release(entry)
+      entries.synchronized {
+        if (entries.get(key) eq entry) remove(entry)
+      }
+      null
+    }
+  }
+
+  private def validate(entry: Entry): Boolean = {
+    val valid = digest(entry.contentDir.toPath)._2 == entry.md5
+    // left by a process that did not protect the cached files
+    if (valid) setReadOnly(entry.contentDir.toPath)
+    valid
+  }
+
+  private def release(entry: Entry): Unit = entries.synchronized {
+    entry.inUse -= 1
+    evict()
+  }
+
+  /**
+   * Download the resource, or wait for the download of a concurrent launch.
+   *
+   * @return
+   *   the acquired entry, or null if the entry loaded by another launch has been evicted meanwhile
+   */
+  private def load(key: String, fill: File => Unit): Entry = {
+    val future = new CompletableFuture[Entry]
+    val running = loading.putIfAbsent(key, future)
+    if (running != null) {
+      logger.info(s"Wait for the running download of bml resource $key")
+      try running.get()
+      catch {
+        case e: ExecutionException => throw e.getCause
+      }
+      return acquire(key)
+    }
+    Utils.tryFinally {
+      val entry = Utils.tryCatch(download(key, fill)) { t =>
+        future.completeExceptionally(t)
+        throw t
+      }
+      future.complete(entry)
+      entry
+    }(loading.remove(key, future))
+  }
+
+  private def download(key: String, fill: File => Unit): Entry = {
+    val name = getEntryName(key)
+    val tmpDir = new File(cacheDir, name + "." + UUID.randomUUID() + TMP_SUFFIX)
+    Utils.tryFinally {
+      val contentDir = new File(tmpDir, CONTENT_DIR)
+      FileUtils.forceMkdir(contentDir)
+      fill(contentDir)
+      setReadOnly(contentDir.toPath)
+      val (size, md5) = digest(contentDir.toPath)
+      val meta = new Properties
+      meta.setProperty(META_KEY, key)
+      meta.setProperty(META_SIZE, size.toString)
+      meta.setProperty(META_MD5, md5)
+      val os = new FileOutputStream(new File(tmpDir, META_FILE))
+      Utils.tryFinally(meta.store(os, null))(IOUtils.closeQuietly(os))
+
+      val dir = new File(cacheDir, name)
+      entries.synchronized {
+        // a stale dir may be left by a corrupted entry that is still being materialized
+        FileUtils.deleteQuietly(dir)
+        Files.move(tmpDir.toPath, dir.toPath, StandardCopyOption.ATOMIC_MOVE)
+        val entry = new Entry(key, dir, size, md5)
+        entry.inUse = 1
+        put(entry)
+        entry
+      }
+    }(FileUtils.deleteQuietly(tmpDir))
+  }
+
+  private def put(entry: Entry): Unit = {
+    val old = entries.put(entry.key, entry)
+    if (old != null) totalSize -= old.size
+    totalSize += entry.size
+    logger.info(
+      s"Cached bml resource ${entry.key}(size: ${entry.size}, md5: ${entry.md5}), " +
+        s"total size of the cache: $totalSize"
+    )
+    evict()
+  }
+
+  private def remove(entry: Entry): Unit = {
+    entries.remove(entry.key)
+    totalSize -= entry.size
+    FileUtils.deleteQuietly(entry.dir)
+  }
+
+  /** Evict the least recently used entries that are not in use, must hold the lock of entries */
+  private def evict(): Unit = {
+    val iterator = entries.values().iterator()
+    while (totalSize > maxSize && iterator.hasNext) {
+      val entry = iterator.next()
+      if (entry.inUse <= 0) {
+        logger.info(s"Evict bml resource ${entry.key}(size: ${entry.size}) from the cache")
+        iterator.remove()
+        totalSize -= entry.size
+        FileUtils.deleteQuietly(entry.dir)
+      }
+    }
+  }
+
+  /** Load the entries left by a previous process, they are validated on their first use */
+  private def recover(): Unit = {
+    FileUtils.forceMkdir(cacheDir)
+    val dirs = cacheDir.listFiles()
+    if (dirs == null) return
+    dirs.sortBy(_.lastModified()).foreach { dir =>
+      val metaFile = new File(dir, META_FILE)
+      if (dir.getName.endsWith(TMP_SUFFIX) || !metaFile.isFile) {
+        FileUtils.deleteQuietly(dir)
+      } else {
+        Utils.tryCatch {
+          val meta = new Properties
+          val is = new FileInputStream(metaFile)
+          Utils.tryFinally(meta.load(is))(IOUtils.closeQuietly(is))
+          val entry = new Entry(
+            meta.getProperty(META_KEY),
+            dir,
+            meta.getProperty(META_SIZE).toLong,
+            meta.getProperty(META_MD5)
+          )
+          entry.validated = false
+          entries.synchronized(put(entry))
+        } { t =>
+          logger.warn(s"Drop the broken bml resource cache ${dir.getPath}", t)
+          FileUtils.deleteQuietly(dir)
+        }
+      }
+    }
+  }
+
+}
+
+object BmlResourceCache extends Logging {
+
+  private val CONTENT_DIR = "content"
+
+  private val META_FILE = "meta.properties"
+
+  private val META_KEY = "key"
+
+  private val META_SIZE = "size"
+
+  private val META_MD5 = "md5"
+
+  private val TMP_SUFFIX = ".tmp"
+
+  private val BUFFER_SIZE = 64 * 1024
+
+  lazy val getCache: BmlResourceCache =
+    new BmlResourceCache(new File(ECM_BML_CACHE_DIR), ECM_BML_CACHE_MAX_SIZE)
+
+  /**
+   * Resource versions are immutable in bml, so the version identifies the content. The layout
+   * tells how the resource is unpacked, since public and private resources are unpacked differently
+   */
+  def getKey(resourceId: String, version: String, layout: String): String =
+    s"$resourceId-$version-$layout"
+
+  private def getEntryName(key: String): String =
+    Hex.encodeHexString(
+      MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8))
+    )
+
+  /** @return the total size and the MD5 of the relative paths and contents of the files */
+  private[util] def digest(dir: Path): (Long, String) = {
+    val stream = Files.walk(dir)
+    val files = Utils.tryFinally(
+      stream.iterator().asScala.filter(file => Files.isRegularFile(file)).toArray
+    )(stream.close())
+    val md = MessageDigest.getInstance("MD5")
+    val buffer = new Array[Byte](BUFFER_SIZE)
+    var size = 0L
+    files.map(file => (dir.relativize(file).toString, file)).sortBy(_._1).foreach {
+      case (relativePath, file) =>
+        md.update(relativePath.getBytes(StandardCharsets.UTF_8))
+        md.update(0.toByte)
+        val is = Files.newInputStream(file)
+        Utils.tryFinally {
+          var len = is.read(buffer)
+          while (len >= 0) {
+            md.update(buffer, 0, len)
+            size += len
+            len = is.read(buffer)
+          }
+        }(IOUtils.closeQuietly(is))
+    }
+    (size, Hex.encodeHexString(md.digest()))
+  }
+
+  /** The files are shared by the work dirs through hard links, so they must not be written */
+  private[util] def setReadOnly(dir: Path): Unit = {
+    val stream = Files.walk(dir)
+    Utils.tryFinally(
+      stream.iterator().asScala.filter(file => Files.isRegularFile(file)).foreach { file =>
+        if (!file.toFile.setReadOnly()) logger.warn(s"Failed to set $file read-only")
+      }
+    )(stream.close())
+  }
+
+  /**
+   * Hard link every file of source into target, copy the file if it cannot be linked(e.g. target is
+   * on another file system). A copy is owned by the work dir, so it is writable.
+   */
+  private[util] def materialize(source: Path, target: Path): Unit =
+    Files.walkFileTree(
+      source,
+      new SimpleFileVisitor[Path] {
+
+        override def preVisitDirectory(
+            dir: Path,
+            attrs: BasicFileAttributes
+        ): FileVisitResult = {
+          Files.createDirectories(target.resolve(source.relativize(dir).toString))
+          FileVisitResult.CONTINUE
+        }
+
+        override def visitFile(file: Path, attrs: BasicFileAttributes): FileVisitResult = {
+          val link = target.resolve(source.relativize(file).toString)
+          Files.deleteIfExists(link)
+          try Files.createLink(link, file)
+          catch {
+            case e @ (_: IOException | _: UnsupportedOperationException) =>
+              logger.debug(s"Failed to link $file, copy it instead: ${e.getMessage}")
+              Files.copy(file, link, StandardCopyOption.COPY_ATTRIBUTES)
+              link.toFile.setWritable(true)
+          }
+          FileVisitResult.CONTINUE
+        }
+
+      }
+    )
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.ecm.server.operator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogFileIndexTest {
+
+  private static final String[] LINE_ENDS = {"\n", "\r", "\r\n"};
+
+  @TempDir Path tempDir;
+
+  private File writeLog(int lineNum) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < lineNum; i++) {
+      builder.append("line-").append(i).append(LINE_ENDS[i % LINE_ENDS.length]);
+    }
+    builder.append("partial");
+    File file = tempDir.resolve("stdout").toFile();
+    Files.write(file.toPath(), builder.toString().getBytes());
+    return file;
+  }
+
+  private List<String> readAll(File file) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (RandomAccessFile reader = new RandomAccessFile(file, "r")) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+
+  private String readLine(LogFileIndex index, long fromLine) throws IOException {
+    try (LogFileIndex.LineReader reader = index.open(fromLine)) {
+      return reader.readLine();
+    }
+  }
+
+  @Test
+  void testOpen() throws IOException {
+    File file = writeLog(1003);
+    List<String> lines = readAll(file);
+    LogFileIndex index = new LogFileIndex(file, 10);
+    // the lines are the same as read by RandomAccessFile.readLine
+    for (long fromLine : new long[] {0, 1, 9, 10, 11, 500, 999, 1002, 1003}) {
+      Assertions.assertEquals(lines.get((int) fromLine), readLine(index, fromLine));
+    }
+    try (LogFileIndex.LineReader reader = index.open(2000)) {
+      Assertions.assertEquals(1004, reader.getLineNumber());
+      Assertions.assertNull(reader.readLine());
+    }
+    Assertions.assertEquals(1003, index.getLineCount());
+
+    // the index is extended as the log grows
+    Files.write(file.toPath(), "\nappended\n".getBytes(), StandardOpenOption.APPEND);
+    Assertions.assertEquals("partial", readLine(index, 1003));
+    Assertions.assertEquals("appended", readLine(index, 1004));
+    Assertions.assertEquals(1005, index.getLineCount());
+
+    // a sparser index reads the same lines
+    index.coarsen();
+    index.coarsen();
+    Assertions.assertEquals(40, index.getInterval());
+    Assertions.assertEquals(lines.get(555), readLine(index, 555));
+    Assertions.assertEquals("appended", readLine(index, 1004));
+  }
+
+  @Test
+  void testRotate() throws IOException {
+    File file = writeLog(100);
+    LogFileIndex index = new LogFileIndex(file, 10);
+    Assertions.assertEquals("line-50", readLine(index, 50));
+    Files.write(file.toPath(), "a\nb\n".getBytes());
+    Assertions.assertEquals("b", readLine(index, 1));
+    Assertions.assertNull(readLine(index, 50));
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.ecm.server.util
+
+import org.apache.commons.io.FileUtils
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermission
+import java.util.concurrent.{Executors, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+
+import scala.collection.JavaConverters._
+
+import org.junit.jupiter.api.{AfterEach, Assertions, BeforeEach, Test}
+
+class BmlResourceCacheTest {
+
+  private val WRITE_PERMISSIONS = Set(
+    PosixFilePermission.OWNER_WRITE,
+    PosixFilePermission.GROUP_WRITE,
+    PosixFilePermission.OTHERS_WRITE
+  )
+
+  private var tempDir: File = _
+
+  @BeforeEach
+  def before(): Unit = tempDir = Files.createTempDirectory("bml-cache").toFile
+
+  @AfterEach
+  def after(): Unit = FileUtils.deleteQuietly(tempDir)
+
+  private def cacheDir: File = new File(tempDir, "cache")
+
+  private def workDir(name: String): File = {
+    val dir = new File(tempDir, name)
+    dir.mkdirs()
+    dir
+  }
+
+  private def fill(counter: AtomicInteger, content: String)(dir: File): Unit = {
+    counter.incrementAndGet()
+    FileUtils.write(new File(dir, "lib/a.txt"), content, StandardCharsets.UTF_8)
+  }
+
+  @Test
+  def testHitAndMaterialize(): Unit = {
+    val cache = new BmlResourceCache(cacheDir, 1024)
+    val downloads = new AtomicInteger(0)
+    Assertions.assertFalse(cache.localize("r1-v1-Private", workDir("ec1"))(fill(downloads, "abc")))
+    Assertions.assertTrue(cache.localize("r1-v1-Private", workDir("ec2"))(fill(downloads, "abc")))
+    Assertions.assertEquals(1, downloads.get())
+    Assertions.assertEquals(3L, cache.size)
+
+    val file1 = new File(tempDir, "ec1/lib/a.txt").toPath
+    val file2 = new File(tempDir, "ec2/lib/a.txt").toPath
+    Assertions.assertEquals("abc", new String(Files.readAllBytes(file2), StandardCharsets.UTF_8))
+    // both work dirs link to the same cached file, which can not be written
+    Assertions.assertTrue(Files.isSameFile(file1, file2))
+    Assertions.assertFalse(
+      Files.getPosixFilePermissions(file1).asScala.exists(WRITE_PERMISSIONS.contains)
+    )
+  }
+
+  @Test
+  def testEvict(): Unit = {
+    val cache = new BmlResourceCache(cacheDir, 10)
+    val downloads = new AtomicInteger(0)
+    cache.localize("r1-v1-Private", workDir("ec1"))(fill(downloads, "123456"))
+    cache.localize("r2-v1-Private", workDir("ec2"))(fill(downloads, "123456"))
+    Assertions.assertFalse(cache.contains("r1-v1-Private"))
+    Assertions.assertTrue(cache.contains("r2-v1-Private"))
+    Assertions.assertEquals(6L, cache.size)
+    // the evicted content is still readable from the work dir
+    Assertions.assertTrue(new File(tempDir, "ec1/lib/a.txt").isFile)
+  }
+
+  @Test
+  def testConcurrentLaunchesShareDownload(): Unit = {
+    val cache = new BmlResourceCache(cacheDir, 1024)
+    val downloads = new AtomicInteger(0)
+    val executor = Executors.newFixedThreadPool(4)
+    (1 to 4).foreach { i =>
+      executor.submit(new Runnable {
+        override def run(): Unit = cache.localize("r1-v1-Public", workDir("ec" + i)) { dir =>
+          Thread.sleep(200)
+          fill(downloads, "abc")(dir)
+        }
+      })
+    }
+    executor.shutdown()
+    Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS))
+    Assertions.assertEquals(1, downloads.get())
+    (1 to 4).foreach(i => Assertions.assertTrue(new File(tempDir, s"ec$i/lib/a.txt").isFile))
+  }
+
+  @Test
+  def testRecoverAndValidate(): Unit = {
+    val downloads = new AtomicInteger(0)
+    new BmlResourceCache(cacheDir, 1024).localize("r1-v1-Private", workDir("ec1"))(
+      fill(downloads, "abc")
+    )
+    // a restarted ECM reuses the entry left on disk
+    var cache = new BmlResourceCache(cacheDir, 1024)
+    Assertions.assertTrue(cache.contains("r1-v1-Private"))
+    Assertions.assertTrue(cache.localize("r1-v1-Private", workDir("ec2"))(fill(downloads, "abc")))
+    Assertions.assertEquals(1, downloads.get())
+
+    // a corrupted entry fails the MD5 check and is downloaded again
+    val linked = new File(tempDir, "ec2/lib/a.txt")
+    linked.setWritable(true)
+    FileUtils.write(linked, "abd", StandardCharsets.UTF_8)
+    cache = new BmlResourceCache(cacheDir, 1024)
+    Assertions.assertFalse(cache.localize("r1-v1-Private", workDir("ec3"))(fill(downloads, "abc")))
+    Assertions.assertEquals(2, downloads.get())
+    Assertions.assertEquals(
+      "abc",
+      FileUtils.readFileToString(new File(tempDir, "ec3/lib/a.txt"), StandardCharsets.UTF_8)
+    )
+  }
+
+}
@@ -118,4 +118,11 @@ object ComputationExecutorConf {
   val TASK_SUBMIT_WAIT_TIME_MS =
     CommonVars("linkis.ec.task.submit.wait.time.ms", 2L, "Task submit wait time(ms)").getValue
 
+  val CONCURRENT_TASK_DISPATCH_WAIT_TIME_MS =
+    CommonVars(
+      "linkis.ec.concurrent.task.dispatch.wait.time.ms",
+      1000L,
+      "Maximum time the concurrent task dispatcher waits before it checks the executor status again(ms)"
+    ).getValue
+
 }
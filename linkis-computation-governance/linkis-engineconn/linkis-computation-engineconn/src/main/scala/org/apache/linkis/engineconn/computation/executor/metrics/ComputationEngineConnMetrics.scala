@@ -19,7 +19,7 @@ package org.apache.linkis.engineconn.computation.executor.metrics
 
 import org.apache.linkis.manager.common.entity.enumeration.NodeStatus
 
-import java.util.concurrent.atomic.{AtomicBoolean, AtomicLong}
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicInteger, AtomicLong}
 
 object ComputationEngineConnMetrics {
 
@@ -37,6 +37,16 @@ object ComputationEngineConnMetrics {
 
   private val unlockToShutdownDurationMills = new AtomicLong()
 
+  private val concurrentTaskQueueSize = new AtomicInteger()
+
+  private val concurrentTaskDispatchCount = new AtomicLong()
+
+  private val totalConcurrentTaskDispatchLatencyMills = new AtomicLong()
+
+  private val maxConcurrentTaskDispatchLatencyMills = new AtomicLong()
+
+  private val concurrentTaskFailedCount = new AtomicInteger()
+
   def updateMetrics(oldStatus: NodeStatus, newStatus: NodeStatus): Unit = {
     if (oldStatus != newStatus) {
       val oldUpdateTimeMills = lastUpdateTimeMills
@@ -91,4 +101,41 @@ object ComputationEngineConnMetrics {
     getTotalBusyTimeMills(nodeStatus) + getTotalIdleTimeMills(nodeStatus)
 
   def getUnlockToShutdownDurationMills(): Long = unlockToShutdownDurationMills.get()
+
+  def onConcurrentTaskQueued(): Unit = concurrentTaskQueueSize.incrementAndGet()
+
+  /**
+   * A queued task is taken by the dispatcher of the concurrent executor
+   *
+   * @param latencyMills
+   *   the time the task waited in the queue
+   */
+  def onConcurrentTaskDispatched(latencyMills: Long): Unit = {
+    concurrentTaskQueueSize.decrementAndGet()
+    concurrentTaskDispatchCount.incrementAndGet()
+    totalConcurrentTaskDispatchLatencyMills.addAndGet(latencyMills)
+    var maxLatencyMills = maxConcurrentTaskDispatchLatencyMills.get()
+    while (latencyMills > maxLatencyMills) {
+      if (maxConcurrentTaskDispatchLatencyMills.compareAndSet(maxLatencyMills, latencyMills)) {
+        maxLatencyMills = latencyMills
+      } else maxLatencyMills = maxConcurrentTaskDispatchLatencyMills.get()
+    }
+  }
+
+  /** @return the count of failed tasks including this one */
+  def onConcurrentTaskFailed(): Int = concurrentTaskFailedCount.incrementAndGet()
+
+  def getConcurrentTaskQueueSize: Int = concurrentTaskQueueSize.get()
+
+  def getConcurrentTaskDispatchCount: Long = concurrentTaskDispatchCount.get()
+
+  def getAvgConcurrentTaskDispatchLatencyMills: Long = {
+    val count = concurrentTaskDispatchCount.get()
+    if (count == 0) 0 else totalConcurrentTaskDispatchLatencyMills.get() / count
+  }
+
+  def getMaxConcurrentTaskDispatchLatencyMills: Long = maxConcurrentTaskDispatchLatencyMills.get()
+
+  def getConcurrentTaskFailedCount: Int = concurrentTaskFailedCount.get()
+
 }
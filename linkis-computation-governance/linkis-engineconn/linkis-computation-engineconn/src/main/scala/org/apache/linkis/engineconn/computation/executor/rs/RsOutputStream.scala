@@ -24,45 +24,125 @@ import org.apache.linkis.engineconn.computation.executor.execute.EngineExecution
 import org.apache.linkis.storage.LineRecord
 
 import java.io.OutputStream
+import java.nio.{ByteBuffer, CharBuffer}
+import java.nio.charset.{CharsetDecoder, CodingErrorAction, StandardCharsets}
+import java.util
 
-import scala.collection.mutable.ArrayBuffer
-
+/**
+ * Collects the stdout of interpreters and writes every line as a LineRecord. Bytes are scanned for
+ * newlines chunk by chunk, the pending part of a line is kept in a reusable byte array, and lines
+ * are decoded by a reused decoder, so a large output costs neither a lock nor an allocation per
+ * byte. 按块扫描换行符并复用缓冲区和解码器，将解释器输出逐行写入结果集
+ */
 class RsOutputStream extends OutputStream with Logging {
-  private val line = ArrayBuffer[Byte]()
-  private var isReady = false
+
+  import RsOutputStream._
+
+  private var line = new Array[Byte](INIT_BUFFER_SIZE)
+  private var lineLength = 0
+  private var chars = CharBuffer.allocate(INIT_BUFFER_SIZE)
+
+  private val decoder: CharsetDecoder = StandardCharsets.UTF_8
+    .newDecoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+
+  @volatile private var isReady = false
   private var writer: ResultSetWriter[_ <: MetaData, _ <: Record] = _
 
   override def write(b: Int): Unit = if (isReady) synchronized {
     if (writer != null) {
-      if (b == '\n') {
-        val outStr = new String(line.toArray, "UTF-8")
-        writer.addRecord(new LineRecord(outStr))
-        line.clear()
-      } else line += b.toByte
+      if (b == '\n') addLine(line, 0, lineLength)
+      else {
+        ensureCapacity(lineLength + 1)
+        line(lineLength) = b.toByte
+        lineLength += 1
+      }
     } else {
       logger.warn("writer is null")
     }
   }
 
-  def reset(engineExecutionContext: EngineExecutionContext): Unit = {
-    writer = engineExecutionContext.createDefaultResultSetWriter()
+  override def write(b: Array[Byte], off: Int, len: Int): Unit = {
+    if (off < 0 || len < 0 || off + len > b.length) throw new IndexOutOfBoundsException
+    if (isReady) synchronized {
+      if (writer != null) {
+        val end = off + len
+        var start = off
+        var i = off
+        while (i < end) {
+          if (b(i) == '\n') {
+            // a line inside of the chunk is decoded from the chunk directly
+            if (lineLength == 0) addLine(b, start, i - start)
+            else {
+              append(b, start, i - start)
+              addLine(line, 0, lineLength)
+            }
+            start = i + 1
+          }
+          i += 1
+        }
+        if (start < end) append(b, start, end - start)
+      } else {
+        logger.warn("writer is null")
+      }
+    }
+  }
+
+  private def ensureCapacity(capacity: Int): Unit = if (capacity > line.length) {
+    line = util.Arrays.copyOf(line, math.max(line.length * 2, capacity))
+  }
+
+  private def append(b: Array[Byte], off: Int, len: Int): Unit = {
+    ensureCapacity(lineLength + len)
+    System.arraycopy(b, off, line, lineLength, len)
+    lineLength += len
+  }
+
+  private def addLine(b: Array[Byte], off: Int, len: Int): Unit = {
+    if (chars.capacity() < len) chars = CharBuffer.allocate(math.max(chars.capacity() * 2, len))
+    chars.clear()
+    decoder.reset()
+    decoder.decode(ByteBuffer.wrap(b, off, len), chars, true)
+    decoder.flush(chars)
+    chars.flip()
+    writer.addRecord(new LineRecord(chars.toString))
+    lineLength = 0
+    // do not hold the memory of a huge line
+    if (line.length > MAX_REUSED_BUFFER_SIZE) line = new Array[Byte](INIT_BUFFER_SIZE)
+    if (chars.capacity() > MAX_REUSED_BUFFER_SIZE) chars = CharBuffer.allocate(INIT_BUFFER_SIZE)
+  }
+
+  def reset(engineExecutionContext: EngineExecutionContext): Unit =
+    reset(engineExecutionContext.createDefaultResultSetWriter())
+
+  private[rs] def reset(writer: ResultSetWriter[_ <: MetaData, _ <: Record]): Unit = {
+    this.writer = writer
     writer.addMetaData(null)
   }
 
   def ready(): Unit = isReady = true
 
-  override def flush(): Unit = if (writer != null && line.nonEmpty) {
-    val outStr = new String(line.toArray, "UTF-8")
-    writer.addRecord(new LineRecord(outStr))
-    line.clear()
+  override def flush(): Unit = synchronized {
+    if (writer != null && lineLength > 0) addLine(line, 0, lineLength)
   }
 
   override def toString: String = if (writer != null) writer.toString() else null
 
-  override def close(): Unit = if (writer != null) {
-    flush()
-    writer.close()
-    writer = null
+  override def close(): Unit = synchronized {
+    if (writer != null) {
+      flush()
+      writer.close()
+      writer = null
+    }
   }
 
 }
+
+object RsOutputStream {
+
+  private val INIT_BUFFER_SIZE = 1024
+
+  private val MAX_REUSED_BUFFER_SIZE = 1024 * 1024
+
+}
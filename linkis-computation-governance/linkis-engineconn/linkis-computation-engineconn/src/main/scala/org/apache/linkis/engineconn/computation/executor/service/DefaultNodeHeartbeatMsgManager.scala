@@ -19,11 +19,15 @@ package org.apache.linkis.engineconn.computation.executor.service
 
 import org.apache.linkis.common.utils.{Logging, Utils}
 import org.apache.linkis.engineconn.acessible.executor.info.NodeHeartbeatMsgManager
+import org.apache.linkis.engineconn.computation.executor.execute.ConcurrentComputationExecutor
 import org.apache.linkis.engineconn.computation.executor.metrics.ComputationEngineConnMetrics
 import org.apache.linkis.engineconn.core.EngineConnObject
-import org.apache.linkis.engineconn.executor.entity.{Executor, SensibleExecutor}
+import org.apache.linkis.engineconn.executor.entity.{Executor, MetricsExecutor, SensibleExecutor}
 import org.apache.linkis.governance.common.constant.ec.ECConstants
+import org.apache.linkis.rpc.RPCMessageBatcher
+import org.apache.linkis.rpc.conf.RPCConfiguration
 import org.apache.linkis.server.BDPJettyServerHelper
+import org.apache.linkis.storage.resultset.StorageResultSetWriter
 
 import org.springframework.stereotype.Component
 
@@ -35,7 +39,9 @@ import scala.collection.JavaConverters.mapAsScalaMapConverter
 class DefaultNodeHeartbeatMsgManager extends NodeHeartbeatMsgManager with Logging {
 
   /*
-  add unlock-to-shutdown time, total unlock time, total idle time, total busy time, total lock time
+  add unlock-to-shutdown time, total unlock time, total idle time, total busy time, total lock time,
+  result set writer memory and spill counts, rpc batch sizes and latency, the queue depth and
+  dispatch latency of concurrent tasks, and the metrics reported by the executor itself
    */
   override def getHeartBeatMsg(executor: Executor): String = {
     val msgMap = new util.HashMap[String, Object]()
@@ -65,6 +71,80 @@ class DefaultNodeHeartbeatMsgManager extends NodeHeartbeatMsgManager with Loggin
         )
       case _ =>
     }
+    executor match {
+      case _: ConcurrentComputationExecutor =>
+        msgMap.put(
+          ECConstants.EC_CONCURRENT_TASK_QUEUE_SIZE_KEY,
+          ComputationEngineConnMetrics.getConcurrentTaskQueueSize.asInstanceOf[Object]
+        )
+        msgMap.put(
+          ECConstants.EC_CONCURRENT_TASK_DISPATCH_COUNT_KEY,
+          ComputationEngineConnMetrics.getConcurrentTaskDispatchCount.asInstanceOf[Object]
+        )
+        msgMap.put(
+          ECConstants.EC_CONCURRENT_TASK_AVG_DISPATCH_LATENCY_MILLS_KEY,
+          ComputationEngineConnMetrics.getAvgConcurrentTaskDispatchLatencyMills.asInstanceOf[Object]
+        )
+        msgMap.put(
+          ECConstants.EC_CONCURRENT_TASK_MAX_DISPATCH_LATENCY_MILLS_KEY,
+          ComputationEngineConnMetrics.getMaxConcurrentTaskDispatchLatencyMills.asInstanceOf[Object]
+        )
+        msgMap.put(
+          ECConstants.EC_CONCURRENT_TASK_FAILED_COUNT_KEY,
+          ComputationEngineConnMetrics.getConcurrentTaskFailedCount.asInstanceOf[Object]
+        )
+      case _ =>
+    }
+    executor match {
+      case metricsExecutor: MetricsExecutor =>
+        Utils.tryAndWarn {
+          val metrics = metricsExecutor.getHeartbeatMetrics
+          if (metrics != null) msgMap.putAll(metrics)
+        }
+      case _ =>
+    }
+    msgMap.put(
+      ECConstants.EC_RESULT_SET_CACHED_BYTES_KEY,
+      StorageResultSetWriter.getCachedBytes().asInstanceOf[Object]
+    )
+    msgMap.put(
+      ECConstants.EC_RESULT_SET_POOLED_BYTES_KEY,
+      StorageResultSetWriter.getPooledBytes().asInstanceOf[Object]
+    )
+    msgMap.put(
+      ECConstants.EC_RESULT_SET_SPILL_COUNT_KEY,
+      StorageResultSetWriter.getSpillCount().asInstanceOf[Object]
+    )
+    msgMap.put(
+      ECConstants.EC_RESULT_SET_SPILLED_BYTES_KEY,
+      StorageResultSetWriter.getSpilledBytes().asInstanceOf[Object]
+    )
+    if (RPCConfiguration.BDP_RPC_SENDER_BATCH_ENABLE) {
+      msgMap.put(
+        ECConstants.EC_RPC_BATCH_COUNT_KEY,
+        RPCMessageBatcher.getBatchCount.asInstanceOf[Object]
+      )
+      msgMap.put(
+        ECConstants.EC_RPC_BATCH_AVG_SIZE_KEY,
+        RPCMessageBatcher.getAvgBatchSize.asInstanceOf[Object]
+      )
+      msgMap.put(
+        ECConstants.EC_RPC_BATCH_MAX_SIZE_KEY,
+        RPCMessageBatcher.getMaxBatchSize.asInstanceOf[Object]
+      )
+      msgMap.put(
+        ECConstants.EC_RPC_BATCH_AVG_LATENCY_MILLS_KEY,
+        RPCMessageBatcher.getAvgLatency.asInstanceOf[Object]
+      )
+      msgMap.put(
+        ECConstants.EC_RPC_BATCH_MAX_LATENCY_MILLS_KEY,
+        RPCMessageBatcher.getMaxLatency.asInstanceOf[Object]
+      )
+      msgMap.put(
+        ECConstants.EC_RPC_BATCH_FAILED_MESSAGES_KEY,
+        RPCMessageBatcher.getFailedMessageCount.asInstanceOf[Object]
+      )
+    }
     val engineParams = EngineConnObject.getEngineCreationContext.getOptions
     if (engineParams.containsKey(ECConstants.YARN_QUEUE_NAME_CONFIG_KEY)) {
       msgMap.put(
@@ -19,7 +19,10 @@ package org.apache.linkis.engineconn.computation.executor.service
 
 import org.apache.linkis.common.listener.Event
 import org.apache.linkis.common.utils.{Logging, Utils}
-import org.apache.linkis.engineconn.acessible.executor.listener.LogListener
+import org.apache.linkis.engineconn.acessible.executor.listener.{
+  ExecutorStatusListener,
+  LogListener
+}
 import org.apache.linkis.engineconn.acessible.executor.listener.event._
 import org.apache.linkis.engineconn.acessible.executor.log.LogHelper
 import org.apache.linkis.engineconn.acessible.executor.service.LockService
@@ -40,6 +43,7 @@ import org.apache.linkis.engineconn.computation.executor.listener.{
   TaskProgressListener,
   TaskStatusListener
 }
+import org.apache.linkis.engineconn.computation.executor.metrics.ComputationEngineConnMetrics
 import org.apache.linkis.engineconn.computation.executor.upstream.event.TaskStatusChangedForUpstreamMonitorEvent
 import org.apache.linkis.engineconn.computation.executor.utlis.{
   ComputationEngineConstant,
@@ -110,8 +114,10 @@ class TaskExecutionServiceImpl
   private var lastTaskDaemonFuture: Future[_] = _
 
   // for concurrent executor
-  private var consumerThread: Thread = _
-  private var concurrentTaskQueue: BlockingQueue[EngineConnTask] = _
+  @volatile private[service] var consumerThread: Thread = _
+  @volatile private var concurrentTaskQueue: BlockingQueue[(EngineConnTask, Long)] = _
+  private var concurrentTaskPermits: Semaphore = _
+  private val concurrentExecutorStatusLock = new Object
 
   @Autowired
   private var lockService: LockService = _
@@ -336,18 +342,31 @@ class TaskExecutionServiceImpl
     SubmitResponse(task.getTaskId)
   }
 
-  private def submitConcurrentTask(
+  private[service] def submitConcurrentTask(
       task: CommonEngineConnTask,
       executor: ConcurrentComputationExecutor
   ): ExecuteResponse = {
     if (null == concurrentTaskQueue) CONCURRENT_TASK_LOCKER.synchronized {
       if (null == concurrentTaskQueue) {
-        concurrentTaskQueue = new LinkedBlockingDeque[EngineConnTask]()
+        concurrentTaskPermits = new Semaphore(math.max(executor.getConcurrentLimit, 1))
+        concurrentTaskQueue = new LinkedBlockingDeque[(EngineConnTask, Long)]()
       }
     }
-    concurrentTaskQueue.put(task)
+    ComputationEngineConnMetrics.onConcurrentTaskQueued()
+    concurrentTaskQueue.put((task, System.currentTimeMillis()))
     if (null == consumerThread) CONCURRENT_TASK_LOCKER.synchronized {
       if (null == consumerThread) {
+        asyncListenerBusContext.addListener(new ExecutorStatusListener {
+          override def onExecutorCreated(executorCreateEvent: ExecutorCreateEvent): Unit = {}
+
+          override def onExecutorCompleted(executorCompletedEvent: ExecutorCompletedEvent): Unit = {}
+
+          override def onExecutorStatusChanged(
+              executorStatusChangedEvent: ExecutorStatusChangedEvent
+          ): Unit = concurrentExecutorStatusLock.synchronized {
+            concurrentExecutorStatusLock.notifyAll()
+          }
+        })
         consumerThread = new Thread(createConsumerRunnable(executor))
         consumerThread.setDaemon(true)
         consumerThread.setName("ConcurrentTaskQueueFifoConsumerThread")
@@ -357,45 +376,74 @@ class TaskExecutionServiceImpl
     SubmitResponse(task.getTaskId)
   }
 
+  /**
+   * The dispatcher of the concurrent executor takes a queued task only after it acquires a permit,
+   * and the permit is released when the task completes, so no more than getConcurrentLimit tasks
+   * run at the same time. While the executor is Busy, e.g. marked by the monitor services under
+   * resource pressure, no task is dispatched: the dispatcher waits for a status change of the
+   * executor. Every wait is bounded by CONCURRENT_TASK_DISPATCH_WAIT_TIME_MS, so the dispatcher
+   * notices a missed status change or a closed executor and exits once the executor is closed.
+   * 并发任务分发线程：执行器Busy时不分发，获取许可后才取出任务，任务结束后释放许可
+   */
   private def createConsumerRunnable(executor: ComputationExecutor): Thread = {
     val consumerRunnable = new Runnable {
       override def run(): Unit = {
-        var errCount = 0
         val ERR_COUNT_MAX = 20
-        while (true) {
+        val waitTime = ComputationExecutorConf.CONCURRENT_TASK_DISPATCH_WAIT_TIME_MS
+        while (!executor.isClosed) {
           Utils.tryCatch {
-            if (!executor.isBusy && !executor.isClosed) {
-              val task = concurrentTaskQueue.take()
-              val concurrentJob = new Runnable {
-                override def run(): Unit = {
-                  lastTask = task
-                  Utils.tryCatch {
-                    logger.info(s"Start to run task ${task.getTaskId}")
-                    executeTask(task, executor)
-                  } { case t: Throwable =>
-                    errCount += 1
-                    logger.error(s"Execute task ${task.getTaskId} failed  :", t)
-                    if (errCount > ERR_COUNT_MAX) {
-                      logger.error(
-                        s"Executor run failed for ${errCount} times over ERROR_COUNT_MAX : ${ERR_COUNT_MAX}, will shutdown."
-                      )
-                      executor.transition(NodeStatus.ShuttingDown)
-                    }
+            waitWhileBusy(executor, waitTime)
+            if (concurrentTaskPermits.tryAcquire(waitTime, TimeUnit.MILLISECONDS)) {
+              var dispatched = false
+              Utils.tryFinally {
+                val queued = concurrentTaskQueue.poll(waitTime, TimeUnit.MILLISECONDS)
+                if (null != queued) {
+                  val (task, queuedTime) = queued
+                  ComputationEngineConnMetrics.onConcurrentTaskDispatched(
+                    System.currentTimeMillis() - queuedTime
+                  )
+                  val concurrentJob = new Runnable {
+                    override def run(): Unit = Utils.tryFinally {
+                      lastTask = task
+                      Utils.tryCatch {
+                        logger.info(s"Start to run task ${task.getTaskId}")
+                        executeTask(task, executor)
+                      } { case t: Throwable =>
+                        val errCount = ComputationEngineConnMetrics.onConcurrentTaskFailed()
+                        logger.error(s"Execute task ${task.getTaskId} failed  :", t)
+                        if (errCount > ERR_COUNT_MAX) {
+                          logger.error(
+                            s"Executor run failed for ${errCount} times over ERROR_COUNT_MAX : ${ERR_COUNT_MAX}, will shutdown."
+                          )
+                          executor.transition(NodeStatus.ShuttingDown)
+                        }
+                      }
+                    }(concurrentTaskPermits.release())
                   }
+                  cachedThreadPool.submit(concurrentJob)
+                  dispatched = true
                 }
+              } {
+                if (!dispatched) concurrentTaskPermits.release()
               }
-              cachedThreadPool.submit(concurrentJob)
             }
-            Thread.sleep(20)
           } { case t: Throwable =>
             logger.error(s"consumerThread failed  :", t)
           }
         }
+        logger.info(s"Executor ${executor.getId} is closed, the concurrent task dispatcher exits.")
       }
     }
     new Thread(consumerRunnable)
   }
 
+  private def waitWhileBusy(executor: ComputationExecutor, waitTime: Long): Unit =
+    concurrentExecutorStatusLock.synchronized {
+      while (executor.isBusy && !executor.isClosed) {
+        concurrentExecutorStatusLock.wait(waitTime)
+      }
+    }
+
   private def executeTask(task: EngineConnTask, executor: ComputationExecutor): Unit =
     Utils.tryFinally {
       val jobId = JobUtils.getJobIdFromMap(task.getProperties)
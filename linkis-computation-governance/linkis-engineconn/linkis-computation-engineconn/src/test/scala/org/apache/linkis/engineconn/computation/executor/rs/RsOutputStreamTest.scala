@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.engineconn.computation.executor.rs
+
+import org.apache.linkis.common.io.{FsPath, MetaData, Record}
+import org.apache.linkis.common.io.resultset.ResultSetWriter
+import org.apache.linkis.common.utils.Logging
+import org.apache.linkis.storage.LineRecord
+
+import java.io.{OutputStream, PrintStream}
+import java.nio.charset.StandardCharsets
+
+import scala.collection.mutable.ArrayBuffer
+
+import org.junit.jupiter.api.{Assertions, Tag, Test}
+
+class RsOutputStreamTest extends Logging {
+
+  import RsOutputStreamTest._
+
+  private def newOutputStream(writer: ResultSetWriter[MetaData, Record]): RsOutputStream = {
+    val out = new RsOutputStream
+    out.reset(writer)
+    out.ready()
+    out
+  }
+
+  private def write(out: OutputStream, content: String): Unit = {
+    val bytes = content.getBytes(StandardCharsets.UTF_8)
+    out.write(bytes, 0, bytes.length)
+  }
+
+  @Test
+  def testLineSpanningChunks(): Unit = {
+    val writer = new CollectingWriter
+    val out = newOutputStream(writer)
+    write(out, "hel")
+    write(out, "lo wor")
+    Assertions.assertTrue(writer.lines.isEmpty)
+    write(out, "ld\nfirst\nsec")
+    write(out, "ond\n")
+    Assertions.assertEquals(Seq("hello world", "first", "second"), writer.lines)
+
+    // longer than the initial buffer, and written through write(Int) as well
+    val longLine = "x" * 5000
+    write(out, longLine.substring(0, 3000))
+    write(out, longLine.substring(3000))
+    out.write('\n')
+    longLine.getBytes(StandardCharsets.UTF_8).foreach(b => out.write(b))
+    out.write('\n')
+    Assertions.assertEquals(Seq("hello world", "first", "second", longLine, longLine), writer.lines)
+  }
+
+  @Test
+  def testMultiByteCharSplitAcrossWrites(): Unit = {
+    val line = "中文输出€"
+    val bytes = (line + "\n").getBytes(StandardCharsets.UTF_8)
+    for (split <- 1 until bytes.length) {
+      val writer = new CollectingWriter
+      val out = newOutputStream(writer)
+      out.write(bytes, 0, split)
+      out.write(bytes, split, bytes.length - split)
+      Assertions.assertEquals(Seq(line), writer.lines, s"split at byte $split")
+    }
+    val writer = new CollectingWriter
+    val out = newOutputStream(writer)
+    bytes.foreach(b => out.write(b))
+    Assertions.assertEquals(Seq(line), writer.lines)
+  }
+
+  @Test
+  def testCrLf(): Unit = {
+    val writer = new CollectingWriter
+    val out = newOutputStream(writer)
+    write(out, "a\r\nb\r\n")
+    // \r and \n in different writes
+    write(out, "c\r")
+    write(out, "\n")
+    write(out, "d\re\n")
+    // only \n ends a line, the \r is kept as the byte-at-a-time implementation does
+    Assertions.assertEquals(Seq("a\r", "b\r", "c\r", "d\re"), writer.lines)
+  }
+
+  @Test
+  def testFlushAndCloseTrailingPartialLine(): Unit = {
+    val writer = new CollectingWriter
+    val out = newOutputStream(writer)
+    write(out, "line\npartial")
+    Assertions.assertEquals(Seq("line"), writer.lines)
+    out.flush()
+    Assertions.assertEquals(Seq("line", "partial"), writer.lines)
+    // nothing pending, nothing written
+    out.flush()
+    Assertions.assertEquals(Seq("line", "partial"), writer.lines)
+
+    write(out, "last 行")
+    out.close()
+    Assertions.assertEquals(Seq("line", "partial", "last 行"), writer.lines)
+    Assertions.assertTrue(writer.closed)
+    // the writer is released, the output after close is dropped
+    write(out, "dropped\n")
+    Assertions.assertEquals(Seq("line", "partial", "last 行"), writer.lines)
+  }
+
+  /**
+   * Compares the throughput(MB/s) of RsOutputStream with the former byte-at-a-time
+   * implementation, writing 64MB of interpreter output through a PrintStream as Console.withOut
+   * does.
+   */
+  @Test
+  @Tag("benchmark")
+  def benchmark(): Unit = {
+    val totalBytes = 64L * 1024 * 1024
+    for (lineSize <- Seq(80, 1024, 64 * 1024); round <- 1 to 3) {
+      val lineBytes = ("输出" + "x" * (lineSize - 7) + "\n").getBytes(StandardCharsets.UTF_8)
+      val lineNum = (totalBytes / lineBytes.length).toInt
+      val results = Seq("byte-at-a-time", "bulk").map { name =>
+        val writer = new CountingWriter
+        val out =
+          if (name == "bulk") newOutputStream(writer) else new ByteAtATimeOutputStream(writer)
+        val printStream = new PrintStream(out, true, "UTF-8")
+        val start = System.nanoTime
+        (0 until lineNum).foreach(_ => printStream.write(lineBytes, 0, lineBytes.length))
+        printStream.flush()
+        val costNanos = System.nanoTime - start
+        Assertions.assertEquals(lineNum, writer.count)
+        val mbPerSecond = lineNum.toDouble * lineBytes.length / 1024 / 1024 / costNanos * 1e9
+        f"$name: $mbPerSecond%.1fMB/s"
+      }
+      logger.info(s"line size: $lineSize, round: $round, " + results.mkString(", "))
+    }
+  }
+
+}
+
+object RsOutputStreamTest {
+
+  private class CollectingWriter extends ResultSetWriter[MetaData, Record](null, 0, null) {
+    val lines = new ArrayBuffer[String]
+    var closed = false
+    override def toFSPath: FsPath = null
+    override def addMetaDataAndRecordString(content: String): Unit = {}
+    override def addRecordString(content: String): Unit = {}
+    override def addMetaData(metaData: MetaData): Unit = {}
+    override def addRecord(record: Record): Unit = lines += record.asInstanceOf[LineRecord].getLine
+    override def flush(): Unit = {}
+    override def close(): Unit = closed = true
+    override def toString: String = lines.mkString("\n")
+  }
+
+  private class CountingWriter extends ResultSetWriter[MetaData, Record](null, 0, null) {
+    var count = 0
+    override def toFSPath: FsPath = null
+    override def addMetaDataAndRecordString(content: String): Unit = {}
+    override def addRecordString(content: String): Unit = {}
+    override def addMetaData(metaData: MetaData): Unit = {}
+    override def addRecord(record: Record): Unit = count += 1
+    override def flush(): Unit = {}
+    override def close(): Unit = {}
+    override def toString: String = s"$count lines"
+  }
+
+  /** The implementation before the bulk write */
+  private class ByteAtATimeOutputStream(writer: CountingWriter) extends OutputStream {
+    private val line = ArrayBuffer[Byte]()
+
+    override def write(b: Int): Unit = synchronized {
+      if (b == '\n') {
+        writer.addRecord(new LineRecord(new String(line.toArray, "UTF-8")))
+        line.clear()
+      } else line += b.toByte
+    }
+
+  }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.engineconn.computation.executor.service
+
+import org.apache.linkis.common.utils.Utils
+import org.apache.linkis.engineconn.computation.executor.entity.{
+  CommonEngineConnTask,
+  EngineConnTask
+}
+import org.apache.linkis.engineconn.computation.executor.execute.ConcurrentComputationExecutor
+import org.apache.linkis.engineconn.computation.executor.metrics.ComputationEngineConnMetrics
+import org.apache.linkis.governance.common.constant.job.JobRequestConstants
+import org.apache.linkis.governance.common.entity.ExecutionNodeStatus
+import org.apache.linkis.scheduler.executer.{
+  ErrorExecuteResponse,
+  ExecuteResponse,
+  SuccessExecuteResponse
+}
+
+import java.util
+import java.util.concurrent.{Semaphore, TimeUnit}
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicInteger}
+
+import scala.concurrent.duration._
+
+import org.junit.jupiter.api.{AfterEach, Assertions, BeforeEach, Test}
+import org.mockito.{ArgumentMatchers, Mockito}
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+
+class TaskExecutionServiceImplTest {
+
+  private val concurrentLimit = 2
+
+  /** The running tasks block until the test hands out a completion(任务阻塞直到测试放行) */
+  private val completions = new Semaphore(0)
+
+  private val running = new AtomicInteger()
+  private val maxRunning = new AtomicInteger()
+  private val started = new AtomicInteger()
+  private val completed = new AtomicInteger()
+
+  private val busy = new AtomicBoolean(false)
+  private val closed = new AtomicBoolean(false)
+
+  private var executor: ConcurrentComputationExecutor = _
+  private var taskExecutionService: TaskExecutionServiceImpl = _
+
+  @BeforeEach
+  def before(): Unit = {
+    executor = Mockito.mock(classOf[ConcurrentComputationExecutor])
+    Mockito.when(executor.getConcurrentLimit).thenReturn(concurrentLimit)
+    Mockito.when(executor.isBusy).thenAnswer(new Answer[Boolean] {
+      override def answer(invocation: InvocationOnMock): Boolean = busy.get()
+    })
+    Mockito.when(executor.isClosed).thenAnswer(new Answer[Boolean] {
+      override def answer(invocation: InvocationOnMock): Boolean = closed.get()
+    })
+    Mockito
+      .when(executor.execute(ArgumentMatchers.any[EngineConnTask]()))
+      .thenAnswer(new Answer[ExecuteResponse] {
+        override def answer(invocation: InvocationOnMock): ExecuteResponse =
+          runTask(invocation.getArgument[EngineConnTask](0))
+      })
+    taskExecutionService = new TaskExecutionServiceImpl
+  }
+
+  @AfterEach
+  def after(): Unit = {
+    closed.set(true)
+    completions.release(100)
+  }
+
+  @Test
+  def testConcurrentTasksNotOverLimit(): Unit = {
+    (1 to 6).foreach(i => submit(s"task-$i"))
+    waitUntil(started.get() == concurrentLimit)
+    // the queued tasks wait for a permit instead of being dispatched
+    Thread.sleep(300)
+    Assertions.assertEquals(concurrentLimit, started.get())
+
+    completions.release(6)
+    waitUntil(completed.get() == 6)
+    Assertions.assertEquals(concurrentLimit, maxRunning.get())
+  }
+
+  @Test
+  def testPermitsReturnedOnFailureAndKill(): Unit = {
+    val failedCount = ComputationEngineConnMetrics.getConcurrentTaskFailedCount
+    submit("failed")
+    val killed = submit("killed")
+    submit("task-1")
+    waitUntil(started.get() == concurrentLimit)
+    Thread.sleep(300)
+    Assertions.assertEquals(concurrentLimit, started.get())
+
+    // killed by user, ComputationExecutor returns an error response for a cancelled task
+    killed.setStatus(ExecutionNodeStatus.Cancelled)
+    completions.release(2)
+    waitUntil(completed.get() == 2)
+    waitUntil(ComputationEngineConnMetrics.getConcurrentTaskFailedCount == failedCount + 1)
+
+    // both permits are back, so the next two tasks run at the same time
+    submit("task-2")
+    waitUntil(running.get() == concurrentLimit)
+    completions.release(2)
+    waitUntil(completed.get() == 4)
+    Assertions.assertEquals(concurrentLimit, maxRunning.get())
+  }
+
+  @Test
+  def testNoDispatchWhileBusy(): Unit = {
+    // e.g. marked Busy by the monitor services under resource pressure
+    busy.set(true)
+    submit("task-1")
+    submit("task-2")
+    Thread.sleep(300)
+    Assertions.assertEquals(0, started.get())
+
+    // no status change event is posted by the mock, the bounded wait notices it
+    busy.set(false)
+    waitUntil(started.get() == concurrentLimit)
+    completions.release(2)
+    waitUntil(completed.get() == 2)
+  }
+
+  @Test
+  def testDispatcherExitsOnClose(): Unit = {
+    submit("task-1")
+    waitUntil(started.get() == 1)
+    val consumerThread = taskExecutionService.consumerThread
+    Assertions.assertTrue(consumerThread.isAlive)
+
+    closed.set(true)
+    waitUntil(!consumerThread.isAlive)
+    completions.release(1)
+    waitUntil(completed.get() == 1)
+  }
+
+  private def submit(taskId: String): CommonEngineConnTask = {
+    val task = new CommonEngineConnTask(taskId)
+    val properties = new util.HashMap[String, Object]()
+    properties.put(JobRequestConstants.JOB_ID, taskId)
+    task.setProperties(properties)
+    taskExecutionService.submitConcurrentTask(task, executor)
+    task
+  }
+
+  private def runTask(task: EngineConnTask): ExecuteResponse = {
+    started.incrementAndGet()
+    val current = running.incrementAndGet()
+    maxRunning.synchronized {
+      if (current > maxRunning.get()) maxRunning.set(current)
+    }
+    Utils.tryFinally {
+      completions.tryAcquire(30, TimeUnit.SECONDS)
+      running.decrementAndGet()
+      if (task.getTaskId == "failed") {
+        throw new IllegalStateException("task failed")
+      } else if (task.getStatus == ExecutionNodeStatus.Cancelled) {
+        ErrorExecuteResponse("Job is killed by user!", null)
+      } else SuccessExecuteResponse()
+    } {
+      // counted after the task is done, the permit is released right after it
+      completed.incrementAndGet()
+    }
+  }
+
+  private def waitUntil(isDone: => Boolean): Unit =
+    Utils.waitUntil(() => isDone, 10.seconds)
+
+}
@@ -37,6 +37,7 @@ import org.apache.linkis.protocol.constants.TaskConstant;
 import org.apache.linkis.protocol.message.RequestProtocol;
 import org.apache.linkis.protocol.task.Task;
 import org.apache.linkis.rpc.Sender;
+import org.apache.linkis.scheduler.queue.SchedulerEventState;
 
 import org.springframework.beans.BeanUtils;
 
@@ -57,6 +58,9 @@ public class QueryPersistenceEngine extends AbstractPersistenceEngine {
 
   private Sender sender;
 
+  /** Buffer of the non terminal updates, null if they are sent at once */
+  private JobHistoryWriteBehind writeBehind;
+
   private static final Logger logger = LoggerFactory.getLogger(QueryPersistenceEngine.class);
   private static final int MAX_DESC_LEN = GovernanceCommonConf.ERROR_CODE_DESC_LEN();
 
@@ -67,6 +71,13 @@ public class QueryPersistenceEngine extends AbstractPersistenceEngine {
     sender =
         Sender.getSender(
             EntranceConfiguration$.MODULE$.JOBHISTORY_SPRING_APPLICATION_NAME().getValue());
+    if (EntranceConfiguration.JOBINFO_UPDATE_WRITE_BEHIND_ENABLED().getValue()) {
+      writeBehind =
+          new JobHistoryWriteBehind(
+              sender,
+              EntranceConfiguration.JOBINFO_UPDATE_WRITE_BEHIND_INTERVAL().getValue().toLong(),
+              EntranceConfiguration.JOBINFO_UPDATE_WRITE_BEHIND_BATCH_SIZE().getValue());
+    }
   }
 
   private JobRespProtocol sendToJobHistoryAndRetry(RequestProtocol jobReq, String msg)
@@ -134,6 +145,15 @@ public class QueryPersistenceEngine extends AbstractPersistenceEngine {
       }
     }
     jobReqForUpdate.setUpdatedTime(new Date());
+    if (writeBehind != null && null != jobReq.getId()) {
+      // progress and intermediate status can wait, terminal status is persisted at once
+      if (null != jobReq.getStatus()
+          && !SchedulerEventState.isCompletedByStr(jobReq.getStatus())) {
+        writeBehind.offer(jobReqForUpdate);
+        return;
+      }
+      writeBehind.remove(jobReq.getId());
+    }
     JobReqUpdate jobReqUpdate = new JobReqUpdate(jobReqForUpdate);
     JobRespProtocol jobRespProtocol =
         sendToJobHistoryAndRetry(
@@ -220,8 +240,16 @@ public class QueryPersistenceEngine extends AbstractPersistenceEngine {
   }
 
   @Override
-  public void close() throws IOException {}
+  public void close() throws IOException {
+    if (writeBehind != null) {
+      writeBehind.close();
+    }
+  }
 
   @Override
-  public void flush() throws IOException {}
+  public void flush() throws IOException {
+    if (writeBehind != null) {
+      writeBehind.flush();
+    }
+  }
 }
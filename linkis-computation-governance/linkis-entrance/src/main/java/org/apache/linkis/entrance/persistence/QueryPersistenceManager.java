@@ -23,6 +23,7 @@ import org.apache.linkis.entrance.cli.heartbeat.CliHeartbeatMonitor;
 import org.apache.linkis.entrance.cs.CSEntranceHelper;
 import org.apache.linkis.entrance.execute.EntranceJob;
 import org.apache.linkis.entrance.log.FlexibleErrorCodeManager;
+import org.apache.linkis.entrance.scheduler.cache.ResultCacheManager;
 import org.apache.linkis.governance.common.conf.GovernanceCommonConf;
 import org.apache.linkis.governance.common.entity.job.JobRequest;
 import org.apache.linkis.protocol.engine.JobProgressInfo;
@@ -145,6 +146,7 @@ public class QueryPersistenceManager extends PersistenceManager {
     try {
       if (job.isSucceed()) {
         CSEntranceHelper.registerCSRSData(job);
+        ResultCacheManager.onJobCompleted(job);
       } else {
         JobRequest jobRequest =
             this.entranceContext.getOrCreateEntranceParser().parseToJobRequest(job);
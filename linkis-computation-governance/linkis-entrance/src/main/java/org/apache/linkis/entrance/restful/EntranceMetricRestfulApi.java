@@ -20,8 +20,11 @@ package org.apache.linkis.entrance.restful;
 import org.apache.linkis.common.conf.Configuration;
 import org.apache.linkis.entrance.EntranceServer;
 import org.apache.linkis.entrance.execute.EntranceJob;
+import org.apache.linkis.entrance.log.CacheLogFlusher;
+import org.apache.linkis.entrance.scheduler.cache.ResultCacheManager;
 import org.apache.linkis.manager.label.entity.engine.EngineTypeLabel;
 import org.apache.linkis.manager.label.utils.LabelUtil;
+import org.apache.linkis.orchestrator.execution.impl.TaskSchedulerMetrics;
 import org.apache.linkis.server.Message;
 import org.apache.linkis.server.utils.ModuleUserUtils;
 
@@ -130,4 +133,46 @@ public class EntranceMetricRestfulApi {
         .data("runningTaskNumber", runningTaskNumber)
         .data("isCompleted", isCompleted);
   }
+
+  @ApiOperation(
+      value = "logcache",
+      notes = "get enqueue latency and flush statistics of the log cache",
+      response = Message.class)
+  @RequestMapping(path = "/logcache", method = RequestMethod.GET)
+  public Message logCache(HttpServletRequest req) {
+    ModuleUserUtils.getOperationUser(req, "logcache");
+    return Message.ok("success")
+        .data("appenderNumber", CacheLogFlusher.getAppenderCount())
+        .data("enqueueNumber", CacheLogFlusher.getEnqueueCount())
+        .data("avgEnqueueMicros", CacheLogFlusher.getAvgEnqueueMicros())
+        .data("maxEnqueueMicros", CacheLogFlusher.getMaxEnqueueMicros())
+        .data("syncFlushNumber", CacheLogFlusher.getSyncFlushCount())
+        .data("flushNumber", CacheLogFlusher.getFlushCount())
+        .data("flushedLines", CacheLogFlusher.getFlushedLines());
+  }
+
+  @ApiOperation(
+      value = "resultcache",
+      notes = "get hit ratio and saved bytes of the result cache",
+      response = Message.class)
+  @RequestMapping(path = "/resultcache", method = RequestMethod.GET)
+  public Message resultCache(HttpServletRequest req) {
+    ModuleUserUtils.getOperationUser(req, "resultcache");
+    return Message.ok("success")
+        .data("cacheSize", ResultCacheManager.getCacheSize())
+        .data("requestNumber", ResultCacheManager.getRequestCount())
+        .data("hitNumber", ResultCacheManager.getHitCount())
+        .data("hitRatio", ResultCacheManager.getHitRatio())
+        .data("bytesSaved", ResultCacheManager.getBytesSaved());
+  }
+
+  @ApiOperation(
+      value = "taskscheduler",
+      notes = "get queue depth and wait time of each user_creator in the task scheduler",
+      response = Message.class)
+  @RequestMapping(path = "/taskscheduler", method = RequestMethod.GET)
+  public Message taskScheduler(HttpServletRequest req) {
+    ModuleUserUtils.getOperationUser(req, "taskscheduler");
+    return Message.ok("success").data("queues", TaskSchedulerMetrics.getMetrics());
+  }
 }
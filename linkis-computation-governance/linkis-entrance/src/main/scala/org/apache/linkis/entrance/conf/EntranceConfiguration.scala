@@ -45,8 +45,8 @@ object EntranceConfiguration {
   )
 
   /**
-   * Default_Cache_Max is used to specify the size of the LoopArray of the CacheLogWriter
-   * Default_Cache_Max 是用来指定CacheLogWriter的LoopArray的大小
+   * Default_Cache_Max is used to specify the size of the LogRingBuffer of the CacheLogWriter
+   * Default_Cache_Max 是用来指定CacheLogWriter的LogRingBuffer的大小
    */
   val DEFAULT_CACHE_MAX = CommonVars("wds.linkis.entrance.log.cacheMax", 500)
 
@@ -178,8 +178,11 @@ object EntranceConfiguration {
   // Whether to turn on timeout detection
   val ENABLE_JOB_TIMEOUT_CHECK = CommonVars("wds.linkis.enable.job.timeout.check", true)
 
-  // unit is seconds
-  val TIMEOUT_SCAN_INTERVAL = CommonVars("wds.linkis.timeout.thread.scan.interval", 120)
+  /**
+   * Tick of the timing wheel of job timeouts, queuing and running timeouts are detected at most one
+   * tick late
+   */
+  val TIMEOUT_WHEEL_TICK = CommonVars("linkis.entrance.timeout.wheel.tick", new TimeType("1s"))
 
   // unit is MINUTES
   val USER_PARALLEL_REFLESH_TIME = CommonVars("wds.linkis.user.parallel.reflesh.time", 30)
@@ -193,6 +196,19 @@ object EntranceConfiguration {
   val JOBINFO_UPDATE_RETRY_INTERVAL =
     CommonVars[Integer]("wds.linkis.entrance.jobinfo.update.retry.interval", 2 * 60 * 1000)
 
+  /**
+   * Buffer the progress and non terminal status updates of jobs and send them to jobhistory in
+   * batches, only the latest update of a job is kept. Terminal updates are still sent at once
+   */
+  val JOBINFO_UPDATE_WRITE_BEHIND_ENABLED =
+    CommonVars[java.lang.Boolean]("linkis.entrance.jobinfo.update.write.behind.enable", false)
+
+  val JOBINFO_UPDATE_WRITE_BEHIND_INTERVAL =
+    CommonVars("linkis.entrance.jobinfo.update.write.behind.interval", new TimeType("1s"))
+
+  val JOBINFO_UPDATE_WRITE_BEHIND_BATCH_SIZE =
+    CommonVars[Integer]("linkis.entrance.jobinfo.update.write.behind.batch.size", 200)
+
   val CODE_PARSER_SELECTIVE_IGNORED =
     CommonVars[java.lang.Boolean]("wds.linkis.entrance.code.parser.selective.ignored", true)
 
@@ -210,8 +226,38 @@ object EntranceConfiguration {
   val LOG_PUSH_INTERVAL_TIME =
     CommonVars("wds.linkis.entrance.log.push.interval.time", 5 * 60 * 1000)
 
+  /**
+   * Number of background threads which flush the cached logs of all jobs, each job is bound to one
+   * of them
+   */
+  val LOG_FLUSH_THREAD_NUM = CommonVars("linkis.entrance.log.flush.thread.num", 4)
+
+  val LOG_FLUSH_CHECK_INTERVAL =
+    CommonVars("linkis.entrance.log.flush.check.interval", new TimeType("1s"))
+
+  /**
+   * How long a writer waits for the flusher when the log cache is full before flushing the cache
+   * in its own thread
+   */
+  val LOG_CACHE_FULL_WAIT_TIME =
+    CommonVars("linkis.entrance.log.cache.full.wait.time", new TimeType("500ms"))
+
   val GROUP_CACHE_MAX = CommonVars("wds.linkis.consumer.group.cache.capacity", 5000)
 
+  /**
+   * Max number of succeed jobs whose result sets can be reused by the later jobs with the same
+   * code, user and labels
+   */
+  val RESULT_CACHE_MAX = CommonVars("linkis.entrance.result.cache.max", 10000)
+
+  /** Upper bound of cacheExpireAfter, also used when the job does not specify it */
+  val RESULT_CACHE_EXPIRE_MAX =
+    CommonVars("linkis.entrance.result.cache.expire.max", new TimeType("1d"))
+
+  /** Only these labels take part in the result cache key */
+  val RESULT_CACHE_LABEL_KEYS =
+    CommonVars("linkis.entrance.result.cache.label.keys", "engineType,userCreator,codeType,tenant")
+
   val GROUP_CACHE_EXPIRE_TIME = CommonVars("wds.linkis.consumer.group.expire.time", 50)
 
   val CLIENT_MONITOR_CREATOR =
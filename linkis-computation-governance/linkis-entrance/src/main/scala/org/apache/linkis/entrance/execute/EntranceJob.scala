@@ -24,6 +24,7 @@ import org.apache.linkis.entrance.conf.EntranceConfiguration
 import org.apache.linkis.entrance.errorcode.EntranceErrorCodeSummary._
 import org.apache.linkis.entrance.event._
 import org.apache.linkis.entrance.exception.EntranceErrorException
+import org.apache.linkis.entrance.timeout.JobTimeoutManager
 import org.apache.linkis.governance.common.entity.job.JobRequest
 import org.apache.linkis.governance.common.paser.CodeParser
 import org.apache.linkis.protocol.constants.TaskConstant
@@ -68,6 +69,11 @@ abstract class EntranceJob extends Job {
 
   private var updateMetrisFlag: Boolean = false
 
+  private var jobTimeoutManager: Option[JobTimeoutManager] = None
+
+  def setJobTimeoutManager(jobTimeoutManager: JobTimeoutManager): Unit =
+    this.jobTimeoutManager = Option(jobTimeoutManager)
+
   def getUpdateMetrisFlag: Boolean = this.updateMetrisFlag
 
   def setUpdateMetrisFlag(updateDbFlag: Boolean): Unit = this.updateMetrisFlag = updateDbFlag
@@ -225,6 +231,7 @@ abstract class EntranceJob extends Job {
       case e: Exception => logger.error("Failed to match state", e)
     }
     super.afterStateChanged(fromState, toState)
+    jobTimeoutManager.foreach(_.onJobStateChanged(this))
     entranceListenerBus.foreach(_.post(EntranceJobEvent(this.getId())))
   }
 
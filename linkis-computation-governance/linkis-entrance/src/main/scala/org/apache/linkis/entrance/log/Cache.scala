@@ -18,7 +18,7 @@
 package org.apache.linkis.entrance.log
 
 class Cache(maxCapacity: Int) {
-  val cachedLogs: LoopArray[String] = LoopArray[String](maxCapacity)
+  val cachedLogs: LogRingBuffer = new LogRingBuffer(maxCapacity)
 }
 
 object Cache {
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.log
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.entrance.conf.EntranceConfiguration
+
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.locks.LockSupport
+
+import scala.collection.JavaConverters._
+
+/**
+ * Appends log lines of one job to its LogRingBuffer and writes them to the log file in batches.
+ * Writers normally never wait for the file, the batches are written by the CacheLogFlusher thread
+ * the appender is bound to, or by the job thread on flush. If the ring stays full the writer
+ * flushes it by itself, so no log line is ever dropped.
+ * 单个任务的日志追加器，日志先写入环形缓冲，再由后台线程批量写入文件
+ */
+class CacheLogAppender(sharedCache: Cache, writeBatch: String => Unit) extends Logging {
+
+  private val ring = sharedCache.cachedLogs
+  private val flushThreshold = ring.getCapacity / 2
+  private val drainLock = new Object
+  @volatile private var lastFlushTime = System.currentTimeMillis
+
+  def append(line: String): Unit = {
+    val startTime = System.nanoTime
+    if (!ring.offer(line)) {
+      CacheLogFlusher.wakeUp(this)
+      val deadline = startTime + CacheLogFlusher.fullWaitNanos
+      var offered = false
+      while (!offered && System.nanoTime < deadline) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1))
+        offered = ring.offer(line)
+      }
+      // the flusher is lagging behind, write the pending lines in the caller thread
+      while (!offered) {
+        flush()
+        CacheLogFlusher.recordSyncFlush()
+        offered = ring.offer(line)
+      }
+    }
+    CacheLogFlusher.recordEnqueue(System.nanoTime - startTime)
+    if (ring.pendingSize == flushThreshold) CacheLogFlusher.wakeUp(this)
+  }
+
+  private[log] def flushIfNeeded(): Unit = {
+    val pending = ring.pendingSize
+    if (
+        pending >= flushThreshold ||
+        (pending > 0 && System.currentTimeMillis - lastFlushTime >= CacheLogFlusher.pushInterval)
+    ) {
+      flush()
+    }
+  }
+
+  /** Write all published lines to the file, the last line is not followed by a line separator */
+  def flush(): Unit = drainLock synchronized {
+    val sb = new StringBuilder
+    val drained = ring.drain(line => sb.append(line).append("\n"))
+    if (drained > 0) {
+      sb.setLength(sb.length - 1)
+      writeBatch(sb.toString())
+      CacheLogFlusher.recordFlush(drained)
+    }
+    lastFlushTime = System.currentTimeMillis
+  }
+
+}
+
+/**
+ * Background flushers of the entrance log cache, appenders are spread over a fixed number of
+ * threads by hash.
+ */
+object CacheLogFlusher extends Logging {
+
+  private[log] val fullWaitNanos =
+    TimeUnit.MILLISECONDS.toNanos(EntranceConfiguration.LOG_CACHE_FULL_WAIT_TIME.getValue.toLong)
+
+  private[log] val pushInterval = EntranceConfiguration.LOG_PUSH_INTERVAL_TIME.getValue.toLong
+
+  private val checkInterval = EntranceConfiguration.LOG_FLUSH_CHECK_INTERVAL.getValue.toLong
+
+  private val enqueueCount = new AtomicLong
+  private val enqueueNanos = new AtomicLong
+  private val maxEnqueueNanos = new AtomicLong
+  private val syncFlushCount = new AtomicLong
+  private val flushedLines = new AtomicLong
+  private val flushCount = new AtomicLong
+
+  private class FlushThread(index: Int) extends Thread(s"Entrance-Log-Flusher-$index") {
+
+    private[CacheLogFlusher] val appenders =
+      new ConcurrentHashMap[CacheLogAppender, java.lang.Boolean]
+
+    setDaemon(true)
+
+    override def run(): Unit = while (true) {
+      appenders.keySet().asScala.foreach { appender =>
+        Utils.tryAndWarnMsg(appender.flushIfNeeded())(s"$getName flush log cache failed")
+      }
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(checkInterval))
+    }
+
+  }
+
+  private val flushThreads = {
+    val threads = (0 until Math.max(1, EntranceConfiguration.LOG_FLUSH_THREAD_NUM.getValue))
+      .map(new FlushThread(_))
+      .toArray
+    threads.foreach(_.start())
+    threads
+  }
+
+  private def getFlushThread(appender: CacheLogAppender): FlushThread =
+    flushThreads(Math.abs(appender.hashCode % flushThreads.length))
+
+  def register(appender: CacheLogAppender): Unit =
+    getFlushThread(appender).appenders.put(appender, true)
+
+  def unregister(appender: CacheLogAppender): Unit =
+    getFlushThread(appender).appenders.remove(appender)
+
+  private[log] def wakeUp(appender: CacheLogAppender): Unit =
+    LockSupport.unpark(getFlushThread(appender))
+
+  private[log] def recordEnqueue(nanos: Long): Unit = {
+    enqueueCount.incrementAndGet()
+    enqueueNanos.addAndGet(nanos)
+    var max = maxEnqueueNanos.get()
+    while (nanos > max && !maxEnqueueNanos.compareAndSet(max, nanos)) max = maxEnqueueNanos.get()
+  }
+
+  private[log] def recordSyncFlush(): Unit = syncFlushCount.incrementAndGet()
+
+  private[log] def recordFlush(lines: Int): Unit = {
+    flushCount.incrementAndGet()
+    flushedLines.addAndGet(lines)
+  }
+
+  def getEnqueueCount: Long = enqueueCount.get()
+
+  /** Average time in microseconds a writer spent to put one line into the cache */
+  def getAvgEnqueueMicros: Double = {
+    val count = enqueueCount.get()
+    if (count == 0) 0d else enqueueNanos.get() / 1000d / count
+  }
+
+  def getMaxEnqueueMicros: Long = maxEnqueueNanos.get() / 1000
+
+  /** Number of times a writer found the cache full and flushed it in its own thread */
+  def getSyncFlushCount: Long = syncFlushCount.get()
+
+  def getFlushedLines: Long = flushedLines.get()
+
+  def getFlushCount: Long = flushCount.get()
+
+  def getAppenderCount: Int = flushThreads.map(_.appenders.size()).sum
+
+}
@@ -52,20 +52,10 @@ class CacheLogReader(logPath: String, charset: String, sharedCache: Cache, user:
 
   override protected def readLog(deal: String => Unit, fromLine: Int, size: Int): Int = {
     if (!sharedCache.cachedLogs.nonEmpty) return super.readLog(deal, fromLine, size)
-    val min = sharedCache.cachedLogs.min
-    val max = sharedCache.cachedLogs.max
-    if (fromLine > max) return 0
-    val from = fromLine
-    val to = if (fromLine >= min) {
-      if (size >= 0 && max >= fromLine + size) fromLine + size else max + 1
-    } else {
-      // If you are getting it from a file, you don't need to read the cached data again. In this case, you can guarantee that the log will not be missing.
-      val read = super.readLog(deal, fromLine, size)
-      return read
-    }
-
-    (from until to) map sharedCache.cachedLogs.get foreach deal
-    to - fromLine
+    val read = sharedCache.cachedLogs.read(fromLine, size, deal)
+    // Lines which are no longer in the cache have been written to the file, and the file is read
+    // without the cached data so that no line is read twice.
+    if (read < 0) super.readLog(deal, fromLine, size) else read
   }
 
   @throws[IOException]
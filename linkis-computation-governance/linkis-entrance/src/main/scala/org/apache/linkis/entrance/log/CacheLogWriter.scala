@@ -17,58 +17,36 @@
 
 package org.apache.linkis.entrance.log
 
-import org.apache.linkis.entrance.conf.EntranceConfiguration
-
 import org.apache.commons.lang3.StringUtils
 
-import java.sql.Date
-
 class CacheLogWriter(logPath: String, charset: String, sharedCache: Cache, user: String)
     extends AbstractLogWriter(logPath, user, charset) {
 
-  val pushTime: Date = new Date(
-    System.currentTimeMillis() + EntranceConfiguration.LOG_PUSH_INTERVAL_TIME.getValue
-  )
+  private val appender = new CacheLogAppender(sharedCache, msg => super.write(msg))
 
-  def getCache: Option[Cache] = Some(sharedCache)
+  CacheLogFlusher.register(appender)
 
-  private def cache(msg: String): Unit = {
-    this synchronized {
-      val removed = sharedCache.cachedLogs.add(msg)
-      val currentTime = new Date(System.currentTimeMillis())
-      if (removed != null || currentTime.after(pushTime)) {
-        val logs = sharedCache.cachedLogs.toList
-        val sb = new StringBuilder
-        if (removed != null) sb.append(removed).append("\n")
-        logs.filter(_ != null).foreach(log => sb.append(log).append("\n"))
-        sharedCache.cachedLogs.fakeClear()
-        super.write(sb.toString())
-        pushTime.setTime(
-          currentTime.getTime + EntranceConfiguration.LOG_PUSH_INTERVAL_TIME.getValue
-        )
-      }
-    }
-  }
+  def getCache: Option[Cache] = Some(sharedCache)
 
   override def write(msg: String): Unit = {
     if (StringUtils.isBlank(msg)) {
-      cache("")
+      appender.append("")
     } else {
       val rows = msg.split("\n")
       rows.foreach(row => {
-        if (row == null) cache("") else cache(row)
+        if (row == null) appender.append("") else appender.append(row)
       })
     }
   }
 
   override def flush(): Unit = {
-    val sb = new StringBuilder
-    sharedCache.cachedLogs.toList
-      .filter(StringUtils.isNotEmpty)
-      .foreach(sb.append(_).append("\n"))
-    sharedCache.cachedLogs.clear()
-    super.write(sb.toString())
+    appender.flush()
     super.flush()
   }
 
+  override def close(): Unit = {
+    CacheLogFlusher.unregister(appender)
+    super.close()
+  }
+
 }
@@ -19,7 +19,6 @@ package org.apache.linkis.entrance.log
 
 import org.apache.linkis.common.io.FsPath
 import org.apache.linkis.common.utils.Utils
-import org.apache.linkis.entrance.conf.EntranceConfiguration
 import org.apache.linkis.entrance.errorcode.EntranceErrorCodeSummary._
 import org.apache.linkis.entrance.exception.EntranceErrorException
 import org.apache.linkis.storage.FSFactory
@@ -31,7 +30,6 @@ import org.apache.hadoop.hdfs.client.HdfsDataOutputStream
 import org.apache.hadoop.io.IOUtils
 
 import java.io.{IOException, OutputStream}
-import java.sql.Date
 import java.util
 
 class HDFSCacheLogWriter(logPath: String, charset: String, sharedCache: Cache, user: String)
@@ -84,29 +82,11 @@ class HDFSCacheLogWriter(logPath: String, charset: String, sharedCache: Cache, u
     }
   }
 
-  val pushTime: Date = new Date(
-    System.currentTimeMillis() + EntranceConfiguration.LOG_PUSH_INTERVAL_TIME.getValue
-  )
+  private val appender = new CacheLogAppender(sharedCache, writeToFile)
 
-  def getCache: Option[Cache] = Some(sharedCache)
+  CacheLogFlusher.register(appender)
 
-  private def cache(msg: String): Unit = {
-    WRITE_LOCKER synchronized {
-      val removed = sharedCache.cachedLogs.add(msg)
-      val currentTime = new Date(System.currentTimeMillis())
-      if (removed != null || currentTime.after(pushTime)) {
-        val logs = sharedCache.cachedLogs.toList
-        val sb = new StringBuilder
-        if (removed != null) sb.append(removed).append("\n")
-        logs.filter(_ != null).foreach(log => sb.append(log).append("\n"))
-        sharedCache.cachedLogs.fakeClear()
-        writeToFile(sb.toString())
-        pushTime.setTime(
-          currentTime.getTime + EntranceConfiguration.LOG_PUSH_INTERVAL_TIME.getValue
-        )
-      }
-    }
-  }
+  def getCache: Option[Cache] = Some(sharedCache)
 
   private def writeToFile(msg: String): Unit = WRITE_LOCKER synchronized {
     val log =
@@ -126,21 +106,15 @@ class HDFSCacheLogWriter(logPath: String, charset: String, sharedCache: Cache, u
     if (StringUtils.isNotBlank(msg)) {
       val rows = msg.split("\n")
       rows.foreach(row => {
-        if (StringUtils.isNotBlank(row)) cache(row)
+        if (StringUtils.isNotBlank(row)) appender.append(row)
       })
     }
   }
 
-  override def flush(): Unit = {
-    val sb = new StringBuilder
-    sharedCache.cachedLogs.toList
-      .filter(_ != null)
-      .foreach(sb.append(_).append("\n"))
-    sharedCache.cachedLogs.clear()
-    writeToFile(sb.toString())
-  }
+  override def flush(): Unit = appender.flush()
 
   override def close(): Unit = {
+    CacheLogFlusher.unregister(appender)
     super.close()
     if (fileSystem != null) Utils.tryAndWarnMsg {
       fileSystem.close()
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.log
+
+import java.util.concurrent.atomic.{AtomicLong, AtomicLongArray, AtomicReferenceArray}
+
+/**
+ * Lock-free multi-producer ring of log lines with a single consumer(the flusher). Every line gets
+ * an absolute sequence which is its line number in the log file. A slot is only reused after its
+ * line has been drained, so lines which are no longer in the ring can always be read from the
+ * file. Readers tail the ring without blocking writers, a per slot sequence is checked before and
+ * after reading a line to detect that it was overwritten in between.
+ * 无锁的多生产者日志环形缓冲，单个刷写线程消费，读取不阻塞写入
+ */
+class LogRingBuffer(maxCapacity: Int) {
+
+  private val capacity = {
+    var c = 2
+    while (c < maxCapacity) c <<= 1
+    c
+  }
+
+  private val mask = capacity - 1
+
+  private val lines = new AtomicReferenceArray[String](capacity)
+
+  /** sequence + 1 of the line published in each slot, 0 while the slot is being written */
+  private val sequences = new AtomicLongArray(capacity)
+
+  /** next sequence to claim */
+  private val tail = new AtomicLong(0)
+
+  /** lines before head have been drained */
+  @volatile private var head = 0L
+
+  def this() = this(32)
+
+  def getCapacity: Int = capacity
+
+  /**
+   * @return
+   *   false if the ring is full of lines which have not been drained yet
+   */
+  def offer(line: String): Boolean = {
+    var claimed = -1L
+    while (claimed < 0) {
+      val t = tail.get()
+      if (t - head >= capacity) return false
+      if (tail.compareAndSet(t, t + 1)) claimed = t
+    }
+    val index = (claimed & mask).toInt
+    sequences.set(index, 0)
+    lines.set(index, line)
+    sequences.set(index, claimed + 1)
+    true
+  }
+
+  /**
+   * Hand the published lines since the last drain to consume in order. Only one thread may drain
+   * at a time.
+   * @return
+   *   the number of drained lines
+   */
+  def drain(consume: String => Unit): Int = {
+    var h = head
+    val end = tail.get()
+    while (h < end && sequences.get((h & mask).toInt) == h + 1) {
+      consume(lines.get((h & mask).toInt))
+      h += 1
+    }
+    val drained = (h - head).toInt
+    head = h
+    drained
+  }
+
+  /**
+   * Read lines from the absolute line number fromLine.
+   * @param size
+   *   max lines to read, negative means all
+   * @return
+   *   the number of lines read, or -1 if fromLine is no longer in the ring and must be read from
+   *   the file
+   */
+  def read(fromLine: Int, size: Int, deal: String => Unit): Int = {
+    val end = tail.get()
+    if (fromLine >= end) return 0
+    if (fromLine < 0 || fromLine < end - capacity) return -1
+    val first = readLine(fromLine)
+    if (first.isEmpty) return if (fromLine < head) -1 else 0
+    deal(first.get)
+    var read = 1
+    var next = readLine(fromLine + 1L)
+    while ((size < 0 || read < size) && next.isDefined) {
+      deal(next.get)
+      read += 1
+      next = readLine(fromLine + read.toLong)
+    }
+    read
+  }
+
+  private def readLine(sequence: Long): Option[String] = if (sequence >= tail.get()) None
+  else {
+    val index = (sequence & mask).toInt
+    if (sequences.get(index) != sequence + 1) None
+    else {
+      val line = lines.get(index)
+      if (sequences.get(index) == sequence + 1) Some(line) else None
+    }
+  }
+
+  /** number of lines ever offered */
+  def size: Long = tail.get()
+
+  def pendingSize: Int = (tail.get() - head).toInt
+
+  def isEmpty: Boolean = tail.get() == 0
+
+  def nonEmpty: Boolean = !isEmpty
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.persistence
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.governance.common.entity.job.JobRequest
+import org.apache.linkis.governance.common.protocol.job.{JobReqBatchUpdate, JobRespProtocol}
+import org.apache.linkis.rpc.Sender
+
+import java.util
+import java.util.concurrent.{ConcurrentHashMap, TimeUnit}
+import java.util.function.BiFunction
+
+import scala.collection.JavaConverters._
+
+/**
+ * Write-behind buffer of the non terminal job updates. Every update of the entrance carries the
+ * whole job, so only the latest update of a job is kept and the buffered updates are sent to
+ * jobhistory in batches every interval: a running job costs one row update per interval instead of
+ * one per progress report. Terminal updates should not be buffered, the caller removes the pending
+ * update of the job and sends the terminal one at once.
+ * 缓存任务的非终态更新，每个任务只保留最新一次，按批次定时写入jobhistory
+ */
+class JobHistoryWriteBehind(sender: Sender, interval: Long, batchSize: Int) extends Logging {
+
+  private val pending = new ConcurrentHashMap[java.lang.Long, JobRequest]()
+
+  private val keepNewer = new BiFunction[JobRequest, JobRequest, JobRequest] {
+    override def apply(old: JobRequest, update: JobRequest): JobRequest =
+      if (isBefore(update, old)) old else update
+  }
+
+  private val flushFuture = Utils.defaultScheduler.scheduleWithFixedDelay(
+    new Runnable {
+      override def run(): Unit = Utils.tryAndWarn(flush())
+    },
+    interval,
+    interval,
+    TimeUnit.MILLISECONDS
+  )
+
+  Utils.addShutdownHook(close())
+
+  private def isBefore(update: JobRequest, old: JobRequest): Boolean =
+    update.getUpdatedTime != null && old.getUpdatedTime != null &&
+      update.getUpdatedTime.before(old.getUpdatedTime)
+
+  def offer(jobReq: JobRequest): Unit = pending.merge(jobReq.getId, jobReq, keepNewer)
+
+  /** @return the dropped update, null if the job has no pending update */
+  def remove(jobId: java.lang.Long): JobRequest = pending.remove(jobId)
+
+  def size: Int = pending.size()
+
+  /**
+   * Send all the pending updates. The updates failed to be sent are kept for the next flush, and
+   * the flush stops at the first batch that fails as a whole.
+   */
+  def flush(): Unit = synchronized {
+    val retries = new util.ArrayList[JobRequest]()
+    var sent = true
+    while (sent && !pending.isEmpty) {
+      val batch = new util.ArrayList[JobRequest](math.min(batchSize, pending.size()))
+      val iterator = pending.entrySet().iterator()
+      while (iterator.hasNext && batch.size() < batchSize) {
+        val entry = iterator.next()
+        // skip the entry if it is replaced or removed meanwhile
+        if (pending.remove(entry.getKey, entry.getValue)) batch.add(entry.getValue)
+      }
+      sent = !batch.isEmpty && send(batch, retries)
+    }
+    // a newer update or a terminal update may have been issued while sending
+    retries.asScala.foreach(jobReq => pending.putIfAbsent(jobReq.getId, jobReq))
+  }
+
+  private def send(
+      batch: util.ArrayList[JobRequest],
+      retries: util.List[JobRequest]
+  ): Boolean = Utils.tryCatch {
+    sender.ask(JobReqBatchUpdate(batch)) match {
+      case responses: util.List[_] =>
+        responses.asScala.zip(batch.asScala).foreach {
+          case (response: JobRespProtocol, jobReq) if response.getStatus == 2 =>
+            logger.warn(s"Failed to update job ${jobReq.getId}, retry later: ${response.getMsg}")
+            retries.add(jobReq)
+          case (response: JobRespProtocol, jobReq) if response.getStatus != 0 =>
+            // rejected by the status check, a newer status is persisted already
+            logger.info(s"Drop the update of job ${jobReq.getId}: ${response.getMsg}")
+          case _ =>
+        }
+      case response =>
+        logger.warn(s"Unexpected response of the batch update of jobhistory: $response")
+    }
+    true
+  } { t =>
+    logger.warn(s"Failed to send ${batch.size()} job updates to jobhistory, retry later", t)
+    retries.addAll(batch)
+    false
+  }
+
+  def close(): Unit = {
+    flushFuture.cancel(false)
+    Utils.tryAndWarn(flush())
+  }
+
+}
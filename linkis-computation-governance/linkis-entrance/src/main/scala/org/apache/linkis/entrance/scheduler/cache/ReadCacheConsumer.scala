@@ -18,12 +18,12 @@
 package org.apache.linkis.entrance.scheduler.cache
 
 import org.apache.linkis.common.io.FsPath
+import org.apache.linkis.common.log.LogUtils
 import org.apache.linkis.common.utils.Utils
 import org.apache.linkis.entrance.errorcode.EntranceErrorCodeSummary._
 import org.apache.linkis.entrance.exception.CacheNotReadyException
 import org.apache.linkis.entrance.execute.EntranceJob
 import org.apache.linkis.entrance.persistence.PersistenceManager
-import org.apache.linkis.entrance.utils.JobHistoryHelper
 import org.apache.linkis.governance.common.entity.job.JobRequest
 import org.apache.linkis.manager.label.constant.LabelKeyConstant
 import org.apache.linkis.protocol.constants.TaskConstant
@@ -37,9 +37,7 @@ import org.apache.linkis.scheduler.queue.fifoqueue.FIFOUserConsumer
 import org.apache.linkis.server.BDPJettyServerHelper
 import org.apache.linkis.storage.FSFactory
 import org.apache.linkis.storage.fs.FileSystem
-
-import org.apache.commons.io.FilenameUtils
-import org.apache.commons.lang3.StringUtils
+import org.apache.linkis.storage.resultset.ResultSetRowIndex
 
 import java.util.concurrent.ExecutorService
 
@@ -65,9 +63,6 @@ class ReadCacheConsumer(
                 .filter(l => l.getLabelKey.equalsIgnoreCase(LabelKeyConstant.ENGINE_TYPE_KEY))
                 .headOption
                 .getOrElse(null)
-              val labelStrList = jobRequest.getLabels.asScala.map { case l =>
-                l.getStringValue
-              }.toList
               if (null == engineTpyeLabel) {
                 logger.error(
                   "Invalid engineType null, cannot process. jobReq : " + BDPJettyServerHelper.gson
@@ -78,41 +73,41 @@ class ReadCacheConsumer(
                   INVALID_ENGINETYPE_NULL.getErrorDesc
                 )
               }
-              val readCacheBefore: Long = TaskUtils
-                .getRuntimeMap(job.getParams)
-                .getOrDefault(TaskConstant.READ_CACHE_BEFORE, 300L: java.lang.Long)
-                .asInstanceOf[Long]
-              val cacheResult = JobHistoryHelper.getCache(
+              // json numbers may be deserialized as double
+              val readCacheBefore: Long = Option(
+                TaskUtils.getRuntimeMap(job.getParams).get(TaskConstant.READ_CACHE_BEFORE)
+              ).map(_.toString.toDouble.toLong).getOrElse(300L)
+              val cacheKey = ResultCacheManager.getKey(
                 jobRequest.getExecutionCode,
                 jobRequest.getExecuteUser,
-                labelStrList.asJava,
-                readCacheBefore
+                jobRequest.getLabels
               )
-              if (cacheResult != null && StringUtils.isNotBlank(cacheResult.getResultLocation)) {
-                val resultSets = listResults(cacheResult.getResultLocation, job.getUser)
-                if (resultSets.size() > 0) {
-                  for (resultSet: FsPath <- resultSets.asScala) {
-                    val alias = FilenameUtils.getBaseName(resultSet.getPath)
-                    val output = FsPath
-                      .getFsPath(
-                        cacheResult.getResultLocation,
-                        FilenameUtils.getName(resultSet.getPath)
-                      )
-                      .getSchemaPath
-//                    persistenceManager.onResultSetCreated(job, new CacheOutputExecuteResponse(alias, output))
-                    throw CacheNotReadyException(
-                      INVALID_RESULTSETS.getErrorCode,
-                      INVALID_RESULTSETS.getErrorDesc
-                    )
-                    // todo check
-                  }
-//                  persistenceManager.onResultSizeCreated(job, resultSets.size())
-                }
+              val cacheResult = ResultCacheManager.get(cacheKey, readCacheBefore)
+              val resultSets =
+                if (cacheResult == null) Lists.newArrayList[FsPath]()
+                else listResults(cacheResult.resultLocation, job.getUser)
+              if (resultSets.size() > 0) {
+                // point to the result sets of the cached job, they are never copied
+                jobRequest.setResultLocation(cacheResult.resultLocation)
+                job.setResultSize(resultSets.size())
+                ResultCacheManager.onHit(resultSets.asScala.map(_.getLength).sum)
                 val runtime = TaskUtils.getRuntimeMap(job.getParams)
                 runtime.put(TaskConstant.CACHE, java.lang.Boolean.FALSE)
                 TaskUtils.addRuntimeMap(job.getParams, runtime)
+                job.getLogListener.foreach(
+                  _.onLogUpdate(
+                    job,
+                    LogUtils.generateInfo(
+                      s"Result found in cache, reuse the result sets of job ${cacheResult.jobId}"
+                    )
+                  )
+                )
                 job.transitionCompleted(SuccessExecuteResponse(), "Result found in cache")
               } else {
+                if (cacheResult != null) {
+                  logger.info(s"Result sets of job ${cacheResult.jobId} are gone, drop the cache.")
+                  ResultCacheManager.invalidate(cacheKey)
+                }
                 logger.info("Cache not found, submit to normal consumer.")
                 submitToExecute(job)
               }
@@ -132,7 +127,8 @@ class ReadCacheConsumer(
     Utils.tryFinally {
       fileSystem.init(null)
       if (fileSystem.exists(dirPath)) {
-        fileSystem.listPathWithError(dirPath).getFsPaths
+        val paths = fileSystem.listPathWithError(dirPath).getFsPaths.asScala
+        Lists.newArrayList(paths.filterNot(p => ResultSetRowIndex.isIndexPath(p.getPath)).asJava)
       } else {
         Lists.newArrayList[FsPath]()
       }
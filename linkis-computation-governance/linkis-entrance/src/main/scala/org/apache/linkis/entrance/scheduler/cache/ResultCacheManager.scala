@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.scheduler.cache
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.entrance.conf.EntranceConfiguration
+import org.apache.linkis.entrance.execute.EntranceJob
+import org.apache.linkis.manager.label.entity.Label
+import org.apache.linkis.protocol.constants.TaskConstant
+import org.apache.linkis.protocol.utils.TaskUtils
+import org.apache.linkis.scheduler.queue.Job
+
+import org.apache.commons.lang3.StringUtils
+
+import java.nio.charset.StandardCharsets
+import java.security.MessageDigest
+import java.util
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+import scala.collection.JavaConverters._
+
+import com.google.common.cache.{Cache, CacheBuilder}
+
+/**
+ * @param jobId
+ *   the job which produced the result sets
+ * @param resultLocation
+ *   result set dir of that job, the cache only points to it and never copies the files
+ */
+case class ResultCacheEntry(
+    jobId: Long,
+    resultLocation: String,
+    createTime: Long,
+    expireTime: Long
+)
+
+/**
+ * Result sets of the succeed jobs submitted with cache=true, keyed by the sha-256 of the execute
+ * user, the labels and the normalized code after variable substitution. Jobs submitted with
+ * readFromCache=true are answered from here by ReadCacheConsumer without asking for an engine.
+ * 成功且开启cache的任务的结果集缓存，key为执行用户、标签和变量替换后规范化代码的sha-256
+ */
+object ResultCacheManager extends Logging {
+
+  private val labelKeys =
+    EntranceConfiguration.RESULT_CACHE_LABEL_KEYS.getValue.split(",").map(_.trim).toSet
+
+  private val maxExpireMills = EntranceConfiguration.RESULT_CACHE_EXPIRE_MAX.getValue.toLong
+
+  private val cache: Cache[String, ResultCacheEntry] = CacheBuilder
+    .newBuilder()
+    .maximumSize(EntranceConfiguration.RESULT_CACHE_MAX.getValue.toLong)
+    .expireAfterWrite(maxExpireMills, TimeUnit.MILLISECONDS)
+    .build()
+
+  private val requestNum = new AtomicLong(0)
+  private val hitNum = new AtomicLong(0)
+  private val bytesSaved = new AtomicLong(0)
+
+  /**
+   * Line endings, trailing blanks, blank lines and the ending semicolons do not change the result,
+   * leading blanks are kept since they matter for python.
+   */
+  def normalizeCode(code: String): String = if (StringUtils.isBlank(code)) ""
+  else {
+    val lines = code
+      .replace("\r\n", "\n")
+      .replace('\r', '\n')
+      .split("\n")
+      .map(StringUtils.stripEnd(_, null))
+      .filter(StringUtils.isNotEmpty)
+    StringUtils.stripEnd(lines.mkString("\n"), "; \t\n")
+  }
+
+  def getKey(
+      executionCode: String,
+      executeUser: String,
+      labels: util.List[Label[_]]
+  ): String = {
+    val labelStr = if (labels == null) ""
+    else {
+      labels.asScala
+        .filter(l => l != null && labelKeys.contains(l.getLabelKey))
+        .map(l => l.getLabelKey + "=" + l.getStringValue)
+        .sorted
+        .mkString(",")
+    }
+    val digest = MessageDigest
+      .getInstance("SHA-256")
+      .digest(
+        (executeUser + "\n" + labelStr + "\n" + normalizeCode(executionCode))
+          .getBytes(StandardCharsets.UTF_8)
+      )
+    digest.map(b => "%02x".format(b & 0xff)).mkString
+  }
+
+  /**
+   * @param readCacheBefore
+   *   seconds, entries created earlier than that are not returned
+   */
+  def get(key: String, readCacheBefore: Long): ResultCacheEntry = {
+    requestNum.incrementAndGet()
+    val entry = cache.getIfPresent(key)
+    val now = System.currentTimeMillis()
+    if (entry == null) {
+      null
+    } else if (entry.expireTime <= now) {
+      cache.invalidate(key)
+      null
+    } else if (readCacheBefore > 0 && entry.createTime < now - readCacheBefore * 1000) {
+      null
+    } else {
+      entry
+    }
+  }
+
+  def put(key: String, entry: ResultCacheEntry): Unit = cache.put(key, entry)
+
+  def invalidate(key: String): Unit = cache.invalidate(key)
+
+  def onHit(resultBytes: Long): Unit = {
+    hitNum.incrementAndGet()
+    bytesSaved.addAndGet(resultBytes)
+  }
+
+  def onJobCompleted(job: Job): Unit = job match {
+    case entranceJob: EntranceJob if entranceJob.isSucceed =>
+      val runtime = TaskUtils.getRuntimeMap(entranceJob.getParams)
+      val jobRequest = entranceJob.getJobRequest
+      if (
+          isEnabled(runtime.get(TaskConstant.CACHE)) && jobRequest != null && StringUtils
+            .isNotBlank(jobRequest.getResultLocation)
+      ) {
+        Utils.tryAndWarn {
+          val expireMills = Option(runtime.get(TaskConstant.CACHE_EXPIRE_AFTER))
+            .map(_.toString.toDouble.toLong * 1000)
+            .filter(_ > 0)
+            .map(math.min(_, maxExpireMills))
+            .getOrElse(maxExpireMills)
+          val now = System.currentTimeMillis()
+          val key =
+            getKey(jobRequest.getExecutionCode, jobRequest.getExecuteUser, jobRequest.getLabels)
+          val entry =
+            ResultCacheEntry(jobRequest.getId, jobRequest.getResultLocation, now, now + expireMills)
+          put(key, entry)
+          logger.info(s"Job ${jobRequest.getId} cached its result sets for $expireMills ms.")
+        }
+      }
+    case _ =>
+  }
+
+  private def isEnabled(value: Any): Boolean =
+    value != null && java.lang.Boolean.parseBoolean(value.toString)
+
+  def getCacheSize: Long = cache.size()
+
+  def getRequestCount: Long = requestNum.get()
+
+  def getHitCount: Long = hitNum.get()
+
+  def getHitRatio: Double = {
+    val requests = requestNum.get()
+    if (requests == 0) 0d else hitNum.get().toDouble / requests
+  }
+
+  def getBytesSaved: Long = bytesSaved.get()
+
+}
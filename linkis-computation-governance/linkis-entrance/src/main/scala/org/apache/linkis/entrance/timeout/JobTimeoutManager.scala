@@ -35,31 +35,49 @@ import scala.collection.JavaConverters._
 
 class JobTimeoutManager extends Logging {
 
-  private[this] final val timeoutJobByName: ConcurrentMap[String, EntranceJob] =
-    new ConcurrentHashMap[String, EntranceJob]
+  private class TimeoutJob(
+      val job: EntranceJob,
+      val queuingTimeout: Long,
+      val runningTimeout: Long
+  ) {
+    var timeout: TimingWheel[String]#Timeout = _
+  }
+
+  private[this] final val timeoutJobByName: ConcurrentMap[String, TimeoutJob] =
+    new ConcurrentHashMap[String, TimeoutJob]
 
   val timeoutCheck: Boolean = EntranceConfiguration.ENABLE_JOB_TIMEOUT_CHECK.getValue
-  val timeoutScanInterval: Int = EntranceConfiguration.TIMEOUT_SCAN_INTERVAL.getValue
+
+  private val tickMillis: Long = EntranceConfiguration.TIMEOUT_WHEEL_TICK.getValue.toLong
+
+  private val timingWheel = new TimingWheel[String](tickMillis, 64)
 
   def add(jobKey: String, job: EntranceJob): Unit = {
     logger.info(s"Adding timeout job: ${job.getId()}")
-    if (!timeoutJobByName.containsKey(jobKey)) {
-      synchronized {
-        if (!timeoutJobByName.containsKey(jobKey)) {
-          timeoutJobByName.put(jobKey, job)
-        }
-      }
+    var queuingTimeout = 0L
+    var runningTimeout = 0L
+    job.jobRequest.getLabels.asScala foreach {
+      case queueTimeOutLabel: JobQueuingTimeoutLabel =>
+        queuingTimeout = queueTimeOutLabel.getQueuingTimeout
+      case jobRunningTimeoutLabel: JobRunningTimeoutLabel =>
+        runningTimeout = jobRunningTimeoutLabel.getRunningTimeout
+      case _ =>
+    }
+    val timeoutJob = new TimeoutJob(job, queuingTimeout, runningTimeout)
+    if (timeoutJobByName.putIfAbsent(jobKey, timeoutJob) == null) {
+      job.setJobTimeoutManager(this)
+      arm(jobKey, timeoutJob)
     } else {
       logger.warn(s"Job already exists, invalid addition: ${jobKey}")
     }
   }
 
   def delete(jobKey: String): Unit = {
-    val job = timeoutJobByName.get(jobKey)
-    if (null != job) {
-      logger.info(s"Deleting Job: ${job.getId()}")
-      synchronized {
-        timeoutJobByName.remove(jobKey)
+    val timeoutJob = timeoutJobByName.remove(jobKey)
+    if (null != timeoutJob) {
+      logger.info(s"Deleting Job: ${timeoutJob.job.getId()}")
+      timeoutJob synchronized {
+        if (timeoutJob.timeout != null) timeoutJob.timeout.cancel()
       }
     }
   }
@@ -69,67 +87,92 @@ class JobTimeoutManager extends Logging {
   }
 
   def jobCompleteDelete(jobkey: String): Unit = {
-    val job = timeoutJobByName.get(jobkey)
-    if (job.isCompleted) {
-      logger.info(s"Job is complete, delete it now: ${job.getId()}")
+    val timeoutJob = timeoutJobByName.get(jobkey)
+    if (timeoutJob != null && timeoutJob.job.isCompleted) {
+      logger.info(s"Job is complete, delete it now: ${timeoutJob.job.getId()}")
       delete(jobkey)
     }
   }
 
-  private def timeoutDetective(): Unit = {
-    if (timeoutCheck) {
-      def checkAndSwitch(job: EntranceJob): Unit = {
-        logger.info(s"Checking whether the job id ${job.getJobRequest.getId()} timed out. ")
-        val currentTimeSeconds = System.currentTimeMillis() / 1000
-        // job.isWaiting == job in queue
-        val jobScheduleStartTimeSeconds =
-          if (job.isWaiting) job.createTime / 1000 else currentTimeSeconds
-        val queuingTimeSeconds = currentTimeSeconds - jobScheduleStartTimeSeconds
-        val jobRunningStartTimeSeconds =
-          if (job.getStartTime > 0) job.getStartTime / 1000 else currentTimeSeconds
-        val runningTimeSeconds = currentTimeSeconds - jobRunningStartTimeSeconds
-        if (!job.isCompleted) {
-          job.jobRequest.getLabels.asScala foreach {
-            case queueTimeOutLabel: JobQueuingTimeoutLabel =>
-              if (
-                  job.isWaiting && queueTimeOutLabel.getQueuingTimeout > 0 && queuingTimeSeconds >= queueTimeOutLabel.getQueuingTimeout
-              ) {
-                logger.warn(
-                  s"Job ${job.getJobRequest.getId()} queued time : ${queuingTimeSeconds} seconds, which was over queueTimeOut : ${queueTimeOutLabel.getQueuingTimeout} seconds, cancel it now! "
-                )
-                job.onFailure(
-                  s"Job queued ${queuingTimeSeconds} seconds over max queue time : ${queueTimeOutLabel.getQueuingTimeout} seconds.",
-                  null
-                )
-              }
-            case jobRunningTimeoutLabel: JobRunningTimeoutLabel =>
-              if (
-                  job.isRunning && jobRunningTimeoutLabel.getRunningTimeout > 0 && runningTimeSeconds >= jobRunningTimeoutLabel.getRunningTimeout
-              ) {
-                logger.warn(
-                  s"Job ${job.getJobRequest.getId()} run timeout ${runningTimeSeconds} seconds, which was over runTimeOut : ${jobRunningTimeoutLabel.getRunningTimeout} seconds, cancel it now! "
-                )
-                job.onFailure(
-                  s"Job run ${runningTimeSeconds} seconds over max run time : ${jobRunningTimeoutLabel.getRunningTimeout} seconds.",
-                  null
-                )
-              }
-            case _ =>
-          }
-        }
-      }
+  /**
+   * Called by the job after its state changed, re-arms the timer of the job for the deadline of the
+   * new state, e.g. from the queuing deadline to the running deadline.
+   */
+  def onJobStateChanged(job: EntranceJob): Unit = {
+    val timeoutJob = timeoutJobByName.get(job.getId())
+    if (timeoutJob != null) {
+      if (job.isCompleted) delete(job.getId())
+      else arm(job.getId(), timeoutJob)
+    }
+  }
 
-      timeoutJobByName.asScala.foreach(item => {
-        logger.info(s"Running timeout detection!")
-        synchronized {
-          jobCompleteDelete(item._1)
-          if (jobExist(item._1)) checkAndSwitch(item._2)
-        }
-      })
+  /** The deadline in mills of the current state, or -1 if the state has no timeout */
+  private def getDeadline(timeoutJob: TimeoutJob): Long = {
+    val job = timeoutJob.job
+    // job.isWaiting == job in queue
+    if (job.isWaiting && timeoutJob.queuingTimeout > 0) {
+      job.createTime + timeoutJob.queuingTimeout * 1000
+    } else if (job.isRunning && timeoutJob.runningTimeout > 0) {
+      val startTime = if (job.getStartTime > 0) job.getStartTime else System.currentTimeMillis()
+      startTime + timeoutJob.runningTimeout * 1000
+    } else -1
+  }
+
+  private def arm(jobKey: String, timeoutJob: TimeoutJob): Unit = timeoutJob synchronized {
+    if (timeoutJob.timeout != null) timeoutJob.timeout.cancel()
+    val deadline = getDeadline(timeoutJob)
+    timeoutJob.timeout = if (deadline > 0) timingWheel.add(jobKey, deadline) else null
+  }
+
+  private def checkAndSwitch(timeoutJob: TimeoutJob): Boolean = {
+    val job = timeoutJob.job
+    val currentTimeSeconds = System.currentTimeMillis() / 1000
+    val queuingTimeSeconds = currentTimeSeconds - job.createTime / 1000
+    val jobRunningStartTimeSeconds =
+      if (job.getStartTime > 0) job.getStartTime / 1000 else currentTimeSeconds
+    val runningTimeSeconds = currentTimeSeconds - jobRunningStartTimeSeconds
+    if (
+        job.isWaiting && timeoutJob.queuingTimeout > 0 && queuingTimeSeconds >= timeoutJob.queuingTimeout
+    ) {
+      logger.warn(
+        s"Job ${job.getJobRequest.getId()} queued time : ${queuingTimeSeconds} seconds, which was over queueTimeOut : ${timeoutJob.queuingTimeout} seconds, cancel it now! "
+      )
+      job.onFailure(
+        s"Job queued ${queuingTimeSeconds} seconds over max queue time : ${timeoutJob.queuingTimeout} seconds.",
+        null
+      )
+      true
+    } else if (
+        job.isRunning && timeoutJob.runningTimeout > 0 && runningTimeSeconds >= timeoutJob.runningTimeout
+    ) {
+      logger.warn(
+        s"Job ${job.getJobRequest.getId()} run timeout ${runningTimeSeconds} seconds, which was over runTimeOut : ${timeoutJob.runningTimeout} seconds, cancel it now! "
+      )
+      job.onFailure(
+        s"Job run ${runningTimeSeconds} seconds over max run time : ${timeoutJob.runningTimeout} seconds.",
+        null
+      )
+      true
+    } else false
+  }
+
+  /** Only the jobs whose deadline has passed are checked, the others are not touched. */
+  private def timeoutDetective(): Unit = if (timeoutCheck) {
+    val expiredJobKeys = timingWheel.advance(System.currentTimeMillis())
+    expiredJobKeys.asScala.foreach { jobKey =>
+      val timeoutJob = timeoutJobByName.get(jobKey)
+      if (timeoutJob != null) {
+        if (timeoutJob.job.isCompleted || checkAndSwitch(timeoutJob)) delete(jobKey)
+        else arm(jobKey, timeoutJob)
+      }
     }
   }
 
-  // Thread periodic scan timeout task
+  def getTimeoutJobNum: Int = timeoutJobByName.size()
+
+  def getPendingTimerNum: Int = timingWheel.pendingSize
+
+  // Thread periodic advance the timing wheel
   val woker = Utils.defaultScheduler.scheduleAtFixedRate(
     new Runnable() {
 
@@ -142,9 +185,9 @@ class JobTimeoutManager extends Logging {
       }
 
     },
-    0,
-    timeoutScanInterval,
-    TimeUnit.SECONDS
+    tickMillis,
+    tickMillis,
+    TimeUnit.MILLISECONDS
   )
 
 }
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.timeout
+
+import java.util
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Hierarchical timing wheel keyed by deadline. Level 0 has wheelSize slots of tickMillis, every
+ * upper level has wheelSize slots each spanning a whole lower level, upper levels are created when
+ * a deadline does not fit the existing ones. Adding and cancelling a timeout is O(1), one tick only
+ * touches the expired slot of level 0 and, once per wrap of a level, re-distributes one slot of the
+ * upper level.
+ * 分层时间轮，添加和取消为O(1)，每次tick只处理到期的槽
+ */
+class TimingWheel[T](tickMillis: Long, wheelSize: Int, startMillis: Long) {
+
+  require(tickMillis > 0 && wheelSize > 1, "tickMillis must be positive and wheelSize over 1")
+
+  /** Handle of an added item, used to cancel it. */
+  class Timeout private[TimingWheel] (val item: T, val deadline: Long) {
+    private[TimingWheel] var slot: Timeout = _
+    private[TimingWheel] var prev: Timeout = _
+    private[TimingWheel] var next: Timeout = _
+
+    def isPending: Boolean = TimingWheel.this.synchronized(slot != null)
+
+    def cancel(): Boolean = TimingWheel.this.cancel(this)
+  }
+
+  /** Each slot is the sentinel of a circular doubly linked list */
+  private def newSlot(): Timeout = {
+    val sentinel = new Timeout(null.asInstanceOf[T], 0L)
+    sentinel.prev = sentinel
+    sentinel.next = sentinel
+    sentinel
+  }
+
+  private class Level(val tick: Long) {
+    val span: Long = tick * wheelSize
+    val slots: Array[Timeout] = Array.fill(wheelSize)(newSlot())
+    def slotOf(deadline: Long): Timeout = slots(((deadline / tick) % wheelSize).toInt)
+  }
+
+  private val levels = new ArrayBuffer[Level]
+  levels += new Level(tickMillis)
+
+  /** All timeouts with a deadline before currentTime have expired */
+  private var currentTime = startMillis - startMillis % tickMillis
+
+  private var size = 0
+
+  def this(tickMillis: Long, wheelSize: Int) =
+    this(tickMillis, wheelSize, System.currentTimeMillis)
+
+  def add(item: T, deadline: Long): Timeout = synchronized {
+    val timeout = new Timeout(item, deadline)
+    insert(timeout)
+    size += 1
+    timeout
+  }
+
+  def cancel(timeout: Timeout): Boolean = synchronized {
+    if (timeout.slot == null) false
+    else {
+      unlink(timeout)
+      size -= 1
+      true
+    }
+  }
+
+  def pendingSize: Int = synchronized(size)
+
+  def levelNum: Int = synchronized(levels.size)
+
+  /**
+   * Move the wheel forward to now.
+   * @return
+   *   the items whose deadline is before the new current time, in deadline slot order
+   */
+  def advance(now: Long): util.List[T] = {
+    val expired = new util.ArrayList[T]
+    synchronized {
+      while (currentTime + tickMillis <= now) {
+        val slot = levels.head.slotOf(currentTime)
+        var timeout = slot.next
+        while (timeout ne slot) {
+          val next = timeout.next
+          unlink(timeout)
+          size -= 1
+          expired.add(timeout.item)
+          timeout = next
+        }
+        currentTime += tickMillis
+        cascade()
+      }
+    }
+    expired
+  }
+
+  /** Re-distribute the upper level slots which have become current into the lower levels */
+  private def cascade(): Unit = {
+    var i = 1
+    while (i < levels.size && currentTime % levels(i).tick == 0) {
+      val slot = levels(i).slotOf(currentTime)
+      var timeout = slot.next
+      while (timeout ne slot) {
+        val next = timeout.next
+        unlink(timeout)
+        insert(timeout)
+        timeout = next
+      }
+      i += 1
+    }
+  }
+
+  private def insert(timeout: Timeout): Unit = {
+    val slot = if (timeout.deadline < currentTime + tickMillis) {
+      levels.head.slotOf(currentTime)
+    } else {
+      var i = 0
+      while (i < levels.size && !fits(levels(i), timeout.deadline)) i += 1
+      while (i == levels.size) {
+        levels += new Level(levels.last.span)
+        if (!fits(levels.last, timeout.deadline)) i += 1
+      }
+      levels(i).slotOf(timeout.deadline)
+    }
+    timeout.slot = slot
+    timeout.prev = slot.prev
+    timeout.next = slot
+    slot.prev.next = timeout
+    slot.prev = timeout
+  }
+
+  private def fits(level: Level, deadline: Long): Boolean =
+    deadline < currentTime - currentTime % level.tick + level.span
+
+  private def unlink(timeout: Timeout): Unit = {
+    timeout.prev.next = timeout.next
+    timeout.next.prev = timeout.prev
+    timeout.prev = null
+    timeout.next = null
+    timeout.slot = null
+  }
+
+}
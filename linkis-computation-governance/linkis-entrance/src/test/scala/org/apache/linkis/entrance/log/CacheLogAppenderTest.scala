@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.log
+
+import scala.collection.mutable.ArrayBuffer
+
+import org.junit.jupiter.api.{Assertions, Test}
+
+class CacheLogAppenderTest {
+
+  @Test
+  def testAppendWhenCacheStaysFull(): Unit = {
+    val batches = new ArrayBuffer[String]
+    // not registered to a flusher thread, so the cache is only drained by the writer itself
+    val appender = new CacheLogAppender(Cache(4), batches += _)
+    val syncFlushCount = CacheLogFlusher.getSyncFlushCount
+    (0 until 6).foreach(i => appender.append("line" + i))
+    appender.flush()
+    Assertions.assertEquals((0 until 6).map("line" + _), batches.flatMap(_.split("\n")).toSeq)
+    Assertions.assertTrue(CacheLogFlusher.getSyncFlushCount > syncFlushCount)
+  }
+
+}
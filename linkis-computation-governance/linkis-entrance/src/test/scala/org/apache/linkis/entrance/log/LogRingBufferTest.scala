@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.log
+
+import scala.collection.mutable.ArrayBuffer
+
+import org.junit.jupiter.api.{Assertions, Test}
+
+class LogRingBufferTest {
+
+  private def readAll(ring: LogRingBuffer, fromLine: Int, size: Int): (Int, Seq[String]) = {
+    val lines = new ArrayBuffer[String]
+    val read = ring.read(fromLine, size, lines += _)
+    (read, lines)
+  }
+
+  @Test
+  def testReadWithoutDrain(): Unit = {
+    val ring = new LogRingBuffer(8)
+    Assertions.assertTrue(ring.isEmpty)
+    (0 until 5).foreach(i => Assertions.assertTrue(ring.offer("line" + i)))
+    Assertions.assertEquals(5L, ring.size)
+    Assertions.assertEquals(
+      (5, Seq("line0", "line1", "line2", "line3", "line4")),
+      readAll(ring, 0, -1)
+    )
+    Assertions.assertEquals((2, Seq("line2", "line3")), readAll(ring, 2, 2))
+    Assertions.assertEquals((0, Seq.empty), readAll(ring, 5, 10))
+    Assertions.assertEquals(-1, ring.read(-1, 10, _ => {}))
+  }
+
+  @Test
+  def testFullAndDrain(): Unit = {
+    val ring = new LogRingBuffer(3)
+    Assertions.assertEquals(4, ring.getCapacity)
+    (0 until 4).foreach(i => Assertions.assertTrue(ring.offer("line" + i)))
+    Assertions.assertFalse(ring.offer("line4"))
+    Assertions.assertEquals(4, ring.pendingSize)
+
+    val drained = new ArrayBuffer[String]
+    Assertions.assertEquals(4, ring.drain(drained += _))
+    Assertions.assertEquals(Seq("line0", "line1", "line2", "line3"), drained)
+    Assertions.assertEquals(0, ring.pendingSize)
+    // drained lines stay readable until they are overwritten
+    Assertions.assertEquals((2, Seq("line0", "line1")), readAll(ring, 0, 2))
+
+    Assertions.assertTrue(ring.offer("line4"))
+    Assertions.assertTrue(ring.offer("line5"))
+    Assertions.assertEquals(-1, ring.read(1, 10, _ => {}))
+    Assertions.assertEquals((4, Seq("line2", "line3", "line4", "line5")), readAll(ring, 2, -1))
+  }
+
+  @Test
+  def testConcurrentOffer(): Unit = {
+    val ring = new LogRingBuffer(1024)
+    val threads = (0 until 4).map { t =>
+      new Thread(new Runnable {
+        override def run(): Unit = (0 until 200).foreach(i => ring.offer(s"$t-$i"))
+      })
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+    val drained = new ArrayBuffer[String]
+    Assertions.assertEquals(800, ring.drain(drained += _))
+    (0 until 4).foreach { t =>
+      val lines = drained.filter(_.startsWith(s"$t-"))
+      Assertions.assertEquals((0 until 200).map(i => s"$t-$i"), lines)
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.persistence
+
+import org.apache.linkis.governance.common.entity.job.JobRequest
+import org.apache.linkis.governance.common.protocol.job.{JobReqBatchUpdate, JobRespProtocol}
+import org.apache.linkis.rpc.Sender
+
+import java.util
+import java.util.Date
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration.Duration
+
+import org.junit.jupiter.api.{Assertions, Test}
+
+class JobHistoryWriteBehindTest {
+
+  /** Answers every update with the status of its job id, and records the sent batches */
+  private class RecordSender(statuses: Map[Long, Int]) extends Sender {
+    val batches = new util.ArrayList[util.List[JobRequest]]()
+
+    override def ask(message: Any): Any = message match {
+      case JobReqBatchUpdate(jobReqs) =>
+        batches.add(new util.ArrayList[JobRequest](jobReqs))
+        val responses = new util.ArrayList[JobRespProtocol]()
+        jobReqs.asScala.foreach { jobReq =>
+          val response = new JobRespProtocol
+          response.setStatus(statuses.getOrElse(jobReq.getId.longValue(), 0))
+          responses.add(response)
+        }
+        responses
+    }
+
+    override def ask(message: Any, timeout: Duration): Any = ask(message)
+
+    override def send(message: Any): Unit = {}
+
+    override def deliver(message: Any): Unit = {}
+  }
+
+  private def jobReq(id: Long, progress: String, updatedTime: Long): JobRequest = {
+    val jobReq = new JobRequest
+    jobReq.setId(id)
+    jobReq.setStatus("Running")
+    jobReq.setProgress(progress)
+    jobReq.setUpdatedTime(new Date(updatedTime))
+    jobReq
+  }
+
+  @Test
+  def testCoalesce(): Unit = {
+    val sender = new RecordSender(Map.empty)
+    val writeBehind = new JobHistoryWriteBehind(sender, 3600000L, 2)
+    writeBehind.offer(jobReq(1L, "0.1", 1000L))
+    writeBehind.offer(jobReq(1L, "0.5", 3000L))
+    // an update arriving out of order does not replace a newer one
+    writeBehind.offer(jobReq(1L, "0.3", 2000L))
+    writeBehind.offer(jobReq(2L, "0.1", 1000L))
+    writeBehind.offer(jobReq(3L, "0.1", 1000L))
+    Assertions.assertEquals(3, writeBehind.size)
+    Assertions.assertEquals("0.1", writeBehind.remove(3L).getProgress)
+
+    writeBehind.flush()
+    Assertions.assertEquals(0, writeBehind.size)
+    Assertions.assertEquals(1, sender.batches.size())
+    val sent = sender.batches.get(0).asScala.map(r => r.getId.longValue() -> r.getProgress).toMap
+    Assertions.assertEquals(Map(1L -> "0.5", 2L -> "0.1"), sent)
+    writeBehind.close()
+  }
+
+  @Test
+  def testRetry(): Unit = {
+    // job 1 fails and is retried, job 2 is rejected by jobhistory and dropped
+    val sender = new RecordSender(Map(1L -> 2, 2L -> 1))
+    val writeBehind = new JobHistoryWriteBehind(sender, 3600000L, 1)
+    writeBehind.offer(jobReq(1L, "0.1", 1000L))
+    writeBehind.offer(jobReq(2L, "0.1", 1000L))
+    writeBehind.offer(jobReq(3L, "0.1", 1000L))
+    writeBehind.flush()
+    Assertions.assertEquals(3, sender.batches.size())
+    Assertions.assertEquals(1, writeBehind.size)
+    Assertions.assertEquals(1L, writeBehind.remove(1L).getId.longValue())
+    writeBehind.close()
+  }
+
+}
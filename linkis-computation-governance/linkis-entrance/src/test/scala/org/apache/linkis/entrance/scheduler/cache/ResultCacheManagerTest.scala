@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.scheduler.cache
+
+import org.apache.linkis.manager.label.entity.Label
+import org.apache.linkis.manager.label.entity.engine.{EngineTypeLabel, UserCreatorLabel}
+
+import java.util
+
+import org.junit.jupiter.api.{Assertions, Test}
+
+class ResultCacheManagerTest {
+
+  private def labels(engineType: String, creator: String): util.List[Label[_]] = {
+    val engineTypeLabel = new EngineTypeLabel
+    engineTypeLabel.setEngineType(engineType)
+    engineTypeLabel.setVersion("3.2.1")
+    val userCreatorLabel = new UserCreatorLabel
+    userCreatorLabel.setUser("hadoop")
+    userCreatorLabel.setCreator(creator)
+    val list = new util.ArrayList[Label[_]]()
+    list.add(engineTypeLabel)
+    list.add(userCreatorLabel)
+    list
+  }
+
+  @Test
+  def testNormalizeCode(): Unit = {
+    Assertions.assertEquals(
+      "select * from t\n  where id = 1",
+      ResultCacheManager.normalizeCode("select * from t  \r\n\n  where id = 1;\n")
+    )
+    Assertions.assertEquals("", ResultCacheManager.normalizeCode(null))
+  }
+
+  @Test
+  def testKey(): Unit = {
+    val key = ResultCacheManager.getKey("select 1;", "hadoop", labels("spark", "IDE"))
+    Assertions.assertEquals(64, key.length)
+    Assertions.assertEquals(
+      key,
+      ResultCacheManager.getKey("select 1\n\n", "hadoop", labels("spark", "IDE"))
+    )
+    val reversed = labels("spark", "IDE")
+    util.Collections.reverse(reversed)
+    Assertions.assertEquals(key, ResultCacheManager.getKey("select 1", "hadoop", reversed))
+    Assertions.assertNotEquals(
+      key,
+      ResultCacheManager.getKey("select 1", "hadoop", labels("hive", "IDE"))
+    )
+    Assertions.assertNotEquals(
+      key,
+      ResultCacheManager.getKey("select 1", "test", labels("spark", "IDE"))
+    )
+    Assertions.assertNotEquals(
+      key,
+      ResultCacheManager.getKey("select 2", "hadoop", labels("spark", "IDE"))
+    )
+  }
+
+  @Test
+  def testGet(): Unit = {
+    val now = System.currentTimeMillis()
+    ResultCacheManager.put("fresh", ResultCacheEntry(1L, "hdfs:///tmp/1", now, now + 60000))
+    ResultCacheManager.put("old", ResultCacheEntry(2L, "hdfs:///tmp/2", now - 600000, now + 60000))
+    ResultCacheManager.put("expired", ResultCacheEntry(3L, "hdfs:///tmp/3", now - 2000, now - 1))
+    val requests = ResultCacheManager.getRequestCount
+
+    Assertions.assertEquals(1L, ResultCacheManager.get("fresh", 300).jobId)
+    Assertions.assertNull(ResultCacheManager.get("old", 300))
+    Assertions.assertEquals(2L, ResultCacheManager.get("old", 0).jobId)
+    Assertions.assertNull(ResultCacheManager.get("expired", 300))
+    Assertions.assertNull(ResultCacheManager.get("absent", 300))
+    Assertions.assertEquals(requests + 5, ResultCacheManager.getRequestCount)
+
+    ResultCacheManager.invalidate("fresh")
+    Assertions.assertNull(ResultCacheManager.get("fresh", 300))
+
+    val bytes = ResultCacheManager.getBytesSaved
+    ResultCacheManager.onHit(1024)
+    Assertions.assertEquals(bytes + 1024, ResultCacheManager.getBytesSaved)
+    Assertions.assertTrue(ResultCacheManager.getHitRatio > 0)
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.entrance.timeout
+
+import org.apache.linkis.common.utils.Logging
+
+import scala.collection.JavaConverters._
+
+import org.junit.jupiter.api.{Assertions, Tag, Test}
+
+class TimingWheelTest extends Logging {
+
+  @Test
+  def testExpireInOrderOfTicks(): Unit = {
+    val wheel = new TimingWheel[String](1000, 8, 0)
+    wheel.add("a", 2500)
+    wheel.add("b", 500)
+    wheel.add("c", 60 * 1000)
+    wheel.add("d", 10 * 3600 * 1000)
+    Assertions.assertTrue(wheel.levelNum > 2)
+    Assertions.assertEquals(4, wheel.pendingSize)
+
+    Assertions.assertEquals(Seq("b"), wheel.advance(1000).asScala)
+    Assertions.assertTrue(wheel.advance(2999).isEmpty)
+    Assertions.assertEquals(Seq("a"), wheel.advance(3000).asScala)
+    Assertions.assertTrue(wheel.advance(60 * 1000).isEmpty)
+    Assertions.assertEquals(Seq("c"), wheel.advance(61 * 1000).asScala)
+    Assertions.assertTrue(wheel.advance(10 * 3600 * 1000).isEmpty)
+    Assertions.assertEquals(Seq("d"), wheel.advance(10 * 3600 * 1000 + 1000).asScala)
+    Assertions.assertEquals(0, wheel.pendingSize)
+  }
+
+  @Test
+  def testCancelAndRearm(): Unit = {
+    val wheel = new TimingWheel[String](1000, 8, 0)
+    val queued = wheel.add("job", 5000)
+    Assertions.assertTrue(queued.isPending)
+    Assertions.assertTrue(queued.cancel())
+    Assertions.assertFalse(queued.cancel())
+    val running = wheel.add("job", 20000)
+    Assertions.assertTrue(wheel.advance(19000).isEmpty)
+    Assertions.assertEquals(Seq("job"), wheel.advance(21000).asScala)
+    Assertions.assertFalse(running.isPending)
+  }
+
+  @Test
+  def testPastDeadlineExpiresOnNextTick(): Unit = {
+    val wheel = new TimingWheel[String](1000, 8, 5000)
+    wheel.add("late", 1000)
+    Assertions.assertTrue(wheel.advance(5999).isEmpty)
+    Assertions.assertEquals(Seq("late"), wheel.advance(6000).asScala)
+  }
+
+  @Test
+  def testRandomDeadlines(): Unit = {
+    val wheel = new TimingWheel[Long](1000, 16, 0)
+    val random = new scala.util.Random(7)
+    val deadlines = (0 until 5000).map(_ => random.nextInt(5 * 3600 * 1000).toLong)
+    deadlines.foreach(d => wheel.add(d, d))
+    var now = 0L
+    var fired = 0
+    while (now < 5 * 3600 * 1000 + 2000) {
+      now += random.nextInt(3000)
+      wheel.advance(now).asScala.foreach { deadline =>
+        Assertions.assertTrue(deadline < now)
+        Assertions.assertTrue(now - deadline <= 4000)
+        fired += 1
+      }
+    }
+    Assertions.assertEquals(deadlines.size, fired)
+  }
+
+  /**
+   * Measures the cost of one tick with 10k/100k/1M tracked jobs. Deadlines are spread over one day
+   * with the default 1s tick, so a tick expires a few jobs and sometimes cascades an upper level
+   * slot.
+   */
+  @Test
+  @Tag("benchmark")
+  def benchmark(): Unit = {
+    val daySpan = 24 * 3600 * 1000L
+    for (jobNum <- Seq(10000, 100000, 1000000); round <- 1 to 3) {
+      val random = new scala.util.Random(round)
+      val wheel = new TimingWheel[Integer](1000, 64, 0)
+      (0 until jobNum).foreach(i => wheel.add(i, random.nextLong().abs % daySpan))
+      val ticks = 3600
+      var expired = 0
+      val start = System.nanoTime
+      (1 to ticks).foreach(tick => expired += wheel.advance(tick * 1000L).size())
+      val costNanos = (System.nanoTime - start) / ticks
+      // re-arm cost, e.g. a job turning from queuing to running
+      val rearmStart = System.nanoTime
+      (0 until 10000).foreach { i =>
+        wheel.add(i, 3600 * 1000L + random.nextInt(3600 * 1000)).cancel()
+      }
+      val rearmNanos = (System.nanoTime - rearmStart) / 10000
+      Assertions.assertEquals(jobNum - expired, wheel.pendingSize)
+      logger.info(
+        s"jobs: $jobNum, round: $round, ticks: $ticks, expired: $expired, " +
+          s"cost per tick: ${costNanos}ns, add and cancel: ${rearmNanos}ns"
+      )
+    }
+  }
+
+}
@@ -51,6 +51,7 @@ import org.apache.linkis.manager.rm.restful.vo.UserCreatorEngineType;
 import org.apache.linkis.manager.rm.restful.vo.UserResourceVo;
 import org.apache.linkis.manager.rm.service.LabelResourceService;
 import org.apache.linkis.manager.rm.service.ResourceManager;
+import org.apache.linkis.manager.rm.service.impl.ResourceLedger;
 import org.apache.linkis.manager.rm.service.impl.UserResourceService;
 import org.apache.linkis.manager.rm.utils.RMUtils;
 import org.apache.linkis.manager.rm.utils.UserConfiguration;
@@ -127,6 +128,8 @@ public class RMMonitorRest {
 
   @Autowired private UserResourceService userResourceService;
 
+  @Autowired private ResourceLedger resourceLedger;
+
   private String COMBINED_USERCREATOR_ENGINETYPE;
 
   public RMMonitorRest() {
@@ -254,10 +257,12 @@ public class RMMonitorRest {
       throw new RMWarnException(ONLY_ADMIN_RESET.getErrorCode(), ONLY_ADMIN_RESET.getErrorDesc());
     }
 
+    // the reset is committed when the service returns, the ledgers reload it on the next query
     if (resourceId == null || resourceId <= 0) {
       userResourceService.resetAllUserResource(COMBINED_USERCREATOR_ENGINETYPE);
+      resourceLedger.invalidateAll();
     } else {
-      userResourceService.resetUserResource(resourceId);
+      resourceLedger.invalidate(userResourceService.resetUserResource(resourceId));
     }
     return Message.ok("success");
   }
@@ -344,76 +349,10 @@ public class RMMonitorRest {
       HttpServletRequest request, @RequestBody(required = false) Map<String, Object> param) {
     Message message = Message.ok("");
     String userName = ModuleUserUtils.getOperationUser(request, "get userresources");
-    EngineNode[] nodes = getEngineNodes(userName, true);
-    if (nodes == null) {
-      nodes = new EngineNode[0];
-    } else {
-      nodes =
-          Arrays.stream(nodes)
-              .filter(
-                  node ->
-                      node.getNodeResource() != null
-                          && !node.getLabels().isEmpty()
-                          && node.getLabels().stream()
-                                  .filter(label -> label instanceof UserCreatorLabel)
-                                  .findFirst()
-                                  .orElse(null)
-                              != null
-                          && node.getLabels().stream()
-                                  .filter(label -> label instanceof EngineTypeLabel)
-                                  .findFirst()
-                                  .orElse(null)
-                              != null)
-              .toArray(EngineNode[]::new);
-    }
-    Map<String, Map<String, NodeResource>> userCreatorEngineTypeResourceMap = new HashMap<>();
-    for (EngineNode node : nodes) {
-      UserCreatorLabel userCreatorLabel =
-          (UserCreatorLabel)
-              node.getLabels().stream()
-                  .filter(label -> label instanceof UserCreatorLabel)
-                  .findFirst()
-                  .get();
-      EngineTypeLabel engineTypeLabel =
-          (EngineTypeLabel)
-              node.getLabels().stream()
-                  .filter(label -> label instanceof EngineTypeLabel)
-                  .findFirst()
-                  .get();
-
-      String userCreator = getUserCreator(userCreatorLabel);
-      if (!userCreatorEngineTypeResourceMap.containsKey(userCreator)) {
-        userCreatorEngineTypeResourceMap.put(userCreator, new HashMap<>());
-      }
-
-      Map<String, NodeResource> engineTypeResourceMap =
-          userCreatorEngineTypeResourceMap.get(userCreator);
-      String engineType = getEngineType(engineTypeLabel);
-      if (!engineTypeResourceMap.containsKey(engineType)) {
-        NodeResource nodeResource = CommonNodeResource.initNodeResource(ResourceType.LoadInstance);
-        engineTypeResourceMap.put(engineType, nodeResource);
-      }
-      NodeResource resource = engineTypeResourceMap.get(engineType);
-      resource.setUsedResource(
-          node.getNodeResource().getUsedResource().add(resource.getUsedResource()));
-
-      // combined label
-      Label<?> combinedLabel =
-          combinedLabelBuilder.build("", Lists.newArrayList(userCreatorLabel, engineTypeLabel));
-      NodeResource labelResource = labelResourceService.getLabelResource(combinedLabel);
-      if (labelResource == null) {
-        resource.setLeftResource(
-            node.getNodeResource().getMaxResource().minus(resource.getUsedResource()));
-      } else {
-        labelResource = ResourceUtils.convertTo(labelResource, ResourceType.LoadInstance);
-        resource.setUsedResource(labelResource.getUsedResource());
-        resource.setLockedResource(labelResource.getLockedResource());
-        resource.setLeftResource(labelResource.getLeftResource());
-        resource.setMaxResource(labelResource.getMaxResource());
-      }
-      if (resource.getLeftResource() instanceof DriverAndYarnResource) {
-        resource.setLeftResource(((DriverAndYarnResource) resource).getLoadInstanceResource());
-      }
+    Map<String, Map<String, NodeResource>> userCreatorEngineTypeResourceMap =
+        resourceLedger.getUserResources(userName);
+    if (userCreatorEngineTypeResourceMap == null) {
+      userCreatorEngineTypeResourceMap = getUserResourcesFromPersistence(userName);
     }
 
     //        Map<String, Object> userCreatorEngineTypeResources = new HashMap<>();
@@ -717,12 +656,87 @@ public class RMMonitorRest {
     return message;
   }
 
+  private Map<String, Map<String, NodeResource>> getUserResourcesFromPersistence(String userName) {
+    EngineNode[] nodes = getEngineNodes(userName, true);
+    if (nodes == null) {
+      nodes = new EngineNode[0];
+    } else {
+      nodes =
+          Arrays.stream(nodes)
+              .filter(
+                  node ->
+                      node.getNodeResource() != null
+                          && !node.getLabels().isEmpty()
+                          && node.getLabels().stream()
+                                  .filter(label -> label instanceof UserCreatorLabel)
+                                  .findFirst()
+                                  .orElse(null)
+                              != null
+                          && node.getLabels().stream()
+                                  .filter(label -> label instanceof EngineTypeLabel)
+                                  .findFirst()
+                                  .orElse(null)
+                              != null)
+              .toArray(EngineNode[]::new);
+    }
+    Map<String, Map<String, NodeResource>> userCreatorEngineTypeResourceMap = new HashMap<>();
+    for (EngineNode node : nodes) {
+      UserCreatorLabel userCreatorLabel =
+          (UserCreatorLabel)
+              node.getLabels().stream()
+                  .filter(label -> label instanceof UserCreatorLabel)
+                  .findFirst()
+                  .get();
+      EngineTypeLabel engineTypeLabel =
+          (EngineTypeLabel)
+              node.getLabels().stream()
+                  .filter(label -> label instanceof EngineTypeLabel)
+                  .findFirst()
+                  .get();
+
+      String userCreator = getUserCreator(userCreatorLabel);
+      if (!userCreatorEngineTypeResourceMap.containsKey(userCreator)) {
+        userCreatorEngineTypeResourceMap.put(userCreator, new HashMap<>());
+      }
+
+      Map<String, NodeResource> engineTypeResourceMap =
+          userCreatorEngineTypeResourceMap.get(userCreator);
+      String engineType = getEngineType(engineTypeLabel);
+      if (!engineTypeResourceMap.containsKey(engineType)) {
+        NodeResource nodeResource = CommonNodeResource.initNodeResource(ResourceType.LoadInstance);
+        engineTypeResourceMap.put(engineType, nodeResource);
+      }
+      NodeResource resource = engineTypeResourceMap.get(engineType);
+      resource.setUsedResource(
+          node.getNodeResource().getUsedResource().add(resource.getUsedResource()));
+
+      // combined label
+      Label<?> combinedLabel =
+          combinedLabelBuilder.build("", Lists.newArrayList(userCreatorLabel, engineTypeLabel));
+      NodeResource labelResource = labelResourceService.getLabelResource(combinedLabel);
+      if (labelResource == null) {
+        resource.setLeftResource(
+            node.getNodeResource().getMaxResource().minus(resource.getUsedResource()));
+      } else {
+        labelResource = ResourceUtils.convertTo(labelResource, ResourceType.LoadInstance);
+        resource.setUsedResource(labelResource.getUsedResource());
+        resource.setLockedResource(labelResource.getLockedResource());
+        resource.setLeftResource(labelResource.getLeftResource());
+        resource.setMaxResource(labelResource.getMaxResource());
+      }
+      if (resource.getLeftResource() instanceof DriverAndYarnResource) {
+        resource.setLeftResource(((DriverAndYarnResource) resource).getLoadInstanceResource());
+      }
+    }
+    return userCreatorEngineTypeResourceMap;
+  }
+
   private String getUserCreator(UserCreatorLabel userCreatorLabel) {
-    return "(" + userCreatorLabel.getUser() + "," + userCreatorLabel.getCreator() + ")";
+    return ResourceLedger.getUserCreator(userCreatorLabel);
   }
 
   private String getEngineType(EngineTypeLabel engineTypeLabel) {
-    return "(" + engineTypeLabel.getEngineType() + "," + engineTypeLabel.getVersion() + ")";
+    return ResourceLedger.getEngineType(engineTypeLabel);
   }
 
   private EngineNode[] getEngineNodes(String user, boolean withResource) {
@@ -105,6 +105,8 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
 
   @Autowired private EngineStopService engineStopService;
 
+  @Autowired private ResourceLedger resourceLedger;
+
   private RequestResourceService[] requestResourceServices;
 
   @Override
@@ -296,6 +298,8 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
               label,
               labelResource,
               labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue());
+          resourceLedger.onLabelResourceChanged(
+              labelContainer.getUserCreatorLabel().getUser(), label, labelResource);
           logger.info(
               String.format(
                   "ResourceChanged:%s --> %s", label.getStringValue(), labelResource.toString()));
@@ -331,6 +335,7 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
         engineInstanceLabel,
         resource,
         labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue());
+    resourceLedger.onResourceLocked(labelContainer, tickedId, resource);
     // record engine locked resource
     labelContainer.getLabels().add(engineInstanceLabel);
     resourceLogService.recordUserResourceAction(
@@ -440,6 +445,8 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
           engineInstanceLabel,
           lockedResource,
           labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue());
+      resourceLedger.onResourceUsed(
+          labelContainer, persistenceResource.getTicketId(), lockedResource);
       resourceLogService.success(
           ChangeType.ENGINE_INIT, lockedResource.getLockedResource(), engineInstanceLabel, null);
     } catch (Exception exception) {
@@ -480,6 +487,8 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
                     label,
                     labelResource,
                     labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue());
+                resourceLedger.onLabelResourceChanged(
+                    labelContainer.getUserCreatorLabel().getUser(), label, labelResource);
                 labelResourceSet.add(
                     new LabelResourceMapping(label, addedResource, ResourceOperationType.USED));
                 resourceCheck(label, labelResource);
@@ -589,6 +598,7 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
                 labelResourceMapping.getLabel(),
                 resource,
                 labelResourceMapping.getResourceOperationType().toString());
+            resourceLedger.onLabelResourceChanged(user, labelResourceMapping.getLabel(), resource);
           } catch (Exception e) {
             logger.error("Failed to roll back resource " + new ArrayList<>(labelResourceSet), e);
           }
@@ -705,6 +715,8 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
                             labelContainer
                                 .getCombinedUserCreatorEngineTypeLabel()
                                 .getStringValue());
+                        resourceLedger.onLabelResourceChanged(
+                            labelContainer.getUserCreatorLabel().getUser(), label, labelResource);
                         resourceCheck(label, labelResource);
                       }
                     },
@@ -739,6 +751,7 @@ public class DefaultResourceManager extends ResourceManager implements Initializ
 
           try {
             labelResourceService.removeResourceByLabel(engineInstanceLabel);
+            resourceLedger.onResourceReleased(labelContainer, persistenceResource.getTicketId());
             resourceLogService.success(
                 ChangeType.ENGINE_CLEAR, usedResource.getUsedResource(), engineInstanceLabel, null);
           } catch (Exception exception) {
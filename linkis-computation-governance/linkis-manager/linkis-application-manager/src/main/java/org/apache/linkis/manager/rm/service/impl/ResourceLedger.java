@@ -0,0 +1,391 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.rm.service.impl;
+
+import org.apache.linkis.common.ServiceInstance;
+import org.apache.linkis.manager.am.util.LinkisUtils;
+import org.apache.linkis.manager.common.entity.node.EngineNode;
+import org.apache.linkis.manager.common.entity.node.Node;
+import org.apache.linkis.manager.common.entity.persistence.PersistenceResource;
+import org.apache.linkis.manager.common.entity.resource.CommonNodeResource;
+import org.apache.linkis.manager.common.entity.resource.NodeResource;
+import org.apache.linkis.manager.common.entity.resource.ResourceType;
+import org.apache.linkis.manager.common.utils.ResourceUtils;
+import org.apache.linkis.manager.label.entity.CombinedLabel;
+import org.apache.linkis.manager.label.entity.Label;
+import org.apache.linkis.manager.label.entity.engine.EngineInstanceLabel;
+import org.apache.linkis.manager.label.entity.engine.EngineTypeLabel;
+import org.apache.linkis.manager.label.entity.engine.UserCreatorLabel;
+import org.apache.linkis.manager.label.service.NodeLabelService;
+import org.apache.linkis.manager.persistence.NodeManagerPersistence;
+import org.apache.linkis.manager.rm.domain.RMLabelContainer;
+import org.apache.linkis.manager.rm.service.LabelResourceService;
+import org.apache.linkis.manager.rm.utils.RMUtils;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory ledger of the engine resources of users, aggregated by user, creator and engine type,
+ * so that the monitor pages polled by dashboards are served from snapshots instead of reloading the
+ * engine nodes and label resources from the database on every call. The resources of a user are
+ * loaded from the persistence on the first query, then kept up to date by the lock, used and
+ * released events of DefaultResourceManager, and reconciled with the persistence periodically,
+ * which also covers the changes made by other manager instances.
+ * 用户引擎资源的内存账本，首次查询时从数据库加载，之后由资源锁定、使用、释放事件增量更新，并定期与数据库对账
+ */
+@Component
+public class ResourceLedger implements InitializingBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResourceLedger.class);
+
+  @Autowired private NodeManagerPersistence nodeManagerPersistence;
+
+  @Autowired private NodeLabelService nodeLabelService;
+
+  @Autowired private LabelResourceService labelResourceService;
+
+  private final Map<String, UserLedger> userLedgers = new ConcurrentHashMap<>();
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!RMUtils.RM_RESOURCE_LEDGER_ENABLE.getValue()) {
+      return;
+    }
+    long interval = RMUtils.RM_RESOURCE_LEDGER_RECONCILE_INTERVAL.getValue().toLong();
+    LinkisUtils.defaultScheduler.scheduleWithFixedDelay(
+        () -> LinkisUtils.tryAndWarnMsg(this::reconcile, "Failed to reconcile ledger", logger),
+        interval,
+        interval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public static String getUserCreator(UserCreatorLabel userCreatorLabel) {
+    return "(" + userCreatorLabel.getUser() + "," + userCreatorLabel.getCreator() + ")";
+  }
+
+  public static String getEngineType(EngineTypeLabel engineTypeLabel) {
+    return "(" + engineTypeLabel.getEngineType() + "," + engineTypeLabel.getVersion() + ")";
+  }
+
+  /**
+   * The resources of the engines of the user, grouped by (user,creator) and (engineType,version)
+   * 按(用户,创建者)和(引擎类型,版本)聚合的用户资源
+   *
+   * @param user
+   * @return null if the ledger is disabled or can not be loaded, the caller should fall back to
+   *     the persistence
+   */
+  public Map<String, Map<String, NodeResource>> getUserResources(String user) {
+    if (!RMUtils.RM_RESOURCE_LEDGER_ENABLE.getValue()) {
+      return null;
+    }
+    UserLedger ledger = userLedgers.computeIfAbsent(user, UserLedger::new);
+    ledger.lastAccessTime = System.currentTimeMillis();
+    try {
+      if (ledger.loadTime == 0) {
+        load(ledger, false);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to load the resource ledger of user " + user, e);
+      return null;
+    }
+    synchronized (ledger) {
+      if (ledger.snapshot == null) {
+        ledger.snapshot = aggregate(ledger);
+      }
+      return ledger.snapshot;
+    }
+  }
+
+  /** The resource of a new engine was locked(新引擎锁定资源) */
+  public void onResourceLocked(
+      RMLabelContainer labelContainer, String ticketId, NodeResource engineResource) {
+    EngineEntry entry = toEngineEntry(labelContainer, engineResource);
+    if (entry != null) {
+      apply(
+          labelContainer,
+          ledger -> ledger.engines.put(getEngineKey(ticketId, labelContainer), entry));
+    }
+  }
+
+  /** The locked resource of an engine turned to used(引擎锁定的资源转为已使用) */
+  public void onResourceUsed(
+      RMLabelContainer labelContainer, String ticketId, NodeResource engineResource) {
+    onResourceLocked(labelContainer, ticketId, engineResource);
+  }
+
+  /** The resource of an engine was released(引擎资源释放) */
+  public void onResourceReleased(RMLabelContainer labelContainer, String ticketId) {
+    apply(labelContainer, ledger -> ledger.engines.remove(getEngineKey(ticketId, labelContainer)));
+  }
+
+  /**
+   * The resource of a label was updated under its lock, only the combined user creator engine type
+   * labels are kept 标签资源变更，只记录用户-创建者-引擎类型组合标签
+   */
+  public void onLabelResourceChanged(String user, Label<?> label, NodeResource labelResource) {
+    if (!(label instanceof CombinedLabel) || labelResource == null) {
+      return;
+    }
+    NodeResource resource = copyOf(labelResource);
+    apply(user, ledger -> ledger.labelResources.put(label.getStringValue(), resource));
+  }
+
+  /**
+   * Drop the ledger of the user, so that it is loaded from the persistence on the next query. Used
+   * when the resources are changed without the lock, used and released events, such as a reset by
+   * the admin(资源被直接修改后丢弃用户账本，下次查询时重新加载)
+   */
+  public void invalidate(String user) {
+    if (user != null) {
+      userLedgers.remove(user);
+    }
+  }
+
+  /** Drop the ledgers of all the users(丢弃所有用户账本) */
+  public void invalidateAll() {
+    userLedgers.clear();
+  }
+
+  private void apply(RMLabelContainer labelContainer, Consumer<UserLedger> event) {
+    if (labelContainer.getUserCreatorLabel() != null) {
+      apply(labelContainer.getUserCreatorLabel().getUser(), event);
+    }
+  }
+
+  private void apply(String user, Consumer<UserLedger> event) {
+    UserLedger ledger = user == null ? null : userLedgers.get(user);
+    if (ledger == null) {
+      return;
+    }
+    synchronized (ledger) {
+      event.accept(ledger);
+      ledger.snapshot = null;
+      // replayed onto the new state when a reload is running(重新加载期间的事件在加载完成后重放)
+      if (ledger.pendingEvents != null) {
+        ledger.pendingEvents.add(event);
+      }
+    }
+  }
+
+  private void reconcile() {
+    long now = System.currentTimeMillis();
+    long idleTime = RMUtils.RM_RESOURCE_LEDGER_IDLE_TIME.getValue().toLong();
+    for (UserLedger ledger : new ArrayList<>(userLedgers.values())) {
+      if (now - ledger.lastAccessTime > idleTime) {
+        logger.info("Remove the idle resource ledger of user {}", ledger.user);
+        userLedgers.remove(ledger.user, ledger);
+      } else if (ledger.loadTime > 0) {
+        LinkisUtils.tryAndWarnMsg(
+            () -> load(ledger, true),
+            "Failed to reconcile the resource ledger of user " + ledger.user,
+            logger);
+      }
+    }
+  }
+
+  private void load(UserLedger ledger, boolean reload) {
+    synchronized (ledger.loadLock) {
+      if (!reload && ledger.loadTime > 0) {
+        return;
+      }
+      synchronized (ledger) {
+        ledger.pendingEvents = new ArrayList<>();
+      }
+      Map<String, EngineEntry> engines = new HashMap<>();
+      Map<String, NodeResource> labelResources = new HashMap<>();
+      try {
+        loadFromPersistence(ledger.user, engines, labelResources);
+      } catch (RuntimeException e) {
+        synchronized (ledger) {
+          ledger.pendingEvents = null;
+        }
+        throw e;
+      }
+      synchronized (ledger) {
+        ledger.engines = engines;
+        ledger.labelResources = labelResources;
+        ledger.pendingEvents.forEach(event -> event.accept(ledger));
+        ledger.pendingEvents = null;
+        ledger.snapshot = null;
+        ledger.loadTime = System.currentTimeMillis();
+      }
+    }
+  }
+
+  private void loadFromPersistence(
+      String user, Map<String, EngineEntry> engines, Map<String, NodeResource> labelResources) {
+    List<ServiceInstance> serviceInstances =
+        nodeManagerPersistence.getNodes(user).stream()
+            .map(Node::getServiceInstance)
+            .collect(Collectors.toList());
+    if (serviceInstances.isEmpty()) {
+      return;
+    }
+    List<EngineNode> nodes =
+        nodeManagerPersistence.getEngineNodeByServiceInstance(serviceInstances);
+    Map<String, List<Label<?>>> labelsMap =
+        nodeLabelService.getNodeLabelsByInstanceList(
+            nodes.stream().map(Node::getServiceInstance).collect(Collectors.toList()));
+    for (EngineNode node : nodes) {
+      List<Label<?>> labels = labelsMap.get(node.getServiceInstance().toString());
+      if (labels == null) {
+        continue;
+      }
+      RMLabelContainer labelContainer = new RMLabelContainer(new ArrayList<>(labels));
+      EngineInstanceLabel engineInstanceLabel = labelContainer.getEngineInstanceLabel();
+      if (engineInstanceLabel == null
+          || labelContainer.getCombinedUserCreatorEngineTypeLabel() == null) {
+        continue;
+      }
+      engineInstanceLabel.setServiceName(node.getServiceInstance().getApplicationName());
+      engineInstanceLabel.setInstance(node.getServiceInstance().getInstance());
+      PersistenceResource persistenceResource =
+          labelResourceService.getPersistenceResource(engineInstanceLabel);
+      if (persistenceResource == null) {
+        continue;
+      }
+      EngineEntry entry =
+          toEngineEntry(labelContainer, ResourceUtils.fromPersistenceResource(persistenceResource));
+      if (entry == null) {
+        continue;
+      }
+      engines.put(getEngineKey(persistenceResource.getTicketId(), labelContainer), entry);
+      if (!labelResources.containsKey(entry.combinedLabelValue)) {
+        NodeResource labelResource =
+            labelResourceService.getLabelResource(
+                labelContainer.getCombinedUserCreatorEngineTypeLabel());
+        if (labelResource != null) {
+          labelResources.put(entry.combinedLabelValue, labelResource);
+        }
+      }
+    }
+  }
+
+  private Map<String, Map<String, NodeResource>> aggregate(UserLedger ledger) {
+    Map<String, Map<String, NodeResource>> userCreatorEngineTypeResourceMap = new HashMap<>();
+    for (EngineEntry engine : ledger.engines.values()) {
+      Map<String, NodeResource> engineTypeResourceMap =
+          userCreatorEngineTypeResourceMap.computeIfAbsent(
+              engine.userCreator, userCreator -> new HashMap<>());
+      NodeResource labelResource = ledger.labelResources.get(engine.combinedLabelValue);
+      NodeResource resource = engineTypeResourceMap.get(engine.engineType);
+      if (resource == null) {
+        resource =
+            labelResource == null
+                ? CommonNodeResource.initNodeResource(ResourceType.LoadInstance)
+                : ResourceUtils.convertTo(copyOf(labelResource), ResourceType.LoadInstance);
+        engineTypeResourceMap.put(engine.engineType, resource);
+      }
+      // the label resource is the total of the engines, sum up the engines only without it
+      if (labelResource == null) {
+        resource.setUsedResource(engine.resource.getUsedResource().add(resource.getUsedResource()));
+      }
+    }
+    userCreatorEngineTypeResourceMap.replaceAll((k, v) -> Collections.unmodifiableMap(v));
+    return Collections.unmodifiableMap(userCreatorEngineTypeResourceMap);
+  }
+
+  private static EngineEntry toEngineEntry(
+      RMLabelContainer labelContainer, NodeResource engineResource) {
+    if (engineResource == null
+        || labelContainer.getUserCreatorLabel() == null
+        || labelContainer.getEngineTypeLabel() == null
+        || labelContainer.getCombinedUserCreatorEngineTypeLabel() == null) {
+      return null;
+    }
+    NodeResource resource = copyOf(engineResource);
+    if (resource.getUsedResource() == null) {
+      resource.setUsedResource(resource.getLockedResource());
+    }
+    if (resource.getUsedResource() == null) {
+      return null;
+    }
+    return new EngineEntry(
+        getUserCreator(labelContainer.getUserCreatorLabel()),
+        getEngineType(labelContainer.getEngineTypeLabel()),
+        labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue(),
+        resource);
+  }
+
+  /** The ticket id of the resource, or the engine instance for the old records without one */
+  private static String getEngineKey(String ticketId, RMLabelContainer labelContainer) {
+    if (ticketId != null || labelContainer.getEngineInstanceLabel() == null) {
+      return ticketId;
+    }
+    return labelContainer.getEngineInstanceLabel().getStringValue();
+  }
+
+  /** The label resources are modified in place by the callers, so the ledger keeps a copy */
+  private static NodeResource copyOf(NodeResource nodeResource) {
+    CommonNodeResource resource = new CommonNodeResource();
+    resource.setId(nodeResource.getId());
+    resource.setResourceType(nodeResource.getResourceType());
+    resource.setMaxResource(nodeResource.getMaxResource());
+    resource.setMinResource(nodeResource.getMinResource());
+    resource.setUsedResource(nodeResource.getUsedResource());
+    resource.setLockedResource(nodeResource.getLockedResource());
+    resource.setExpectedResource(nodeResource.getExpectedResource());
+    resource.setLeftResource(nodeResource.getLeftResource());
+    resource.setCreateTime(nodeResource.getCreateTime());
+    resource.setUpdateTime(nodeResource.getUpdateTime());
+    return resource;
+  }
+
+  private static class EngineEntry {
+    private final String userCreator;
+    private final String engineType;
+    private final String combinedLabelValue;
+    private final NodeResource resource;
+
+    private EngineEntry(
+        String userCreator, String engineType, String combinedLabelValue, NodeResource resource) {
+      this.userCreator = userCreator;
+      this.engineType = engineType;
+      this.combinedLabelValue = combinedLabelValue;
+      this.resource = resource;
+    }
+  }
+
+  /** The state of a user, guarded by itself(单个用户的账本，通过自身加锁保护) */
+  private static class UserLedger {
+    private final String user;
+    private final Object loadLock = new Object();
+    private volatile long loadTime = 0;
+    private volatile long lastAccessTime = System.currentTimeMillis();
+    private Map<String, EngineEntry> engines = new HashMap<>();
+    private Map<String, NodeResource> labelResources = new HashMap<>();
+    private List<Consumer<UserLedger>> pendingEvents;
+    private Map<String, Map<String, NodeResource>> snapshot;
+
+    private UserLedger(String user) {
+      this.user = user;
+    }
+  }
+}
@@ -70,8 +70,14 @@ public class UserResourceService {
 
   private final CombinedLabelBuilder combinedLabelBuilder = new CombinedLabelBuilder();
 
+  /**
+   * Reset the used and locked resource of a user creator engine type label
+   *
+   * @param resourceId
+   * @return the user of the reset resource, null if nothing is reset
+   */
   @Transactional
-  public void resetUserResource(Integer resourceId) {
+  public String resetUserResource(Integer resourceId) {
     PersistenceResource resource = resourceManagerPersistence.getNodeResourceById(resourceId);
     List<PersistenceLabel> resourceLabel = labelManagerPersistence.getLabelByResource(resource);
     if (resource != null && !CollectionUtils.isEmpty(resourceLabel)) {
@@ -109,7 +115,9 @@ public class UserResourceService {
       Label<?> combinedLabel = combinedLabelBuilder.build("", labelList);
       labelResourceService.setLabelResource(
           resourceLabel.get(0), labelResource, combinedLabel.getStringValue());
+      return userCreatorEngineType.getUser();
     }
+    return null;
   }
 
   @Transactional
@@ -69,6 +69,16 @@ public class RMUtils {
   public static final CommonVars<Boolean> RM_RESOURCE_ACTION_RECORD =
       CommonVars.apply("wds.linkis.manager.rm.resource.action.record", true);
 
+  public static final CommonVars<Boolean> RM_RESOURCE_LEDGER_ENABLE =
+      CommonVars.apply("wds.linkis.manager.rm.resource.ledger.enable", true);
+
+  public static final CommonVars<TimeType> RM_RESOURCE_LEDGER_RECONCILE_INTERVAL =
+      CommonVars.apply(
+          "wds.linkis.manager.rm.resource.ledger.reconcile.interval", new TimeType("1m"));
+
+  public static final CommonVars<TimeType> RM_RESOURCE_LEDGER_IDLE_TIME =
+      CommonVars.apply("wds.linkis.manager.rm.resource.ledger.idle.time", new TimeType("30m"));
+
   public static Resource deserializeResource(String plainResource) {
     return ResourceUtils.parse(plainResource, Resource.class);
   }
@@ -22,5 +22,9 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.mybatis.spring.annotation.MapperScan;
 
 @EnableAutoConfiguration
-@MapperScan({"org.apache.linkis.engineplugin.server", "org.apache.linkis.manager.rm.external"})
+@MapperScan({
+  "org.apache.linkis.engineplugin.server",
+  "org.apache.linkis.manager.rm.external",
+  "org.apache.linkis.manager.dao"
+})
 public class Scan {}
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.rm.service.impl;
+
+import org.apache.linkis.engineplugin.server.dao.BaseDaoTest;
+import org.apache.linkis.manager.common.conf.RMConfiguration;
+import org.apache.linkis.manager.common.entity.resource.CommonNodeResource;
+import org.apache.linkis.manager.common.entity.resource.LoadInstanceResource;
+import org.apache.linkis.manager.common.entity.resource.NodeResource;
+import org.apache.linkis.manager.common.entity.resource.ResourceType;
+import org.apache.linkis.manager.common.utils.ResourceUtils;
+import org.apache.linkis.manager.dao.LockManagerMapper;
+import org.apache.linkis.manager.label.builder.factory.LabelBuilderFactory;
+import org.apache.linkis.manager.label.builder.factory.LabelBuilderFactoryContext;
+import org.apache.linkis.manager.label.entity.Label;
+import org.apache.linkis.manager.label.entity.em.EMInstanceLabel;
+import org.apache.linkis.manager.label.entity.engine.EngineTypeLabel;
+import org.apache.linkis.manager.label.entity.engine.UserCreatorLabel;
+import org.apache.linkis.manager.label.service.NodeLabelService;
+import org.apache.linkis.manager.persistence.LabelManagerPersistence;
+import org.apache.linkis.manager.persistence.LockManagerPersistence;
+import org.apache.linkis.manager.persistence.NodeManagerPersistence;
+import org.apache.linkis.manager.persistence.impl.DefaultLockManagerPersistence;
+import org.apache.linkis.manager.persistence.impl.FencedLockManagerPersistence;
+import org.apache.linkis.manager.persistence.impl.MemoryLockManagerPersistence;
+import org.apache.linkis.manager.rm.AvailableResource;
+import org.apache.linkis.manager.rm.ResultResource;
+import org.apache.linkis.manager.rm.domain.RMLabelContainer;
+import org.apache.linkis.manager.rm.service.LabelResourceService;
+import org.apache.linkis.manager.rm.service.RequestResourceService;
+import org.apache.linkis.manager.rm.service.ResourceLockService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput of DefaultResourceManager.requestResource under concurrent requests, with each lock
+ * backend behind ResourceLockService. The label resources are kept in memory and every read or
+ * write of them waits for a simulated persistence round trip, so the locks are held as long as in
+ * the real critical section.
+ */
+@Tag("benchmark")
+public class DefaultResourceManagerBenchmarkTest extends BaseDaoTest {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(DefaultResourceManagerBenchmarkTest.class);
+
+  private static final int THREAD_NUM = Integer.getInteger("linkis.lock.benchmark.threads", 16);
+
+  private static final int REQUEST_NUM = Integer.getInteger("linkis.lock.benchmark.requests", 20);
+
+  private static final long PERSISTENCE_LATENCY_MILLS =
+      Long.getLong("linkis.lock.benchmark.persistence.latency", 1L);
+
+  private static final int USER_NUM = 4;
+
+  private static final int ECM_NUM = 2;
+
+  private static final String WAIT_EVENT_TIME_OUT_KEY = "wds.linkis.rm.wait.event.time.out";
+
+  private static final LabelBuilderFactory LABEL_FACTORY =
+      LabelBuilderFactoryContext.getLabelBuilderFactory();
+
+  /** The label resources in the persistence, keyed by label string value */
+  private final Map<String, NodeResource> labelResources = new ConcurrentHashMap<>();
+
+  @Autowired LockManagerMapper lockManagerMapper;
+
+  @BeforeAll
+  static void disableTimeoutCheck() {
+    // no engine reports back, so do not schedule the unlock of the requested resources
+    System.setProperty(WAIT_EVENT_TIME_OUT_KEY, "-1");
+    assertTrue(RMConfiguration.RM_WAIT_EVENT_TIME_OUT.getValue() <= 0);
+  }
+
+  @AfterAll
+  static void restoreTimeoutCheck() {
+    System.clearProperty(WAIT_EVENT_TIME_OUT_KEY);
+  }
+
+  @Test
+  void requestResourceThroughput() throws InterruptedException {
+    DefaultLockManagerPersistence dbLockManager = new DefaultLockManagerPersistence();
+    dbLockManager.setLockManagerMapper(lockManagerMapper);
+    double db = run("db", dbLockManager);
+    double memory = run("memory", new MemoryLockManagerPersistence());
+    double hybrid =
+        run(
+            "hybrid",
+            new FencedLockManagerPersistence(new MemoryLockManagerPersistence(), dbLockManager));
+    logger.info("requests/s db: {}, memory: {}, hybrid: {}", db, memory, hybrid);
+  }
+
+  private double run(String name, LockManagerPersistence lockManager)
+      throws InterruptedException {
+    labelResources.clear();
+    DefaultResourceManager resourceManager = newResourceManager(lockManager);
+    AtomicLong failedNum = new AtomicLong();
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(THREAD_NUM);
+    for (int i = 0; i < THREAD_NUM; i++) {
+      String user = name + "-user-" + (i % USER_NUM);
+      new Thread(
+              () -> {
+                try {
+                  start.await();
+                  for (int j = 0; j < REQUEST_NUM; j++) {
+                    ResultResource result =
+                        resourceManager.requestResource(
+                            newLabels(user, name + "-ecm-" + (j % ECM_NUM)),
+                            newRequestResource(),
+                            60000L);
+                    if (!(result instanceof AvailableResource)) {
+                      failedNum.incrementAndGet();
+                    }
+                  }
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                  logger.error("failed to request resource", e);
+                  failedNum.incrementAndGet();
+                } finally {
+                  done.countDown();
+                }
+              })
+          .start();
+    }
+    long startTime = System.nanoTime();
+    start.countDown();
+    done.await();
+    double seconds = (System.nanoTime() - startTime) / 1e9;
+    assertEquals(0, failedNum.get());
+    // read, modified and written back under the locks, lost updates mean a lock is broken
+    for (int i = 0; i < USER_NUM; i++) {
+      int userRequests = (THREAD_NUM - i + USER_NUM - 1) / USER_NUM * REQUEST_NUM;
+      RMLabelContainer labelContainer =
+          new RMLabelContainer(newLabels(name + "-user-" + i, name + "-ecm-0"));
+      assertEquals(
+          userRequests,
+          getLockedInstances(labelContainer.getCombinedUserCreatorEngineTypeLabel()));
+    }
+    for (int i = 0; i < ECM_NUM; i++) {
+      int ecmRequests = (REQUEST_NUM - i + ECM_NUM - 1) / ECM_NUM * THREAD_NUM;
+      assertEquals(ecmRequests, getLockedInstances(newEMInstanceLabel(name + "-ecm-" + i)));
+    }
+    double throughput = THREAD_NUM * REQUEST_NUM / seconds;
+    logger.info(
+        "{} lock: {} threads x {} requests in {} s, {} requests/s",
+        name,
+        THREAD_NUM,
+        REQUEST_NUM,
+        seconds,
+        throughput);
+    return throughput;
+  }
+
+  private DefaultResourceManager newResourceManager(LockManagerPersistence lockManager) {
+    LabelResourceService labelResourceService = mock(LabelResourceService.class);
+    Mockito.when(labelResourceService.enrichLabels(ArgumentMatchers.anyList()))
+        .thenAnswer(invocation -> new RMLabelContainer(invocation.getArgument(0)));
+    Mockito.when(labelResourceService.getLabelResource(ArgumentMatchers.any()))
+        .thenAnswer(invocation -> getLabelResource(invocation.getArgument(0)));
+    Mockito.doAnswer(
+            invocation -> {
+              setLabelResource(invocation.getArgument(0), invocation.getArgument(1));
+              return null;
+            })
+        .when(labelResourceService)
+        .setLabelResource(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+
+    // the user configured resource is not loaded, only the label resource is read
+    RequestResourceService requestResourceService = mock(RequestResourceService.class);
+    Mockito.when(requestResourceService.resourceType()).thenReturn(ResourceType.LoadInstance);
+    Mockito.when(requestResourceService.canRequest(ArgumentMatchers.any(), ArgumentMatchers.any()))
+        .thenAnswer(
+            invocation -> {
+              RMLabelContainer labelContainer = invocation.getArgument(0);
+              getLabelResource(labelContainer.getCurrentLabel());
+              return true;
+            });
+
+    ResourceLockService resourceLockService = new ResourceLockService();
+    ReflectionTestUtils.setField(resourceLockService, "lockManagerPersistence", lockManager);
+
+    DefaultResourceManager resourceManager = new DefaultResourceManager();
+    ReflectionTestUtils.setField(resourceManager, "resourceLockService", resourceLockService);
+    ReflectionTestUtils.setField(resourceManager, "labelResourceService", labelResourceService);
+    ReflectionTestUtils.setField(
+        resourceManager,
+        "requestResourceServices",
+        new RequestResourceService[] {requestResourceService});
+    ReflectionTestUtils.setField(
+        resourceManager, "nodeManagerPersistence", mock(NodeManagerPersistence.class));
+    ReflectionTestUtils.setField(resourceManager, "nodeLabelService", mock(NodeLabelService.class));
+    ReflectionTestUtils.setField(
+        resourceManager, "resourceLogService", mock(ResourceLogService.class));
+    ReflectionTestUtils.setField(
+        resourceManager, "labelManagerPersistence", mock(LabelManagerPersistence.class));
+    ReflectionTestUtils.setField(resourceManager, "resourceLedger", mock(ResourceLedger.class));
+    return resourceManager;
+  }
+
+  /** Invocations are not recorded, the mocks are called from all the request threads */
+  private static <T> T mock(Class<T> clazz) {
+    return Mockito.mock(clazz, Mockito.withSettings().stubOnly());
+  }
+
+  private NodeResource getLabelResource(Label<?> label) throws InterruptedException {
+    Thread.sleep(PERSISTENCE_LATENCY_MILLS);
+    NodeResource labelResource =
+        labelResources.computeIfAbsent(label.getStringValue(), key -> newLabelResource());
+    return copyOf(labelResource);
+  }
+
+  private void setLabelResource(Label<?> label, NodeResource labelResource)
+      throws InterruptedException {
+    Thread.sleep(PERSISTENCE_LATENCY_MILLS);
+    labelResources.put(label.getStringValue(), copyOf(labelResource));
+  }
+
+  private int getLockedInstances(Label<?> label) {
+    NodeResource labelResource = labelResources.get(label.getStringValue());
+    assertNotNull(labelResource, label.getStringValue());
+    return ((LoadInstanceResource) labelResource.getLockedResource()).getInstances();
+  }
+
+  private static NodeResource newLabelResource() {
+    LoadInstanceResource maxResource =
+        new LoadInstanceResource(Long.MAX_VALUE / 2, Integer.MAX_VALUE / 2, Integer.MAX_VALUE / 2);
+    NodeResource labelResource = CommonNodeResource.initNodeResource(ResourceType.LoadInstance);
+    labelResource.setMaxResource(maxResource);
+    labelResource.setLeftResource(maxResource);
+    return labelResource;
+  }
+
+  private static NodeResource newRequestResource() {
+    NodeResource resource = CommonNodeResource.initNodeResource(ResourceType.LoadInstance);
+    resource.setMinResource(new LoadInstanceResource(1024L * 1024 * 1024, 1, 1));
+    return resource;
+  }
+
+  /** New label instances every time, requestResource adds the combined label to the list */
+  private static List<Label<?>> newLabels(String user, String ecmInstance) {
+    UserCreatorLabel userCreatorLabel = LABEL_FACTORY.createLabel(UserCreatorLabel.class);
+    userCreatorLabel.setUser(user);
+    userCreatorLabel.setCreator("IDE");
+    EngineTypeLabel engineTypeLabel = LABEL_FACTORY.createLabel(EngineTypeLabel.class);
+    engineTypeLabel.setEngineType("spark");
+    engineTypeLabel.setVersion("2.4.3");
+    List<Label<?>> labels = new ArrayList<>();
+    labels.add(userCreatorLabel);
+    labels.add(engineTypeLabel);
+    labels.add(newEMInstanceLabel(ecmInstance));
+    return labels;
+  }
+
+  private static EMInstanceLabel newEMInstanceLabel(String instance) {
+    EMInstanceLabel emInstanceLabel = LABEL_FACTORY.createLabel(EMInstanceLabel.class);
+    emInstanceLabel.setServiceName("linkis-cg-engineconnmanager");
+    emInstanceLabel.setInstance(instance);
+    return emInstanceLabel;
+  }
+
+  private static NodeResource copyOf(NodeResource nodeResource) {
+    return ResourceUtils.fromPersistenceResource(ResourceUtils.toPersistenceResource(nodeResource));
+  }
+}
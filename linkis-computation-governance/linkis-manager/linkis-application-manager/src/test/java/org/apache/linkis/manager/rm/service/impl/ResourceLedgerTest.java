@@ -0,0 +1,379 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.rm.service.impl;
+
+import org.apache.linkis.common.ServiceInstance;
+import org.apache.linkis.manager.common.entity.node.AMEngineNode;
+import org.apache.linkis.manager.common.entity.node.EngineNode;
+import org.apache.linkis.manager.common.entity.persistence.PersistenceResource;
+import org.apache.linkis.manager.common.entity.resource.CommonNodeResource;
+import org.apache.linkis.manager.common.entity.resource.LoadInstanceResource;
+import org.apache.linkis.manager.common.entity.resource.NodeResource;
+import org.apache.linkis.manager.common.entity.resource.Resource;
+import org.apache.linkis.manager.common.entity.resource.ResourceType;
+import org.apache.linkis.manager.common.utils.ResourceUtils;
+import org.apache.linkis.manager.label.builder.factory.LabelBuilderFactory;
+import org.apache.linkis.manager.label.builder.factory.LabelBuilderFactoryContext;
+import org.apache.linkis.manager.label.entity.CombinedLabel;
+import org.apache.linkis.manager.label.entity.Label;
+import org.apache.linkis.manager.label.entity.engine.EngineInstanceLabel;
+import org.apache.linkis.manager.label.entity.engine.EngineTypeLabel;
+import org.apache.linkis.manager.label.entity.engine.UserCreatorLabel;
+import org.apache.linkis.manager.label.service.NodeLabelService;
+import org.apache.linkis.manager.persistence.NodeManagerPersistence;
+import org.apache.linkis.manager.persistence.NodeMetricManagerPersistence;
+import org.apache.linkis.manager.rm.domain.RMLabelContainer;
+import org.apache.linkis.manager.rm.restful.RMMonitorRest;
+import org.apache.linkis.manager.rm.service.LabelResourceService;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * Replays the lock, used, released and label resource events of DefaultResourceManager onto the
+ * ledger, and compares its view with the one RMMonitorRest loads from the persistence
+ */
+public class ResourceLedgerTest {
+
+  private static final String USER = "hadoop";
+
+  private static final String ENGINE_CONN = "linkis-cg-engineconn";
+
+  private static final LabelBuilderFactory LABEL_FACTORY =
+      LabelBuilderFactoryContext.getLabelBuilderFactory();
+
+  /** The engines in the persistence, keyed by instance */
+  private final Map<String, Engine> engines = new LinkedHashMap<>();
+
+  /** The combined user creator engine type label resources in the persistence */
+  private final Map<String, NodeResource> labelResources = new HashMap<>();
+
+  private ResourceLedger resourceLedger;
+
+  private RMMonitorRest rmMonitorRest;
+
+  @BeforeEach
+  public void setUp() {
+    NodeManagerPersistence nodeManagerPersistence = Mockito.mock(NodeManagerPersistence.class);
+    Mockito.when(nodeManagerPersistence.getNodes(USER))
+        .thenAnswer(
+            invocation ->
+                engines.values().stream()
+                    .map(engine -> new AMEngineNode(0, engine.serviceInstance))
+                    .collect(Collectors.toList()));
+    Mockito.when(nodeManagerPersistence.getEngineNodeByServiceInstance(ArgumentMatchers.anyList()))
+        .thenAnswer(invocation -> getEngineNodes(invocation.getArgument(0)));
+
+    NodeLabelService nodeLabelService = Mockito.mock(NodeLabelService.class);
+    Mockito.when(nodeLabelService.getNodeLabelsByInstanceList(ArgumentMatchers.anyList()))
+        .thenAnswer(
+            invocation -> {
+              HashMap<String, List<Label<?>>> labelsMap = new HashMap<>();
+              List<ServiceInstance> serviceInstances = invocation.getArgument(0);
+              for (ServiceInstance serviceInstance : serviceInstances) {
+                Engine engine = engines.get(serviceInstance.getInstance());
+                if (engine != null) {
+                  labelsMap.put(serviceInstance.toString(), engine.getLabels());
+                }
+              }
+              return labelsMap;
+            });
+
+    LabelResourceService labelResourceService = Mockito.mock(LabelResourceService.class);
+    Mockito.when(labelResourceService.getPersistenceResource(ArgumentMatchers.any()))
+        .thenAnswer(invocation -> getPersistenceResource(invocation.getArgument(0)));
+    Mockito.when(labelResourceService.getLabelResource(ArgumentMatchers.any()))
+        .thenAnswer(invocation -> getLabelResource(invocation.getArgument(0)));
+
+    resourceLedger = new ResourceLedger();
+    ReflectionTestUtils.setField(resourceLedger, "nodeManagerPersistence", nodeManagerPersistence);
+    ReflectionTestUtils.setField(resourceLedger, "nodeLabelService", nodeLabelService);
+    ReflectionTestUtils.setField(resourceLedger, "labelResourceService", labelResourceService);
+
+    rmMonitorRest = new RMMonitorRest();
+    ReflectionTestUtils.setField(rmMonitorRest, "nodeManagerPersistence", nodeManagerPersistence);
+    ReflectionTestUtils.setField(
+        rmMonitorRest,
+        "nodeMetricManagerPersistence",
+        Mockito.mock(NodeMetricManagerPersistence.class));
+    ReflectionTestUtils.setField(rmMonitorRest, "nodeLabelService", nodeLabelService);
+    ReflectionTestUtils.setField(rmMonitorRest, "labelResourceService", labelResourceService);
+    ReflectionTestUtils.setField(rmMonitorRest, "resourceLedger", resourceLedger);
+  }
+
+  @Test
+  public void testReplayedEventsMatchPersistence() {
+    Engine spark1 = lock("ip1:9101", "IDE", "spark", "2.4.3", "ticket-1", true);
+    use(spark1);
+    // loaded from the persistence, the following changes are replayed from the events
+    assertLedgerMatchesPersistence();
+
+    Engine spark2 = lock("ip1:9102", "IDE", "spark", "2.4.3", "ticket-2", true);
+    assertLedgerMatchesPersistence();
+
+    use(spark2);
+    assertLedgerMatchesPersistence();
+
+    Engine hive = lock("ip2:9101", "IDE", "hive", "2.3.3", "ticket-3", false);
+    assertLedgerMatchesPersistence();
+
+    Engine shell = lock("ip2:9102", "nodeexecution", "shell", "1", "ticket-4", true);
+    use(shell);
+    assertLedgerMatchesPersistence();
+
+    release(spark1);
+    assertLedgerMatchesPersistence();
+
+    release(hive);
+    assertLedgerMatchesPersistence();
+
+    release(spark2);
+    release(shell);
+    assertLedgerMatchesPersistence();
+    Assertions.assertTrue(resourceLedger.getUserResources(USER).isEmpty());
+  }
+
+  @Test
+  public void testInvalidateReloadsFromPersistence() {
+    Engine spark = lock("ip1:9101", "IDE", "spark", "2.4.3", "ticket-1", true);
+    use(spark);
+    assertLedgerMatchesPersistence();
+
+    // reset by the admin, no event is fired
+    NodeResource labelResource = labelResources.get(spark.getCombinedLabel().getStringValue());
+    labelResource.setUsedResource(new LoadInstanceResource(0, 0, 0));
+    labelResource.setLockedResource(new LoadInstanceResource(0, 0, 0));
+    Assertions.assertEquals(1, getUsedInstances("(hadoop,IDE)", "(spark,2.4.3)"));
+
+    resourceLedger.invalidate(USER);
+    assertLedgerMatchesPersistence();
+    Assertions.assertEquals(0, getUsedInstances("(hadoop,IDE)", "(spark,2.4.3)"));
+  }
+
+  /** DefaultResourceManager.requestResource: lock the resource of a new engine */
+  private Engine lock(
+      String instance,
+      String creator,
+      String engineType,
+      String version,
+      String ticketId,
+      boolean withLabelResource) {
+    LoadInstanceResource resource = new LoadInstanceResource(1024L * 1024 * 1024, 1, 1);
+    Engine engine = new Engine(instance, creator, engineType, version, ticketId, resource);
+    RMLabelContainer labelContainer = new RMLabelContainer(engine.getLabels());
+    if (withLabelResource) {
+      CombinedLabel combinedLabel = labelContainer.getCombinedUserCreatorEngineTypeLabel();
+      NodeResource labelResource =
+          labelResources.computeIfAbsent(
+              combinedLabel.getStringValue(),
+              key -> {
+                NodeResource nodeResource =
+                    CommonNodeResource.initNodeResource(ResourceType.LoadInstance);
+                nodeResource.setMaxResource(
+                    new LoadInstanceResource(100L * 1024 * 1024 * 1024, 100, 10));
+                return nodeResource;
+              });
+      labelResource.setLockedResource(labelResource.getLockedResource().add(resource));
+      resourceLedger.onLabelResourceChanged(USER, combinedLabel, labelResource);
+    }
+    engines.put(instance, engine);
+    resourceLedger.onResourceLocked(labelContainer, ticketId, engine.resource);
+    return engine;
+  }
+
+  /** DefaultResourceManager.resourceUsed: the locked resource of the engine turned to used */
+  private void use(Engine engine) {
+    RMLabelContainer labelContainer = new RMLabelContainer(engine.getLabels());
+    NodeResource labelResource =
+        labelResources.get(labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue());
+    if (labelResource != null) {
+      labelResource.setLockedResource(labelResource.getLockedResource().minus(engine.amount));
+      labelResource.setUsedResource(labelResource.getUsedResource().add(engine.amount));
+      resourceLedger.onLabelResourceChanged(
+          USER, labelContainer.getCombinedUserCreatorEngineTypeLabel(), labelResource);
+    }
+    engine.resource.setUsedResource(engine.amount);
+    engine.resource.setLockedResource(new LoadInstanceResource(0, 0, 0));
+    resourceLedger.onResourceUsed(labelContainer, engine.ticketId, engine.resource);
+  }
+
+  /** DefaultResourceManager.resourceReleased: the engine was stopped */
+  private void release(Engine engine) {
+    RMLabelContainer labelContainer = new RMLabelContainer(engine.getLabels());
+    NodeResource labelResource =
+        labelResources.get(labelContainer.getCombinedUserCreatorEngineTypeLabel().getStringValue());
+    if (labelResource != null) {
+      labelResource.setUsedResource(labelResource.getUsedResource().minus(engine.amount));
+      resourceLedger.onLabelResourceChanged(
+          USER, labelContainer.getCombinedUserCreatorEngineTypeLabel(), labelResource);
+    }
+    engines.remove(engine.serviceInstance.getInstance());
+    resourceLedger.onResourceReleased(labelContainer, engine.ticketId);
+  }
+
+  private void assertLedgerMatchesPersistence() {
+    Map<String, Map<String, NodeResource>> expected =
+        ReflectionTestUtils.invokeMethod(rmMonitorRest, "getUserResourcesFromPersistence", USER);
+    Map<String, Map<String, NodeResource>> actual = resourceLedger.getUserResources(USER);
+    Assertions.assertNotNull(actual);
+    Assertions.assertEquals(expected.keySet(), actual.keySet());
+    expected.forEach(
+        (userCreator, engineTypeResources) -> {
+          Map<String, NodeResource> ledgerResources = actual.get(userCreator);
+          Assertions.assertEquals(engineTypeResources.keySet(), ledgerResources.keySet());
+          engineTypeResources.forEach(
+              (engineType, resource) -> {
+                NodeResource ledgerResource = ledgerResources.get(engineType);
+                String key = userCreator + engineType;
+                assertResourceEquals(
+                    key + " used", resource.getUsedResource(), ledgerResource.getUsedResource());
+                assertResourceEquals(
+                    key + " locked",
+                    resource.getLockedResource(),
+                    ledgerResource.getLockedResource());
+                assertResourceEquals(
+                    key + " max", resource.getMaxResource(), ledgerResource.getMaxResource());
+              });
+        });
+  }
+
+  private int getUsedInstances(String userCreator, String engineType) {
+    NodeResource resource = resourceLedger.getUserResources(USER).get(userCreator).get(engineType);
+    return ((LoadInstanceResource) resource.getUsedResource()).getInstances();
+  }
+
+  private static void assertResourceEquals(String message, Resource expected, Resource actual) {
+    LoadInstanceResource expectedResource = (LoadInstanceResource) expected;
+    LoadInstanceResource actualResource = (LoadInstanceResource) actual;
+    Assertions.assertEquals(expectedResource.getMemory(), actualResource.getMemory(), message);
+    Assertions.assertEquals(expectedResource.getCores(), actualResource.getCores(), message);
+    Assertions.assertEquals(
+        expectedResource.getInstances(), actualResource.getInstances(), message);
+  }
+
+  /**
+   * The nodes carry their resources, so that RMMonitorRest does not query the user configuration
+   * of the engine instance label resources
+   */
+  private List<EngineNode> getEngineNodes(List<ServiceInstance> serviceInstances) {
+    List<EngineNode> nodes = new ArrayList<>();
+    for (ServiceInstance serviceInstance : serviceInstances) {
+      Engine engine = engines.get(serviceInstance.getInstance());
+      if (engine != null) {
+        NodeResource nodeResource = copyOf(engine.resource);
+        if (nodeResource.getUsedResource() == null) {
+          nodeResource.setUsedResource(nodeResource.getLockedResource());
+        }
+        AMEngineNode node = new AMEngineNode(0, serviceInstance);
+        node.setNodeResource(nodeResource);
+        nodes.add(node);
+      }
+    }
+    return nodes;
+  }
+
+  private PersistenceResource getPersistenceResource(Label<?> label) {
+    if (!(label instanceof EngineInstanceLabel)) {
+      return null;
+    }
+    Engine engine = engines.get(((EngineInstanceLabel) label).getInstance());
+    if (engine == null) {
+      return null;
+    }
+    PersistenceResource persistenceResource = ResourceUtils.toPersistenceResource(engine.resource);
+    persistenceResource.setTicketId(engine.ticketId);
+    return persistenceResource;
+  }
+
+  private NodeResource getLabelResource(Label<?> label) {
+    if (!(label instanceof CombinedLabel)) {
+      return null;
+    }
+    NodeResource labelResource = labelResources.get(label.getStringValue());
+    return labelResource == null ? null : copyOf(labelResource);
+  }
+
+  private static NodeResource copyOf(NodeResource nodeResource) {
+    return ResourceUtils.fromPersistenceResource(ResourceUtils.toPersistenceResource(nodeResource));
+  }
+
+  private static class Engine {
+    private final ServiceInstance serviceInstance;
+    private final String creator;
+    private final String engineType;
+    private final String version;
+    private final String ticketId;
+    private final Resource amount;
+    private final NodeResource resource;
+
+    private Engine(
+        String instance,
+        String creator,
+        String engineType,
+        String version,
+        String ticketId,
+        Resource amount) {
+      this.serviceInstance = ServiceInstance.apply(ENGINE_CONN, instance);
+      this.creator = creator;
+      this.engineType = engineType;
+      this.version = version;
+      this.ticketId = ticketId;
+      this.amount = amount;
+      // locked on request, the used resource is set when the engine is started
+      this.resource = CommonNodeResource.initNodeResource(ResourceType.LoadInstance);
+      this.resource.setUsedResource(null);
+      this.resource.setMaxResource(amount);
+      this.resource.setLockedResource(amount);
+    }
+
+    /** New label instances every time, the callers modify them in place */
+    private List<Label<?>> getLabels() {
+      UserCreatorLabel userCreatorLabel = LABEL_FACTORY.createLabel(UserCreatorLabel.class);
+      userCreatorLabel.setUser(USER);
+      userCreatorLabel.setCreator(creator);
+      EngineTypeLabel engineTypeLabel = LABEL_FACTORY.createLabel(EngineTypeLabel.class);
+      engineTypeLabel.setEngineType(engineType);
+      engineTypeLabel.setVersion(version);
+      EngineInstanceLabel engineInstanceLabel =
+          LABEL_FACTORY.createLabel(EngineInstanceLabel.class);
+      engineInstanceLabel.setServiceName(serviceInstance.getApplicationName());
+      engineInstanceLabel.setInstance(serviceInstance.getInstance());
+      List<Label<?>> labels = new ArrayList<>();
+      labels.add(userCreatorLabel);
+      labels.add(engineTypeLabel);
+      labels.add(engineInstanceLabel);
+      return labels;
+    }
+
+    private CombinedLabel getCombinedLabel() {
+      return new RMLabelContainer(getLabels()).getCombinedUserCreatorEngineTypeLabel();
+    }
+  }
+}
@@ -41,6 +41,15 @@ CREATE TABLE linkis_cg_rm_external_resource_provider (
 	CONSTRAINT linkis_external_resource_provider_pkey PRIMARY KEY (id)
 );
 
+DROP TABLE IF EXISTS "linkis_cg_manager_lock";
+CREATE TABLE linkis_cg_manager_lock (
+	id serial NOT NULL,
+	lock_object varchar(255) NULL,
+	time_out text NULL,
+	update_time timestamp(6) NULL DEFAULT CURRENT_TIMESTAMP,
+	create_time timestamp(6) NULL DEFAULT CURRENT_TIMESTAMP,
+	CONSTRAINT linkis_manager_lock_pkey PRIMARY KEY (id)
+);
 
 delete from linkis_cg_rm_external_resource_provider;
 insert  into "linkis_cg_rm_external_resource_provider"("resource_type","name","labels","config") values
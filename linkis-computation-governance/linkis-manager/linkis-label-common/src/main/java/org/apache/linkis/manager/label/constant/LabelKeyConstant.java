@@ -51,6 +51,8 @@ public class LabelKeyConstant {
 
   public static final String JOB_RUNNING_TIMEOUT_KEY = "jobRunningTimeout";
 
+  public static final String JOB_PRIORITY_KEY = "jobPriority";
+
   public static final String RETRY_TIMEOUT_KEY = "jobRetryTimeout";
 
   public static final String RETRY_COUNT_KEY = "jobRetryCount";
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.label.entity.entrance;
+
+import org.apache.linkis.manager.label.constant.LabelKeyConstant;
+import org.apache.linkis.manager.label.entity.GenericLabel;
+import org.apache.linkis.manager.label.entity.annon.ValueSerialNum;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.HashMap;
+
+/** Priority lane of the job in the orchestrator, 0 is the highest (任务优先级，0为最高) */
+public class JobPriorityLabel extends GenericLabel {
+
+  public JobPriorityLabel() {
+    setLabelKey(LabelKeyConstant.JOB_PRIORITY_KEY);
+  }
+
+  public Integer getPriority() {
+    if (null == getValue()) {
+      return -1;
+    }
+    return NumberUtils.toInt(getValue().get(LabelKeyConstant.JOB_PRIORITY_KEY), -1);
+  }
+
+  @ValueSerialNum(0)
+  public void setPriority(String priority) {
+    if (null == getValue()) {
+      setValue(new HashMap<>());
+    }
+    getValue().put(LabelKeyConstant.JOB_PRIORITY_KEY, priority);
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.linkis.manager;
 import org.apache.linkis.manager.dao.*;
 import org.apache.linkis.manager.persistence.*;
 import org.apache.linkis.manager.persistence.impl.*;
+import org.apache.linkis.manager.util.PersistenceManagerConf;
 
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
@@ -73,9 +74,17 @@ public class PersistenceSpringConfiguration {
   @ConditionalOnMissingBean
   public LockManagerPersistence getDefaultLockManagerPersistence(
       LockManagerMapper lockManagerMapper) {
+    String backend = PersistenceManagerConf.Lock_backend;
+    if ("memory".equalsIgnoreCase(backend)) {
+      return new MemoryLockManagerPersistence();
+    }
     DefaultLockManagerPersistence defaultLockManagerPersistence =
         new DefaultLockManagerPersistence();
     defaultLockManagerPersistence.setLockManagerMapper(lockManagerMapper);
+    if ("hybrid".equalsIgnoreCase(backend)) {
+      return new FencedLockManagerPersistence(
+          new MemoryLockManagerPersistence(), defaultLockManagerPersistence);
+    }
     return defaultLockManagerPersistence;
   }
 
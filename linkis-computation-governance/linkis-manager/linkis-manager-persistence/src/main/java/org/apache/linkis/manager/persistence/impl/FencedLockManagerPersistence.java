@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.persistence.impl;
+
+import org.apache.linkis.manager.common.entity.persistence.PersistenceLock;
+import org.apache.linkis.manager.persistence.LockManagerPersistence;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Requests of the same instance queue on the local lock first, so only the head of each queue
+ * inserts a row and polls the db lock, which is kept for fencing between linkismanager instances.
+ * (同一实例内的请求先在本地锁排队，只有队首请求去竞争db锁，db锁仅用于多个linkismanager实例之间的互斥)
+ */
+public class FencedLockManagerPersistence implements LockManagerPersistence {
+
+  private final LockManagerPersistence localLockManagerPersistence;
+
+  private final LockManagerPersistence distributedLockManagerPersistence;
+
+  public FencedLockManagerPersistence(
+      LockManagerPersistence localLockManagerPersistence,
+      LockManagerPersistence distributedLockManagerPersistence) {
+    this.localLockManagerPersistence = localLockManagerPersistence;
+    this.distributedLockManagerPersistence = distributedLockManagerPersistence;
+  }
+
+  @Override
+  public Boolean lock(PersistenceLock persistenceLock, Long timeOut) {
+    if (StringUtils.isBlank(persistenceLock.getLockObject())) {
+      return true;
+    }
+    long startTime = System.currentTimeMillis();
+    if (!localLockManagerPersistence.lock(persistenceLock, timeOut)) {
+      return false;
+    }
+    long leftTime = Math.max(timeOut - (System.currentTimeMillis() - startTime), 0L);
+    boolean isLocked = false;
+    try {
+      isLocked = distributedLockManagerPersistence.lock(persistenceLock, leftTime);
+    } finally {
+      if (!isLocked) {
+        localLockManagerPersistence.unlock(persistenceLock);
+      }
+    }
+    return isLocked;
+  }
+
+  @Override
+  public void unlock(PersistenceLock persistenceLock) {
+    try {
+      distributedLockManagerPersistence.unlock(persistenceLock);
+    } finally {
+      localLockManagerPersistence.unlock(persistenceLock);
+    }
+  }
+
+  @Override
+  public List<PersistenceLock> getAll() {
+    return distributedLockManagerPersistence.getAll();
+  }
+
+  @Override
+  public List<PersistenceLock> getTimeOutLocks(Date endDate) {
+    return distributedLockManagerPersistence.getTimeOutLocks(endDate);
+  }
+}
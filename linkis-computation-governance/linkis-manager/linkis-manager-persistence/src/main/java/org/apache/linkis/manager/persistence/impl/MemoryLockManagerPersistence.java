@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.persistence.impl;
+
+import org.apache.linkis.manager.common.entity.persistence.PersistenceLock;
+import org.apache.linkis.manager.persistence.LockManagerPersistence;
+import org.apache.linkis.manager.util.PersistenceManagerConf;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process lock with leases. Lock objects are hashed to striped locks, a waiter is woken up as
+ * soon as the holder unlocks instead of polling the database, and a lease which is not released in
+ * time is taken over by the next waiter. Only mutually exclusive inside one linkismanager instance.
+ * (进程内租约锁，按锁对象分段加锁，释放时直接唤醒等待者，无需轮询数据库；租约超时后由下一个等待者接管，仅在单个linkismanager实例内互斥)
+ */
+public class MemoryLockManagerPersistence implements LockManagerPersistence {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemoryLockManagerPersistence.class);
+
+  private final Stripe[] stripes;
+
+  private final long leaseMills;
+
+  public MemoryLockManagerPersistence() {
+    this(
+        PersistenceManagerConf.Memory_lock_stripe_num,
+        PersistenceManagerConf.Memory_lock_lease_mills);
+  }
+
+  public MemoryLockManagerPersistence(int stripeNum, long leaseMills) {
+    if (stripeNum <= 0 || leaseMills <= 0) {
+      throw new IllegalArgumentException(
+          "stripeNum and leaseMills must be positive, but got " + stripeNum + ", " + leaseMills);
+    }
+    this.stripes = new Stripe[stripeNum];
+    for (int i = 0; i < stripeNum; i++) {
+      stripes[i] = new Stripe();
+    }
+    this.leaseMills = leaseMills;
+  }
+
+  @Override
+  public Boolean lock(PersistenceLock persistenceLock, Long timeOut) {
+    String lockObject = persistenceLock.getLockObject();
+    if (StringUtils.isBlank(lockObject)) {
+      return true;
+    }
+    persistenceLock.setTimeOut(timeOut);
+    long startTime = System.currentTimeMillis();
+    long deadline = startTime + timeOut < startTime ? Long.MAX_VALUE : startTime + timeOut;
+    Stripe stripe = stripeOf(lockObject);
+    stripe.lock.lock();
+    try {
+      while (true) {
+        long now = System.currentTimeMillis();
+        Lease lease = stripe.leases.get(lockObject);
+        if (lease == null || lease.expireTime <= now) {
+          if (lease != null) {
+            logger.warn(
+                "The lease of {} is expired after {} ms, taken over by a new locker",
+                lockObject,
+                now - lease.lockTime);
+          }
+          stripe.leases.put(lockObject, new Lease(persistenceLock, now, now + leaseMills));
+          return true;
+        }
+        if (now >= deadline) {
+          logger.error("Failed to get lock by time out {} s", (now - startTime) / 1000);
+          return false;
+        }
+        stripe.released.await(Math.min(deadline, lease.expireTime) - now, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      logger.info("lock waiting interrupted", e);
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  @Override
+  public void unlock(PersistenceLock persistenceLock) {
+    String lockObject = persistenceLock.getLockObject();
+    if (StringUtils.isBlank(lockObject)) {
+      return;
+    }
+    Stripe stripe = stripeOf(lockObject);
+    stripe.lock.lock();
+    try {
+      Lease lease = stripe.leases.get(lockObject);
+      if (lease != null && isSameLocker(lease.locker, persistenceLock)) {
+        stripe.leases.remove(lockObject);
+        stripe.released.signalAll();
+      } else {
+        logger.debug("{} is not held by the unlocker, ignore it", lockObject);
+      }
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  @Override
+  public List<PersistenceLock> getAll() {
+    return collect(Long.MAX_VALUE);
+  }
+
+  @Override
+  public List<PersistenceLock> getTimeOutLocks(Date endDate) {
+    return collect(endDate.getTime());
+  }
+
+  private List<PersistenceLock> collect(long lockedBefore) {
+    List<PersistenceLock> locks = new ArrayList<>();
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        for (Lease lease : stripe.leases.values()) {
+          if (lease.lockTime < lockedBefore) {
+            locks.add(lease.locker);
+          }
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+    return locks;
+  }
+
+  /**
+   * In hybrid mode the id is assigned by the db lock, and the timeout locks read back from the db
+   * are copies of the holder, so they are matched by id.
+   */
+  private boolean isSameLocker(PersistenceLock holder, PersistenceLock unlocker) {
+    return holder == unlocker || (holder.getId() > 0 && holder.getId().equals(unlocker.getId()));
+  }
+
+  private Stripe stripeOf(String lockObject) {
+    int hash = lockObject.hashCode();
+    hash ^= hash >>> 16;
+    return stripes[(hash & Integer.MAX_VALUE) % stripes.length];
+  }
+
+  private static class Stripe {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private final Map<String, Lease> leases = new HashMap<>();
+  }
+
+  private static class Lease {
+
+    private final PersistenceLock locker;
+
+    private final long lockTime;
+
+    private final long expireTime;
+
+    private Lease(PersistenceLock locker, long lockTime, long expireTime) {
+      this.locker = locker;
+      this.lockTime = lockTime;
+      this.expireTime = expireTime;
+    }
+  }
+}
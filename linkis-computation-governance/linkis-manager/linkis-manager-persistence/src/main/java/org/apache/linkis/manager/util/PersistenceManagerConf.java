@@ -18,6 +18,7 @@
 package org.apache.linkis.manager.util;
 
 import org.apache.linkis.common.conf.CommonVars$;
+import org.apache.linkis.common.conf.TimeType;
 
 public class PersistenceManagerConf {
 
@@ -28,4 +29,24 @@ public class PersistenceManagerConf {
       CommonVars$.MODULE$
           .apply("linkis.master.distributed.lock.request.sync.enabled", true)
           .getValue();
+
+  /**
+   * Backend of the resource lock: db, memory or hybrid. memory only fits a single linkismanager
+   * instance, hybrid queues the requests in memory and keeps the db lock for fencing instances.
+   * (资源锁实现：db、memory或hybrid，memory仅适用于单实例linkismanager，hybrid在内存中排队并保留db锁做跨实例互斥)
+   */
+  public static final String Lock_backend =
+      CommonVars$.MODULE$.apply("linkis.manager.lock.backend", "db").getValue();
+
+  public static final Integer Memory_lock_stripe_num =
+      CommonVars$.MODULE$.apply("linkis.manager.lock.memory.stripe.num", 64).getValue();
+
+  /**
+   * Leases not released in time are taken over by the next waiter(超时未释放的租约会被下一个等待者接管)
+   */
+  public static final Long Memory_lock_lease_mills =
+      CommonVars$.MODULE$
+          .apply("linkis.manager.lock.memory.lease", new TimeType("5m"))
+          .getValue()
+          .toLong();
 }
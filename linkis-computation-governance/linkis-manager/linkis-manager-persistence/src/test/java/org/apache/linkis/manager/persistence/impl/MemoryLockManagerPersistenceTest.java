@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.persistence.impl;
+
+import org.apache.linkis.manager.common.entity.persistence.PersistenceLock;
+
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryLockManagerPersistenceTest {
+
+  private PersistenceLock newLock(String lockObject) {
+    PersistenceLock persistenceLock = new PersistenceLock();
+    persistenceLock.setLockObject(lockObject);
+    return persistenceLock;
+  }
+
+  @Test
+  void lockAndUnlock() {
+    MemoryLockManagerPersistence lockManager = new MemoryLockManagerPersistence(4, 60000L);
+    PersistenceLock first = newLock("label-a");
+    assertTrue(lockManager.lock(first, 100L));
+    assertFalse(lockManager.lock(newLock("label-a"), 100L));
+    assertTrue(lockManager.lock(newLock("label-b"), 100L));
+    assertEquals(2, lockManager.getAll().size());
+
+    lockManager.unlock(first);
+    assertTrue(lockManager.lock(newLock("label-a"), 100L));
+  }
+
+  @Test
+  void unlockByOthersIsIgnored() {
+    MemoryLockManagerPersistence lockManager = new MemoryLockManagerPersistence(4, 60000L);
+    assertTrue(lockManager.lock(newLock("label-a"), 100L));
+    lockManager.unlock(newLock("label-a"));
+    assertFalse(lockManager.lock(newLock("label-a"), 100L));
+  }
+
+  @Test
+  void waiterIsWokenUpByUnlock() throws InterruptedException {
+    MemoryLockManagerPersistence lockManager = new MemoryLockManagerPersistence(1, 60000L);
+    PersistenceLock holder = newLock("label-a");
+    assertTrue(lockManager.lock(holder, 100L));
+    CountDownLatch locked = new CountDownLatch(1);
+    Thread waiter =
+        new Thread(
+            () -> {
+              if (lockManager.lock(newLock("label-a"), 10000L)) {
+                locked.countDown();
+              }
+            });
+    waiter.start();
+    Thread.sleep(100);
+    assertEquals(1, locked.getCount());
+    lockManager.unlock(holder);
+    assertTrue(locked.await(1, TimeUnit.SECONDS));
+    waiter.join();
+  }
+
+  @Test
+  void expiredLeaseIsTakenOver() throws InterruptedException {
+    MemoryLockManagerPersistence lockManager = new MemoryLockManagerPersistence(4, 50L);
+    PersistenceLock holder = newLock("label-a");
+    assertTrue(lockManager.lock(holder, 100L));
+    Thread.sleep(60);
+    assertEquals(1, lockManager.getTimeOutLocks(new Date()).size());
+    PersistenceLock next = newLock("label-a");
+    assertTrue(lockManager.lock(next, 1000L));
+    // the stale holder must not release the lease of the new one
+    lockManager.unlock(holder);
+    assertSame(next, lockManager.getAll().get(0));
+  }
+
+  @Test
+  void mutualExclusion() throws InterruptedException {
+    MemoryLockManagerPersistence lockManager = new MemoryLockManagerPersistence(8, 60000L);
+    AtomicBoolean occupied = new AtomicBoolean(false);
+    AtomicBoolean conflicted = new AtomicBoolean(false);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] =
+          new Thread(
+              () -> {
+                for (int j = 0; j < 200; j++) {
+                  PersistenceLock persistenceLock = newLock("label-a");
+                  assertTrue(lockManager.lock(persistenceLock, 10000L));
+                  if (!occupied.compareAndSet(false, true)) {
+                    conflicted.set(true);
+                  }
+                  occupied.set(false);
+                  lockManager.unlock(persistenceLock);
+                }
+              });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertFalse(conflicted.get());
+    assertTrue(lockManager.getAll().isEmpty());
+  }
+}
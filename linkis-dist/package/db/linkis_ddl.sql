@@ -506,6 +506,7 @@ CREATE TABLE if not exists `linkis_ps_bml_resources_version` (
 	`client_ip` varchar(200) NOT NULL COMMENT 'Client ip',
 	`updator` varchar(50) DEFAULT NULL COMMENT 'updator',
 	`enable_flag` tinyint(1) NOT NULL DEFAULT '1' COMMENT 'Status, 1: normal, 0: frozen',
+	`chunked` tinyint(1) NOT NULL DEFAULT '0' COMMENT 'Whether the resource file is a manifest of content addressed chunks',
 	unique key `uniq_rid_version`(`resource_id`, `version`),
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -563,6 +564,19 @@ CREATE TABLE if not exists `linkis_ps_bml_resources_task` (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 
+DROP TABLE IF EXISTS `linkis_ps_bml_resources_chunk`;
+CREATE TABLE if not exists `linkis_ps_bml_resources_chunk` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `chunk_hash` varchar(64) NOT NULL COMMENT 'sha-256 of the chunk content, the chunk is stored under this name',
+  `size` bigint(20) NOT NULL COMMENT 'Chunk size in bytes',
+  `ref_count` bigint(20) NOT NULL DEFAULT 0 COMMENT 'Number of the resource versions referencing the chunk',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'create time',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'update time',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uniq_chunk_hash` (`chunk_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+
 
 DROP TABLE IF EXISTS `linkis_ps_bml_project`;
 create table if not exists linkis_ps_bml_project(
@@ -527,6 +527,7 @@ CREATE TABLE linkis_ps_bml_resources_version (
 	client_ip varchar(200) NOT NULL,
 	updator varchar(50) NULL,
 	enable_flag bool NOT NULL DEFAULT true,
+	chunked bool NOT NULL DEFAULT false,
 	CONSTRAINT linkis_resources_version_pkey PRIMARY KEY (id)
 );
 CREATE UNIQUE INDEX uniq_rid_version ON linkis_ps_bml_resources_version USING btree (resource_id, version);
@@ -542,6 +543,7 @@ COMMENT ON COLUMN "linkis_ps_bml_resources_version"."end_time" IS '结束时间'
 COMMENT ON COLUMN "linkis_ps_bml_resources_version"."client_ip" IS '客户端ip';
 COMMENT ON COLUMN "linkis_ps_bml_resources_version"."updator" IS '修改者';
 COMMENT ON COLUMN "linkis_ps_bml_resources_version"."enable_flag" IS '状态，1：正常，0：冻结';
+COMMENT ON COLUMN "linkis_ps_bml_resources_version"."chunked" IS '资源文件是否为分块清单';
 
 
 DROP TABLE IF EXISTS "linkis_ps_bml_resources_permission";
@@ -617,6 +619,21 @@ COMMENT ON COLUMN "linkis_ps_bml_resources_task"."end_time" IS '结束时间';
 COMMENT ON COLUMN "linkis_ps_bml_resources_task"."last_update_time" IS '最后更新时间';
 
 
+DROP TABLE IF EXISTS "linkis_ps_bml_resources_chunk";
+CREATE TABLE linkis_ps_bml_resources_chunk (
+	id bigserial NOT NULL,
+	chunk_hash varchar(64) NOT NULL,
+	"size" int8 NOT NULL,
+	ref_count int8 NOT NULL DEFAULT 0,
+	create_time timestamp(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	update_time timestamp(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	CONSTRAINT linkis_ps_bml_resources_chunk_pkey PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX uniq_chunk_hash ON linkis_ps_bml_resources_chunk USING btree (chunk_hash);
+COMMENT ON COLUMN "linkis_ps_bml_resources_chunk"."chunk_hash" IS '块内容的sha-256，块以此命名存储';
+COMMENT ON COLUMN "linkis_ps_bml_resources_chunk"."size" IS '块大小';
+COMMENT ON COLUMN "linkis_ps_bml_resources_chunk"."ref_count" IS '引用该块的资源版本数';
+
 DROP TABLE IF EXISTS "linkis_ps_bml_project";
 CREATE TABLE linkis_ps_bml_project (
 	id bigserial NOT NULL,
@@ -58,6 +58,7 @@ CREATE TABLE if not exists `linkis_ps_bml_resources_version` (
 	`client_ip` varchar(200) NOT NULL COMMENT 'Client ip',
 	`updator` varchar(50) DEFAULT NULL COMMENT 'updator',
 	`enable_flag` tinyint(1) NOT NULL DEFAULT '1' COMMENT 'Status, 1: normal, 0: frozen',
+	`chunked` tinyint(1) NOT NULL DEFAULT '0' COMMENT 'Whether the resource file is a manifest of content addressed chunks',
 	unique key `resource_id_version`(`resource_id`, `version`),
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -17,4 +17,17 @@
 
 ALTER TABLE `linkis_cg_manager_service_instance` ADD COLUMN `identifier` varchar(32) COLLATE utf8_bin DEFAULT NULL;
 ALTER TABLE `linkis_cg_manager_service_instance` ADD COLUMN `ticketId` varchar(255) COLLATE utf8_bin DEFAULT NULL;
-ALTER TABLE `linkis_cg_ec_resource_info_record` MODIFY COLUMN metrics TEXT DEFAULT NULL COMMENT 'ec metrics';
\ No newline at end of file
+ALTER TABLE `linkis_cg_ec_resource_info_record` MODIFY COLUMN metrics TEXT DEFAULT NULL COMMENT 'ec metrics';
+ALTER TABLE `linkis_ps_bml_resources_version` ADD COLUMN `chunked` tinyint(1) NOT NULL DEFAULT '0' COMMENT 'Whether the resource file is a manifest of content addressed chunks';
+
+DROP TABLE IF EXISTS `linkis_ps_bml_resources_chunk`;
+CREATE TABLE if not exists `linkis_ps_bml_resources_chunk` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `chunk_hash` varchar(64) NOT NULL COMMENT 'sha-256 of the chunk content, the chunk is stored under this name',
+  `size` bigint(20) NOT NULL COMMENT 'Chunk size in bytes',
+  `ref_count` bigint(20) NOT NULL DEFAULT 0 COMMENT 'Number of the resource versions referencing the chunk',
+  `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'create time',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'update time',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uniq_chunk_hash` (`chunk_hash`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
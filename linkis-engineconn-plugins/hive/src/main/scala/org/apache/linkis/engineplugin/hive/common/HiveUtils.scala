@@ -17,16 +17,175 @@
 
 package org.apache.linkis.engineplugin.hive.common
 
+import org.apache.linkis.common.exception.ErrorException
+import org.apache.linkis.common.io.Record
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.engineconn.computation.executor.execute.EngineExecutionContext
+import org.apache.linkis.engineplugin.hive.conf.HiveEngineConfiguration
+import org.apache.linkis.engineplugin.hive.executor.HiveDriverProxy
 import org.apache.linkis.manager.engineplugin.common.conf.EnvConfiguration
+import org.apache.linkis.storage.resultset.ResultSetFactory
+import org.apache.linkis.storage.resultset.table.{TableMetaData, TableRecord, TableRecordBatch}
 
 import org.apache.hadoop.conf.Configuration
 import org.apache.hadoop.fs.Path
+import org.apache.hadoop.hive.common.`type`.HiveDecimal
 import org.apache.hadoop.hive.conf.HiveConf
+import org.apache.hadoop.hive.metastore.api.FieldSchema
 import org.apache.hadoop.hive.ql.Driver
 
+import java.nio.charset.StandardCharsets
 import java.nio.file.Paths
+import java.util
 
-object HiveUtils {
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+object HiveUtils extends Logging {
+
+  /** The fetch formatter of the hive driver, read when the ListSinkOperator is initialized */
+  val LIST_SINK_OUTPUT_FORMATTER = "list.sink.output.formatter"
+
+  private val TYPED_FETCH_FORMATTER_CLASS = "org.apache.hadoop.hive.serde2.thrift.ThriftFormatter"
+
+  /**
+   * The fetch formatter which returns every row as an Object[] of java values, as HiveServer2 uses
+   * it, None if the hive version on the classpath does not provide it
+   */
+  lazy val typedFetchFormatter: Option[String] = Utils.tryCatch {
+    Thread.currentThread().getContextClassLoader.loadClass(TYPED_FETCH_FORMATTER_CLASS)
+    Option(TYPED_FETCH_FORMATTER_CLASS)
+  } { t =>
+    logger.warn(s"$TYPED_FETCH_FORMATTER_CLASS is not found, results are fetched as text", t)
+    None
+  }
+
+  private val DECIMAL_TYPE_REGEX = """decimal\s*\(\s*\d+\s*,\s*(\d+)\s*\)""".r
+
+  /**
+   * The scales of the decimal columns, -1 for the other columns. A decimal without precision and
+   * scale is decimal(10,0) in hive
+   */
+  def getDecimalScales(fieldSchemas: util.List[FieldSchema]): Array[Int] =
+    fieldSchemas.asScala.map { fieldSchema =>
+      fieldSchema.getType.trim.toLowerCase match {
+        case "decimal" => 0
+        case DECIMAL_TYPE_REGEX(scale) => scale.toInt
+        case _ => -1
+      }
+    }.toArray
+
+  /**
+   * Convert a value fetched by the typed fetch formatter to the value of a table record. Primitive
+   * java values keep their types, binary values are decoded as UTF-8 like the text fetch did,
+   * decimals are padded to the scale of their column as HiveServer2 does, and the other hive
+   * values(date, timestamp, char...) are written as their strings
+   *
+   * @param decimalScale
+   *   the scale of the decimal column, -1 to keep the value as it is
+   */
+  def toTableValue(value: AnyRef, decimalScale: Int = -1): AnyRef = value match {
+    case null => null
+    case _: String | _: java.lang.Boolean | _: java.lang.Byte | _: java.lang.Short |
+        _: java.lang.Integer | _: java.lang.Long | _: java.lang.Float | _: java.lang.Double =>
+      value
+    case bytes: Array[Byte] => new String(bytes, StandardCharsets.UTF_8)
+    case decimal: HiveDecimal if decimalScale >= 0 => decimal.toFormatString(decimalScale)
+    case other => other.toString
+  }
+
+  /**
+   * Fetch all the rows of the driver into a table result set and send it
+   *
+   * @return
+   *   the number of rows
+   */
+  def sendResultSet(
+      engineExecutorContext: EngineExecutionContext,
+      driver: HiveDriverProxy,
+      metaData: TableMetaData,
+      decimalScales: Array[Int]
+  ): Int = {
+    val resultSetWriter = engineExecutorContext.createResultSetWriter(ResultSetFactory.TABLE_TYPE)
+    resultSetWriter.addMetaData(metaData)
+    driver.setMaxRows(HiveEngineConfiguration.HIVE_FETCH_BATCH_SIZE)
+    val rows = writeResults(
+      result => driver.getResults(result),
+      record => resultSetWriter.addRecord(record),
+      metaData.columns.length,
+      decimalScales,
+      HiveEngineConfiguration.HIVE_FETCH_BATCH_SIZE
+    )
+    engineExecutorContext.sendResultSet(resultSetWriter)
+    rows
+  }
+
+  /**
+   * Write the fetched rows as records, the rows of the typed fetch formatter are written as
+   * columnar batches, a batch is reused after it is written
+   *
+   * @param fetch
+   *   fill the list with the next rows, false if there are no more rows
+   * @return
+   *   the number of rows
+   */
+  private[hive] def writeResults(
+      fetch: util.List[AnyRef] => Boolean,
+      addRecord: Record => Unit,
+      colLength: Int,
+      decimalScales: Array[Int],
+      batchSize: Int
+  ): Int = {
+    val result = new util.ArrayList[AnyRef]()
+    val batch = new TableRecordBatch(colLength, batchSize)
+    var rows = 0
+    while (fetch(result)) {
+      result.asScala foreach {
+        case row: Array[AnyRef] =>
+          var i = 0
+          while (i < row.length) {
+            row(i) = toTableValue(row(i), if (i < decimalScales.length) decimalScales(i) else -1)
+            i += 1
+          }
+          if (!batch.addRow(row)) {
+            addRecord(batch)
+            batch.clear()
+            batch.addRow(row)
+          }
+        case s => addRecord(toTableRecord(s.toString, colLength))
+      }
+      if (!batch.isEmpty) {
+        addRecord(batch)
+        batch.clear()
+      }
+      rows += result.size
+      result.clear()
+    }
+    rows
+  }
+
+  /** Split a tab-joined row of the text fetch formatter */
+  private def toTableRecord(s: String, colLength: Int): TableRecord = {
+    val arr: Array[String] = s.split("\t")
+    val arrAny: ArrayBuffer[Any] = new ArrayBuffer[Any]()
+    if (arr.length > colLength) {
+      logger.error(
+        s"""There is a \t tab in the result of hive code query, hive cannot cut it, please use spark to execute(查询的结果中有\t制表符，hive不能进行切割,请使用spark执行)"""
+      )
+      throw new ErrorException(
+        60078,
+        """There is a \t tab in the result of your query, hive cannot cut it, please use spark to execute(您查询的结果中有\t制表符，hive不能进行切割,请使用spark执行)"""
+      )
+    }
+    if (arr.length == colLength) arr foreach arrAny.asJava.add
+    else if (arr.length == 0) for (i <- 1 to colLength) arrAny.asJava add ""
+    else {
+      val i = colLength - arr.length
+      arr foreach arrAny.asJava.add
+      for (i <- 1 to i) arrAny.asJava add ""
+    }
+    new TableRecord(arrAny.toArray.asInstanceOf[Array[AnyRef]])
+  }
 
   def jarOfClass(cls: Class[_]): Option[String] = {
     val uri = cls.getResource("/" + cls.getName.replace('.', '/') + ".class")
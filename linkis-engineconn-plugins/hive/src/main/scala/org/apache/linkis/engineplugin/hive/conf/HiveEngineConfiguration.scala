@@ -46,4 +46,14 @@ object HiveEngineConfiguration {
 
   val HIVE_RANGER_ENABLE = CommonVars[Boolean]("linkis.hive.ranger.enabled", false).getValue
 
+  /**
+   * Fetch the results as typed values instead of tab-joined strings, not used together with
+   * linkis.hive.enable.fetch.base64
+   */
+  val ENABLE_TYPED_FETCH =
+    CommonVars[Boolean]("linkis.hive.enable.typed.fetch", true).getValue && !ENABLE_FETCH_BASE64
+
+  val HIVE_FETCH_BATCH_SIZE =
+    math.max(CommonVars[Int]("linkis.hive.fetch.batch.size", 1000).getValue, 1)
+
 }
@@ -206,6 +206,9 @@ class HiveEngineConnFactory extends ComputationSingleExecutorEngineConnFactory w
       )
       hiveConf.set("enable_fetch_base64", "true")
     }
+    if (HiveEngineConfiguration.ENABLE_TYPED_FETCH) {
+      HiveUtils.typedFetchFormatter.foreach(hiveConf.set(HiveUtils.LIST_SINK_OUTPUT_FORMATTER, _))
+    }
     // add hive.aux.jars.path to hive conf
     if (StringUtils.isNotBlank(HiveEngineConfiguration.HIVE_AUX_JARS_PATH)) {
       hiveConf.setVar(HiveConf.ConfVars.HIVEAUXJARS, HiveEngineConfiguration.HIVE_AUX_JARS_PATH)
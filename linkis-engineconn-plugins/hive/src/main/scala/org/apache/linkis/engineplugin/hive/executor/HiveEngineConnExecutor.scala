@@ -17,7 +17,6 @@
 
 package org.apache.linkis.engineplugin.hive.executor
 
-import org.apache.linkis.common.exception.ErrorException
 import org.apache.linkis.common.utils.{ByteTimeUtils, Logging, Utils}
 import org.apache.linkis.engineconn.computation.executor.execute.{
   ComputationExecutor,
@@ -26,6 +25,7 @@ import org.apache.linkis.engineconn.computation.executor.execute.{
 import org.apache.linkis.engineconn.computation.executor.utlis.ProgressUtils
 import org.apache.linkis.engineconn.core.EngineConnObject
 import org.apache.linkis.engineconn.executor.entity.ResourceFetchExecutor
+import org.apache.linkis.engineplugin.hive.common.HiveUtils
 import org.apache.linkis.engineplugin.hive.conf.{Counters, HiveEngineConfiguration}
 import org.apache.linkis.engineplugin.hive.cs.CSHiveHelper
 import org.apache.linkis.engineplugin.hive.errorcode.HiveErrorCodeSummary.{
@@ -48,8 +48,7 @@ import org.apache.linkis.scheduler.executer.{
   SuccessExecuteResponse
 }
 import org.apache.linkis.storage.domain.{Column, DataType}
-import org.apache.linkis.storage.resultset.ResultSetFactory
-import org.apache.linkis.storage.resultset.table.{TableMetaData, TableRecord}
+import org.apache.linkis.storage.resultset.table.TableMetaData
 
 import org.apache.commons.lang3.StringUtils
 import org.apache.hadoop.hive.common.HiveInterruptUtils
@@ -270,7 +269,12 @@ class HiveEngineConnExecutor(
         val metaData: TableMetaData =
           getResultMetaData(fieldSchemas, engineExecutorContext.getEnableResultsetMetaWithTableName)
         // send result
-        rows = sendResultSet(engineExecutorContext, driver, metaData)
+        rows = HiveUtils.sendResultSet(
+          engineExecutorContext,
+          driver,
+          metaData,
+          HiveUtils.getDecimalScales(fieldSchemas)
+        )
         columnCount = if (fieldSchemas != null) fieldSchemas.size() else 0
         hasResult = true
       } catch {
@@ -309,46 +313,6 @@ class HiveEngineConnExecutor(
     SuccessExecuteResponse()
   }
 
-  private def sendResultSet(
-      engineExecutorContext: EngineExecutionContext,
-      driver: HiveDriverProxy,
-      metaData: TableMetaData
-  ): Int = {
-    val resultSetWriter = engineExecutorContext.createResultSetWriter(ResultSetFactory.TABLE_TYPE)
-    resultSetWriter.addMetaData(metaData)
-    val colLength = metaData.columns.length
-    val result = new util.ArrayList[String]()
-    var rows = 0
-    while (driver.getResults(result)) {
-      val scalaResult: mutable.Buffer[String] = result.asScala
-      scalaResult foreach { s =>
-        val arr: Array[String] = s.split("\t")
-        val arrAny: ArrayBuffer[Any] = new ArrayBuffer[Any]()
-        if (arr.length > colLength) {
-          logger.error(
-            s"""There is a \t tab in the result of hive code query, hive cannot cut it, please use spark to execute(查询的结果中有\t制表符，hive不能进行切割,请使用spark执行)"""
-          )
-          throw new ErrorException(
-            60078,
-            """There is a \t tab in the result of your query, hive cannot cut it, please use spark to execute(您查询的结果中有\t制表符，hive不能进行切割,请使用spark执行)"""
-          )
-        }
-        if (arr.length == colLength) arr foreach arrAny.asJava.add
-        else if (arr.length == 0) for (i <- 1 to colLength) arrAny.asJava add ""
-        else {
-          val i = colLength - arr.length
-          arr foreach arrAny.asJava.add
-          for (i <- 1 to i) arrAny.asJava add ""
-        }
-        resultSetWriter.addRecord(new TableRecord(arrAny.toArray.asInstanceOf[Array[AnyRef]]))
-      }
-      rows += result.size
-      result.clear()
-    }
-    engineExecutorContext.sendResultSet(resultSetWriter)
-    rows
-  }
-
   private def getResultMetaData(
       fieldSchemas: util.List[FieldSchema],
       useTableName: Boolean
@@ -643,6 +607,12 @@ class HiveDriverProxy(driver: Any) extends Logging {
     }
   }
 
+  def setMaxRows(maxRows: Int): Unit = {
+    driver.getClass
+      .getMethod("setMaxRows", classOf[Int])
+      .invoke(driver, maxRows.asInstanceOf[AnyRef])
+  }
+
   def getResults(res: util.List[_]): Boolean = {
     driver.getClass
       .getMethod("getResults", classOf[util.List[_]])
@@ -18,25 +18,28 @@
 package org.apache.linkis.manager.engineplugin.jdbc;
 
 import org.apache.linkis.common.utils.SecurityUtils;
+import org.apache.linkis.common.utils.Utils;
 import org.apache.linkis.hadoop.common.utils.KerberosUtils;
+import org.apache.linkis.manager.engineplugin.jdbc.conf.JDBCConfiguration;
 import org.apache.linkis.manager.engineplugin.jdbc.constant.JDBCEngineConnConstant;
 import org.apache.linkis.manager.engineplugin.jdbc.exception.JDBCParamsIllegalException;
 import org.apache.linkis.manager.engineplugin.jdbc.utils.JdbcParamUtils;
 
-import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.security.UserGroupInformation;
 
-import javax.sql.DataSource;
-
 import java.security.PrivilegedExceptionAction;
 import java.sql.*;
 import java.text.MessageFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.alibaba.druid.pool.DruidDataSource;
 import org.slf4j.Logger;
@@ -48,16 +51,28 @@ import static org.apache.linkis.manager.engineplugin.jdbc.errorcode.JDBCErrorCod
 public class ConnectionManager {
   private static final Logger LOG = LoggerFactory.getLogger(ConnectionManager.class);
 
-  private final Map<String, DataSource> dataSourceFactories;
+  /** Connection pools by datasource identifier, read and updated without a global lock */
+  private final ConcurrentHashMap<String, DataSourcePool> dataSourceFactories;
+
   private final JDBCDataSourceConfigurations jdbcDataSourceConfigurations;
 
+  private final LongAdder borrowCount = new LongAdder();
+  private final LongAdder borrowWaitNanos = new LongAdder();
+  private final AtomicLong maxBorrowWaitNanos = new AtomicLong(0);
+  private ScheduledFuture<?> evictFuture;
+
   private static volatile ConnectionManager connectionManager;
   private ScheduledExecutorService scheduledExecutorService;
   private Integer kinitFailCount = 0;
 
   private ConnectionManager() {
     jdbcDataSourceConfigurations = new JDBCDataSourceConfigurations();
-    dataSourceFactories = new HashMap<>();
+    dataSourceFactories = new ConcurrentHashMap<>();
+    long evictInterval = JDBCConfiguration.JDBC_POOL_EVICT_INTERVAL().getValue().toLong();
+    evictFuture =
+        Utils.defaultScheduler()
+            .scheduleWithFixedDelay(
+                this::evictIdlePools, evictInterval, evictInterval, TimeUnit.MILLISECONDS);
   }
 
   public static ConnectionManager getInstance() {
@@ -101,16 +116,69 @@ public class ConnectionManager {
     } catch (Exception e) {
       LOG.error("Error while closing...", e);
     }
-    for (DataSource dataSource : this.dataSourceFactories.values()) {
-      try {
-        ((BasicDataSource) dataSource).close();
-      } catch (SQLException e) {
-        LOG.error("Error while closing datasource...", e);
+    if (evictFuture != null) {
+      evictFuture.cancel(false);
+      evictFuture = null;
+    }
+    Iterator<DataSourcePool> iterator = dataSourceFactories.values().iterator();
+    while (iterator.hasNext()) {
+      DataSourcePool pool = iterator.next();
+      iterator.remove();
+      closePool(pool);
+    }
+  }
+
+  private void closePool(DataSourcePool pool) {
+    try {
+      pool.close();
+    } catch (Exception e) {
+      LOG.error("Error while closing datasource {}...", pool.getIdentifier(), e);
+    }
+  }
+
+  /** Close the pools that have no borrowed connection and have not been used for a while */
+  private void evictIdlePools() {
+    long idleTime = JDBCConfiguration.JDBC_POOL_IDLE_EVICT_TIME().getValue().toLong();
+    long now = System.currentTimeMillis();
+    for (DataSourcePool pool : dataSourceFactories.values()) {
+      if (pool.isIdle(now, idleTime) && dataSourceFactories.remove(pool.getIdentifier(), pool)) {
+        LOG.info(
+            "Close the connection pool of {}, it has been idle for {} ms",
+            pool.getIdentifier(),
+            idleTime);
+        closePool(pool);
       }
     }
   }
 
-  protected DataSource buildDataSource(String dbUrl, Map<String, String> properties)
+  /**
+   * Pool metrics reported in the heartbeat of the engineconn: the number of the pools, their
+   * active and idle connections, and the time waited to borrow a connection
+   * 连接池指标，通过引擎心跳上报
+   */
+  public Map<String, Object> getPoolMetrics() {
+    int activeCount = 0;
+    int idleCount = 0;
+    for (DataSourcePool pool : dataSourceFactories.values()) {
+      activeCount += pool.getActiveCount();
+      idleCount += pool.getIdleCount();
+    }
+    long borrows = borrowCount.sum();
+    Map<String, Object> metrics = new HashMap<>(8);
+    metrics.put(JDBCEngineConnConstant.JDBC_POOL_COUNT_KEY, dataSourceFactories.size());
+    metrics.put(JDBCEngineConnConstant.JDBC_POOL_ACTIVE_CONNECTIONS_KEY, activeCount);
+    metrics.put(JDBCEngineConnConstant.JDBC_POOL_IDLE_CONNECTIONS_KEY, idleCount);
+    metrics.put(JDBCEngineConnConstant.JDBC_POOL_BORROW_COUNT_KEY, borrows);
+    metrics.put(
+        JDBCEngineConnConstant.JDBC_POOL_AVG_WAIT_MILLS_KEY,
+        borrows == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(borrowWaitNanos.sum() / borrows));
+    metrics.put(
+        JDBCEngineConnConstant.JDBC_POOL_MAX_WAIT_MILLS_KEY,
+        TimeUnit.NANOSECONDS.toMillis(maxBorrowWaitNanos.get()));
+    return metrics;
+  }
+
+  protected DruidDataSource buildDataSource(String dbUrl, Map<String, String> properties)
       throws JDBCParamsIllegalException {
 
     String driverClassName =
@@ -180,6 +248,9 @@ public class ConnectionManager {
     int removeAbandonedTimeout =
         JDBCPropertiesParser.getInt(
             properties, JDBCEngineConnConstant.JDBC_POOL_REMOVE_ABANDONED_TIMEOUT, 300);
+    int maxPoolPreparedStatements =
+        JDBCPropertiesParser.getInt(
+            properties, JDBCEngineConnConstant.JDBC_POOL_MAX_PREPARED_STATEMENTS, 20);
 
     DruidDataSource datasource = new DruidDataSource();
     LOG.info("Database connection address information(数据库连接地址信息)=" + dbUrl);
@@ -198,6 +269,9 @@ public class ConnectionManager {
     datasource.setTestOnBorrow(testOnBorrow);
     datasource.setTestOnReturn(testOnReturn);
     datasource.setPoolPreparedStatements(poolPreparedStatements);
+    if (poolPreparedStatements) {
+      datasource.setMaxPoolPreparedStatementPerConnectionSize(maxPoolPreparedStatements);
+    }
     datasource.setRemoveAbandoned(removeAbandoned);
     datasource.setRemoveAbandonedTimeout(removeAbandonedTimeout);
     return datasource;
@@ -206,16 +280,51 @@ public class ConnectionManager {
   private Connection getConnectionFromDataSource(
       String dataSourceIdentifier, String url, Map<String, String> prop)
       throws SQLException, JDBCParamsIllegalException {
-    DataSource dataSource = dataSourceFactories.get(dataSourceIdentifier);
-    if (dataSource == null) {
-      synchronized (dataSourceFactories) {
-        if (dataSource == null) {
-          dataSource = buildDataSource(url, prop);
-          dataSourceFactories.put(dataSourceIdentifier, dataSource);
+    while (true) {
+      DataSourcePool pool = getDataSourcePool(dataSourceIdentifier, url, prop);
+      long start = System.nanoTime();
+      try {
+        return pool.getConnection();
+      } catch (SQLException e) {
+        // the pool may have been evicted after it was got, then retry with a new one
+        if (!pool.isClosed() || dataSourceFactories.get(dataSourceIdentifier) == pool) {
+          throw e;
         }
+      } finally {
+        long waitNanos = System.nanoTime() - start;
+        borrowCount.increment();
+        borrowWaitNanos.add(waitNanos);
+        maxBorrowWaitNanos.accumulateAndGet(waitNanos, Math::max);
+      }
+    }
+  }
+
+  /**
+   * Get the pool of the datasource, it is created on the first use. Concurrent creators race with
+   * putIfAbsent and the losers close their pools, which have not been initialized yet. The pool
+   * size follows the latest properties, which are resolved from the labels of the task.
+   */
+  private DataSourcePool getDataSourcePool(
+      String dataSourceIdentifier, String url, Map<String, String> prop)
+      throws JDBCParamsIllegalException {
+    DataSourcePool pool = dataSourceFactories.get(dataSourceIdentifier);
+    if (pool == null) {
+      DataSourcePool newPool = new DataSourcePool(dataSourceIdentifier, buildDataSource(url, prop));
+      pool = dataSourceFactories.putIfAbsent(dataSourceIdentifier, newPool);
+      if (pool == null) {
+        return newPool;
       }
+      closePool(newPool);
     }
-    return dataSource.getConnection();
+    pool.resize(
+        JDBCPropertiesParser.getInt(prop, JDBCEngineConnConstant.JDBC_POOL_MAX_ACTIVE, 20),
+        JDBCPropertiesParser.getInt(prop, JDBCEngineConnConstant.JDBC_POOL_MIN_IDLE, 1));
+    return pool;
+  }
+
+  /** The pool registered for the datasource, null if it is not created or has been evicted */
+  DataSourcePool getDataSourcePool(String dataSourceIdentifier) {
+    return dataSourceFactories.get(dataSourceIdentifier);
   }
 
   public Connection getConnection(String dataSourceIdentifier, Map<String, String> properties)
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.manager.engineplugin.jdbc;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The connection pool of a datasource, remembers when it was used last so that idle pools can be
+ * evicted, and can be resized when the pool settings of the datasource change
+ * 单个数据源的连接池，记录最近使用时间用于淘汰空闲连接池
+ */
+public class DataSourcePool implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(DataSourcePool.class);
+
+  private final String identifier;
+  private final DruidDataSource dataSource;
+  private volatile long lastAccessTime = System.currentTimeMillis();
+
+  public DataSourcePool(String identifier, DruidDataSource dataSource) {
+    this.identifier = identifier;
+    this.dataSource = dataSource;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public DruidDataSource getDataSource() {
+    return dataSource;
+  }
+
+  public Connection getConnection() throws SQLException {
+    lastAccessTime = System.currentTimeMillis();
+    return dataSource.getConnection();
+  }
+
+  /** Apply the pool size of the latest properties of the datasource */
+  public void resize(int maxActive, int minIdle) {
+    if (dataSource.getMaxActive() == maxActive && dataSource.getMinIdle() == minIdle) {
+      return;
+    }
+    synchronized (this) {
+      if (dataSource.getMaxActive() != maxActive || dataSource.getMinIdle() != minIdle) {
+        LOG.info(
+            "Resize the connection pool of {} to maxActive: {}, minIdle: {}",
+            identifier,
+            maxActive,
+            minIdle);
+        // minIdle may not exceed maxActive in between
+        if (maxActive < dataSource.getMaxActive()) {
+          dataSource.setMinIdle(Math.min(minIdle, maxActive));
+          dataSource.setMaxActive(maxActive);
+        } else {
+          dataSource.setMaxActive(maxActive);
+          dataSource.setMinIdle(minIdle);
+        }
+      }
+    }
+  }
+
+  /** No connection is borrowed and the pool has not been used for idleTime ms */
+  public boolean isIdle(long now, long idleTime) {
+    return dataSource.getActiveCount() == 0 && now - lastAccessTime > idleTime;
+  }
+
+  public boolean isClosed() {
+    return dataSource.isClosed();
+  }
+
+  public int getActiveCount() {
+    return dataSource.getActiveCount();
+  }
+
+  public int getIdleCount() {
+    return dataSource.getPoolingCount();
+  }
+
+  @Override
+  public void close() {
+    dataSource.close();
+  }
+}
@@ -60,6 +60,15 @@ public class JDBCEngineConnConstant {
       "wds.linkis.jdbc.pool.remove.abandoned.enabled";
   public static final String JDBC_POOL_REMOVE_ABANDONED_TIMEOUT =
       "wds.linkis.jdbc.pool.remove.abandoned.timeout";
+  public static final String JDBC_POOL_MAX_PREPARED_STATEMENTS =
+      "wds.linkis.jdbc.pool.maxPoolPreparedStatementPerConnectionSize";
+
+  public static final String JDBC_POOL_COUNT_KEY = "jdbcPoolCount";
+  public static final String JDBC_POOL_ACTIVE_CONNECTIONS_KEY = "jdbcPoolActiveConnections";
+  public static final String JDBC_POOL_IDLE_CONNECTIONS_KEY = "jdbcPoolIdleConnections";
+  public static final String JDBC_POOL_BORROW_COUNT_KEY = "jdbcPoolBorrowCount";
+  public static final String JDBC_POOL_AVG_WAIT_MILLS_KEY = "jdbcPoolAvgWaitMills";
+  public static final String JDBC_POOL_MAX_WAIT_MILLS_KEY = "jdbcPoolMaxWaitMills";
 
   public static final String DS_JDBC_HOST = "host";
   public static final String DS_JDBC_PORT = "port";
@@ -17,7 +17,7 @@
 
 package org.apache.linkis.manager.engineplugin.jdbc.conf
 
-import org.apache.linkis.common.conf.{ByteType, CommonVars}
+import org.apache.linkis.common.conf.{ByteType, CommonVars, TimeType}
 
 object JDBCConfiguration {
 
@@ -31,4 +31,10 @@ object JDBCConfiguration {
   val JDBC_CONCURRENT_LIMIT = CommonVars[Int]("wds.linkis.engineconn.jdbc.concurrent.limit", 100)
 
   val JDBC_KERBEROS_ENABLE = CommonVars[Boolean]("wds.linkis.keytab.enable", false)
+
+  /** The connection pool of a datasource is closed after it has been idle for so long */
+  val JDBC_POOL_IDLE_EVICT_TIME =
+    CommonVars("linkis.jdbc.pool.idle.evict.time", new TimeType("30m"))
+
+  val JDBC_POOL_EVICT_INTERVAL = CommonVars("linkis.jdbc.pool.evict.interval", new TimeType("1m"))
 }
@@ -24,6 +24,7 @@ import org.apache.linkis.engineconn.computation.executor.execute.{
   EngineExecutionContext
 }
 import org.apache.linkis.engineconn.core.EngineConnObject
+import org.apache.linkis.engineconn.executor.entity.MetricsExecutor
 import org.apache.linkis.governance.common.paser.SQLCodeParser
 import org.apache.linkis.governance.common.protocol.conf.{
   RequestQueryEngineConfig,
@@ -70,7 +71,8 @@ import java.util.concurrent.ConcurrentHashMap
 import scala.collection.mutable.ArrayBuffer
 
 class JDBCEngineConnExecutor(override val outputPrintLimit: Int, val id: Int)
-    extends ConcurrentComputationExecutor(outputPrintLimit) {
+    extends ConcurrentComputationExecutor(outputPrintLimit)
+    with MetricsExecutor {
 
   private val connectionManager = ConnectionManager.getInstance()
   private val executorLabels: util.List[Label[_]] = new util.ArrayList[Label[_]](2)
@@ -381,6 +383,8 @@ class JDBCEngineConnExecutor(override val outputPrintLimit: Int, val id: Int)
 
   override def getConcurrentLimit: Int = JDBCConfiguration.JDBC_CONCURRENT_LIMIT.getValue
 
+  override def getHeartbeatMetrics: util.Map[String, Object] = connectionManager.getPoolMetrics
+
   override def killAll(): Unit = {
     logger.info("Killing all query task.")
     connectionManager.initTaskStatementMap()
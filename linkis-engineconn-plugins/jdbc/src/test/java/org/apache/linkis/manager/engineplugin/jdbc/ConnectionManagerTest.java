@@ -32,10 +32,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 public class ConnectionManagerTest {
-  @Test
-  @DisplayName("testCreateJdbcConnAndExecSql")
-  public void testCreateJdbcConnAndExecSql()
-      throws SQLException, JDBCParamsIllegalException, ClassNotFoundException {
+
+  private Map<String, String> createProperties() {
     Map<String, String> properties = new HashMap<>(8);
     properties.put(
         JDBCEngineConnConstant.JDBC_URL, "jdbc:h2:mem:linkis_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE");
@@ -49,6 +47,14 @@ public class ConnectionManagerTest {
     properties.put(JDBCEngineConnConstant.JDBC_PROXY_USER_PROPERTY, "");
     properties.put(JDBCEngineConnConstant.JDBC_PROXY_USER, "");
     properties.put(JDBCEngineConnConstant.JDBC_SCRIPTS_EXEC_USER, "leo_jie");
+    return properties;
+  }
+
+  @Test
+  @DisplayName("testCreateJdbcConnAndExecSql")
+  public void testCreateJdbcConnAndExecSql()
+      throws SQLException, JDBCParamsIllegalException, ClassNotFoundException {
+    Map<String, String> properties = createProperties();
     ConnectionManager connectionManager = ConnectionManager.getInstance();
     Connection conn = connectionManager.getConnection("jdbc-1", properties);
     Statement statement = conn.createStatement();
@@ -61,6 +67,43 @@ public class ConnectionManagerTest {
     conn.close();
   }
 
+  @Test
+  @DisplayName("testPoolReuseAndMetrics")
+  public void testPoolReuseAndMetrics() throws SQLException, JDBCParamsIllegalException {
+    Map<String, String> properties = createProperties();
+    properties.put(JDBCEngineConnConstant.JDBC_POOL_MAX_ACTIVE, "4");
+    ConnectionManager connectionManager = ConnectionManager.getInstance();
+    Connection conn1 = connectionManager.getConnection("jdbc-pool", properties);
+    Connection conn2 = connectionManager.getConnection("jdbc-pool", properties);
+    Map<String, Object> metrics = connectionManager.getPoolMetrics();
+    Assertions.assertTrue(
+        (Integer) metrics.get(JDBCEngineConnConstant.JDBC_POOL_ACTIVE_CONNECTIONS_KEY) >= 2);
+    Assertions.assertTrue(
+        (Long) metrics.get(JDBCEngineConnConstant.JDBC_POOL_BORROW_COUNT_KEY) >= 2);
+    conn1.close();
+    conn2.close();
+
+    // the pool of the datasource follows the latest pool size
+    DataSourcePool pool = connectionManager.getDataSourcePool("jdbc-pool");
+    Assertions.assertEquals(4, pool.getDataSource().getMaxActive());
+    properties.put(JDBCEngineConnConstant.JDBC_POOL_MAX_ACTIVE, "8");
+    connectionManager.getConnection("jdbc-pool", properties).close();
+    Assertions.assertSame(pool, connectionManager.getDataSourcePool("jdbc-pool"));
+    Assertions.assertEquals(8, pool.getDataSource().getMaxActive());
+    properties.put(JDBCEngineConnConstant.JDBC_POOL_MAX_ACTIVE, "2");
+    connectionManager.getConnection("jdbc-pool", properties).close();
+    Assertions.assertSame(pool, connectionManager.getDataSourcePool("jdbc-pool"));
+    Assertions.assertEquals(2, pool.getDataSource().getMaxActive());
+    Assertions.assertTrue(pool.isIdle(System.currentTimeMillis() + 1000, 0));
+    Assertions.assertFalse(pool.isIdle(System.currentTimeMillis(), 60000));
+
+    DataSourcePool closedPool =
+        new DataSourcePool(
+            "jdbc-test", connectionManager.buildDataSource("jdbc:h2:mem:x", properties));
+    closedPool.close();
+    Assertions.assertTrue(closedPool.isClosed());
+  }
+
   @Test
   @DisplayName("testCreateJdbcConnAndExecSql")
   public void testJDBCPropertiesParserGetLong() {
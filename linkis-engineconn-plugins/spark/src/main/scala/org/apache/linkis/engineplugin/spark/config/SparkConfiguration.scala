@@ -113,6 +113,15 @@ object SparkConfiguration extends Logging {
   val SQL_EXTENSION_TIMEOUT = CommonVars("wds.linkis.dws.ujes.spark.extension.timeout", 3000L)
   val SPARK_NF_FRACTION_LENGTH = CommonVars[Int]("wds.linkis.engine.spark.fraction.length", 30)
   val SHOW_DF_MAX_RES = CommonVars("wds.linkis.show.df.max.res", Int.MaxValue)
+
+  /**
+   * Write the rows of showDF as columnar batches of typed values instead of one String record per
+   * row, the batches need a result set file so they are only used when the result goes to a file
+   */
+  val SPARK_RESULT_SET_COLUMNAR_ENABLED =
+    CommonVars[Boolean]("linkis.spark.resultset.columnar.enable", false)
+
+  val SPARK_RESULT_SET_BATCH_ROWS = CommonVars[Int]("linkis.spark.resultset.batch.rows", 4096)
   val MDQ_APPLICATION_NAME = CommonVars("wds.linkis.mdq.application.name", "linkis-ps-datasource")
   val DOLPHIN_LIMIT_LEN = CommonVars("wds.linkis.dolphin.limit.len", 5000)
 
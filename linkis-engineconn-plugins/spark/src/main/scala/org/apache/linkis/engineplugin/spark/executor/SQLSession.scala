@@ -27,7 +27,7 @@ import org.apache.linkis.governance.common.exception.LinkisJobRetryException
 import org.apache.linkis.storage.{LineMetaData, LineRecord}
 import org.apache.linkis.storage.domain.{Column, DataType}
 import org.apache.linkis.storage.resultset.ResultSetFactory
-import org.apache.linkis.storage.resultset.table.{TableMetaData, TableRecord}
+import org.apache.linkis.storage.resultset.table.{TableMetaData, TableRecord, TableRecordBatch}
 
 import org.apache.commons.lang3.StringUtils
 import org.apache.spark.SparkContext
@@ -129,15 +129,32 @@ object SQLSession extends Logging {
       } else engineExecutionContext.createResultSetWriter(ResultSetFactory.TABLE_TYPE)
     writer.addMetaData(metaData)
     var index = 0
+    val batch =
+      if (SparkConfiguration.SPARK_RESULT_SET_COLUMNAR_ENABLED.getValue) {
+        val batchRows = SparkConfiguration.SPARK_RESULT_SET_BATCH_ROWS.getValue
+        new TableRecordBatch(columns.length, batchRows)
+      } else null
     Utils.tryThrow({
       while (index < maxResult && iterator.hasNext) {
         val row = iterator.next()
-        val r: Array[Any] = columns.indices.map { i =>
-          toHiveString((row(i), columnsSet.fields(i).dataType))
-        }.toArray
-        writer.addRecord(new TableRecord(r.asInstanceOf[Array[AnyRef]]))
+        if (batch == null) {
+          val r: Array[Any] = columns.indices.map { i =>
+            toHiveString((row(i), columnsSet.fields(i).dataType))
+          }.toArray
+          writer.addRecord(new TableRecord(r.asInstanceOf[Array[AnyRef]]))
+        } else {
+          val r: Array[Any] = columns.indices.map { i =>
+            toColumnValue(row(i), columnsSet.fields(i).dataType)
+          }.toArray
+          batch.addRow(r.asInstanceOf[Array[AnyRef]])
+          if (batch.isFull) {
+            writer.addRecord(batch)
+            batch.clear()
+          }
+        }
         index += 1
       }
+      if (batch != null && !batch.isEmpty) writer.addRecord(batch)
     }) { t =>
       throw new SparkEngineException(
         READ_RECORD_EXCEPTION.getErrorCode,
@@ -155,6 +172,18 @@ object SQLSession extends Logging {
     engineExecutionContext.sendResultSet(writer)
   }
 
+  /**
+   * Booleans and numbers stay typed in the columnar batches, so they are written as fixed width
+   * values without being formatted, all other values are formatted the same as the rows
+   */
+  private def toColumnValue(value: Any, dataType: org.apache.spark.sql.types.DataType): Any =
+    (value, dataType) match {
+      case (_: Boolean, BooleanType) | (_: Short, ShortType) | (_: Int, IntegerType) |
+          (_: Long, LongType) | (_: Float, FloatType) | (_: Double, DoubleType) =>
+        value
+      case _ => toHiveString((value, dataType))
+    }
+
   /** also see org.apache.spark.sql.execution.QueryExecution#toHiveString */
 
   /** Formats a datum (based on the given data type) and returns the string representation. */
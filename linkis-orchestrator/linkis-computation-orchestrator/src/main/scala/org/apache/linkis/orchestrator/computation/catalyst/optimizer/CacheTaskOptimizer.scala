@@ -18,18 +18,21 @@
 package org.apache.linkis.orchestrator.computation.catalyst.optimizer
 
 import org.apache.linkis.common.utils.Logging
+import org.apache.linkis.manager.label.entity.cache.CacheLabel
 import org.apache.linkis.orchestrator.code.plans.logical.{CacheTask, CodeLogicalUnitTask}
 import org.apache.linkis.orchestrator.extensions.catalyst.OptimizerTransform
 import org.apache.linkis.orchestrator.plans.logical.{LogicalContext, Task}
 
+import scala.collection.JavaConverters._
+
 /**
- * @description
+ * Wrap the CodeLogicalUnitTask with CacheLabel into a CacheTask. The result cache of jobs submitted
+ * by entrance is served by entrance itself, see ResultCacheManager.
  */
 class CacheTaskOptimizer extends OptimizerTransform with Logging {
 
-  // TODO We should use CacheLabel to be judgment condition. If CacheLabel is not provided, we won't transform a CodeLogicalUnitTask to a CacheTask.
   override def apply(in: Task, context: LogicalContext): Task = in transform {
-    case realTask: CodeLogicalUnitTask =>
+    case realTask: CodeLogicalUnitTask if hasCacheLabel(realTask) =>
       val cacheTask = new CacheTask(Array.empty, Array.empty)
       cacheTask.setRealTask(realTask)
       cacheTask.setTaskDesc(realTask.getTaskDesc)
@@ -37,6 +40,16 @@ class CacheTaskOptimizer extends OptimizerTransform with Logging {
     case task: Task => task
   }
 
+  // an origin without ASTOrchestration(e.g. a recovered plan) has no CacheLabel, it is not wrapped
+  private def hasCacheLabel(task: CodeLogicalUnitTask): Boolean = task.getTaskDesc != null && {
+    val origin = task.getTaskDesc.getOrigin
+    origin != null && origin.getASTOrchestration != null && {
+      val astContext = origin.getASTOrchestration.getASTContext
+      astContext != null && astContext.getLabels != null &&
+      astContext.getLabels.asScala.exists(_.isInstanceOf[CacheLabel])
+    }
+  }
+
   override def getName: String = "CacheTaskOptimizer"
 
 }
@@ -41,9 +41,6 @@ object OrchestratorConfiguration {
   val ORCHESTRATOR_EXECUTOR_THREAD_MAX =
     CommonVars("wds.linkis.orchestrator.executor.thread.max", 20)
 
-  val TASK_SCHEDULER_CLEAR_TIME =
-    CommonVars("wds.linkis.task.scheduler.clear.time", new TimeType("1m"))
-
   val EXECUTION_TASK_MAX_PARALLELISM =
     CommonVars("wds.linkis.orchestrator.execution.task.max.parallelism", 5)
 
@@ -66,6 +63,26 @@ object OrchestratorConfiguration {
   val TASK_SCHEDULER_THREAD_POOL =
     CommonVars("wds.linkis.orchestrator.task.scheduler.thread.pool", 200)
 
+  /**
+   * TaskScheduler implementation with a constructor of ExecutorService, such as
+   * org.apache.linkis.orchestrator.execution.impl.FairTaskScheduler. BaseTaskScheduler by default.
+   */
+  val TASK_SCHEDULER_CLASS = CommonVars("linkis.orchestrator.task.scheduler.class", "")
+
+  /** Number of priority lanes of FairTaskScheduler, lane 0 is always served first */
+  val TASK_SCHEDULER_PRIORITY_LANE_NUM =
+    CommonVars("linkis.orchestrator.task.scheduler.priority.lane.num", 3)
+
+  /** Lane of the tasks without JobPriorityLabel */
+  val TASK_SCHEDULER_DEFAULT_PRIORITY =
+    CommonVars("linkis.orchestrator.task.scheduler.priority.default", 1)
+
+  /**
+   * Fair share weights, such as hadoop_IDE=2,ops=4. Keys are user_creator or user, the others are 1
+   */
+  val TASK_SCHEDULER_FAIR_WEIGHTS =
+    CommonVars("linkis.orchestrator.task.scheduler.fair.weights", "")
+
   val ORCHESTRATOR_EXECUTION_FACTORY = CommonVars(
     "wds.linkis.orchestrator.execution.factory.class",
     "org.apache.linkis.orchestrator.code.plans.execution.CodeExecutionFactory"
@@ -27,6 +27,10 @@ import org.apache.linkis.orchestrator.execution.{
   TaskScheduler
 }
 
+import org.apache.commons.lang3.StringUtils
+
+import java.util.concurrent.ExecutorService
+
 /**
  */
 abstract class AbstractExecutionFactory extends ExecutionFactory {
@@ -52,7 +56,16 @@ abstract class AbstractExecutionFactory extends ExecutionFactory {
       OrchestratorConfiguration.TASK_SCHEDULER_THREAD_POOL.getValue,
       "BaseTaskScheduler-Thread-"
     )
-    new BaseTaskScheduler(executorService)
+    val schedulerClass = OrchestratorConfiguration.TASK_SCHEDULER_CLASS.getValue
+    if (StringUtils.isNotBlank(schedulerClass)) {
+      Class
+        .forName(schedulerClass)
+        .getConstructor(classOf[ExecutorService])
+        .newInstance(executorService)
+        .asInstanceOf[TaskScheduler]
+    } else {
+      new BaseTaskScheduler(executorService)
+    }
   }
 
 }
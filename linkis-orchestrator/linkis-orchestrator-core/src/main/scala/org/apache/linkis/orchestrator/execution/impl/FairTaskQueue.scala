@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.orchestrator.execution.impl
+
+import java.util
+import java.util.Comparator
+
+/**
+ * Not thread safe. Tasks are put into priority lanes, and lane 0 is always served first. Inside a
+ * lane every key (user_creator) has its own fifo queue, and the queues are served by weighted fair
+ * queuing: each poll advances the virtual time of the key by 1 / weight and the key with the
+ * smallest virtual time goes first, so a key with weight 2 gets twice the share of a key with
+ * weight 1 no matter how many tasks they submitted. A key joining a lane starts from the virtual
+ * time of the lane, so idle keys can not save up their share.
+ * 任务按优先级分道，0道优先；同一道内每个key一个队列，按加权公平排队轮流出队
+ */
+class FairTaskQueue[T](laneNum: Int) {
+
+  private class Entry(val id: String, val flow: Flow, val value: T, val enqueueTime: Long)
+
+  private class Flow(val key: String, val lane: Lane, val weight: Int) {
+    val entries = new util.LinkedHashMap[String, Entry]()
+    var virtualTime: Double = 0d
+    val seq: Long = lane.nextSeq()
+  }
+
+  private class Lane {
+    val flows = new util.HashMap[String, Flow]()
+
+    val active = new util.PriorityQueue[Flow](new Comparator[Flow] {
+      override def compare(o1: Flow, o2: Flow): Int = {
+        val cmp = java.lang.Double.compare(o1.virtualTime, o2.virtualTime)
+        if (cmp != 0) cmp else java.lang.Long.compare(o1.seq, o2.seq)
+      }
+    })
+
+    var virtualTime: Double = 0d
+    private var seq = 0L
+
+    def nextSeq(): Long = {
+      seq += 1
+      seq
+    }
+
+  }
+
+  private val lanes = Array.fill(math.max(laneNum, 1))(new Lane)
+
+  private val entries = new util.HashMap[String, Entry]()
+
+  private val depths = new util.HashMap[String, Integer]()
+
+  def getLaneNum: Int = lanes.length
+
+  /**
+   * @param lane
+   *   out of range lanes are clamped
+   * @return
+   *   false if the id is already queued
+   */
+  def offer(id: String, key: String, weight: Int, lane: Int, value: T): Boolean = {
+    if (entries.containsKey(id)) return false
+    val l = lanes(math.min(math.max(lane, 0), lanes.length - 1))
+    var flow = l.flows.get(key)
+    if (flow == null) {
+      flow = new Flow(key, l, math.max(weight, 1))
+      flow.virtualTime = l.virtualTime
+      l.flows.put(key, flow)
+      l.active.add(flow)
+    }
+    val entry = new Entry(id, flow, value, System.currentTimeMillis())
+    flow.entries.put(id, entry)
+    entries.put(id, entry)
+    depths.put(key, depths.getOrDefault(key, 0) + 1)
+    true
+  }
+
+  /**
+   * @param onPoll
+   *   called with the key and the queued time in milliseconds of the polled task
+   * @return
+   *   null if empty
+   */
+  def poll(onPoll: (String, Long) => Unit = (_, _) => {}): T = {
+    lanes.find(!_.active.isEmpty) match {
+      case Some(lane) =>
+        val flow = lane.active.poll()
+        val iterator = flow.entries.values().iterator()
+        val entry = iterator.next()
+        iterator.remove()
+        lane.virtualTime = flow.virtualTime
+        if (flow.entries.isEmpty) {
+          lane.flows.remove(flow.key)
+        } else {
+          flow.virtualTime += 1d / flow.weight
+          lane.active.add(flow)
+        }
+        removeEntry(entry)
+        onPoll(flow.key, System.currentTimeMillis() - entry.enqueueTime)
+        entry.value
+      case None => null.asInstanceOf[T]
+    }
+  }
+
+  /** @return the removed task, or null if it is not queued */
+  def remove(id: String): T = {
+    val entry = entries.get(id)
+    if (entry == null) return null.asInstanceOf[T]
+    val flow = entry.flow
+    flow.entries.remove(id)
+    if (flow.entries.isEmpty) {
+      flow.lane.flows.remove(flow.key)
+      flow.lane.active.remove(flow)
+    }
+    removeEntry(entry)
+    entry.value
+  }
+
+  private def removeEntry(entry: Entry): Unit = {
+    entries.remove(entry.id)
+    val key = entry.flow.key
+    val depth = depths.getOrDefault(key, 0) - 1
+    if (depth > 0) depths.put(key, depth) else depths.remove(key)
+  }
+
+  def size: Int = entries.size()
+
+  def isEmpty: Boolean = entries.isEmpty
+
+  def getDepth(key: String): Int = depths.getOrDefault(key, 0)
+
+  /** Number of queued tasks of each key */
+  def getDepths: util.Map[String, Integer] = new util.HashMap[String, Integer](depths)
+
+  def clear(): Unit = {
+    lanes.foreach { lane =>
+      lane.flows.clear()
+      lane.active.clear()
+    }
+    entries.clear()
+    depths.clear()
+  }
+
+}
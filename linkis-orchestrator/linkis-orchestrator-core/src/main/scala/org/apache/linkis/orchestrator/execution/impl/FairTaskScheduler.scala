@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.orchestrator.execution.impl
+
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.manager.label.entity.engine.UserCreatorLabel
+import org.apache.linkis.manager.label.entity.entrance.JobPriorityLabel
+import org.apache.linkis.orchestrator.conf.OrchestratorConfiguration
+import org.apache.linkis.orchestrator.execution.{ExecTaskRunner, TaskScheduler}
+
+import org.apache.commons.lang3.StringUtils
+
+import java.util.concurrent.{ExecutorService, ThreadPoolExecutor}
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Hold the launched tasks in a FairTaskQueue and only hand them to the executor when a thread is
+ * free, so that one user submitting hundreds of tasks can not make the others wait behind them. The
+ * lane of a task comes from its JobPriorityLabel, the fair share key is user_creator.
+ * 按用户和Creator公平调度，按JobPriorityLabel分优先级
+ */
+class FairTaskScheduler(executeService: ExecutorService) extends TaskScheduler with Logging {
+
+  private val maxRunningNum = executeService match {
+    case threadPool: ThreadPoolExecutor => threadPool.getMaximumPoolSize
+    case _ => OrchestratorConfiguration.TASK_SCHEDULER_THREAD_POOL.getValue
+  }
+
+  private val defaultPriority = OrchestratorConfiguration.TASK_SCHEDULER_DEFAULT_PRIORITY.getValue
+
+  private val weights: Map[String, Int] =
+    OrchestratorConfiguration.TASK_SCHEDULER_FAIR_WEIGHTS.getValue
+      .split(",")
+      .map(_.split("="))
+      .filter(kv => kv.length == 2 && StringUtils.isNotBlank(kv(0)))
+      .map(kv => kv(0).trim -> kv(1).trim.toInt)
+      .toMap
+
+  private val taskQueue =
+    new FairTaskQueue[ExecTaskRunner](
+      OrchestratorConfiguration.TASK_SCHEDULER_PRIORITY_LANE_NUM.getValue
+    )
+
+  private val queuedKeys = new java.util.HashMap[String, String]()
+
+  private val taskFutureRegistry = new TaskFutureRegistry
+
+  private var runningNum = 0
+
+  private val onDispatch: (String, Long) => Unit = TaskSchedulerMetrics.onDispatch
+
+  override def start(): Unit = {
+    logger.info(
+      s"FairTaskScheduler started with $maxRunningNum threads and ${taskQueue.getLaneNum} lanes."
+    )
+  }
+
+  override def launchTask(task: ExecTaskRunner): Unit = {
+    val taskId = task.task.getId
+    // an origin without ASTOrchestration(e.g. a recovered plan) goes to the default lane and key
+    val astContext = Option(task.task.getTaskDesc.getOrigin)
+      .flatMap(origin => Option(origin.getASTOrchestration))
+      .flatMap(astOrchestration => Option(astOrchestration.getASTContext))
+    val user = astContext.flatMap(context => Option(context.getExecuteUser)).getOrElse("")
+    val labels =
+      astContext.flatMap(context => Option(context.getLabels)).map(_.asScala).getOrElse(Nil)
+    val key = labels
+      .collectFirst { case label: UserCreatorLabel => label.getCreator }
+      .map(user + "_" + _)
+      .getOrElse(user)
+    val lane = labels
+      .collectFirst { case label: JobPriorityLabel => label.getPriority.intValue() }
+      .filter(_ >= 0)
+      .getOrElse(defaultPriority)
+    val weight = weights.getOrElse(key, weights.getOrElse(user, 1))
+    logger.debug(s"queue task Runner ${task.task.getIDInfo()} to lane $lane of $key")
+    val queued = synchronized {
+      val isQueued = taskQueue.offer(taskId, key, weight, lane, task)
+      if (isQueued) {
+        queuedKeys.put(taskId, key)
+        TaskSchedulerMetrics.onEnqueue(key)
+      }
+      isQueued
+    }
+    if (queued) dispatch()
+  }
+
+  private def dispatch(): Unit = {
+    val tasks = new ArrayBuffer[ExecTaskRunner]
+    synchronized {
+      while (runningNum < maxRunningNum && !taskQueue.isEmpty) {
+        val task = taskQueue.poll(onDispatch)
+        queuedKeys.remove(task.task.getId)
+        runningNum += 1
+        tasks += task
+      }
+    }
+    tasks.foreach(submit)
+  }
+
+  private def submit(task: ExecTaskRunner): Unit = {
+    // the slot is released by the thread running the task, or on cancel if the task never started
+    val started = new AtomicBoolean(false)
+    def release(): Unit = {
+      synchronized(runningNum -= 1)
+      dispatch()
+    }
+    val future = taskFutureRegistry.register(
+      task.task.getId,
+      new Runnable {
+        override def run(): Unit =
+          if (started.compareAndSet(false, true)) Utils.tryFinally(task.run())(release())
+      },
+      isCancelled => if (isCancelled && started.compareAndSet(false, true)) release()
+    )
+    Utils.tryCatch(executeService.execute(future)) { t =>
+      logger.error(s"Failed to submit task Runner ${task.task.getIDInfo()}", t)
+      future.cancel(false)
+    }
+  }
+
+  override def cancelTask(task: ExecTaskRunner, interrupted: Boolean): Unit = {
+    logger.info(s"cancel task Runner ${task.task.getIDInfo}")
+    task.interrupt()
+    val taskId = task.task.getId
+    synchronized {
+      taskQueue.remove(taskId)
+      val key = queuedKeys.remove(taskId)
+      if (key != null) TaskSchedulerMetrics.onRemove(key)
+    }
+    val future = taskFutureRegistry.remove(taskId)
+    if (null != future && !future.isDone) {
+      logger.info(s"from taskFutureRegistry to kill task Runner ${task.task.getIDInfo}")
+      future.cancel(interrupted)
+    }
+  }
+
+  override def close(): Unit = {
+    synchronized {
+      queuedKeys.values().asScala.foreach(TaskSchedulerMetrics.onRemove)
+      queuedKeys.clear()
+      taskQueue.clear()
+    }
+    taskFutureRegistry.cancelAll(true)
+    executeService.shutdownNow()
+  }
+
+}
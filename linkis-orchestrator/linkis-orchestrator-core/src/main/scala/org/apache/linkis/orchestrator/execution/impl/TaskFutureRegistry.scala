@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.orchestrator.execution.impl
+
+import java.util.concurrent.{ConcurrentHashMap, Future, FutureTask}
+
+import scala.collection.JavaConverters._
+
+/**
+ * Futures of the running tasks. A future is registered before it is handed to the executor and
+ * removes itself once it is done or cancelled, so no sweeping is needed.
+ */
+class TaskFutureRegistry {
+
+  private val futures = new ConcurrentHashMap[String, Future[_]]()
+
+  /**
+   * Create a future of the runnable which will be removed from this registry when it is done. The
+   * caller should execute the returned future.
+   *
+   * @param onDone
+   *   called with isCancelled once the future is done
+   */
+  def register(
+      taskId: String,
+      runnable: Runnable,
+      onDone: Boolean => Unit = _ => {}
+  ): FutureTask[Unit] = {
+    val registry = this
+    val future = new FutureTask[Unit](runnable, ()) {
+      override protected def done(): Unit = {
+        registry.futures.remove(taskId, this)
+        onDone(isCancelled)
+      }
+    }
+    futures.put(taskId, future)
+    future
+  }
+
+  def get(taskId: String): Future[_] = futures.get(taskId)
+
+  def remove(taskId: String): Future[_] = futures.remove(taskId)
+
+  def size: Int = futures.size()
+
+  def cancelAll(interrupted: Boolean): Unit = {
+    futures.values().asScala.foreach { future =>
+      if (future != null && !future.isDone) future.cancel(interrupted)
+    }
+    futures.clear()
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.orchestrator.execution.impl
+
+import java.util
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.{AtomicInteger, AtomicLong, AtomicLongArray}
+
+import scala.collection.JavaConverters._
+
+/**
+ * Queue depth and wait time histogram of each user_creator, shared by all the FairTaskSchedulers of
+ * this process.
+ */
+object TaskSchedulerMetrics {
+
+  /** Upper bounds of the wait time buckets in milliseconds, the last bucket is unbounded */
+  val WAIT_TIME_BUCKETS: Array[Long] = Array(100L, 1000L, 10000L, 60000L, 600000L)
+
+  private val BUCKET_NAMES =
+    WAIT_TIME_BUCKETS.map(b => "le_" + b + "ms") :+ ("gt_" + WAIT_TIME_BUCKETS.last + "ms")
+
+  private class QueueMetric {
+    val depth = new AtomicInteger(0)
+    val dispatched = new AtomicLong(0)
+    val totalWaitTime = new AtomicLong(0)
+    val histogram = new AtomicLongArray(WAIT_TIME_BUCKETS.length + 1)
+  }
+
+  private val metrics = new ConcurrentHashMap[String, QueueMetric]()
+
+  private def getMetric(key: String): QueueMetric = {
+    var metric = metrics.get(key)
+    if (metric == null) {
+      metrics.putIfAbsent(key, new QueueMetric)
+      metric = metrics.get(key)
+    }
+    metric
+  }
+
+  def onEnqueue(key: String): Unit = getMetric(key).depth.incrementAndGet()
+
+  def onRemove(key: String): Unit = getMetric(key).depth.decrementAndGet()
+
+  def onDispatch(key: String, waitTime: Long): Unit = {
+    val metric = getMetric(key)
+    metric.depth.decrementAndGet()
+    metric.dispatched.incrementAndGet()
+    metric.totalWaitTime.addAndGet(waitTime)
+    val bucket = WAIT_TIME_BUCKETS.indexWhere(waitTime <= _)
+    metric.histogram.incrementAndGet(if (bucket < 0) WAIT_TIME_BUCKETS.length else bucket)
+  }
+
+  def getQueueDepth(key: String): Int = {
+    val metric = metrics.get(key)
+    if (metric == null) 0 else metric.depth.get()
+  }
+
+  /**
+   * @return
+   *   user_creator -> depth, dispatched, avgWaitTime and the count of each wait time bucket
+   */
+  def getMetrics: util.Map[String, util.Map[String, Any]] = {
+    val result = new util.HashMap[String, util.Map[String, Any]]()
+    metrics.asScala.foreach { case (key, metric) =>
+      val map = new util.LinkedHashMap[String, Any]()
+      val dispatched = metric.dispatched.get()
+      map.put("depth", metric.depth.get())
+      map.put("dispatched", dispatched)
+      map.put(
+        "avgWaitTime",
+        if (dispatched == 0) 0L else metric.totalWaitTime.get() / dispatched
+      )
+      BUCKET_NAMES.indices.foreach(i => map.put(BUCKET_NAMES(i), metric.histogram.get(i)))
+      result.put(key, map)
+    }
+    result
+  }
+
+}
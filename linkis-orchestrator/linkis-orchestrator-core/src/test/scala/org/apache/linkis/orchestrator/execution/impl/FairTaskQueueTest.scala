@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.orchestrator.execution.impl
+
+import scala.collection.mutable.ArrayBuffer
+
+import org.junit.jupiter.api.{Assertions, Test}
+
+class FairTaskQueueTest {
+
+  private def pollAll(queue: FairTaskQueue[String]): Seq[String] = {
+    val polled = new ArrayBuffer[String]
+    while (!queue.isEmpty) polled += queue.poll()
+    polled
+  }
+
+  @Test
+  def testFairShare(): Unit = {
+    val queue = new FairTaskQueue[String](3)
+    (1 to 4).foreach(i => queue.offer("a" + i, "hadoop_IDE", 1, 1, "a" + i))
+    (1 to 2).foreach(i => queue.offer("b" + i, "test_IDE", 1, 1, "b" + i))
+    Assertions.assertEquals(4, queue.getDepth("hadoop_IDE"))
+    Assertions.assertEquals(Seq("a1", "b1", "a2", "b2", "a3", "a4"), pollAll(queue))
+    Assertions.assertNull(queue.poll())
+    Assertions.assertTrue(queue.getDepths.isEmpty)
+  }
+
+  @Test
+  def testWeight(): Unit = {
+    val queue = new FairTaskQueue[String](3)
+    (1 to 6).foreach(i => queue.offer("a" + i, "hadoop_IDE", 2, 1, "a"))
+    (1 to 6).foreach(i => queue.offer("b" + i, "test_IDE", 1, 1, "b"))
+    val firstSix = (1 to 6).map(_ => queue.poll())
+    Assertions.assertEquals(4, firstSix.count(_ == "a"))
+    Assertions.assertEquals(2, firstSix.count(_ == "b"))
+  }
+
+  @Test
+  def testPriorityLane(): Unit = {
+    val queue = new FairTaskQueue[String](3)
+    queue.offer("low", "hadoop_IDE", 1, 2, "low")
+    queue.offer("normal", "hadoop_IDE", 1, 1, "normal")
+    queue.offer("high", "test_IDE", 1, 0, "high")
+    // out of range lanes are clamped
+    queue.offer("lowest", "test_IDE", 1, 10, "lowest")
+    queue.offer("highest", "test_IDE", 1, -1, "highest")
+    Assertions.assertEquals(Seq("high", "highest", "normal", "low", "lowest"), pollAll(queue))
+  }
+
+  @Test
+  def testRemoveAndDuplicate(): Unit = {
+    val queue = new FairTaskQueue[String](1)
+    Assertions.assertTrue(queue.offer("a1", "hadoop_IDE", 1, 0, "a1"))
+    Assertions.assertFalse(queue.offer("a1", "hadoop_IDE", 1, 0, "a1"))
+    queue.offer("b1", "test_IDE", 1, 0, "b1")
+    Assertions.assertEquals("a1", queue.remove("a1"))
+    Assertions.assertNull(queue.remove("a1"))
+    Assertions.assertEquals(0, queue.getDepth("hadoop_IDE"))
+    Assertions.assertEquals(1, queue.size)
+    var polledKey: String = null
+    Assertions.assertEquals("b1", queue.poll((key, _) => polledKey = key))
+    Assertions.assertEquals("test_IDE", polledKey)
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.bml.common;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The content of a resource version stored by ChunkedResourceStore: the size, the md5 and the
+ * ordered chunks of the version. It is a small text file kept at the path of the version, so the
+ * version records, copies and rollbacks work on it like on a plain resource file. A version file
+ * is only read as a manifest when its version record is flagged as chunked, never from its content.
+ * 分块存储的资源版本清单，保存在版本文件的路径上
+ */
+public class ChunkManifest {
+
+  private static final String MAGIC = "linkis-bml-chunks/1";
+
+  /** A chunk is stored under its sha-256, anything else could escape the chunk directory */
+  private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+  private long size = 0;
+
+  private String md5;
+
+  private final List<Chunk> chunks = new ArrayList<>();
+
+  public static class Chunk {
+    private final String hash;
+    private final long size;
+
+    public Chunk(String hash, long size) {
+      this.hash = hash;
+      this.size = size;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public long getSize() {
+      return size;
+    }
+  }
+
+  public static boolean isValidHash(String hash) {
+    return hash != null && HASH_PATTERN.matcher(hash).matches();
+  }
+
+  public void addChunk(String hash, long size) {
+    if (!isValidHash(hash)) {
+      throw new IllegalArgumentException("Illegal chunk hash: " + hash);
+    }
+    if (size < 0) {
+      throw new IllegalArgumentException("Illegal chunk size: " + size);
+    }
+    chunks.add(new Chunk(hash, size));
+    this.size += size;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public String getMd5() {
+    return md5;
+  }
+
+  public void setMd5(String md5) {
+    this.md5 = md5;
+  }
+
+  public List<Chunk> getChunks() {
+    return Collections.unmodifiableList(chunks);
+  }
+
+  public void writeTo(OutputStream outputStream) throws IOException {
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    writer.write(MAGIC + "\n");
+    writer.write("size " + size + "\n");
+    writer.write("md5 " + md5 + "\n");
+    for (Chunk chunk : chunks) {
+      writer.write(chunk.getHash() + " " + chunk.getSize() + "\n");
+    }
+    writer.flush();
+  }
+
+  public static ChunkManifest readFrom(InputStream inputStream) throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    if (!MAGIC.equals(reader.readLine())) {
+      throw new IOException("Not a chunk manifest");
+    }
+    ChunkManifest manifest = new ChunkManifest();
+    long size = -1;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      int split = line.indexOf(' ');
+      if (split <= 0) {
+        throw new IOException("Illegal line of chunk manifest: " + line);
+      }
+      String key = line.substring(0, split);
+      String value = line.substring(split + 1);
+      if ("size".equals(key)) {
+        size = parseSize(value, line);
+      } else if ("md5".equals(key)) {
+        manifest.setMd5(value);
+      } else if (isValidHash(key)) {
+        manifest.addChunk(key, parseSize(value, line));
+      } else {
+        throw new IOException("Illegal chunk hash of chunk manifest: " + line);
+      }
+    }
+    if (size != manifest.getSize()) {
+      throw new IOException(
+          "Broken chunk manifest, size " + size + " but the chunks have " + manifest.getSize());
+    }
+    return manifest;
+  }
+
+  private static long parseSize(String value, String line) throws IOException {
+    try {
+      long size = Long.parseLong(value);
+      if (size >= 0) {
+        return size;
+      }
+    } catch (NumberFormatException e) {
+      // reported below
+    }
+    throw new IOException("Illegal size of chunk manifest: " + line);
+  }
+}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.bml.common;
+
+import org.apache.linkis.bml.conf.BmlServerConfiguration;
+import org.apache.linkis.bml.dao.BmlChunkDao;
+import org.apache.linkis.bml.entity.ResourceVersion;
+import org.apache.linkis.common.io.Fs;
+import org.apache.linkis.common.io.FsPath;
+import org.apache.linkis.storage.FSFactory;
+import org.apache.linkis.storage.fs.FileSystem;
+import org.apache.linkis.storage.utils.FileSystemUtils;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed storage of the resource versions. The uploaded stream is cut into chunks of
+ * linkis.bml.storage.chunk.size, every chunk is stored once under its sha-256 in a directory shared
+ * by all the resources, and the version file becomes a ChunkManifest listing its chunks. Identical
+ * files uploaded by different resources or versions are stored once, size and md5 are computed in
+ * the same pass as the upload, and a version is read by streaming its chunks, so a range of it can
+ * be read without scanning the bytes before. The references of each chunk are counted in
+ * linkis_ps_bml_resources_chunk: a chunk whose count drops to 0 is no longer used by any enabled
+ * version. A version stored here is flagged as chunked on its version record, only the versions
+ * with the flag are read as manifests.
+ * 资源版本按内容分块存储，相同内容只存一份，块的引用数记录在linkis_ps_bml_resources_chunk中
+ */
+@Component
+public class ChunkedResourceStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChunkedResourceStore.class);
+
+  private static final boolean IS_HDFS = (Boolean) BmlServerConfiguration.BML_IS_HDFS().getValue();
+
+  private static final boolean ENABLED =
+      (Boolean) BmlServerConfiguration.BML_CHUNKED_STORAGE_ENABLED().getValue();
+
+  private static final int CHUNK_SIZE =
+      ((Number) BmlServerConfiguration.BML_CHUNK_SIZE().getValue()).intValue();
+
+  /** Chunks are shared by the resources of all the users, so they are owned by the bml user */
+  private static final String STORE_USER =
+      BmlServerConfiguration.BML_DEFAULT_PROXY_USER().getValue();
+
+  @Autowired private BmlChunkDao bmlChunkDao;
+
+  /** @return true if new versions should be stored as chunks */
+  public boolean isEnabled() {
+    return ENABLED;
+  }
+
+  int getChunkSize() {
+    return CHUNK_SIZE;
+  }
+
+  String getChunkRoot() {
+    String prefix =
+        IS_HDFS
+            ? BmlServerConfiguration.BML_HDFS_PREFIX().getValue()
+            : BmlServerConfiguration.BML_LOCAL_PREFIX().getValue();
+    return ResourceHelperFactory.getResourceHelper().getSchema()
+        + prefix
+        + "/"
+        + BmlServerConfiguration.BML_CHUNK_DIR().getValue();
+  }
+
+  private FsPath getChunkPath(String chunkRoot, String hash) {
+    if (!ChunkManifest.isValidHash(hash)) {
+      throw new IllegalArgumentException("Illegal chunk hash: " + hash);
+    }
+    return new FsPath(chunkRoot + "/" + hash.substring(0, 2) + "/" + hash);
+  }
+
+  private static Fs getFileSystem(String path, String user) throws IOException {
+    Fs fileSystem = FSFactory.getFsByProxyUser(new FsPath(path), user);
+    fileSystem.init(new HashMap<String, String>());
+    return fileSystem;
+  }
+
+  /**
+   * Store the stream as chunks and write the manifest of the version to path
+   *
+   * @param path the path of the version
+   * @param user
+   * @param inputStream closed on return
+   * @param stringBuilder receives the md5 of the content
+   * @return the size of the content
+   * @throws UploadResourceException
+   */
+  public long upload(
+      String path, String user, InputStream inputStream, StringBuilder stringBuilder)
+      throws UploadResourceException {
+    String chunkRoot = getChunkRoot();
+    ChunkManifest manifest = new ChunkManifest();
+    List<String> referenced = new ArrayList<>();
+    Fs chunkFs = null;
+    Fs fileSystem = null;
+    OutputStream outputStream = null;
+    try {
+      chunkFs = getFileSystem(chunkRoot, STORE_USER);
+      MessageDigest md5Digest = DigestUtils.getMd5Digest();
+      byte[] buffer = new byte[getChunkSize()];
+      int length;
+      while ((length = IOUtils.read(inputStream, buffer)) > 0) {
+        md5Digest.update(buffer, 0, length);
+        MessageDigest sha256Digest = DigestUtils.getSha256Digest();
+        sha256Digest.update(buffer, 0, length);
+        String hash = Hex.encodeHexString(sha256Digest.digest());
+        // take the reference before looking for the chunk, so that a chunk is never referenced
+        // without being counted
+        bmlChunkDao.increaseRefCount(hash, length);
+        referenced.add(hash);
+        storeChunk((FileSystem) chunkFs, getChunkPath(chunkRoot, hash), buffer, length);
+        manifest.addChunk(hash, length);
+      }
+      manifest.setMd5(Hex.encodeHexString(md5Digest.digest()));
+
+      FsPath fsPath = new FsPath(path);
+      fileSystem = getFileSystem(path, user);
+      if (!fileSystem.exists(fsPath)) {
+        FileSystemUtils.createNewFile(fsPath, user, true);
+      }
+      outputStream = fileSystem.write(fsPath, true);
+      manifest.writeTo(outputStream);
+      outputStream.close();
+      outputStream = null;
+      if (stringBuilder != null) {
+        stringBuilder.append(manifest.getMd5());
+      }
+      logger.info(
+          "{} uploaded {} bytes in {} chunks to {}",
+          user,
+          manifest.getSize(),
+          manifest.getChunks().size(),
+          path);
+      return manifest.getSize();
+    } catch (Throwable t) {
+      logger.error("{} write to {} failed, reason is", user, path, t);
+      referenced.forEach(this::releaseChunkQuietly);
+      UploadResourceException uploadResourceException = new UploadResourceException();
+      uploadResourceException.initCause(t);
+      throw uploadResourceException;
+    } finally {
+      IOUtils.closeQuietly(outputStream);
+      IOUtils.closeQuietly(inputStream);
+      IOUtils.closeQuietly(fileSystem);
+      IOUtils.closeQuietly(chunkFs);
+    }
+  }
+
+  /**
+   * Write the chunk unless it is stored already. The chunk is written to a temporary file first and
+   * then renamed, so a chunk path always holds a complete chunk.
+   */
+  private void storeChunk(FileSystem chunkFs, FsPath chunkPath, byte[] buffer, int length)
+      throws Exception {
+    if (chunkFs.exists(chunkPath)) {
+      return;
+    }
+    FsPath tmpPath = new FsPath(chunkPath.getSchemaPath() + "." + UUID.randomUUID() + ".tmp");
+    FileSystemUtils.createNewFileWithFileSystem(chunkFs, tmpPath, STORE_USER, true);
+    OutputStream outputStream = chunkFs.write(tmpPath, true);
+    try {
+      outputStream.write(buffer, 0, length);
+    } finally {
+      outputStream.close();
+    }
+    if (!chunkFs.renameTo(tmpPath, chunkPath)) {
+      // stored by another upload meanwhile
+      chunkFs.delete(tmpPath);
+      if (!chunkFs.exists(chunkPath)) {
+        throw new IOException("Failed to store the chunk " + chunkPath.getPath());
+      }
+    }
+  }
+
+  /**
+   * Read the manifest of a version flagged as chunked
+   *
+   * @param path the path of the version
+   * @param user
+   * @throws IOException if the version file is not a valid manifest
+   */
+  public ChunkManifest readManifest(String path, String user) throws IOException {
+    Fs fileSystem = getFileSystem(path, user);
+    InputStream inputStream = null;
+    try {
+      inputStream = fileSystem.read(new FsPath(path));
+      return ChunkManifest.readFrom(inputStream);
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+      IOUtils.closeQuietly(fileSystem);
+    }
+  }
+
+  /**
+   * Stream a range of a chunked version, only the chunks overlapping the range are read
+   *
+   * @param manifest
+   * @param offset offset of the range in the content, from 0
+   * @param length
+   * @param outputStream
+   * @return the number of written bytes
+   * @throws IOException
+   */
+  public long read(ChunkManifest manifest, long offset, long length, OutputStream outputStream)
+      throws IOException {
+    String chunkRoot = getChunkRoot();
+    Fs chunkFs = getFileSystem(chunkRoot, STORE_USER);
+    long chunkStart = 0;
+    long written = 0;
+    try {
+      for (ChunkManifest.Chunk chunk : manifest.getChunks()) {
+        if (written >= length) {
+          break;
+        }
+        long chunkEnd = chunkStart + chunk.getSize();
+        if (chunkEnd > offset) {
+          long skip = Math.max(offset - chunkStart, 0);
+          long toCopy = Math.min(chunk.getSize() - skip, length - written);
+          InputStream inputStream = chunkFs.read(getChunkPath(chunkRoot, chunk.getHash()));
+          try {
+            written += IOUtils.copyLarge(inputStream, outputStream, skip, toCopy);
+          } finally {
+            IOUtils.closeQuietly(inputStream);
+          }
+        }
+        chunkStart = chunkEnd;
+      }
+    } finally {
+      IOUtils.closeQuietly(chunkFs);
+    }
+    return written;
+  }
+
+  /**
+   * Count the references of a version copied from another one, a version not flagged as chunked is
+   * ignored
+   *
+   * @param version the copied version
+   * @param path path of the new version
+   */
+  public void retain(ResourceVersion version, String path) throws IOException {
+    if (!version.isChunked()) {
+      return;
+    }
+    ChunkManifest manifest = readManifest(path, STORE_USER);
+    manifest.getChunks().forEach(c -> bmlChunkDao.increaseRefCount(c.getHash(), c.getSize()));
+  }
+
+  /**
+   * Drop the references of a deleted version, failures are only logged since a leaked reference
+   * only keeps a chunk longer
+   *
+   * @param version the deleted version, ignored if not flagged as chunked
+   */
+  public void releaseQuietly(ResourceVersion version) {
+    if (!version.isChunked()) {
+      return;
+    }
+    try {
+      ChunkManifest manifest = readManifest(version.getResource(), STORE_USER);
+      manifest.getChunks().forEach(c -> releaseChunkQuietly(c.getHash()));
+    } catch (Exception e) {
+      logger.warn("Failed to release the chunks of {}", version.getResource(), e);
+    }
+  }
+
+  private void releaseChunkQuietly(String hash) {
+    try {
+      bmlChunkDao.decreaseRefCount(hash);
+    } catch (Exception e) {
+      logger.warn("Failed to release the chunk {}", hash, e);
+    }
+  }
+}
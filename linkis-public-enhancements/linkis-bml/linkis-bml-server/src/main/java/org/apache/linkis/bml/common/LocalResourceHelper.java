@@ -56,8 +56,6 @@ public class LocalResourceHelper implements ResourceHelper {
       boolean overwrite)
       throws UploadResourceException {
     OutputStream outputStream = null;
-    InputStream is0 = null;
-    InputStream is1 = null;
     long size = 0;
     Fs fileSystem = null;
     try {
@@ -67,13 +65,8 @@ public class LocalResourceHelper implements ResourceHelper {
       if (!fileSystem.exists(fsPath)) {
         FileSystemUtils.createNewFile(fsPath, user, true);
       }
+      // size and md5 are computed in the same pass as the write, the file is never read back
       byte[] buffer = new byte[1024];
-      long beforeSize = -1;
-      is0 = fileSystem.read(fsPath);
-      int ch0 = 0;
-      while ((ch0 = is0.read(buffer)) != -1) {
-        beforeSize += ch0;
-      }
       outputStream = fileSystem.write(fsPath, overwrite);
       int ch = 0;
       MessageDigest md5Digest = DigestUtils.getMd5Digest();
@@ -85,16 +78,6 @@ public class LocalResourceHelper implements ResourceHelper {
       if (stringBuilder != null) {
         stringBuilder.append(Hex.encodeHexString(md5Digest.digest()));
       }
-
-      // Get all the bytes of the file by the file name. In this way, the wrong updated is
-      // avoided.
-      long afterSize = -1;
-      is1 = fileSystem.read(fsPath);
-      int ch1 = 0;
-      while ((ch1 = is1.read(buffer)) != -1) {
-        afterSize += ch1;
-      }
-      size = Math.max(size, afterSize - beforeSize);
     } catch (final IOException e) {
       LOGGER.error("{} write to {} failed, reason is, IOException:", user, path, e);
       UploadResourceException uploadResourceException = new UploadResourceException();
@@ -115,8 +98,6 @@ public class LocalResourceHelper implements ResourceHelper {
         }
       }
       IOUtils.closeQuietly(inputStream);
-      IOUtils.closeQuietly(is0);
-      IOUtils.closeQuietly(is1);
     }
     return size;
   }
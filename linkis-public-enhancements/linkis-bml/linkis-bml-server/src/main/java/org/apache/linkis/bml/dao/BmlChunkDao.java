@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.linkis.bml.dao;
+
+import org.apache.ibatis.annotations.Param;
+
+/** Reference counts of the content addressed chunks of the chunked resource store */
+public interface BmlChunkDao {
+
+  /**
+   * Add a reference to the chunk, the chunk record is created on its first reference
+   *
+   * @param chunkHash sha-256 of the chunk
+   * @param size chunk size in bytes
+   */
+  void increaseRefCount(@Param("chunkHash") String chunkHash, @Param("size") long size);
+
+  /**
+   * Drop a reference to the chunk, the count never goes below 0
+   *
+   * @param chunkHash sha-256 of the chunk
+   * @return the number of updated records
+   */
+  int decreaseRefCount(@Param("chunkHash") String chunkHash);
+
+  /**
+   * @param chunkHash sha-256 of the chunk
+   * @return the reference count, null if the chunk is unknown
+   */
+  Long getRefCount(@Param("chunkHash") String chunkHash);
+}
@@ -53,6 +53,9 @@ public class ResourceVersion {
 
   private String updator;
 
+  /** The version file is a ChunkManifest written by ChunkedResourceStore */
+  private boolean chunked;
+
   public String getResourceId() {
     return resourceId;
   }
@@ -181,6 +184,14 @@ public class ResourceVersion {
     this.updator = updator;
   }
 
+  public boolean isChunked() {
+    return chunked;
+  }
+
+  public void setChunked(boolean chunked) {
+    this.chunked = chunked;
+  }
+
   public static ResourceVersion createNewResourceVersion(
       String resourceId,
       String resourcePath,
@@ -221,6 +232,7 @@ public class ResourceVersion {
     insertVersion.setUser(oldVersion.getUser());
     insertVersion.setStartTime(oldVersion.getStartTime());
     insertVersion.setEndTime(oldVersion.getEndTime());
+    insertVersion.setChunked(oldVersion.isChunked());
     return insertVersion;
   }
 }
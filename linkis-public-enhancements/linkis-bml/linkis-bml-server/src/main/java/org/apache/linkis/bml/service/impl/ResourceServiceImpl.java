@@ -17,6 +17,7 @@
 
 package org.apache.linkis.bml.service.impl;
 
+import org.apache.linkis.bml.common.ChunkedResourceStore;
 import org.apache.linkis.bml.common.Constant;
 import org.apache.linkis.bml.common.ResourceHelper;
 import org.apache.linkis.bml.common.ResourceHelperFactory;
@@ -52,6 +53,8 @@ public class ResourceServiceImpl implements ResourceService {
 
   @Autowired private VersionDao versionDao;
 
+  @Autowired private ChunkedResourceStore chunkedResourceStore;
+
   private static final String FIRST_VERSION = "v000001";
 
   @Override
@@ -61,14 +64,26 @@ public class ResourceServiceImpl implements ResourceService {
 
   @Override
   public void deleteResource(String resourceId) {
+    List<ResourceVersion> versions = versionDao.getResourceVersionsByResourceId(resourceId);
     resourceDao.deleteResource(resourceId);
     versionDao.deleteResource(resourceId);
+    releaseChunks(versions);
   }
 
   @Override
   public void batchDeleteResources(List<String> resourceIds) {
+    List<ResourceVersion> versions = new ArrayList<>();
+    resourceIds.forEach(id -> versions.addAll(versionDao.getResourceVersionsByResourceId(id)));
     resourceDao.batchDeleteResources(resourceIds);
     versionDao.batchDeleteResources(resourceIds);
+    releaseChunks(versions);
+  }
+
+  /** Drop the chunk references of the deleted versions which are stored as chunks */
+  private void releaseChunks(List<ResourceVersion> versions) {
+    for (ResourceVersion version : versions) {
+      chunkedResourceStore.releaseQuietly(version);
+    }
   }
 
   @Transactional(rollbackFor = Exception.class)
@@ -85,7 +100,11 @@ public class ResourceServiceImpl implements ResourceService {
       // fileName = resourceId;
       String path = resourceHelper.generatePath(user, fileName, properties);
       StringBuilder sb = new StringBuilder();
-      long size = resourceHelper.upload(path, user, inputStream, sb, true);
+      boolean chunked = chunkedResourceStore.isEnabled();
+      long size =
+          chunked
+              ? chunkedResourceStore.upload(path, user, inputStream, sb)
+              : resourceHelper.upload(path, user, inputStream, sb, true);
       String md5String = sb.toString();
       boolean isSuccess = false;
       if (StringUtils.isNotEmpty(md5String) && size >= 0) {
@@ -100,6 +119,7 @@ public class ResourceServiceImpl implements ResourceService {
       ResourceVersion resourceVersion =
           ResourceVersion.createNewResourceVersion(
               resourceId, path, md5String, clientIp, size, Constant.FIRST_VERSION, 1);
+      resourceVersion.setChunked(chunked);
       versionDao.insertNewVersion(resourceVersion);
       UploadResult uploadResult = new UploadResult(resourceId, FIRST_VERSION, isSuccess);
       results.add(uploadResult);
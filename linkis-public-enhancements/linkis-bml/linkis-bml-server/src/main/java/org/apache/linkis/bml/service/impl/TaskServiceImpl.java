@@ -69,6 +69,8 @@ public class TaskServiceImpl implements TaskService {
 
   @Autowired private VersionDao versionDao;
 
+  @Autowired private ChunkedResourceStore chunkedResourceStore;
+
   private static final Logger LOGGER = LoggerFactory.getLogger(TaskServiceImpl.class);
 
   @Override
@@ -310,6 +312,8 @@ public class TaskServiceImpl implements TaskService {
       fs.init(null);
       fs.copyFile(srcPath, destPath);
       ResourceVersion oldVersion = versionDao.findResourceVersion(resourceId, version);
+      // a version stored as chunks is copied as its manifest, which references the chunks again
+      chunkedResourceStore.retain(oldVersion, dest);
       ResourceVersion insertVersion = ResourceVersion.copyFromOldResourceVersion(oldVersion);
       insertVersion.setResource(dest);
       insertVersion.setVersion(newVersion);
@@ -368,6 +372,7 @@ public class TaskServiceImpl implements TaskService {
         }
         hadoopFs.copyFile(srcPath, destPath);
         hadoopFs.setOwner(destPath, anotherUser);
+        chunkedResourceStore.retain(resourceVersion, destPath.getSchemaPath());
         ResourceVersion insertVersion = ResourceVersion.copyFromOldResourceVersion(resourceVersion);
         insertVersion.setResource(destPath.getSchemaPath());
         insertVersion.setStartTime(new Date());
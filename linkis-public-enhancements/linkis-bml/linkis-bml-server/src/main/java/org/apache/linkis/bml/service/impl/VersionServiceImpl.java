@@ -17,6 +17,8 @@
 
 package org.apache.linkis.bml.service.impl;
 
+import org.apache.linkis.bml.common.ChunkManifest;
+import org.apache.linkis.bml.common.ChunkedResourceStore;
 import org.apache.linkis.bml.common.Constant;
 import org.apache.linkis.bml.common.ResourceHelper;
 import org.apache.linkis.bml.common.ResourceHelperFactory;
@@ -60,6 +62,8 @@ public class VersionServiceImpl implements VersionService {
 
   @Autowired private ResourceService resourceService;
 
+  @Autowired private ChunkedResourceStore chunkedResourceStore;
+
   @Override
   public Version getVersion(String resourceId, String version) {
     return versionDao.getVersion(resourceId, version);
@@ -72,7 +76,11 @@ public class VersionServiceImpl implements VersionService {
 
   @Override
   public void deleteResourceVersion(String resourceId, String version) {
+    ResourceVersion resourceVersion = versionDao.findResourceVersion(resourceId, version);
     versionDao.deleteVersion(resourceId, version);
+    if (resourceVersion != null) {
+      chunkedResourceStore.releaseQuietly(resourceVersion);
+    }
   }
 
   @Override
@@ -105,7 +113,11 @@ public class VersionServiceImpl implements VersionService {
     // synchronized (resourceIdLock.intern()){
     // 资源上传到hdfs
     StringBuilder stringBuilder = new StringBuilder();
-    long size = resourceHelper.upload(path, user, inputStream, stringBuilder, OVER_WRITE);
+    boolean chunked = chunkedResourceStore.isEnabled();
+    long size =
+        chunked
+            ? chunkedResourceStore.upload(path, user, inputStream, stringBuilder)
+            : resourceHelper.upload(path, user, inputStream, stringBuilder, OVER_WRITE);
     String md5String = stringBuilder.toString();
     String clientIp = params.get("clientIp").toString();
     // 生成新的version
@@ -114,6 +126,7 @@ public class VersionServiceImpl implements VersionService {
     ResourceVersion resourceVersion =
         ResourceVersion.createNewResourceVersion(
             resourceId, path, md5String, clientIp, size, newVersion, 1);
+    resourceVersion.setChunked(chunked);
     versionDao.insertNewVersion(resourceVersion);
     // }
     return newVersion;
@@ -144,6 +157,14 @@ public class VersionServiceImpl implements VersionService {
     long startByte = resourceVersion.getStartByte();
     long endByte = resourceVersion.getEndByte();
     String path = resourceVersion.getResource();
+    if (resourceVersion.isChunked()) {
+      // stored as chunks, stream the chunks of the range instead
+      ChunkManifest manifest = chunkedResourceStore.readManifest(path, user);
+      long size = endByte - startByte + 1;
+      long written = chunkedResourceStore.read(manifest, startByte - 1, size, outputStream);
+      logger.info("{} downLoad source {} read {} bytes from chunks", user, resourceId, written);
+      return written == size;
+    }
     Fs fileSystem = FSFactory.getFsByProxyUser(new FsPath(path), user);
     fileSystem.init(new HashMap<String, String>());
     InputStream inputStream = fileSystem.read(new FsPath(path));
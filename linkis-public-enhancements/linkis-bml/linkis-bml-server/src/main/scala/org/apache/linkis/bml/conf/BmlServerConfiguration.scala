@@ -39,4 +39,17 @@ object BmlServerConfiguration {
 
   val BML_DEFAULT_PROXY_USER = CommonVars("wds.linkis.bml.default.proxy.user", Utils.getJvmUser)
 
+  /**
+   * Store new resource versions as content addressed chunks shared by all the resources, the
+   * version file only keeps the list of its chunks. Versions stored before are still readable
+   */
+  val BML_CHUNKED_STORAGE_ENABLED: CommonVars[Boolean] =
+    CommonVars[Boolean]("linkis.bml.storage.chunked.enable", false)
+
+  val BML_CHUNK_SIZE: CommonVars[Int] =
+    CommonVars[Int]("linkis.bml.storage.chunk.size", 4 * 1024 * 1024)
+
+  /** Directory of the chunks, under wds.linkis.bml.hdfs.prefix or wds.linkis.bml.local.prefix */
+  val BML_CHUNK_DIR = CommonVars("linkis.bml.storage.chunk.dir", "bml-chunks")
+
 }
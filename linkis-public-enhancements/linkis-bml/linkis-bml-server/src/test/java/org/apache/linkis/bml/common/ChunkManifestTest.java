@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.bml.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkManifestTest {
+
+  private static final String HASH_A =
+      "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+  private static final String HASH_B =
+      "60303ae22b998861bce3b28f33eec1be758a213c86c93c076dbe9f558c11c752";
+
+  @Test
+  @DisplayName("testWriteAndRead")
+  public void testWriteAndRead() throws IOException {
+    ChunkManifest manifest = new ChunkManifest();
+    manifest.addChunk(HASH_A, 4096);
+    manifest.addChunk(HASH_B, 100);
+    manifest.setMd5("d41d8cd98f00b204e9800998ecf8427e");
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    manifest.writeTo(outputStream);
+
+    ChunkManifest read =
+        ChunkManifest.readFrom(new ByteArrayInputStream(outputStream.toByteArray()));
+    assertEquals(4196, read.getSize());
+    assertEquals("d41d8cd98f00b204e9800998ecf8427e", read.getMd5());
+    assertEquals(2, read.getChunks().size());
+    assertEquals(HASH_B, read.getChunks().get(1).getHash());
+    assertEquals(100, read.getChunks().get(1).getSize());
+  }
+
+  @Test
+  @DisplayName("testPlainFile")
+  public void testPlainFile() {
+    byte[] jar = "PK\u0003\u0004 plain resource content".getBytes(StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> ChunkManifest.readFrom(new ByteArrayInputStream(jar)));
+  }
+
+  @Test
+  @DisplayName("testIllegalHash")
+  public void testIllegalHash() {
+    assertThrows(IOException.class, () -> read("ab/../../../../etc/passwd 100", 100));
+    assertThrows(IOException.class, () -> read(HASH_A.toUpperCase() + " 100", 100));
+    assertThrows(IOException.class, () -> read(HASH_A.substring(1) + " 100", 100));
+    assertThrows(IOException.class, () -> read(HASH_A + " -1", -1));
+    assertThrows(IllegalArgumentException.class, () -> new ChunkManifest().addChunk("../aa", 1));
+    assertFalse(ChunkManifest.isValidHash(null));
+    assertTrue(ChunkManifest.isValidHash(HASH_A));
+  }
+
+  private static ChunkManifest read(String chunkLine, long size) throws IOException {
+    String content =
+        "linkis-bml-chunks/1\nsize "
+            + size
+            + "\nmd5 d41d8cd98f00b204e9800998ecf8427e\n"
+            + chunkLine
+            + "\n";
+    return ChunkManifest.readFrom(
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+  }
+}
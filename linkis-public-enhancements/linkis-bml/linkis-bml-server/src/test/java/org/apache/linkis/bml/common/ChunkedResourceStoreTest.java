@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.bml.common;
+
+import org.apache.linkis.bml.dao.BmlChunkDao;
+import org.apache.linkis.bml.entity.ResourceVersion;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedResourceStoreTest {
+
+  private static final int CHUNK_SIZE = 16;
+
+  private static final String USER = System.getProperty("user.name");
+
+  @TempDir Path tempDir;
+
+  private BmlChunkDao bmlChunkDao;
+
+  private ChunkedResourceStore store;
+
+  @BeforeEach
+  public void before() {
+    bmlChunkDao = Mockito.mock(BmlChunkDao.class);
+    store =
+        new ChunkedResourceStore() {
+          @Override
+          String getChunkRoot() {
+            return "file://" + tempDir.resolve("chunks");
+          }
+
+          @Override
+          int getChunkSize() {
+            return CHUNK_SIZE;
+          }
+        };
+    ReflectionTestUtils.setField(store, "bmlChunkDao", bmlChunkDao);
+  }
+
+  private String upload(String name, byte[] content) throws Exception {
+    String path = "file://" + tempDir.resolve(name);
+    StringBuilder md5 = new StringBuilder();
+    long size = store.upload(path, USER, new ByteArrayInputStream(content), md5);
+    assertEquals(content.length, size);
+    assertEquals(DigestUtils.md5Hex(content), md5.toString());
+    return path;
+  }
+
+  private long countChunkFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(tempDir.resolve("chunks"))) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+
+  @Test
+  @DisplayName("testUploadDeduplicates")
+  public void testUploadDeduplicates() throws Exception {
+    // 3 chunks, the first two are identical
+    byte[] content =
+        "0123456789abcdef0123456789abcdefxyz".getBytes(StandardCharsets.UTF_8);
+    String path = upload("v000001", content);
+    ChunkManifest manifest = store.readManifest(path, USER);
+    assertEquals(3, manifest.getChunks().size());
+    assertEquals(manifest.getChunks().get(0).getHash(), manifest.getChunks().get(1).getHash());
+    assertEquals(2, countChunkFiles());
+
+    // the same content uploaded again adds references but no chunk file
+    upload("v000002", content);
+    assertEquals(2, countChunkFiles());
+    String first = manifest.getChunks().get(0).getHash();
+    Mockito.verify(bmlChunkDao, Mockito.times(4)).increaseRefCount(first, CHUNK_SIZE);
+    Mockito.verify(bmlChunkDao, Mockito.times(2))
+        .increaseRefCount(manifest.getChunks().get(2).getHash(), 3);
+  }
+
+  @Test
+  @DisplayName("testRangedRead")
+  public void testRangedRead() throws Exception {
+    byte[] content = new byte[CHUNK_SIZE * 4 + 5];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    ChunkManifest manifest = store.readManifest(upload("v000001", content), USER);
+    assertEquals(5, manifest.getChunks().size());
+
+    long[][] ranges = {
+      {0, content.length}, {10, 20}, {CHUNK_SIZE, CHUNK_SIZE}, {15, 40}, {CHUNK_SIZE * 4 + 2, 3}
+    };
+    for (long[] range : ranges) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      long written = store.read(manifest, range[0], range[1], outputStream);
+      assertEquals(range[1], written);
+      assertArrayEquals(
+          Arrays.copyOfRange(content, (int) range[0], (int) (range[0] + range[1])),
+          outputStream.toByteArray());
+    }
+  }
+
+  @Test
+  @DisplayName("testRetainAndReleaseOnlyChunkedVersions")
+  public void testRetainAndReleaseOnlyChunkedVersions() throws Exception {
+    String path = upload("v000001", "0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+    ResourceVersion version = new ResourceVersion();
+    version.setResource(path);
+
+    // a plain version is never parsed, whatever its content
+    store.retain(version, path);
+    store.releaseQuietly(version);
+    Mockito.verify(bmlChunkDao, Mockito.never()).decreaseRefCount(Mockito.anyString());
+
+    version.setChunked(true);
+    store.retain(version, path);
+    store.releaseQuietly(version);
+    Mockito.verify(bmlChunkDao, Mockito.times(2))
+        .increaseRefCount(Mockito.anyString(), Mockito.eq((long) CHUNK_SIZE));
+    Mockito.verify(bmlChunkDao).decreaseRefCount(Mockito.anyString());
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.apache.linkis.bml.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BmlChunkDaoTest extends BaseDaoTest {
+
+  @Autowired BmlChunkDao bmlChunkDao;
+
+  @Test
+  void testRefCount() {
+    String hash = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    assertNull(bmlChunkDao.getRefCount(hash));
+    bmlChunkDao.increaseRefCount(hash, 4);
+    bmlChunkDao.increaseRefCount(hash, 4);
+    assertEquals(2L, bmlChunkDao.getRefCount(hash));
+    assertEquals(1, bmlChunkDao.decreaseRefCount(hash));
+    assertEquals(1, bmlChunkDao.decreaseRefCount(hash));
+    // never below 0
+    assertEquals(0, bmlChunkDao.decreaseRefCount(hash));
+    assertEquals(0L, bmlChunkDao.getRefCount(hash));
+  }
+}
@@ -73,6 +73,7 @@ CREATE TABLE   linkis_ps_bml_resources_version   (
     client_ip   varchar(200) NOT NULL COMMENT 'Client ip',
     updator   varchar(50) DEFAULT NULL COMMENT 'updator',
     enable_flag   tinyint(1) NOT NULL DEFAULT '1' COMMENT 'Status, 1: normal, 0: frozen',
+    chunked   tinyint(1) NOT NULL DEFAULT '0',
   PRIMARY KEY (  id  ),
   UNIQUE KEY   resource_id_version   (  resource_id  ,  version  )
 );
@@ -96,6 +97,18 @@ CREATE TABLE   linkis_ps_bml_resources_task   (
   PRIMARY KEY (  id  )
 );
 
+DROP TABLE IF EXISTS linkis_ps_bml_resources_chunk;
+CREATE TABLE   linkis_ps_bml_resources_chunk   (
+    id   bigint(20) NOT NULL AUTO_INCREMENT,
+    chunk_hash   varchar(64) NOT NULL,
+    size   bigint(20) NOT NULL,
+    ref_count   bigint(20) NOT NULL DEFAULT 0,
+    create_time   datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time   datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (  id  ),
+  UNIQUE KEY   uniq_chunk_hash   (  chunk_hash  )
+);
+
 DROP TABLE IF EXISTS linkis_ps_bml_resources;
 CREATE TABLE   linkis_ps_bml_resources   (
     id   bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'Primary key',
@@ -66,6 +66,7 @@ CREATE TABLE linkis_ps_bml_resources_version (
 	client_ip varchar(200) NOT NULL,
 	updator varchar(50) NULL,
 	enable_flag bool NOT NULL DEFAULT true,
+	chunked bool NOT NULL DEFAULT false,
 	CONSTRAINT linkis_resources_version_pkey PRIMARY KEY (id)
 );
 CREATE UNIQUE INDEX uniq_rid_version ON linkis_ps_bml_resources_version (resource_id, version);
@@ -89,6 +90,18 @@ CREATE TABLE linkis_ps_bml_resources_task (
 	CONSTRAINT linkis_resources_task_pkey PRIMARY KEY (id)
 );
 
+DROP TABLE IF EXISTS "linkis_ps_bml_resources_chunk";
+CREATE TABLE linkis_ps_bml_resources_chunk (
+	id serial NOT NULL,
+	chunk_hash varchar(64) NOT NULL,
+	"size" int8 NOT NULL,
+	ref_count int8 NOT NULL DEFAULT 0,
+	create_time timestamp(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	update_time timestamp(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	CONSTRAINT linkis_ps_bml_resources_chunk_pkey PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX uniq_chunk_hash ON linkis_ps_bml_resources_chunk USING btree (chunk_hash);
+
 DROP TABLE IF EXISTS "linkis_ps_bml_resources";
 CREATE TABLE linkis_ps_bml_resources (
 	id serial NOT NULL,
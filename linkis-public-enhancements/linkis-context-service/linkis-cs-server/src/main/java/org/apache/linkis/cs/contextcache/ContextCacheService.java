@@ -23,6 +23,7 @@ import org.apache.linkis.cs.common.entity.source.ContextID;
 import org.apache.linkis.cs.common.entity.source.ContextKey;
 import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
 import org.apache.linkis.cs.common.exception.CSErrorException;
+import org.apache.linkis.cs.contextcache.index.ContextInvertedIndexSet;
 
 import java.util.List;
 
@@ -57,4 +58,7 @@ public interface ContextCacheService {
   void removeByKeyPrefix(ContextID contextID, String preFix, ContextType csType);
 
   void removeByKey(ContextID contextID, String preFix, ContextType csType);
+
+  /** @return the index of the context, or null if the context can not be loaded */
+  ContextInvertedIndexSet getContextInvertedIndexSet(ContextID contextID);
 }
@@ -25,6 +25,7 @@ import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
 import org.apache.linkis.cs.common.exception.CSErrorException;
 import org.apache.linkis.cs.contextcache.cache.ContextCache;
 import org.apache.linkis.cs.contextcache.cache.csid.ContextIDValue;
+import org.apache.linkis.cs.contextcache.index.ContextInvertedIndexSet;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -300,4 +301,19 @@ public class DefaultContextCacheService implements ContextCacheService {
           e);
     }
   }
+
+  @Override
+  public ContextInvertedIndexSet getContextInvertedIndexSet(ContextID contextID) {
+    if (null == contextID || StringUtils.isBlank(contextID.getContextId())) {
+      return null;
+    }
+    try {
+      ContextIDValue contextIDValue = contextCache.getContextIDValue(contextID);
+      return contextIDValue.getContextKeyValueContext().getContextInvertedIndexSet();
+    } catch (Exception e) {
+      logger.error(
+          "Failed to getContextInvertedIndexSet contextID({})", contextID.getContextId(), e);
+    }
+    return null;
+  }
 }
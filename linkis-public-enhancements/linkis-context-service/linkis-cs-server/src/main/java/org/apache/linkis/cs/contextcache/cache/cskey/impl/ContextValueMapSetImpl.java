@@ -145,7 +145,10 @@ public class ContextValueMapSetImpl implements ContextValueMapSet {
 
   @Override
   public Map<String, ContextKeyValue> removeAll(ContextType contextType) {
-    return contextValueMapSet.remove(contextType);
+    if (contextType == null) {
+      contextType = ContextType.METADATA;
+    }
+    return contextValueMapSet.remove(contextType.name());
   }
 
   @Override
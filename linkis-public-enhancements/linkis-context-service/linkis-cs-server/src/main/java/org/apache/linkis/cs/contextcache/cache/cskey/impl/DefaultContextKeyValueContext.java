@@ -107,6 +107,12 @@ public class DefaultContextKeyValueContext implements ContextKeyValueContext {
 
     getContextInvertedIndexSet()
         .addKeywords(keyWords, contextKey.getKey(), contextKey.getContextType());
+    if (null != oldValue) {
+      getContextInvertedIndexSet().removeContextKeyValue(oldValue);
+    }
+    if (null != contextKeyValue.getContextValue()) {
+      getContextInvertedIndexSet().addContextKeyValue(contextKeyValue);
+    }
     DefaultContextKeyEvent defaultContextKeyEvent = new DefaultContextKeyEvent();
     defaultContextKeyEvent.setContextID(contextID);
     defaultContextKeyEvent.setContextKeyValue(contextKeyValue);
@@ -137,6 +143,7 @@ public class DefaultContextKeyValueContext implements ContextKeyValueContext {
       contextInvertedIndexSet.remove(
           iterator.next(), contextKey.getKey(), contextKey.getContextType());
     }
+    contextInvertedIndexSet.removeContextKeyValue(contextKeyValue);
     logger.info("Succeed to remove contextKey of {}", contextKey.getKey());
     DefaultContextKeyEvent defaultContextKeyEvent = new DefaultContextKeyEvent();
     defaultContextKeyEvent.setContextID(contextID);
@@ -34,4 +34,11 @@ public class ContextCacheConf {
       CommonVars.apply("wds.linkis.cs.cache.read.expire.mills", new TimeType("3h"))
           .getValue()
           .toLong();
+
+  public static final boolean SEARCH_INDEX_ENABLED =
+      CommonVars.apply("wds.linkis.cs.search.index.enable", true).getValue();
+
+  /** Iterate all the values if the index path fetches more than this ratio of them */
+  public static final double SEARCH_INDEX_MAX_RATIO =
+      CommonVars.apply("wds.linkis.cs.search.index.max.ratio", 0.2).getValue();
 }
@@ -17,8 +17,10 @@
 
 package org.apache.linkis.cs.contextcache.index;
 
+import org.apache.linkis.cs.common.entity.enumeration.ContextScope;
 import org.apache.linkis.cs.common.entity.enumeration.ContextType;
 import org.apache.linkis.cs.common.entity.source.ContextKey;
+import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
 
 import java.util.List;
 import java.util.Set;
@@ -38,4 +40,37 @@ public interface ContextInvertedIndexSet {
   boolean remove(String keyword, String contextKey, ContextType contextType);
 
   ContextInvertedIndex removeAll(ContextType contextType);
+
+  /** Index the contextType, scope, key and ContextKey keywords of the value */
+  void addContextKeyValue(ContextKeyValue contextKeyValue);
+
+  void removeContextKeyValue(ContextKeyValue contextKeyValue);
+
+  List<ContextKeyValue> getByContextType(ContextType contextType);
+
+  List<ContextKeyValue> getByContextScope(ContextScope contextScope);
+
+  /** Values whose key or ContextKey keywords start with the prefix */
+  List<ContextKeyValue> getByPrefix(String prefix);
+
+  /**
+   * Candidates whose key or ContextKey keywords may contain the value, the caller should still
+   * match them.
+   *
+   * @return null if the value is too short to be looked up by tokens
+   */
+  List<ContextKeyValue> getByToken(String value);
+
+  /** The counts below are used to pick the most selective index path before fetching */
+  int countByContextType(ContextType contextType);
+
+  int countByContextScope(ContextScope contextScope);
+
+  /** Counting stops once the count exceeds the limit, as a prefix may cover many terms */
+  int countByPrefix(String prefix, int limit);
+
+  /** @return -1 if the value is too short to be looked up by tokens */
+  int countByToken(String value);
+
+  int size();
 }
@@ -17,11 +17,17 @@
 
 package org.apache.linkis.cs.contextcache.index;
 
+import org.apache.linkis.cs.common.entity.enumeration.ContextScope;
 import org.apache.linkis.cs.common.entity.enumeration.ContextType;
 import org.apache.linkis.cs.common.entity.source.ContextKey;
+import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
+
+import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,8 +36,38 @@ public class ContextInvertedIndexSetImpl implements ContextInvertedIndexSet {
 
   private static final Logger logger = LoggerFactory.getLogger(ContextInvertedIndexSetImpl.class);
 
+  /** Length of the tokens cut from the key and ContextKey keywords */
+  public static final int TOKEN_LENGTH = 3;
+
   private Map<String, ContextInvertedIndex> invertedIndexMap = new ConcurrentHashMap<>();
 
+  /**
+   * Attribute index of the values, the values are compared by identity so that an updated value
+   * is indexed apart from the one it replaced. 属性索引，按对象引用区分新旧值
+   */
+  private final Map<ContextKeyValue, IndexedTerms> indexedValues = new IdentityHashMap<>();
+
+  private final Map<ContextType, Set<ContextKeyValue>> typeIndex = new HashMap<>();
+
+  private final Map<ContextScope, Set<ContextKeyValue>> scopeIndex = new HashMap<>();
+
+  private final TreeMap<String, Set<ContextKeyValue>> prefixIndex = new TreeMap<>();
+
+  private final Map<String, Set<ContextKeyValue>> tokenIndex = new HashMap<>();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private static class IndexedTerms {
+
+    ContextType contextType;
+
+    ContextScope contextScope;
+
+    Set<String> terms = new HashSet<>();
+
+    Set<String> tokens = new HashSet<>();
+  }
+
   @Override
   public ContextInvertedIndex getContextInvertedIndex(ContextType contextType) {
     String csType = contextType.name();
@@ -77,6 +113,243 @@ public class ContextInvertedIndexSetImpl implements ContextInvertedIndexSet {
 
   @Override
   public ContextInvertedIndex removeAll(ContextType contextType) {
+    lock.writeLock().lock();
+    try {
+      Set<ContextKeyValue> values = typeIndex.get(getContextType(contextType));
+      if (values != null) {
+        for (ContextKeyValue contextKeyValue : new ArrayList<>(values)) {
+          removeIndexedValue(contextKeyValue);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
     return invertedIndexMap.remove(contextType.name());
   }
+
+  @Override
+  public void addContextKeyValue(ContextKeyValue contextKeyValue) {
+    if (contextKeyValue == null
+        || contextKeyValue.getContextKey() == null
+        || StringUtils.isBlank(contextKeyValue.getContextKey().getKey())) {
+      return;
+    }
+    ContextKey contextKey = contextKeyValue.getContextKey();
+    IndexedTerms indexedTerms = new IndexedTerms();
+    indexedTerms.contextType = getContextType(contextKey.getContextType());
+    indexedTerms.contextScope = contextKey.getContextScope();
+    indexedTerms.terms.add(contextKey.getKey());
+    if (StringUtils.isNotEmpty(contextKey.getKeywords())) {
+      indexedTerms.terms.add(contextKey.getKeywords());
+    }
+    for (String term : indexedTerms.terms) {
+      for (int i = 0; i + TOKEN_LENGTH <= term.length(); i++) {
+        indexedTerms.tokens.add(term.substring(i, i + TOKEN_LENGTH));
+      }
+    }
+    lock.writeLock().lock();
+    try {
+      removeIndexedValue(contextKeyValue);
+      indexedValues.put(contextKeyValue, indexedTerms);
+      addPosting(typeIndex, indexedTerms.contextType, contextKeyValue);
+      if (indexedTerms.contextScope != null) {
+        addPosting(scopeIndex, indexedTerms.contextScope, contextKeyValue);
+      }
+      for (String term : indexedTerms.terms) {
+        addPosting(prefixIndex, term, contextKeyValue);
+      }
+      for (String token : indexedTerms.tokens) {
+        addPosting(tokenIndex, token, contextKeyValue);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeContextKeyValue(ContextKeyValue contextKeyValue) {
+    if (contextKeyValue == null) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      removeIndexedValue(contextKeyValue);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ContextKeyValue> getByContextType(ContextType contextType) {
+    lock.readLock().lock();
+    try {
+      return copyOf(typeIndex.get(getContextType(contextType)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ContextKeyValue> getByContextScope(ContextScope contextScope) {
+    lock.readLock().lock();
+    try {
+      return copyOf(scopeIndex.get(contextScope));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ContextKeyValue> getByPrefix(String prefix) {
+    Set<ContextKeyValue> result = newValueSet();
+    lock.readLock().lock();
+    try {
+      for (Map.Entry<String, Set<ContextKeyValue>> entry :
+          prefixIndex.tailMap(prefix, true).entrySet()) {
+        if (!entry.getKey().startsWith(prefix)) {
+          break;
+        }
+        result.addAll(entry.getValue());
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return new ArrayList<>(result);
+  }
+
+  @Override
+  public List<ContextKeyValue> getByToken(String value) {
+    if (value == null || value.length() < TOKEN_LENGTH) {
+      return null;
+    }
+    lock.readLock().lock();
+    try {
+      return copyOf(getTokenPosting(value));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int countByContextType(ContextType contextType) {
+    lock.readLock().lock();
+    try {
+      return sizeOf(typeIndex.get(getContextType(contextType)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int countByContextScope(ContextScope contextScope) {
+    lock.readLock().lock();
+    try {
+      return sizeOf(scopeIndex.get(contextScope));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int countByPrefix(String prefix, int limit) {
+    int count = 0;
+    lock.readLock().lock();
+    try {
+      for (Map.Entry<String, Set<ContextKeyValue>> entry :
+          prefixIndex.tailMap(prefix, true).entrySet()) {
+        if (!entry.getKey().startsWith(prefix) || count > limit) {
+          break;
+        }
+        count += entry.getValue().size();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    return count;
+  }
+
+  @Override
+  public int countByToken(String value) {
+    if (value == null || value.length() < TOKEN_LENGTH) {
+      return -1;
+    }
+    lock.readLock().lock();
+    try {
+      return sizeOf(getTokenPosting(value));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return indexedValues.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private ContextType getContextType(ContextType contextType) {
+    // same as ContextValueMapSetImpl
+    return contextType == null ? ContextType.METADATA : contextType;
+  }
+
+  /** The smallest posting of the tokens of the value, null if one of the tokens is not indexed */
+  private Set<ContextKeyValue> getTokenPosting(String value) {
+    Set<ContextKeyValue> smallest = null;
+    for (int i = 0; i + TOKEN_LENGTH <= value.length(); i++) {
+      Set<ContextKeyValue> posting = tokenIndex.get(value.substring(i, i + TOKEN_LENGTH));
+      if (posting == null) {
+        return null;
+      }
+      if (smallest == null || posting.size() < smallest.size()) {
+        smallest = posting;
+      }
+    }
+    return smallest;
+  }
+
+  private void removeIndexedValue(ContextKeyValue contextKeyValue) {
+    IndexedTerms indexedTerms = indexedValues.remove(contextKeyValue);
+    if (indexedTerms == null) {
+      return;
+    }
+    removePosting(typeIndex, indexedTerms.contextType, contextKeyValue);
+    if (indexedTerms.contextScope != null) {
+      removePosting(scopeIndex, indexedTerms.contextScope, contextKeyValue);
+    }
+    for (String term : indexedTerms.terms) {
+      removePosting(prefixIndex, term, contextKeyValue);
+    }
+    for (String token : indexedTerms.tokens) {
+      removePosting(tokenIndex, token, contextKeyValue);
+    }
+  }
+
+  private static <K> void addPosting(
+      Map<K, Set<ContextKeyValue>> index, K term, ContextKeyValue contextKeyValue) {
+    index.computeIfAbsent(term, k -> newValueSet()).add(contextKeyValue);
+  }
+
+  private static <K> void removePosting(
+      Map<K, Set<ContextKeyValue>> index, K term, ContextKeyValue contextKeyValue) {
+    Set<ContextKeyValue> posting = index.get(term);
+    if (posting != null && posting.remove(contextKeyValue) && posting.isEmpty()) {
+      index.remove(term);
+    }
+  }
+
+  private static Set<ContextKeyValue> newValueSet() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  private static List<ContextKeyValue> copyOf(Set<ContextKeyValue> values) {
+    return values == null ? new ArrayList<>() : new ArrayList<>(values);
+  }
+
+  private static int sizeOf(Set<ContextKeyValue> values) {
+    return values == null ? 0 : values.size();
+  }
 }
@@ -21,7 +21,9 @@ import org.apache.linkis.cs.common.entity.source.ContextID;
 import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
 import org.apache.linkis.cs.condition.Condition;
 import org.apache.linkis.cs.contextcache.ContextCacheService;
+import org.apache.linkis.cs.contextcache.conf.ContextCacheConf;
 import org.apache.linkis.cs.execution.fetcher.ContextCacheFetcher;
+import org.apache.linkis.cs.execution.fetcher.IndexContextCacheFetcher;
 import org.apache.linkis.cs.execution.matcher.ContextSearchMatcher;
 import org.apache.linkis.cs.execution.ruler.ContextSearchRuler;
 import org.apache.linkis.cs.optimize.ConditionOptimizer;
@@ -52,6 +54,13 @@ public abstract class AbstractConditionExecution implements ConditionExecution {
     if (needOptimization()) {
       OptimizedCondition optimizedCondition = getConditionOptimizer().optimize(condition);
     }
+    ContextCacheFetcher indexFetcher = getIndexFetcher();
+    if (indexFetcher != null) {
+      List<ContextKeyValue> candidates = indexFetcher.fetch(contextID);
+      if (candidates != null) {
+        return candidates.isEmpty() ? candidates : getContextSearchRuler().rule(candidates);
+      }
+    }
     ContextCacheFetcher fastFetcher = getFastFetcher();
     if (fastFetcher != null) {
       return getContextSearchRuler().rule(fastFetcher.fetch(contextID));
@@ -64,6 +73,17 @@ public abstract class AbstractConditionExecution implements ConditionExecution {
 
   protected abstract ContextCacheFetcher getFastFetcher();
 
+  /**
+   * Fetcher which plans the condition on the index of the context, its values are ruled by the
+   * ContextSearchRuler. If it fetches null the fast fetcher or the ContextCacheFetcher is used.
+   */
+  protected ContextCacheFetcher getIndexFetcher() {
+    if (!ContextCacheConf.SEARCH_INDEX_ENABLED) {
+      return null;
+    }
+    return new IndexContextCacheFetcher(contextCacheService, condition, null);
+  }
+
   @Override
   public ContextSearchMatcher getContextSearchMatcher() {
     return this.contextSearchMatcher;
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.cs.execution.fetcher;
+
+import org.apache.linkis.cs.common.entity.enumeration.ContextScope;
+import org.apache.linkis.cs.common.entity.enumeration.ContextType;
+import org.apache.linkis.cs.common.entity.source.ContextID;
+import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
+import org.apache.linkis.cs.condition.Condition;
+import org.apache.linkis.cs.condition.impl.*;
+import org.apache.linkis.cs.contextcache.ContextCacheService;
+import org.apache.linkis.cs.contextcache.conf.ContextCacheConf;
+import org.apache.linkis.cs.contextcache.index.ContextInvertedIndexSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Plan the condition on the ContextInvertedIndexSet of the context and fetch the values of the most
+ * selective index path. The fetched values are a superset of the matched ones and should still be
+ * ruled by the matcher. Null is returned if no index path is selective enough for the condition,
+ * in which case the caller falls back to iterating all the values.
+ */
+public class IndexContextCacheFetcher extends AbstractContextCacheFetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(IndexContextCacheFetcher.class);
+
+  private static final String REGEX_CLASS_ESCAPES = "dDsSwWbBAGZzhHvVR";
+
+  Condition condition;
+
+  ContextType contextType;
+
+  /**
+   * @param contextType
+   *   the contextType already taken off the condition by the fast fetcher of a logic condition,
+   *   may be null
+   */
+  public IndexContextCacheFetcher(
+      ContextCacheService contextCacheService, Condition condition, ContextType contextType) {
+    super(contextCacheService);
+    this.condition = condition;
+    this.contextType = contextType;
+  }
+
+  @Override
+  public List<ContextKeyValue> fetch(ContextID contextID) {
+    ContextInvertedIndexSet indexSet = contextCacheService.getContextInvertedIndexSet(contextID);
+    if (indexSet == null) {
+      return null;
+    }
+    int maxCount = (int) (indexSet.size() * ContextCacheConf.SEARCH_INDEX_MAX_RATIO);
+    IndexPath indexPath = plan(indexSet, condition, maxCount);
+    if (indexPath == null
+        || indexPath.count > maxCount
+        || (contextType != null && indexPath.count >= indexSet.countByContextType(contextType))) {
+      return null;
+    }
+    List<ContextKeyValue> candidates = indexPath.fetcher.get();
+    if (contextType != null) {
+      candidates.removeIf(
+          contextKeyValue -> {
+            ContextType valueType = contextKeyValue.getContextKey().getContextType();
+            return contextType != (valueType == null ? ContextType.METADATA : valueType);
+          });
+    }
+    logger.debug(
+        "Fetched {} of {} values from index of contextID({})",
+        candidates.size(),
+        indexSet.size(),
+        contextID.getContextId());
+    return candidates;
+  }
+
+  /** @return the most selective index path, or null if the condition can not use the index */
+  private IndexPath plan(ContextInvertedIndexSet indexSet, Condition condition, int maxCount) {
+    if (condition instanceof ContextTypeCondition) {
+      ContextType type = ((ContextTypeCondition) condition).getContextType();
+      return new IndexPath(
+          indexSet.countByContextType(type), () -> indexSet.getByContextType(type));
+    } else if (condition instanceof ContextScopeCondition) {
+      ContextScope scope = ((ContextScopeCondition) condition).getContextScop();
+      return new IndexPath(
+          indexSet.countByContextScope(scope), () -> indexSet.getByContextScope(scope));
+    } else if (condition instanceof ContainsCondition) {
+      return planToken(indexSet, ((ContainsCondition) condition).getValue());
+    } else if (condition instanceof RegexCondition) {
+      String[] literals = getRegexLiterals(((RegexCondition) condition).getRegex());
+      if (literals == null) {
+        return null;
+      }
+      IndexPath byPrefix = null;
+      if (!literals[0].isEmpty()) {
+        byPrefix =
+            new IndexPath(
+                indexSet.countByPrefix(literals[0], maxCount),
+                () -> indexSet.getByPrefix(literals[0]));
+      }
+      return cheaper(byPrefix, planToken(indexSet, literals[1]));
+    } else if (condition instanceof AndCondition) {
+      // the matcher checks both sides, so fetching the cheaper side is enough
+      AndCondition andCondition = (AndCondition) condition;
+      return cheaper(
+          plan(indexSet, andCondition.getLeft(), maxCount),
+          plan(indexSet, andCondition.getRight(), maxCount));
+    } else if (condition instanceof OrCondition) {
+      OrCondition orCondition = (OrCondition) condition;
+      IndexPath left = plan(indexSet, orCondition.getLeft(), maxCount);
+      IndexPath right = left == null ? null : plan(indexSet, orCondition.getRight(), maxCount);
+      if (right == null) {
+        return null;
+      }
+      return new IndexPath(
+          left.count + right.count,
+          () -> {
+            Set<ContextKeyValue> union = Collections.newSetFromMap(new IdentityHashMap<>());
+            union.addAll(left.fetcher.get());
+            union.addAll(right.fetcher.get());
+            return new ArrayList<>(union);
+          });
+    } else if (condition instanceof NearestCondition) {
+      return plan(indexSet, ((NearestCondition) condition).getOrigin(), maxCount);
+    }
+    // null(taken off by the fast fetcher), Not and ContextValueType conditions
+    return null;
+  }
+
+  private IndexPath planToken(ContextInvertedIndexSet indexSet, String value) {
+    int count = indexSet.countByToken(value);
+    return count < 0 ? null : new IndexPath(count, () -> indexSet.getByToken(value));
+  }
+
+  private static IndexPath cheaper(IndexPath left, IndexPath right) {
+    if (left == null) {
+      return right;
+    } else if (right == null) {
+      return left;
+    } else {
+      return left.count <= right.count ? left : right;
+    }
+  }
+
+  private static class IndexPath {
+
+    final int count;
+
+    final Supplier<List<ContextKeyValue>> fetcher;
+
+    IndexPath(int count, Supplier<List<ContextKeyValue>> fetcher) {
+      this.count = count;
+      this.fetcher = fetcher;
+    }
+  }
+
+  /**
+   * Get the literal the input must start with and the longest literal the input must contain to
+   * match the regex, alternations, groups and unknown escapes are not supported.
+   *
+   * @return {prefix, longest literal} or null if the regex is not supported
+   */
+  static String[] getRegexLiterals(String regex) {
+    if (regex == null || regex.contains("|") || regex.contains("(")) {
+      return null;
+    }
+    boolean anchored = regex.startsWith("^");
+    String prefix = null;
+    String longest = "";
+    StringBuilder run = new StringBuilder();
+    int i = anchored ? 1 : 0;
+    while (i <= regex.length()) {
+      char c = i < regex.length() ? regex.charAt(i) : '$';
+      boolean endRun = true;
+      if (c == '\\' && i + 1 < regex.length()) {
+        char escaped = regex.charAt(i + 1);
+        if (Character.isLetterOrDigit(escaped)) {
+          if (REGEX_CLASS_ESCAPES.indexOf(escaped) < 0) {
+            return null;
+          }
+        } else {
+          run.append(escaped);
+          endRun = false;
+        }
+        i += 2;
+      } else if (c == '[') {
+        // skip the character class
+        i++;
+        while (i < regex.length() && regex.charAt(i) != ']') {
+          i += regex.charAt(i) == '\\' ? 2 : 1;
+        }
+        i++;
+      } else if (c == '?' || c == '*' || c == '{') {
+        // the last char is optional
+        if (run.length() > 0) {
+          run.setLength(run.length() - 1);
+        }
+        if (c == '{') {
+          i = regex.indexOf('}', i);
+          if (i < 0) {
+            return null;
+          }
+        }
+        i++;
+      } else if (c == '+' || c == '.' || c == '^' || c == '$' || c == '\\') {
+        i++;
+      } else {
+        run.append(c);
+        endRun = false;
+        i++;
+      }
+      if (endRun) {
+        if (prefix == null) {
+          prefix = anchored ? run.toString() : "";
+        }
+        if (run.length() > longest.length()) {
+          longest = run.toString();
+        }
+        run.setLength(0);
+      }
+    }
+    return new String[] {prefix, longest};
+  }
+}
@@ -17,19 +17,24 @@
 
 package org.apache.linkis.cs.execution.impl;
 
+import org.apache.linkis.cs.common.entity.enumeration.ContextType;
 import org.apache.linkis.cs.common.entity.source.ContextID;
 import org.apache.linkis.cs.condition.BinaryLogicCondition;
 import org.apache.linkis.cs.condition.Condition;
 import org.apache.linkis.cs.condition.impl.ContextTypeCondition;
 import org.apache.linkis.cs.contextcache.ContextCacheService;
+import org.apache.linkis.cs.contextcache.conf.ContextCacheConf;
 import org.apache.linkis.cs.execution.AbstractConditionExecution;
 import org.apache.linkis.cs.execution.fetcher.ContextCacheFetcher;
 import org.apache.linkis.cs.execution.fetcher.ContextTypeContextSearchFetcher;
+import org.apache.linkis.cs.execution.fetcher.IndexContextCacheFetcher;
 
 public abstract class BinaryLogicConditionExecution extends AbstractConditionExecution {
 
   ContextCacheFetcher fastFetcher;
 
+  ContextType fastContextType;
+
   public BinaryLogicConditionExecution(
       BinaryLogicCondition condition,
       ContextCacheService contextCacheService,
@@ -37,6 +42,7 @@ public abstract class BinaryLogicConditionExecution extends AbstractConditionExe
     super(condition, contextCacheService, contextID);
     ContextTypeCondition contextTypeCondition = findFastCondition(condition.getLeft(), condition);
     if (contextTypeCondition != null) {
+      fastContextType = contextTypeCondition.getContextType();
       fastFetcher =
           new ContextTypeContextSearchFetcher(
               contextCacheService, contextTypeCondition.getContextType());
@@ -61,6 +67,15 @@ public abstract class BinaryLogicConditionExecution extends AbstractConditionExe
     return fastFetcher;
   }
 
+  @Override
+  protected ContextCacheFetcher getIndexFetcher() {
+    if (!ContextCacheConf.SEARCH_INDEX_ENABLED) {
+      return null;
+    }
+    // the ContextTypeCondition has been taken off the condition
+    return new IndexContextCacheFetcher(contextCacheService, condition, fastContextType);
+  }
+
   @Override
   protected boolean needOptimization() {
     return true;
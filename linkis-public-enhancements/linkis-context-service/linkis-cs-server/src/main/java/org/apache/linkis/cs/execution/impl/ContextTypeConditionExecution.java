@@ -48,4 +48,10 @@ public class ContextTypeConditionExecution extends AbstractConditionExecution {
   protected ContextCacheFetcher getFastFetcher() {
     return null;
   }
+
+  @Override
+  protected ContextCacheFetcher getIndexFetcher() {
+    // values are already grouped by contextType in the cache
+    return null;
+  }
 }
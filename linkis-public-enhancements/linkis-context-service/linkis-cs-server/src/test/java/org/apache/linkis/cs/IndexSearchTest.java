@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.cs;
+
+import org.apache.linkis.cs.common.entity.enumeration.ContextScope;
+import org.apache.linkis.cs.common.entity.enumeration.ContextType;
+import org.apache.linkis.cs.common.entity.source.ContextID;
+import org.apache.linkis.cs.common.entity.source.ContextKey;
+import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
+import org.apache.linkis.cs.condition.Condition;
+import org.apache.linkis.cs.condition.construction.ConditionBuilder;
+import org.apache.linkis.cs.condition.impl.ContainsCondition;
+import org.apache.linkis.cs.condition.impl.ContextScopeCondition;
+import org.apache.linkis.cs.condition.impl.ContextTypeCondition;
+import org.apache.linkis.cs.condition.impl.RegexCondition;
+import org.apache.linkis.cs.contextcache.ContextCacheService;
+import org.apache.linkis.cs.contextcache.index.ContextInvertedIndexSet;
+import org.apache.linkis.cs.contextcache.index.ContextInvertedIndexSetImpl;
+import org.apache.linkis.cs.csid.TestContextID;
+import org.apache.linkis.cs.exception.ContextSearchFailedException;
+import org.apache.linkis.cs.keyword.TestContextKey;
+import org.apache.linkis.cs.keyword.TestContextKeyValue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IndexSearchTest {
+
+  private static final Logger logger = LoggerFactory.getLogger(IndexSearchTest.class);
+
+  private final ContextSearch contextSearch = new DefaultContextSearch();
+
+  private final ContextID contextID = new TestContextID();
+
+  {
+    contextID.setContextId("id");
+  }
+
+  private List<ContextKeyValue> newValues(int size) {
+    Random random = new Random(size);
+    List<ContextKeyValue> contextKeyValues = Lists.newArrayList();
+    for (int i = 0; i < size; i++) {
+      ContextKey contextKey = new TestContextKey();
+      contextKey.setKey("node.sql_" + random.nextInt(100) + ".table.t_" + i);
+      if (random.nextBoolean()) {
+        contextKey.setKeywords("db_" + random.nextInt(20) + ",t_" + i);
+      }
+      contextKey.setContextType(random.nextBoolean() ? ContextType.METADATA : ContextType.DATA);
+      contextKey.setContextScope(random.nextBoolean() ? ContextScope.PUBLIC : ContextScope.PRIVATE);
+      ContextKeyValue contextKeyValue = new TestContextKeyValue();
+      contextKeyValue.setContextKey(contextKey);
+      contextKeyValues.add(contextKeyValue);
+    }
+    return contextKeyValues;
+  }
+
+  private ContextCacheService mockService(
+      List<ContextKeyValue> contextKeyValues, boolean withIndex) {
+    ContextCacheService contextCacheService = Mockito.mock(ContextCacheService.class);
+    Mockito.when(contextCacheService.getAll(Mockito.any(ContextID.class)))
+        .thenReturn(contextKeyValues);
+    for (ContextType contextType : ContextType.values()) {
+      List<ContextKeyValue> values =
+          contextKeyValues.stream()
+              .filter(kv -> kv.getContextKey().getContextType() == contextType)
+              .collect(Collectors.toList());
+      Mockito.when(contextCacheService.getAllByType(Mockito.any(), Mockito.eq(contextType)))
+          .thenReturn(values);
+    }
+    if (withIndex) {
+      ContextInvertedIndexSet indexSet = new ContextInvertedIndexSetImpl();
+      contextKeyValues.forEach(indexSet::addContextKeyValue);
+      Mockito.when(contextCacheService.getContextInvertedIndexSet(Mockito.any(ContextID.class)))
+          .thenReturn(indexSet);
+    }
+    return contextCacheService;
+  }
+
+  private List<String> search(ContextCacheService contextCacheService, Condition condition)
+      throws ContextSearchFailedException {
+    return contextSearch.search(contextCacheService, contextID, condition).stream()
+        .map(contextKeyValue -> contextKeyValue.getContextKey().getKey())
+        .sorted(Comparator.naturalOrder())
+        .collect(Collectors.toList());
+  }
+
+  private List<Supplier<Condition>> conditions() {
+    // the conditions are rebuilt for each search as the executions may modify them
+    return Lists.newArrayList(
+        () -> new ContainsCondition("t_12"),
+        () -> new ContainsCondition("db_3"),
+        () -> new RegexCondition("^node\\.sql_1\\."),
+        () -> new RegexCondition("sql_4.\\.table\\.t_1+"),
+        () -> new RegexCondition("t_[0-9]{3}$"),
+        () -> new ContextScopeCondition(ContextScope.PUBLIC),
+        () ->
+            new ContextTypeCondition(ContextType.METADATA)
+                .and(new ContainsCondition("t_12"))
+                .and(new ContextScopeCondition(ContextScope.PRIVATE)),
+        () -> new ContainsCondition("t_12").or(new RegexCondition("^db_1")),
+        () -> new ContainsCondition("sql_1").and(new ContainsCondition("t_1").not()),
+        () -> ConditionBuilder.newBuilder().contains("t_2").regex("^node.sql_2").build());
+  }
+
+  @Test
+  public void testSameResults() throws ContextSearchFailedException {
+    List<ContextKeyValue> contextKeyValues = newValues(2000);
+    ContextCacheService iterateService = mockService(contextKeyValues, false);
+    ContextCacheService indexService = mockService(contextKeyValues, true);
+    for (Supplier<Condition> condition : conditions()) {
+      List<String> expected = search(iterateService, condition.get());
+      assertEquals(expected, search(indexService, condition.get()));
+    }
+  }
+
+  /**
+   * Compares the average search time of the index plan with the iteration over all the values, for
+   * each condition on contexts of 1k/10k/100k values.
+   */
+  @Test
+  @Tag("benchmark")
+  public void benchmark() throws ContextSearchFailedException {
+    int rounds = 200;
+    for (int size : new int[] {1000, 10000, 100000}) {
+      List<ContextKeyValue> contextKeyValues = newValues(size);
+      ContextCacheService iterateService = mockService(contextKeyValues, false);
+      ContextCacheService indexService = mockService(contextKeyValues, true);
+      for (Supplier<Condition> condition : conditions()) {
+        String name = condition.get().getClass().getSimpleName();
+        long iterateTime = 0;
+        long indexTime = 0;
+        for (int i = 0; i < rounds; i++) {
+          long start = System.nanoTime();
+          search(iterateService, condition.get());
+          iterateTime += System.nanoTime() - start;
+          start = System.nanoTime();
+          search(indexService, condition.get());
+          indexTime += System.nanoTime() - start;
+        }
+        logger.info(
+            "size={} condition={} iterate={}us index={}us",
+            size,
+            name,
+            iterateTime / rounds / 1000,
+            indexTime / rounds / 1000);
+      }
+    }
+  }
+}
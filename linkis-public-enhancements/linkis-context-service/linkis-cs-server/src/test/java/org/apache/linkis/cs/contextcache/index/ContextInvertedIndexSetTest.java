@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.cs.contextcache.index;
+
+import org.apache.linkis.cs.common.entity.enumeration.ContextScope;
+import org.apache.linkis.cs.common.entity.enumeration.ContextType;
+import org.apache.linkis.cs.common.entity.source.ContextKey;
+import org.apache.linkis.cs.common.entity.source.ContextKeyValue;
+import org.apache.linkis.cs.keyword.TestContextKey;
+import org.apache.linkis.cs.keyword.TestContextKeyValue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContextInvertedIndexSetTest {
+
+  private ContextKeyValue newValue(
+      String key, String keywords, ContextType contextType, ContextScope contextScope) {
+    ContextKey contextKey = new TestContextKey();
+    contextKey.setKey(key);
+    contextKey.setKeywords(keywords);
+    contextKey.setContextType(contextType);
+    contextKey.setContextScope(contextScope);
+    ContextKeyValue contextKeyValue = new TestContextKeyValue();
+    contextKeyValue.setContextKey(contextKey);
+    return contextKeyValue;
+  }
+
+  @Test
+  public void testAttributes() {
+    ContextInvertedIndexSet indexSet = new ContextInvertedIndexSetImpl();
+    ContextKeyValue table1 =
+        newValue(
+            "node.sql_1.table.t_user", "db1,t_user", ContextType.METADATA, ContextScope.PUBLIC);
+    ContextKeyValue table2 =
+        newValue("node.sql_2.table.t_order", null, ContextType.METADATA, ContextScope.PRIVATE);
+    ContextKeyValue resource =
+        newValue("node.sql_1.resource.a.jar", null, ContextType.RESOURCE, ContextScope.PUBLIC);
+    indexSet.addContextKeyValue(table1);
+    indexSet.addContextKeyValue(table2);
+    indexSet.addContextKeyValue(resource);
+    assertEquals(3, indexSet.size());
+
+    assertEquals(2, indexSet.getByContextType(ContextType.METADATA).size());
+    assertTrue(indexSet.getByContextType(ContextType.OBJECT).isEmpty());
+    assertEquals(2, indexSet.getByContextScope(ContextScope.PUBLIC).size());
+
+    List<ContextKeyValue> byPrefix = indexSet.getByPrefix("node.sql_1.");
+    assertEquals(2, byPrefix.size());
+    assertTrue(byPrefix.contains(table1) && byPrefix.contains(resource));
+    // keywords are indexed too
+    assertEquals(1, indexSet.getByPrefix("db1").size());
+
+    assertEquals(1, indexSet.getByToken("t_order").size());
+    assertEquals(1, indexSet.getByToken("t_user").size());
+    assertEquals(1, indexSet.getByToken("a.jar").size());
+    assertTrue(indexSet.getByToken("t_none").isEmpty());
+    assertNull(indexSet.getByToken("t_"));
+  }
+
+  @Test
+  public void testUpdateAndRemove() {
+    ContextInvertedIndexSet indexSet = new ContextInvertedIndexSetImpl();
+    ContextKeyValue oldValue =
+        newValue("node.sql_1.table.t_user", null, ContextType.METADATA, ContextScope.PUBLIC);
+    ContextKeyValue newValue =
+        newValue("node.sql_1.table.t_user", null, ContextType.METADATA, ContextScope.PRIVATE);
+    indexSet.addContextKeyValue(oldValue);
+    indexSet.removeContextKeyValue(oldValue);
+    indexSet.addContextKeyValue(newValue);
+    assertEquals(1, indexSet.size());
+    assertTrue(indexSet.getByContextScope(ContextScope.PUBLIC).isEmpty());
+    assertTrue(indexSet.getByToken("t_user").contains(newValue));
+    assertFalse(indexSet.getByToken("t_user").contains(oldValue));
+
+    indexSet.addContextKeyValue(
+        newValue("node.sql_2.cost", null, ContextType.COST, ContextScope.PUBLIC));
+    indexSet.removeAll(ContextType.METADATA);
+    assertEquals(1, indexSet.size());
+    assertTrue(indexSet.getByPrefix("node.sql_1").isEmpty());
+    assertEquals(1, indexSet.getByPrefix("node.sql_2").size());
+  }
+}
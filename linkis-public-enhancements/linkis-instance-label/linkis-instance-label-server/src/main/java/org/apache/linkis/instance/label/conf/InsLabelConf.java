@@ -48,4 +48,11 @@ public class InsLabelConf {
 
   public static final CommonVars<String> SERVICE_REGISTRY_ADDRESS =
       CommonVars.apply("linkis.discovery.server-address", "http://localhost:20303");
+
+  /** Broadcast the label changes of instances to the gateways to refresh their route table */
+  public static final CommonVars<Boolean> GATEWAY_NOTIFY_ENABLED =
+      CommonVars.apply("linkis.instance.label.gateway.notify.enable", true);
+
+  public static final CommonVars<String> GATEWAY_APPLICATION_NAME =
+      CommonVars.apply("linkis.instance.label.gateway.name", "linkis-mg-gateway");
 }
@@ -22,6 +22,7 @@ import org.apache.linkis.common.conf.Configuration;
 import org.apache.linkis.instance.label.entity.InstanceInfo;
 import org.apache.linkis.instance.label.exception.InstanceErrorException;
 import org.apache.linkis.instance.label.service.impl.DefaultInsLabelService;
+import org.apache.linkis.instance.label.service.rpc.InsLabelChangedNotifier;
 import org.apache.linkis.instance.label.utils.EntityParser;
 import org.apache.linkis.instance.label.vo.InstanceInfoVo;
 import org.apache.linkis.manager.label.builder.factory.LabelBuilderFactory;
@@ -151,6 +152,7 @@ public class InstanceRestful {
     InstanceInfo instanceInfo = insLabelService.getInstanceInfoByServiceInstance(instance);
     instanceInfo.setUpdateTime(new Date());
     insLabelService.updateInstance(instanceInfo);
+    InsLabelChangedNotifier.notifyChanged(instance);
     return Message.ok("success").data("labels", labels);
   }
 
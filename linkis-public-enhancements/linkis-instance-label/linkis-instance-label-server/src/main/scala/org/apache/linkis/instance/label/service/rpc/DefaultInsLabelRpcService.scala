@@ -71,6 +71,7 @@ class DefaultInsLabelRpcService extends InsLabelRpcService with Logging {
     logger.info(s"Start to attach labels[$labels] to instance[$instance]")
     insLabelService.attachLabelsToInstance(labels.asJava, instance)
     logger.info(s"Success to attach labels[$labels] to instance[$instance]")
+    InsLabelChangedNotifier.notifyChanged(instance)
   }
 
   @Receiver
@@ -86,6 +87,7 @@ class DefaultInsLabelRpcService extends InsLabelRpcService with Logging {
     logger.info(s"Start to refresh labels[$labels] to instance[$instance]")
     insLabelService.refreshLabelsToInstance(labels, instance)
     logger.info(s"Success to refresh labels[$labels] to instance[$instance]")
+    InsLabelChangedNotifier.notifyChanged(instance)
   }
 
   private def getLabels(labelMap: Option[util.Map[String, Object]]): util.List[Label[_]] = {
@@ -109,6 +111,7 @@ class DefaultInsLabelRpcService extends InsLabelRpcService with Logging {
     insLabelService.removeInstance(instance)
     logger.info(s"Success to remove labels from instance[$instance]")
     logger.info(s"Success to remove instance[$instance]")
+    InsLabelChangedNotifier.notifyChanged(instance)
   }
 
   @Receiver
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.instance.label.service.rpc
+
+import org.apache.linkis.common.ServiceInstance
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.instance.label.conf.InsLabelConf
+import org.apache.linkis.protocol.label.InsLabelChangedBroadcast
+import org.apache.linkis.rpc.Sender
+
+/**
+ * Tell all the gateways that the labels of an instance have changed, the broadcast is delivered
+ * asynchronously and the gateways reload their route table periodically in case it is lost
+ */
+object InsLabelChangedNotifier extends Logging {
+
+  def notifyChanged(serviceInstance: ServiceInstance): Unit =
+    if (InsLabelConf.GATEWAY_NOTIFY_ENABLED.getValue && null != serviceInstance) {
+      Utils.tryAndWarn {
+        Sender
+          .getSender(InsLabelConf.GATEWAY_APPLICATION_NAME.getValue)
+          .deliver(InsLabelChangedBroadcast(serviceInstance))
+      }
+    }
+
+}
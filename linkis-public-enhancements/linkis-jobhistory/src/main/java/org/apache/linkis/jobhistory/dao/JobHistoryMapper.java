@@ -32,6 +32,21 @@ public interface JobHistoryMapper {
 
   void updateJobHistory(JobHistory jobReq);
 
+  /**
+   * Update the job only if its current status is one of the given ones, so that the status check
+   * and the update are done in a single statement without locking the row first
+   *
+   * @param jobHistory
+   * @param statusList the allowed current status, null or empty to skip the check, a job without
+   *     status can always be updated
+   * @param checkUpdateTime only update the job if the persisted update time is not newer
+   * @return the number of updated rows
+   */
+  int updateJobHistoryIfStatusIn(
+      @Param("jobHistory") JobHistory jobHistory,
+      @Param("statusList") List<String> statusList,
+      @Param("checkUpdateTime") boolean checkUpdateTime);
+
   List<JobHistory> searchWithIdOrderAsc(
       @Param("id") Long id,
       @Param("umUser") String username,
@@ -104,6 +119,8 @@ public interface JobHistoryMapper {
 
   String selectJobHistoryStatusForUpdate(Long jobId);
 
+  String selectJobHistoryStatus(Long jobId);
+
   void updateOberverById(@Param("taskid") Long taskid, @Param("observeInfo") String observeInfo);
 
   void updateJobHistoryCancelById(
@@ -42,6 +42,7 @@ import org.apache.linkis.rpc.message.annotation.Receiver
 import org.apache.commons.lang3.StringUtils
 import org.apache.commons.lang3.exception.ExceptionUtils
 import org.apache.commons.lang3.time.DateUtils
+import org.apache.ibatis.session.{ExecutorType, SqlSessionFactory}
 
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.stereotype.Service
@@ -62,6 +63,9 @@ class JobHistoryQueryServiceImpl extends JobHistoryQueryService with Logging {
   @Autowired
   private var jobHistoryMapper: JobHistoryMapper = _
 
+  @Autowired(required = false)
+  private var sqlSessionFactory: SqlSessionFactory = _
+
   private val unDoneTaskCache: Cache[String, Integer] = CacheBuilder
     .newBuilder()
     .concurrencyLevel(5)
@@ -113,16 +117,6 @@ class JobHistoryQueryServiceImpl extends JobHistoryQueryService with Logging {
           logger.info(s"${jobReq.getErrorDesc}")
         }
       }
-      if (jobReq.getStatus != null) {
-        val oldStatus: String = jobHistoryMapper.selectJobHistoryStatusForUpdate(jobReq.getId)
-        if (oldStatus != null && !shouldUpdate(oldStatus, jobReq.getStatus)) {
-          throw new QueryException(
-            120001,
-            s"jobId:${jobReq.getId}，oldStatus(在数据库中的task状态为)：${oldStatus}," +
-              s" newStatus(更新的task状态为)：${jobReq.getStatus}，update failed(更新失败)！"
-          )
-        }
-      }
       val jobUpdate = jobRequest2JobHistory(jobReq)
       if (jobUpdate.getUpdatedTime == null) {
         throw new QueryException(
@@ -134,7 +128,7 @@ class JobHistoryQueryServiceImpl extends JobHistoryQueryService with Logging {
         s"Update data to the database(往数据库中更新数据)：task ${jobReq.getId} ,status ${jobReq.getStatus}," +
           s" updateTime: ${jobUpdate.getUpdateTimeMills}, progress : ${jobUpdate.getProgress}"
       )
-      jobHistoryMapper.updateJobHistory(jobUpdate)
+      updateWithStatusCheck(jobUpdate)
       val map = new util.HashMap[String, Object]
       map.put(JobRequestConstants.JOB_ID, jobReq.getId.asInstanceOf[Object])
       jobResp.setStatus(0)
@@ -162,62 +156,160 @@ class JobHistoryQueryServiceImpl extends JobHistoryQueryService with Logging {
   override def batchChange(jobReqUpdate: JobReqBatchUpdate): util.ArrayList[JobRespProtocol] = {
     val jobReqList = jobReqUpdate.jobReq
     val jobRespList = new util.ArrayList[JobRespProtocol]()
-    if (jobReqList != null) {
-      jobReqList.asScala.foreach(jobReq => {
-        jobReq.setExecutionCode(null)
-        logger.info("Update data to the database(往数据库中更新数据)：status:" + jobReq.getStatus)
-        val jobResp = new JobRespProtocol
-        Utils.tryCatch {
-          if (jobReq.getErrorDesc != null) {
-            if (jobReq.getErrorDesc.length > GovernanceCommonConf.ERROR_CODE_DESC_LEN) {
-              logger.info(s"errorDesc is too long,we will cut some message")
-              jobReq.setErrorDesc(
-                jobReq.getErrorDesc
-                  .substring(0, GovernanceCommonConf.ERROR_CODE_DESC_LEN - 3) + "..."
-              )
-              logger.info(s"${jobReq.getErrorDesc}")
-            }
-          }
-          if (jobReq.getStatus != null) {
-            val oldStatus: String = jobHistoryMapper.selectJobHistoryStatusForUpdate(jobReq.getId)
-            if (oldStatus != null && !shouldUpdate(oldStatus, jobReq.getStatus)) {
-              throw new QueryException(
-                120001,
-                s"jobId:${jobReq.getId}，oldStatus(在数据库中的task状态为)：${oldStatus}，" +
-                  s"newStatus(更新的task状态为)：${jobReq.getStatus}，update failed(更新失败)！"
-              )
-            }
-          }
-          val jobUpdate = jobRequest2JobHistory(jobReq)
-          jobUpdate.setUpdatedTime(new Timestamp(System.currentTimeMillis()))
-          jobHistoryMapper.updateJobHistory(jobUpdate)
-
-          // todo
-          /* //to write cache
-            if (TaskStatus.Succeed.toString.equals(jobReq.getStatus) && queryCacheService.needCache(jobReq)) {
-              info("Write cache for task: " + jobReq.getId)
-              jobReq.setExecutionCode(executionCode)
-              queryCacheService.writeCache(jobReq)
-            } */
-
-          val map = new util.HashMap[String, Object]
-          map.put(JobRequestConstants.JOB_ID, jobReq.getId.asInstanceOf[Object])
-          jobResp.setStatus(0)
-          jobResp.setData(map)
-        } { case e: Exception =>
+    if (jobReqList == null || jobReqList.isEmpty) return jobRespList
+    logger.info(s"Batch update ${jobReqList.size()} jobs to the database(批量更新数据库中的任务)")
+    val jobUpdates = jobReqList.asScala.map { jobReq =>
+      jobReq.setExecutionCode(null)
+      if (jobReq.getErrorDesc != null) {
+        if (jobReq.getErrorDesc.length > GovernanceCommonConf.ERROR_CODE_DESC_LEN) {
+          logger.info(s"errorDesc is too long,we will cut some message")
+          jobReq.setErrorDesc(
+            jobReq.getErrorDesc
+              .substring(0, GovernanceCommonConf.ERROR_CODE_DESC_LEN - 3) + "..."
+          )
+        }
+      }
+      val jobUpdate = jobRequest2JobHistory(jobReq)
+      // keep the time of the client, so that the updates are ordered by the same clock
+      if (jobUpdate.getUpdatedTime == null) {
+        jobUpdate.setUpdatedTime(new Timestamp(System.currentTimeMillis()))
+      }
+      jobUpdate
+    }
+    val updateCounts =
+      if (sqlSessionFactory != null && jobUpdates.size > 1) {
+        Utils.tryCatch(batchUpdateWithStatusCheck(jobUpdates)) { t =>
+          logger.warn("Failed to batch update jobs, update them one by one", t)
+          null
+        }
+      } else null
+    jobUpdates.zipWithIndex.foreach { case (jobUpdate, index) =>
+      val jobResp = new JobRespProtocol
+      Utils.tryCatch {
+        if (updateCounts == null) {
+          updateWithStatusCheck(jobUpdate)
+        } else if (updateCounts(index) == 0) {
+          checkStatusRejected(jobUpdate)
+        }
+        val map = new util.HashMap[String, Object]
+        map.put(JobRequestConstants.JOB_ID, jobUpdate.getId.asInstanceOf[Object])
+        jobResp.setStatus(0)
+        jobResp.setData(map)
+      } {
+        case e: QueryException =>
+          logger.warn(s"Failed to update job ${jobUpdate.getId}: ${e.getMessage}")
+          jobResp.setStatus(1)
+          jobResp.setMsg(ExceptionUtils.getRootCauseMessage(e))
+        case e: Exception =>
           logger.error(
-            s"Failed to update JobReqUpdate ${jobReq.getId},status ${jobReq.getStatus}",
+            s"Failed to update JobReqUpdate ${jobUpdate.getId},status ${jobUpdate.getStatus}",
             e
           )
-          jobResp.setStatus(1)
+          jobResp.setStatus(2)
           jobResp.setMsg(ExceptionUtils.getRootCauseMessage(e))
-        }
-        jobRespList.add(jobResp)
-      })
+      }
+      jobRespList.add(jobResp)
     }
     jobRespList
   }
 
+  /**
+   * The status a job may be in to be updated to newStatus, see shouldUpdate
+   * 可以更新为newStatus的原状态
+   */
+  private def allowedOldStatus(newStatus: String): util.List[String] =
+    TaskStatus
+      .values()
+      .filter(old => shouldUpdate(old.name(), newStatus))
+      .map(_.name())
+      .toList
+      .asJava
+
+  /**
+   * A terminal status is ordered by the status transition only, since its update time may be
+   * earlier than the one of a previous update, e.g. sent by another clock
+   */
+  private def isTerminalUpdate(jobUpdate: JobHistory): Boolean =
+    jobUpdate.getStatus != null && TaskStatus.isComplete(TaskStatus.valueOf(jobUpdate.getStatus))
+
+  /**
+   * Update the job by a single conditional statement instead of locking the row to check the
+   * status first, the status is only read again if no row is updated
+   */
+  private def updateWithStatusCheck(jobUpdate: JobHistory): Unit = {
+    val statusList =
+      if (jobUpdate.getStatus != null) allowedOldStatus(jobUpdate.getStatus) else null
+    val updated =
+      jobHistoryMapper.updateJobHistoryIfStatusIn(
+        jobUpdate,
+        statusList,
+        !isTerminalUpdate(jobUpdate)
+      )
+    if (updated == 0) {
+      checkStatusRejected(jobUpdate)
+    }
+  }
+
+  /**
+   * No row updated means the job does not exist, the update is older than the persisted one, or
+   * the status transition is rejected. A rejected transition and a lost terminal status are
+   * errors, a stale update is only logged.
+   */
+  private def checkStatusRejected(jobUpdate: JobHistory): Unit = {
+    val oldStatus =
+      if (jobUpdate.getStatus != null) jobHistoryMapper.selectJobHistoryStatus(jobUpdate.getId)
+      else null
+    if (oldStatus != null && !shouldUpdate(oldStatus, jobUpdate.getStatus)) {
+      throw new QueryException(
+        120001,
+        s"jobId:${jobUpdate.getId}，oldStatus(在数据库中的task状态为)：${oldStatus}，" +
+          s"newStatus(更新的task状态为)：${jobUpdate.getStatus}，update failed(更新失败)！"
+      )
+    }
+    if (isTerminalUpdate(jobUpdate)) {
+      throw new QueryException(
+        120001,
+        s"jobId:${jobUpdate.getId}，newStatus(更新的task状态为)：${jobUpdate.getStatus}，" +
+          "no job is updated(没有更新任何任务)！"
+      )
+    }
+    logger.warn(
+      s"Job ${jobUpdate.getId} is not updated, the update at ${jobUpdate.getUpdateTimeMills} " +
+        "is older than the persisted one"
+    )
+  }
+
+  /**
+   * Send the conditional updates in one JDBC batch
+   *
+   * @return
+   *   the updated rows of each job, in the order of jobUpdates
+   */
+  private def batchUpdateWithStatusCheck(jobUpdates: Seq[JobHistory]): Array[Int] = {
+    val sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH, false)
+    Utils.tryFinally {
+      val mapper = sqlSession.getMapper(classOf[JobHistoryMapper])
+      jobUpdates.foreach { jobUpdate =>
+        val statusList =
+          if (jobUpdate.getStatus != null) allowedOldStatus(jobUpdate.getStatus) else null
+        mapper.updateJobHistoryIfStatusIn(jobUpdate, statusList, !isTerminalUpdate(jobUpdate))
+      }
+      val updateCounts = sqlSession.flushStatements().asScala.flatMap(_.getUpdateCounts).toArray
+      if (updateCounts.length != jobUpdates.size) {
+        sqlSession.rollback()
+        throw new QueryException(
+          120001,
+          s"Batch update returns ${updateCounts.length} results for ${jobUpdates.size} jobs"
+        )
+      }
+      sqlSession.commit()
+      // the driver may not tell the updated rows(SUCCESS_NO_INFO), take them as updated
+      updateCounts.map(count => if (count == java.sql.Statement.SUCCESS_NO_INFO) 1 else count)
+    } {
+      sqlSession.close()
+    }
+  }
+
   @Receiver
   override def query(jobReqQuery: JobReqQuery): JobRespProtocol = {
     logger.info("query history task：" + jobReqQuery.toString)
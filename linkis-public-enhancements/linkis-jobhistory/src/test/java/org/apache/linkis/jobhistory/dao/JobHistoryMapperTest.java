@@ -22,6 +22,7 @@ import org.apache.linkis.jobhistory.entity.JobHistory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -92,6 +93,76 @@ public class JobHistoryMapperTest extends BaseDaoTest {
     Assertions.assertEquals("LINKISCLI_hadoop_spark_1", histories.get(0).getJobReqId());
   }
 
+  @Test
+  @DisplayName("updateJobHistoryIfStatusInTest")
+  public void updateJobHistoryIfStatusInTest() {
+    JobHistory jobHistory = new JobHistory();
+    jobHistory.setId(1L);
+    jobHistory.setStatus("Running");
+    jobHistory.setUpdatedTime(new Date());
+    int count =
+        jobHistoryMapper.updateJobHistoryIfStatusIn(
+            jobHistory, Arrays.asList("Inited", "Scheduled", "Running"), true);
+    Assertions.assertEquals(0, count);
+    Assertions.assertEquals("Succeed", jobHistoryMapper.selectJobHistoryStatus(1L));
+
+    jobHistory.setStatus("Succeed");
+    jobHistory.setProgress("1.0");
+    count =
+        jobHistoryMapper.updateJobHistoryIfStatusIn(jobHistory, Arrays.asList("Succeed"), true);
+    Assertions.assertEquals(1, count);
+  }
+
+  @Test
+  @DisplayName("terminalUpdateWithOlderTimeTest")
+  public void terminalUpdateWithOlderTimeTest() {
+    long now = System.currentTimeMillis();
+    JobHistory jobHistory = createJobHistory();
+    jobHistory.setStatus("Running");
+    jobHistory.setUpdatedTime(new Date(now));
+    jobHistoryMapper.insertJobHistory(jobHistory);
+
+    // a batched progress update stamped later than the terminal update below
+    JobHistory batched = new JobHistory();
+    batched.setId(jobHistory.getId());
+    batched.setStatus("Running");
+    batched.setProgress("0.5");
+    batched.setUpdatedTime(new Date(now + 10000));
+    Assertions.assertEquals(
+        1,
+        jobHistoryMapper.updateJobHistoryIfStatusIn(
+            batched, Arrays.asList("Inited", "Scheduled", "Running"), true));
+
+    JobHistory terminal = new JobHistory();
+    terminal.setId(jobHistory.getId());
+    terminal.setStatus("Succeed");
+    terminal.setUpdatedTime(new Date(now + 5000));
+    List<String> statusList = Arrays.asList("Inited", "Scheduled", "Running", "Succeed");
+    Assertions.assertEquals(
+        0, jobHistoryMapper.updateJobHistoryIfStatusIn(terminal, statusList, true));
+    Assertions.assertEquals(
+        1, jobHistoryMapper.updateJobHistoryIfStatusIn(terminal, statusList, false));
+    Assertions.assertEquals("Succeed", jobHistoryMapper.selectJobHistoryStatus(terminal.getId()));
+  }
+
+  @Test
+  @DisplayName("updateJobWithoutStatusTest")
+  public void updateJobWithoutStatusTest() {
+    JobHistory jobHistory = createJobHistory();
+    jobHistory.setStatus(null);
+    jobHistoryMapper.insertJobHistory(jobHistory);
+
+    JobHistory update = new JobHistory();
+    update.setId(jobHistory.getId());
+    update.setStatus("Running");
+    update.setUpdatedTime(new Date(System.currentTimeMillis() + 1000));
+    Assertions.assertEquals(
+        1,
+        jobHistoryMapper.updateJobHistoryIfStatusIn(
+            update, Arrays.asList("Inited", "Scheduled", "Running"), true));
+    Assertions.assertEquals("Running", jobHistoryMapper.selectJobHistoryStatus(update.getId()));
+  }
+
   @Test
   @DisplayName("searchWithIdOrderAscTest")
   public void searchWithIdOrderAscTest() {
@@ -31,6 +31,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
@@ -77,6 +78,66 @@ public class JobHistoryQueryServiceTest {
     Assertions.assertNotNull(jobRespProtocol);
   }
 
+  @Test
+  @DisplayName("changeRejectedTest")
+  public void changeRejectedTest() {
+    Mockito.when(
+            jobRequestMapper.updateJobHistoryIfStatusIn(
+                Mockito.any(), Mockito.any(), Mockito.anyBoolean()))
+        .thenReturn(0);
+    Mockito.when(jobRequestMapper.selectJobHistoryStatus(Mockito.any())).thenReturn("Succeed");
+    JobRequest jobRequest = createJobRequest();
+    jobRequest.setId(1L);
+    jobRequest.setStatus("Running");
+    JobRespProtocol jobRespProtocol = jobRequestQueryService.change(new JobReqUpdate(jobRequest));
+    Assertions.assertEquals(1, jobRespProtocol.getStatus());
+  }
+
+  @Test
+  @DisplayName("terminalChangeAfterBatchChangeTest")
+  public void terminalChangeAfterBatchChangeTest() {
+    long now = System.currentTimeMillis();
+    JobRequest running = createJobRequest();
+    running.setId(1L);
+    running.setStatus("Running");
+    running.setUpdatedTime(new Date(now + 10000));
+    jobRequestQueryService.batchChange(
+        new JobReqBatchUpdate(new ArrayList<>(Collections.singletonList(running))));
+    // the batched update keeps the time of the client and is ordered by it
+    Mockito.verify(jobRequestMapper)
+        .updateJobHistoryIfStatusIn(
+            Mockito.argThat(job -> job.getUpdatedTime().getTime() == now + 10000),
+            Mockito.any(),
+            Mockito.eq(true));
+
+    // the terminal update is older, it is ordered by the status transition only
+    Mockito.when(
+            jobRequestMapper.updateJobHistoryIfStatusIn(
+                Mockito.argThat(job -> "Succeed".equals(job.getStatus())),
+                Mockito.any(),
+                Mockito.eq(false)))
+        .thenReturn(1);
+    JobRequest succeed = createJobRequest();
+    succeed.setId(1L);
+    succeed.setUpdatedTime(new Date(now));
+    JobRespProtocol jobRespProtocol = jobRequestQueryService.change(new JobReqUpdate(succeed));
+    Assertions.assertEquals(0, jobRespProtocol.getStatus());
+  }
+
+  @Test
+  @DisplayName("terminalChangeLostTest")
+  public void terminalChangeLostTest() {
+    Mockito.when(
+            jobRequestMapper.updateJobHistoryIfStatusIn(
+                Mockito.any(), Mockito.any(), Mockito.anyBoolean()))
+        .thenReturn(0);
+    Mockito.when(jobRequestMapper.selectJobHistoryStatus(Mockito.any())).thenReturn("Running");
+    JobRequest jobRequest = createJobRequest();
+    jobRequest.setId(1L);
+    JobRespProtocol jobRespProtocol = jobRequestQueryService.change(new JobReqUpdate(jobRequest));
+    Assertions.assertEquals(1, jobRespProtocol.getStatus());
+  }
+
   @Test
   @DisplayName("batchChangeTest")
   public void batchChangeTest() {
@@ -37,6 +37,7 @@ import org.apache.linkis.storage.excel.ExcelFsWriter;
 import org.apache.linkis.storage.excel.ExcelStorageReader;
 import org.apache.linkis.storage.excel.StorageMultiExcelWriter;
 import org.apache.linkis.storage.fs.FileSystem;
+import org.apache.linkis.storage.resultset.ResultSetRowIndex;
 import org.apache.linkis.storage.script.*;
 import org.apache.linkis.storage.source.FileSource;
 import org.apache.linkis.storage.utils.StorageUtils;
@@ -395,6 +396,10 @@ public class FsRestfulApi {
     FsPathListWithError fsPathListWithError = fileSystem.listPathWithError(fsPath);
     if (fsPathListWithError != null) {
       for (FsPath children : fsPathListWithError.getFsPaths()) {
+        // row index of a result set, not shown as a file
+        if (ResultSetRowIndex.isIndexPath(children.getPath())) {
+          continue;
+        }
         DirFileTree dirFileTreeChildren = new DirFileTree();
         dirFileTreeChildren.setName(new File(children.getPath()).getName());
         dirFileTreeChildren.setPath(children.getSchemaPath());
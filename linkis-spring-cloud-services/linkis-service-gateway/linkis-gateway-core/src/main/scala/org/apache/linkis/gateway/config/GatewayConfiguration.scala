@@ -17,7 +17,7 @@
 
 package org.apache.linkis.gateway.config
 
-import org.apache.linkis.common.conf.CommonVars
+import org.apache.linkis.common.conf.{ByteType, CommonVars, TimeType}
 
 object GatewayConfiguration {
 
@@ -108,4 +108,21 @@ object GatewayConfiguration {
 
   val IS_DOWNLOAD = CommonVars("linkis.web.result.set.export.enable", true)
 
+  /**
+   * Parse the request with only a prefix of its body and stream the body to the service, the whole
+   * body is read only for the parsers which cannot work with the prefix
+   */
+  val REQUEST_BODY_STREAMING_ENABLED =
+    CommonVars("linkis.gateway.request.body.streaming.enable", false)
+
+  val REQUEST_BODY_PREFIX_SIZE =
+    CommonVars("linkis.gateway.request.body.prefix.size", new ByteType("64k"))
+
+  /** Route by the label -> instances relations kept in the memory of the gateway */
+  val ROUTE_LABEL_TABLE_ENABLED = CommonVars("linkis.gateway.route.label.table.enable", true)
+
+  /** Interval to reload the whole route label table in case a change broadcast is lost */
+  val ROUTE_LABEL_TABLE_SYNC_INTERVAL =
+    CommonVars("linkis.gateway.route.label.table.sync.interval", new TimeType("30s"))
+
 }
@@ -49,4 +49,10 @@ trait GatewayHttpRequest {
 
   def getRequestBody: String
 
+  /**
+   * False if the request body is only a prefix of the body, the rest of it is streamed to the
+   * service without being read by the gateway
+   */
+  def isRequestBodyComplete: Boolean = true
+
 }
@@ -34,6 +34,16 @@ trait GatewayParser {
 
   def shouldContainRequestBody(gatewayContext: GatewayContext): Boolean
 
+  /**
+   * Called when only a prefix of the request body has been read, the whole body is read only if
+   * the parser cannot work with the prefix
+   * @param gatewayContext
+   *   context with the prefix as request body
+   * @return
+   */
+  def shouldContainFullRequestBody(gatewayContext: GatewayContext): Boolean =
+    shouldContainRequestBody(gatewayContext)
+
   def parse(gatewayContext: GatewayContext): Unit
 
 }
@@ -101,6 +111,12 @@ class DefaultGatewayParser(gatewayParsers: Array[GatewayParser]) extends Abstrac
         case _ => gatewayParsers.exists(_.shouldContainRequestBody(gatewayContext))
       })
 
+  override def shouldContainFullRequestBody(gatewayContext: GatewayContext): Boolean =
+    gatewayContext.getRequest.getRequestURI match {
+      case uri if uri.startsWith(ServerConfiguration.BDP_SERVER_USER_URI.getValue) => true
+      case _ => gatewayParsers.exists(_.shouldContainFullRequestBody(gatewayContext))
+    }
+
   override def parse(gatewayContext: GatewayContext): Unit = {
     val path = gatewayContext.getRequest.getRequestURI
     if (gatewayContext.getGatewayRoute == null) {
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.gateway.parser
+
+/**
+ * Find the values of a json object whose text may be truncated, used to parse the prefix of a
+ * request body without reading the whole body
+ * 在可能被截断的json前缀中查找顶层字段的值
+ */
+object JsonPrefixParser {
+
+  /**
+   * Find the value of a top level field
+   * @param json
+   *   text of a json object, may be truncated
+   * @param key
+   *   field name
+   * @return
+   *   text of the value, None if the field or the end of its value is not in the text
+   */
+  def findTopLevelValue(json: String, key: String): Option[String] = {
+    if (json == null) return None
+    var depth = 0
+    var keyMatched = false
+    var i = 0
+    while (i < json.length) {
+      json.charAt(i) match {
+        case '"' =>
+          val end = skipString(json, i)
+          if (end < 0) return None
+          keyMatched = depth == 1 && end - i - 1 == key.length &&
+            json.regionMatches(i + 1, key, 0, key.length)
+          i = end
+        case ':' if keyMatched =>
+          var start = i + 1
+          while (start < json.length && Character.isWhitespace(json.charAt(start))) start += 1
+          val end = skipValue(json, start)
+          return if (end < 0) None else Some(json.substring(start, end + 1))
+        case '{' | '[' =>
+          depth += 1
+        case '}' | ']' =>
+          depth -= 1
+        case ',' =>
+          keyMatched = false
+        case _ =>
+      }
+      i += 1
+    }
+    None
+  }
+
+  /** Index of the closing quote of the string starting at start, -1 if truncated */
+  private def skipString(json: String, start: Int): Int = {
+    var i = start + 1
+    while (i < json.length) {
+      json.charAt(i) match {
+        case '\\' => i += 1
+        case '"' => return i
+        case _ =>
+      }
+      i += 1
+    }
+    -1
+  }
+
+  /** Index of the last char of the value starting at start, -1 if truncated */
+  private def skipValue(json: String, start: Int): Int = {
+    if (start >= json.length) return -1
+    json.charAt(start) match {
+      case '"' => skipString(json, start)
+      case '{' | '[' =>
+        var depth = 0
+        var i = start
+        while (i < json.length) {
+          json.charAt(i) match {
+            case '"' =>
+              i = skipString(json, i)
+              if (i < 0) return -1
+            case '{' | '[' => depth += 1
+            case '}' | ']' =>
+              depth -= 1
+              if (depth == 0) return i
+            case _ =>
+          }
+          i += 1
+        }
+        -1
+      case _ =>
+        // number, boolean or null, complete only if followed by a delimiter
+        var i = start
+        while (i < json.length) {
+          val c = json.charAt(i)
+          if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) return i - 1
+          i += 1
+        }
+        -1
+    }
+  }
+
+}
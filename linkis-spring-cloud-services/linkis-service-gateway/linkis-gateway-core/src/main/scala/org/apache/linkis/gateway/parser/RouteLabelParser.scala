@@ -42,7 +42,16 @@ trait RouteLabelParser {
 class GenericRoueLabelParser extends RouteLabelParser with Logging {
 
   override def parse(gatewayContext: GatewayContext): util.List[RouteLabel] = {
-    val requestBody = Option(gatewayContext.getRequest.getRequestBody)
+    val requestBody = Option(gatewayContext.getRequest.getRequestBody).map { body =>
+      if (gatewayContext.getRequest.isRequestBodyComplete) body
+      else {
+        // only the labels are needed from a prefix of the body
+        JsonPrefixParser
+          .findTopLevelValue(body, TaskConstant.LABELS)
+          .map(labels => s"""{"${TaskConstant.LABELS}":$labels}""")
+          .getOrElse("{}")
+      }
+    }
     requestBody match {
       case Some(body) =>
         val labelBuilderFactory = LabelBuilderFactoryContext.getLabelBuilderFactory
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.gateway.parser
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class JsonPrefixParserTest {
+
+  private val body =
+    """{"executionContent": {"code": "select \"labels\": {} from t", "runType": "sql"},
+      | "params": {"labels": {"a": 1}}, "source": {},
+      | "labels": {"engineType": "spark-2.4.3", "route": "[\"x\", {\"y\"}]"},
+      | "n": 10}""".stripMargin
+
+  @Test
+  def testFindTopLevelValue: Unit = {
+    assertEquals(
+      Some("""{"engineType": "spark-2.4.3", "route": "[\"x\", {\"y\"}]"}"""),
+      JsonPrefixParser.findTopLevelValue(body, "labels")
+    )
+    assertEquals(Some("10"), JsonPrefixParser.findTopLevelValue(body + " ", "n"))
+    assertEquals(Some("{}"), JsonPrefixParser.findTopLevelValue(body, "source"))
+    assertEquals(None, JsonPrefixParser.findTopLevelValue(body, "code"))
+  }
+
+  @Test
+  def testTruncatedValue: Unit = {
+    val labelsIndex = body.lastIndexOf("\"labels\"")
+    assertEquals(None, JsonPrefixParser.findTopLevelValue(body.substring(0, 30), "labels"))
+    assertEquals(
+      None,
+      JsonPrefixParser.findTopLevelValue(body.substring(0, labelsIndex + 20), "labels")
+    )
+    assertEquals(None, JsonPrefixParser.findTopLevelValue(body.substring(0, body.length - 1), "n"))
+    assertEquals(None, JsonPrefixParser.findTopLevelValue(null, "labels"))
+  }
+
+}
@@ -20,10 +20,11 @@ package org.apache.linkis.gateway.ujes.parser
 import org.apache.linkis.common.ServiceInstance
 import org.apache.linkis.gateway.config.GatewayConfiguration
 import org.apache.linkis.gateway.http.GatewayContext
-import org.apache.linkis.gateway.parser.{AbstractGatewayParser, RouteLabelParser}
+import org.apache.linkis.gateway.parser.{AbstractGatewayParser, JsonPrefixParser, RouteLabelParser}
 import org.apache.linkis.gateway.springcloud.SpringCloudGatewayConfiguration._
 import org.apache.linkis.instance.label.service.InsLabelService
 import org.apache.linkis.manager.label.entity.route.RouteLabel
+import org.apache.linkis.protocol.constants.TaskConstant
 
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.stereotype.Component
@@ -49,6 +50,14 @@ class EntranceExecutionGatewayParser extends AbstractGatewayParser {
       case _ => false
     }
 
+  /**
+   * The code of a job can be large, the route labels are all that needed from the body
+   */
+  override def shouldContainFullRequestBody(gatewayContext: GatewayContext): Boolean =
+    shouldContainRequestBody(gatewayContext) && JsonPrefixParser
+      .findTopLevelValue(gatewayContext.getRequest.getRequestBody, TaskConstant.LABELS)
+      .isEmpty
+
   override def parse(gatewayContext: GatewayContext): Unit =
     gatewayContext.getRequest.getRequestURI match {
       case EntranceExecutionGatewayParser.ENTRANCE_EXECUTION_REGEX(version, _) =>
@@ -43,6 +43,9 @@ abstract class AbstractLabelGatewayRouter extends AbstractGatewayRouter with Log
   @Resource
   private var insLabelService: InsLabelService = _
 
+  @Resource
+  private var routeLabelTable: RouteLabelTable = _
+
   /**
    * Add to the last of router chain
    *
@@ -70,7 +73,11 @@ abstract class AbstractLabelGatewayRouter extends AbstractGatewayRouter with Log
     val canSelectInstances = if (null == routeLabels || routeLabels.isEmpty) {
       getDefaultInstances(applicationName)
     } else {
-      val candidateServices = insLabelService.searchInstancesByLabels(routeLabels)
+      val candidateServices = if (isRouteLabelTableLoaded) {
+        routeLabelTable.searchInstances(routeLabels)
+      } else {
+        insLabelService.searchInstancesByLabels(routeLabels)
+      }
       if (null == candidateServices || candidateServices.isEmpty) {
         throw new GatewayErrorException(
           CANNOT_ROETE_SERVICE.getErrorCode,
@@ -102,12 +109,23 @@ abstract class AbstractLabelGatewayRouter extends AbstractGatewayRouter with Log
   protected def getDefaultInstances(applicationName: String): util.List[ServiceInstance] = {
     val instances = ServiceInstanceUtils.getRPCServerLoader.getServiceInstances(applicationName)
     val allInstances = new util.ArrayList[ServiceInstance]()
-    if (null != instances && instances.nonEmpty) allInstances.addAll(instances.toList.asJava)
-    val labelInstances = insLabelService.getInstancesByNames(applicationName)
-    allInstances.removeAll(labelInstances)
+    if (isRouteLabelTableLoaded) {
+      val labelInstances = routeLabelTable.getInstances(applicationName)
+      if (null != instances) {
+        instances.filterNot(labelInstances.contains).foreach(allInstances.add(_))
+      }
+    } else {
+      if (null != instances && instances.nonEmpty) allInstances.addAll(instances.toList.asJava)
+      val labelInstances = insLabelService.getInstancesByNames(applicationName)
+      allInstances.removeAll(labelInstances)
+    }
     allInstances
   }
 
+  private def isRouteLabelTableLoaded: Boolean =
+    GatewayConfiguration.ROUTE_LABEL_TABLE_ENABLED.getValue && null != routeLabelTable &&
+      routeLabelTable.isLoaded
+
   /**
    * Parse to route labels
    * @param gatewayContext
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.gateway.ujes.route
+
+import org.apache.linkis.common.ServiceInstance
+import org.apache.linkis.common.utils.{Logging, Utils}
+import org.apache.linkis.gateway.config.GatewayConfiguration
+import org.apache.linkis.instance.label.dao.{InsLabelRelationDao, InstanceInfoDao}
+import org.apache.linkis.instance.label.entity.InsPersistenceLabel
+import org.apache.linkis.manager.label.entity.Label
+import org.apache.linkis.protocol.BroadcastProtocol
+import org.apache.linkis.protocol.label.InsLabelChangedBroadcast
+import org.apache.linkis.rpc.{BroadcastListener, Sender}
+
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.stereotype.Component
+
+import javax.annotation.{PostConstruct, PreDestroy}
+
+import java.util
+import java.util.concurrent.{ScheduledFuture, TimeUnit}
+
+import scala.collection.JavaConverters._
+
+/**
+ * The label -> instances relations of linkis-instance-label kept in the memory of the gateway, so
+ * that routing needs no remote call. Every change replaces the immutable snapshot of the table: an
+ * instance is refreshed when linkis-instance-label broadcasts that its labels have changed, and the
+ * whole table is reloaded periodically in case a broadcast is lost.
+ * 网关内存中的标签路由表，由标签变更广播增量刷新，并定期全量同步
+ */
+@Component
+class RouteLabelTable extends BroadcastListener with Logging {
+
+  @Autowired
+  private var insLabelRelationDao: InsLabelRelationDao = _
+
+  @Autowired
+  private var instanceInfoDao: InstanceInfoDao = _
+
+  @volatile private var snapshot: RouteLabelSnapshot = RouteLabelSnapshot.EMPTY
+
+  /** Instances refreshed while the whole table is being reloaded, guarded by this */
+  private var refreshedInstances: util.Set[ServiceInstance] = _
+
+  private var syncFuture: ScheduledFuture[_] = _
+
+  @PostConstruct
+  def init(): Unit = if (GatewayConfiguration.ROUTE_LABEL_TABLE_ENABLED.getValue) {
+    val interval = GatewayConfiguration.ROUTE_LABEL_TABLE_SYNC_INTERVAL.getValue.toLong
+    logger.info(s"Start to sync the route label table every ${interval}ms")
+    syncFuture = Utils.defaultScheduler.scheduleWithFixedDelay(
+      new Runnable {
+        override def run(): Unit = Utils.tryAndWarn(reload())
+      },
+      0,
+      interval,
+      TimeUnit.MILLISECONDS
+    )
+  }
+
+  @PreDestroy
+  def close(): Unit = if (null != syncFuture) syncFuture.cancel(true)
+
+  /**
+   * The table is used only after the first reload, until then routing goes to the label service
+   */
+  def isLoaded: Boolean = snapshot.version > 0
+
+  def getVersion: Long = snapshot.version
+
+  /**
+   * Instances related with any of the labels
+   * @param labels
+   *   route labels
+   * @return
+   */
+  def searchInstances(labels: util.List[_ <: Label[_]]): util.List[ServiceInstance] = {
+    val current = snapshot
+    val instances = new util.LinkedHashSet[ServiceInstance]()
+    labels.asScala.foreach { label =>
+      current.labelInstances
+        .get(RouteLabelSnapshot.toKey(label.getLabelKey, label.getStringValue))
+        .foreach(_.foreach(instances.add))
+    }
+    new util.ArrayList[ServiceInstance](instances)
+  }
+
+  /**
+   * Instances of the application recorded by linkis-instance-label
+   * @param applicationName
+   *   application name
+   * @return
+   */
+  def getInstances(applicationName: String): Set[ServiceInstance] =
+    snapshot.appInstances.getOrElse(applicationName, Set.empty)
+
+  override def onBroadcastEvent(protocol: BroadcastProtocol, sender: Sender): Unit =
+    protocol match {
+      case changed: InsLabelChangedBroadcast =>
+        logger.info(s"Labels of ${changed.serviceInstance} changed, refresh it in route table")
+        refresh(changed.serviceInstance)
+      case _ =>
+    }
+
+  /**
+   * Reload the labels of an instance, the change is kept to be refreshed again if the whole table
+   * is being reloaded
+   * @param serviceInstance
+   *   service instance
+   */
+  def refresh(serviceInstance: ServiceInstance): Unit = synchronized {
+    val instance = ServiceInstance(serviceInstance.getApplicationName, serviceInstance.getInstance)
+    if (null != refreshedInstances) refreshedInstances.add(instance)
+    if (isLoaded) refreshLoaded(instance)
+  }
+
+  private def refreshLoaded(instance: ServiceInstance): Unit = {
+    val labels = if (null != instanceInfoDao.getInstanceInfoByServiceInstance(instance)) {
+      val insLabels = insLabelRelationDao.searchLabelsByInstance(instance.getInstance)
+      Some(RouteLabelSnapshot.toKeys(insLabels))
+    } else None
+    snapshot = snapshot.update(snapshot.version + 1, instance, labels)
+  }
+
+  /**
+   * Load the whole table, the instances refreshed during loading are refreshed again on the loaded
+   * table so that no change is lost
+   */
+  def reload(): Unit = {
+    synchronized {
+      refreshedInstances = new util.HashSet[ServiceInstance]()
+    }
+    Utils.tryFinally {
+      val instances = insLabelRelationDao.listAllInstanceWithLabel()
+      synchronized {
+        var loaded = RouteLabelSnapshot.EMPTY
+        instances.asScala.foreach { instanceInfo =>
+          val instance =
+            ServiceInstance(instanceInfo.getApplicationName, instanceInfo.getInstance)
+          val labels = RouteLabelSnapshot.toKeys(instanceInfo.getLabels)
+          loaded = loaded.update(0, instance, Some(labels))
+        }
+        val changed = refreshedInstances
+        refreshedInstances = null
+        val firstLoad = !isLoaded
+        snapshot = loaded.withVersion(snapshot.version + 1)
+        changed.asScala.foreach(refreshLoaded)
+        val msg = s"Reloaded route label table(version ${snapshot.version}) with " +
+          s"${instances.size()} instances, ${changed.size()} of them are refreshed again."
+        if (firstLoad) logger.info(msg) else logger.debug(msg)
+      }
+    } {
+      synchronized {
+        refreshedInstances = null
+      }
+    }
+  }
+
+}
+
+/**
+ * Immutable snapshot of the route label table
+ * @param version
+ *   increases on every change, 0 means not loaded
+ * @param instanceLabels
+ *   instance -> labels
+ * @param labelInstances
+ *   label -> instances
+ * @param appInstances
+ *   application name -> instances
+ */
+private[route] class RouteLabelSnapshot(
+    val version: Long,
+    val instanceLabels: Map[ServiceInstance, Set[(String, String)]],
+    val labelInstances: Map[(String, String), Vector[ServiceInstance]],
+    val appInstances: Map[String, Set[ServiceInstance]]
+) {
+
+  def withVersion(version: Long): RouteLabelSnapshot =
+    new RouteLabelSnapshot(version, instanceLabels, labelInstances, appInstances)
+
+  /**
+   * Replace the labels of an instance
+   * @param version
+   *   version of the new snapshot
+   * @param instance
+   *   service instance
+   * @param labels
+   *   labels of the instance, None if the instance has been removed
+   * @return
+   *   the new snapshot
+   */
+  def update(
+      version: Long,
+      instance: ServiceInstance,
+      labels: Option[Set[(String, String)]]
+  ): RouteLabelSnapshot = {
+    val oldLabels = instanceLabels.getOrElse(instance, Set.empty[(String, String)])
+    val newLabels = labels.getOrElse(Set.empty[(String, String)])
+    var newLabelInstances = labelInstances
+    (oldLabels -- newLabels).foreach { key =>
+      val left = newLabelInstances.getOrElse(key, Vector.empty).filterNot(_ == instance)
+      newLabelInstances =
+        if (left.isEmpty) newLabelInstances - key else newLabelInstances.updated(key, left)
+    }
+    (newLabels -- oldLabels).foreach { key =>
+      newLabelInstances =
+        newLabelInstances.updated(key, newLabelInstances.getOrElse(key, Vector.empty) :+ instance)
+    }
+    val applicationName = instance.getApplicationName
+    val appInstanceSet = appInstances.getOrElse(applicationName, Set.empty[ServiceInstance])
+    val (newInstanceLabels, newAppInstances) = labels match {
+      case Some(_) =>
+        (
+          instanceLabels.updated(instance, newLabels),
+          appInstances.updated(applicationName, appInstanceSet + instance)
+        )
+      case None =>
+        val left = appInstanceSet - instance
+        (
+          instanceLabels - instance,
+          if (left.isEmpty) appInstances - applicationName
+          else appInstances.updated(applicationName, left)
+        )
+    }
+    new RouteLabelSnapshot(version, newInstanceLabels, newLabelInstances, newAppInstances)
+  }
+
+}
+
+private[route] object RouteLabelSnapshot {
+
+  val EMPTY = new RouteLabelSnapshot(0, Map.empty, Map.empty, Map.empty)
+
+  def toKey(labelKey: String, stringValue: String): (String, String) = (labelKey, stringValue)
+
+  def toKeys(labels: util.List[InsPersistenceLabel]): Set[(String, String)] =
+    if (null == labels) Set.empty
+    else labels.asScala.map(label => toKey(label.getLabelKey, label.getStringValue)).toSet
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.gateway.ujes.route
+
+import org.apache.linkis.common.ServiceInstance
+import org.apache.linkis.instance.label.dao.{InsLabelRelationDao, InstanceInfoDao}
+import org.apache.linkis.instance.label.entity.{InsPersistenceLabel, InstanceInfo}
+import org.apache.linkis.protocol.label.InsLabelChangedBroadcast
+
+import org.springframework.test.util.ReflectionTestUtils
+
+import java.util
+
+import scala.collection.JavaConverters._
+
+import org.junit.jupiter.api.{Assertions, BeforeEach, Test}
+import org.mockito.{ArgumentMatchers, Mockito}
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+
+class RouteLabelTableTest {
+
+  /** The instance -> labels relations stored by linkis-instance-label */
+  private val relations = new util.LinkedHashMap[ServiceInstance, Seq[(String, String)]]()
+
+  /** Called while the whole table is being loaded */
+  private var onListAll: () => Unit = () => {}
+
+  private var table: RouteLabelTable = _
+
+  private val entrance1 = ServiceInstance("linkis-cg-entrance", "host1:9104")
+  private val entrance2 = ServiceInstance("linkis-cg-entrance", "host2:9104")
+  private val entrance3 = ServiceInstance("linkis-cg-entrance", "host3:9104")
+  private val manager1 = ServiceInstance("linkis-cg-linkismanager", "host1:9101")
+
+  @BeforeEach
+  def before(): Unit = {
+    relations.clear()
+    onListAll = () => {}
+    val insLabelRelationDao = Mockito.mock(classOf[InsLabelRelationDao])
+    val instanceInfoDao = Mockito.mock(classOf[InstanceInfoDao])
+    Mockito
+      .when(insLabelRelationDao.listAllInstanceWithLabel())
+      .thenAnswer(new Answer[util.List[InstanceInfo]] {
+        override def answer(invocation: InvocationOnMock): util.List[InstanceInfo] = {
+          val instances = relations.asScala.collect {
+            case (instance, labels) if labels.nonEmpty => toInstanceInfo(instance, labels)
+          }
+          onListAll()
+          new util.ArrayList[InstanceInfo](instances.asJavaCollection)
+        }
+      })
+    Mockito
+      .when(insLabelRelationDao.searchLabelsByInstance(ArgumentMatchers.anyString()))
+      .thenAnswer(new Answer[util.List[InsPersistenceLabel]] {
+        override def answer(invocation: InvocationOnMock): util.List[InsPersistenceLabel] = {
+          val instance = invocation.getArgument[String](0)
+          val labels = relations.asScala.collect {
+            case (serviceInstance, instanceLabels) if serviceInstance.getInstance == instance =>
+              instanceLabels
+          }.flatten
+          new util.ArrayList[InsPersistenceLabel](labels.map(toLabel).asJavaCollection)
+        }
+      })
+    val anyInstance = ArgumentMatchers.any[ServiceInstance]()
+    Mockito
+      .when(instanceInfoDao.getInstanceInfoByServiceInstance(anyInstance))
+      .thenAnswer(new Answer[InstanceInfo] {
+        override def answer(invocation: InvocationOnMock): InstanceInfo = {
+          val instance = invocation.getArgument[ServiceInstance](0)
+          if (relations.containsKey(instance)) new InstanceInfo(instance) else null
+        }
+      })
+    table = new RouteLabelTable
+    ReflectionTestUtils.setField(table, "insLabelRelationDao", insLabelRelationDao)
+    ReflectionTestUtils.setField(table, "instanceInfoDao", instanceInfoDao)
+  }
+
+  private def toLabel(label: (String, String)): InsPersistenceLabel = {
+    val insLabel = new InsPersistenceLabel
+    insLabel.setLabelKey(label._1)
+    insLabel.setStringValue(label._2)
+    insLabel
+  }
+
+  private def toInstanceInfo(
+      instance: ServiceInstance,
+      labels: Seq[(String, String)]
+  ): InstanceInfo = {
+    val instanceInfo = new InstanceInfo(instance)
+    instanceInfo.setLabels(new util.ArrayList[InsPersistenceLabel](labels.map(toLabel).asJava))
+    instanceInfo
+  }
+
+  private def route(label: String): (String, String) = ("route", label)
+
+  private def search(labels: (String, String)*): Set[ServiceInstance] =
+    table.searchInstances(labels.map(toLabel).asJava).asScala.toSet
+
+  /**
+   * The same semantics as InsLabelRelationDao.searchInsDirectByLabels which the label service
+   * routes with: the instances related with any of the labels
+   */
+  private def searchInsDirectByLabels(labels: (String, String)*): Set[ServiceInstance] =
+    relations.asScala.collect {
+      case (instance, instanceLabels) if instanceLabels.exists(labels.contains) => instance
+    }.toSet
+
+  private def changed(instance: ServiceInstance): Unit =
+    table.onBroadcastEvent(InsLabelChangedBroadcast(instance), null)
+
+  @Test
+  def testNotLoadedBeforeReload(): Unit = {
+    relations.put(entrance1, Seq(route("a")))
+    changed(entrance1)
+    Assertions.assertFalse(table.isLoaded)
+    Assertions.assertTrue(search(route("a")).isEmpty)
+    table.reload()
+    Assertions.assertTrue(table.isLoaded)
+    Assertions.assertEquals(Set(entrance1), search(route("a")))
+  }
+
+  @Test
+  def testBroadcastAddRemoveReplace(): Unit = {
+    relations.put(entrance1, Seq(route("a")))
+    table.reload()
+    val loadedVersion = table.getVersion
+    val applicationName = entrance1.getApplicationName
+
+    // add
+    relations.put(entrance2, Seq(route("a"), route("b")))
+    changed(entrance2)
+    Assertions.assertEquals(Set(entrance1, entrance2), search(route("a")))
+    Assertions.assertEquals(Set(entrance2), search(route("b")))
+    Assertions.assertEquals(Set(entrance1, entrance2), table.getInstances(applicationName))
+
+    // replace
+    relations.put(entrance2, Seq(route("c")))
+    changed(entrance2)
+    Assertions.assertEquals(Set(entrance1), search(route("a")))
+    Assertions.assertTrue(search(route("b")).isEmpty)
+    Assertions.assertEquals(Set(entrance2), search(route("c")))
+
+    // remove the labels, the instance is still registered
+    relations.put(entrance2, Seq.empty)
+    changed(entrance2)
+    Assertions.assertTrue(search(route("c")).isEmpty)
+    Assertions.assertEquals(Set(entrance1, entrance2), table.getInstances(applicationName))
+
+    // remove the instance
+    relations.remove(entrance2)
+    changed(entrance2)
+    relations.remove(entrance1)
+    changed(entrance1)
+    Assertions.assertTrue(search(route("a")).isEmpty)
+    Assertions.assertTrue(table.getInstances(applicationName).isEmpty)
+
+    Assertions.assertEquals(loadedVersion + 5, table.getVersion)
+  }
+
+  @Test
+  def testReloadReconcilesLostBroadcasts(): Unit = {
+    relations.put(entrance1, Seq(route("a")))
+    relations.put(entrance2, Seq(route("b")))
+    table.reload()
+    // changes of which the broadcasts are lost
+    relations.remove(entrance1)
+    relations.put(entrance2, Seq(route("a")))
+    relations.put(manager1, Seq(route("b")))
+    Assertions.assertEquals(Set(entrance1), search(route("a")))
+    table.reload()
+    Assertions.assertEquals(searchInsDirectByLabels(route("a")), search(route("a")))
+    Assertions.assertEquals(searchInsDirectByLabels(route("b")), search(route("b")))
+    Assertions.assertEquals(Set(entrance2), table.getInstances(entrance1.getApplicationName))
+    Assertions.assertEquals(Set(manager1), table.getInstances(manager1.getApplicationName))
+  }
+
+  @Test
+  def testBroadcastDuringReloadIsNotLost(): Unit = {
+    relations.put(entrance1, Seq(route("a")))
+    table.reload()
+    // the instance changes after the relations are listed but before the loaded table is used
+    onListAll = () => {
+      relations.put(entrance2, Seq(route("a")))
+      changed(entrance2)
+    }
+    table.reload()
+    Assertions.assertEquals(Set(entrance1, entrance2), search(route("a")))
+  }
+
+  @Test
+  def testAnyLabelParity(): Unit = {
+    relations.put(entrance1, Seq(route("a"), ("userCreator", "hadoop-IDE")))
+    relations.put(entrance2, Seq(route("b")))
+    relations.put(entrance3, Seq(route("a"), route("b")))
+    relations.put(manager1, Seq(("userCreator", "hadoop-IDE")))
+    table.reload()
+    val queries = Seq(
+      Seq(route("a")),
+      Seq(route("b")),
+      Seq(route("a"), route("b")),
+      Seq(route("c")),
+      Seq(route("c"), ("userCreator", "hadoop-IDE")),
+      // same key with another value
+      Seq(("route", "A")),
+      Seq.empty
+    )
+    queries.foreach { labels =>
+      Assertions.assertEquals(searchInsDirectByLabels(labels: _*), search(labels: _*), s"$labels")
+    }
+    // an instance matching several labels is returned once
+    val instances = table.searchInstances(Seq(route("a"), route("b")).map(toLabel).asJava)
+    Assertions.assertEquals(1, instances.asScala.count(_ == entrance3))
+  }
+
+}
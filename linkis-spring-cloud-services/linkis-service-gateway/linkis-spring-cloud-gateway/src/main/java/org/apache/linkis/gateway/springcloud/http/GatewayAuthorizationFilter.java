@@ -19,6 +19,7 @@ package org.apache.linkis.gateway.springcloud.http;
 
 import org.apache.linkis.common.ServiceInstance;
 import org.apache.linkis.common.conf.CommonVars;
+import org.apache.linkis.gateway.config.GatewayConfiguration;
 import org.apache.linkis.gateway.exception.GatewayWarnException;
 import org.apache.linkis.gateway.http.BaseGatewayContext;
 import org.apache.linkis.gateway.parser.GatewayParser;
@@ -42,6 +43,7 @@ import org.springframework.core.Ordered;
 import org.springframework.core.codec.AbstractDataBufferDecoder;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.codec.DecoderHttpMessageReader;
 import org.springframework.http.server.reactive.AbstractServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -49,8 +51,12 @@ import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.server.ServerWebExchange;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +75,12 @@ public class GatewayAuthorizationFilter implements GlobalFilter, Ordered {
   private final Integer MAX_BUFFER_SIZE =
       CommonVars.apply("wds.linkis.gateway.max.buffer.size", 128 * 1024 * 1024).getValue();
 
+  private final boolean REQUEST_BODY_STREAMING_ENABLED =
+      (Boolean) GatewayConfiguration.REQUEST_BODY_STREAMING_ENABLED().getValue();
+
+  private final long REQUEST_BODY_PREFIX_SIZE =
+      GatewayConfiguration.REQUEST_BODY_PREFIX_SIZE().getValue().toLong();
+
   private List<LinkisPreFilter> linkisPreFilters = LinkisPreFilter$.MODULE$.getLinkisPreFilters();
 
   public GatewayAuthorizationFilter(
@@ -240,12 +252,106 @@ public class GatewayAuthorizationFilter implements GlobalFilter, Ordered {
     return chain.filter(exchange.mutate().request(builder.build()).build());
   }
 
+  /**
+   * Parse the request with a prefix of the body only, the buffers of the body are forwarded to the
+   * service as they are received. The whole body is joined only if the parsers cannot work with the
+   * prefix(只读取请求体前缀用于解析，请求体按原缓冲区转发)
+   */
+  private Mono<Void> streamingDeal(
+      ServerWebExchange exchange, GatewayFilterChain chain, BaseGatewayContext gatewayContext) {
+    ServerHttpRequest request = exchange.getRequest();
+    SpringCloudGatewayHttpRequest gatewayRequest =
+        (SpringCloudGatewayHttpRequest) gatewayContext.getRequest();
+    AtomicLong readBytes = new AtomicLong(0);
+    return request
+        .getBody()
+        // the buffers of the prefix are emitted as the first list, the others one by one
+        .bufferUntil(
+            buffer ->
+                readBytes.addAndGet(buffer.readableByteCount()) >= REQUEST_BODY_PREFIX_SIZE)
+        .switchOnFirst(
+            (signal, buffers) -> {
+              if (signal.isOnError()) {
+                return Mono.<Void>error(signal.getThrowable());
+              }
+              List<DataBuffer> prefix = signal.hasValue() ? signal.get() : Collections.emptyList();
+              long prefixBytes = prefix.stream().mapToLong(DataBuffer::readableByteCount).sum();
+              boolean complete =
+                  prefixBytes < REQUEST_BODY_PREFIX_SIZE
+                      || prefixBytes == request.getHeaders().getContentLength();
+              gatewayRequest.setRequestBody(
+                  toString(prefix, complete ? prefixBytes : REQUEST_BODY_PREFIX_SIZE), complete);
+              Flux<DataBuffer> body = buffers.flatMapIterable(list -> list);
+              if (complete || !parser.shouldContainFullRequestBody(gatewayContext)) {
+                return dealWithBody(exchange, chain, gatewayContext, body, prefix);
+              }
+              logger.info(
+                  "Read the whole request body of {} to parse it",
+                  gatewayRequest.getRequestURI());
+              return DataBufferUtils.join(body, MAX_BUFFER_SIZE)
+                  .flatMap(
+                      joined -> {
+                        gatewayRequest.setRequestBody(joined.toString(StandardCharsets.UTF_8));
+                        return dealWithBody(
+                            exchange,
+                            chain,
+                            gatewayContext,
+                            Flux.just(joined),
+                            Collections.singletonList(joined));
+                      });
+            })
+        .then();
+  }
+
+  /** The read buffers are released if the body is not forwarded */
+  private Mono<Void> dealWithBody(
+      ServerWebExchange exchange,
+      GatewayFilterChain chain,
+      BaseGatewayContext gatewayContext,
+      Flux<DataBuffer> body,
+      List<DataBuffer> readBuffers) {
+    AtomicBoolean forwarded = new AtomicBoolean(false);
+    ServerHttpRequestDecorator decorator =
+        new ServerHttpRequestDecorator(exchange.getRequest()) {
+          @Override
+          public Flux<DataBuffer> getBody() {
+            return body.doOnSubscribe(subscription -> forwarded.set(true));
+          }
+        };
+    return gatewayDeal(exchange.mutate().request(decorator).build(), chain, gatewayContext)
+        .doFinally(
+            signalType -> {
+              if (!forwarded.get()) {
+                readBuffers.forEach(DataBufferUtils::release);
+              }
+            });
+  }
+
+  private static String toString(List<DataBuffer> buffers, long maxBytes) {
+    long totalBytes = buffers.stream().mapToLong(DataBuffer::readableByteCount).sum();
+    byte[] bytes = new byte[(int) Math.min(totalBytes, maxBytes)];
+    int offset = 0;
+    for (DataBuffer buffer : buffers) {
+      if (offset >= bytes.length) {
+        break;
+      }
+      ByteBuffer byteBuffer = buffer.asByteBuffer();
+      int length = Math.min(byteBuffer.remaining(), bytes.length - offset);
+      byteBuffer.get(bytes, offset, length);
+      offset += length;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
   @Override
   public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
     AbstractServerHttpRequest request = (AbstractServerHttpRequest) exchange.getRequest();
     Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
     BaseGatewayContext gatewayContext = getBaseGatewayContext(exchange, route);
     if (!gatewayContext.isWebSocketRequest() && parser.shouldContainRequestBody(gatewayContext)) {
+      if (REQUEST_BODY_STREAMING_ENABLED) {
+        return streamingDeal(exchange, chain, gatewayContext);
+      }
       DefaultServerRequest defaultServerRequest = new DefaultServerRequest(exchange);
       defaultServerRequest.messageReaders().stream()
           .filter(reader -> reader instanceof DecoderHttpMessageReader)
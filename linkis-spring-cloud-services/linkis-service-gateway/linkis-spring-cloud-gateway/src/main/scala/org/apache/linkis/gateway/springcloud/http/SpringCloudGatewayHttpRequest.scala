@@ -72,6 +72,7 @@ class SpringCloudGatewayHttpRequest(request: AbstractServerHttpRequest) extends
   private val addHeaders = new JMap[String, Array[String]]
 
   private var requestBody: String = _
+  private var requestBodyComplete = true
   private var requestURI: String = _
   private var requestAutowired = false
 
@@ -138,12 +139,23 @@ class SpringCloudGatewayHttpRequest(request: AbstractServerHttpRequest) extends
 
   override def getMethod: String = request.getMethodValue
 
-  def setRequestBody(requestBody: String): Unit = {
+  def setRequestBody(requestBody: String): Unit = setRequestBody(requestBody, true)
+
+  /**
+   * @param requestBody
+   *   the body, or a prefix of it
+   * @param complete
+   *   false if requestBody is only a prefix of the body
+   */
+  def setRequestBody(requestBody: String, complete: Boolean): Unit = {
     this.requestBody = requestBody
+    requestBodyComplete = complete
     requestAutowired = true
   }
 
   override def getRequestBody: String = requestBody
 
+  override def isRequestBodyComplete: Boolean = requestBodyComplete
+
   def isRequestBodyAutowired: Boolean = requestAutowired
 }
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.linkis.gateway.springcloud.http;
+
+import org.apache.linkis.common.ServiceInstance;
+import org.apache.linkis.gateway.config.GatewayConfiguration;
+import org.apache.linkis.gateway.http.GatewayContext;
+import org.apache.linkis.gateway.http.GatewayRoute;
+import org.apache.linkis.gateway.parser.GatewayParser;
+import org.apache.linkis.gateway.route.GatewayRouter;
+import org.apache.linkis.gateway.security.SecurityFilter;
+
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+class GatewayAuthorizationFilterTest {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(GatewayAuthorizationFilterTest.class);
+
+  private static final int PREFIX_SIZE = 1024;
+
+  /**
+   * The body is 8 chunks of 300 bytes, the prefix is read from the first 4 chunks
+   * 请求体分8块，前缀在前4块内
+   */
+  private static final int CHUNK_SIZE = 300;
+
+  private static final int CHUNK_NUM = 8;
+
+  private static MockedStatic<SecurityFilter> securityFilter;
+
+  private final NettyDataBufferFactory bufferFactory =
+      new NettyDataBufferFactory(UnpooledByteBufAllocator.DEFAULT);
+
+  private final List<NettyDataBuffer> chunks = new ArrayList<>();
+
+  private final AtomicReference<String> parsedBody = new AtomicReference<>();
+
+  private final AtomicBoolean parsedBodyComplete = new AtomicBoolean();
+
+  private final AtomicReference<String> forwardedBody = new AtomicReference<>();
+
+  private String body;
+
+  private GatewayParser parser;
+
+  private GatewayRouter router;
+
+  private GatewayAuthorizationFilter filter;
+
+  @BeforeAll
+  static void init() {
+    System.setProperty(GatewayConfiguration.REQUEST_BODY_STREAMING_ENABLED().key(), "true");
+    System.setProperty(GatewayConfiguration.REQUEST_BODY_PREFIX_SIZE().key(), "1k");
+    securityFilter = Mockito.mockStatic(SecurityFilter.class);
+  }
+
+  @AfterAll
+  static void close() {
+    securityFilter.close();
+    System.clearProperty(GatewayConfiguration.REQUEST_BODY_STREAMING_ENABLED().key());
+    System.clearProperty(GatewayConfiguration.REQUEST_BODY_PREFIX_SIZE().key());
+  }
+
+  @BeforeEach
+  void before() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < CHUNK_NUM; i++) {
+      char[] chunk = new char[CHUNK_SIZE];
+      Arrays.fill(chunk, (char) ('a' + i));
+      builder.append(chunk);
+      chunks.add(bufferFactory.wrap(new String(chunk).getBytes(StandardCharsets.UTF_8)));
+    }
+    body = builder.toString();
+
+    ServiceInstance serviceInstance = ServiceInstance.apply("linkis-cg-entrance", "");
+    parser = Mockito.mock(GatewayParser.class);
+    Mockito.when(parser.shouldContainRequestBody(ArgumentMatchers.any())).thenReturn(true);
+    Mockito.doAnswer(
+            invocation -> {
+              GatewayContext gatewayContext = invocation.getArgument(0);
+              parsedBody.set(gatewayContext.getRequest().getRequestBody());
+              parsedBodyComplete.set(gatewayContext.getRequest().isRequestBodyComplete());
+              GatewayRoute gatewayRoute = new GatewayRoute();
+              gatewayRoute.setRequestURI(gatewayContext.getRequest().getRequestURI());
+              gatewayRoute.setServiceInstance(serviceInstance);
+              gatewayContext.setGatewayRoute(gatewayRoute);
+              return null;
+            })
+        .when(parser)
+        .parse(ArgumentMatchers.any());
+    router = Mockito.mock(GatewayRouter.class);
+    Mockito.when(router.route(ArgumentMatchers.any())).thenReturn(serviceInstance);
+    filter = new GatewayAuthorizationFilter(parser, router, new GatewayProperties());
+    securityFilter.when(() -> SecurityFilter.doFilter(ArgumentMatchers.any())).thenReturn(true);
+  }
+
+  @AfterEach
+  void after() {
+    chunks.stream().filter(NettyDataBuffer::isAllocated).forEach(DataBufferUtils::release);
+    securityFilter.reset();
+  }
+
+  private ServerWebExchange createExchange() {
+    return createExchange(chunks);
+  }
+
+  private ServerWebExchange createExchange(List<NettyDataBuffer> chunks) {
+    MockServerHttpRequest request =
+        MockServerHttpRequest.post("/api/rest_j/v1/entrance/submit")
+            .body(Flux.fromIterable(chunks));
+    ServerWebExchange exchange = MockServerWebExchange.from(request);
+    Route route =
+        Route.async()
+            .id("dws")
+            .uri("http://127.0.0.1:9001")
+            .predicate(serverWebExchange -> true)
+            .build();
+    exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+    return exchange;
+  }
+
+  /**
+   * The chain reads the forwarded body as the service would
+   * 模拟服务读取转发的请求体
+   */
+  private GatewayFilterChain createChain() {
+    return exchange ->
+        DataBufferUtils.join(exchange.getRequest().getBody())
+            .doOnNext(
+                joined -> {
+                  forwardedBody.set(joined.toString(StandardCharsets.UTF_8));
+                  DataBufferUtils.release(joined);
+                })
+            .then();
+  }
+
+  @Test
+  void testParsePrefixAndForwardBody() {
+    filter.filter(createExchange(), createChain()).block();
+    Assertions.assertEquals(body.substring(0, PREFIX_SIZE), parsedBody.get());
+    Assertions.assertFalse(parsedBodyComplete.get());
+    Assertions.assertEquals(body, forwardedBody.get());
+  }
+
+  @Test
+  void testJoinFullBody() {
+    Mockito.when(parser.shouldContainFullRequestBody(ArgumentMatchers.any())).thenReturn(true);
+    filter.filter(createExchange(), createChain()).block();
+    Assertions.assertEquals(body, parsedBody.get());
+    Assertions.assertTrue(parsedBodyComplete.get());
+    Assertions.assertEquals(body, forwardedBody.get());
+  }
+
+  @Test
+  void testReleasePrefixWhenRejected() {
+    securityFilter
+        .when(() -> SecurityFilter.doFilter(ArgumentMatchers.any()))
+        .thenAnswer(
+            invocation -> {
+              GatewayContext gatewayContext = invocation.getArgument(0);
+              gatewayContext.getResponse().write("rejected");
+              gatewayContext.getResponse().sendResponse();
+              return false;
+            });
+    ServerWebExchange exchange = createExchange();
+    filter.filter(exchange, createChain()).block();
+    Assertions.assertNull(parsedBody.get());
+    Assertions.assertNull(forwardedBody.get());
+    // the buffers read for the prefix are released, the others were never read
+    for (int i = 0; i < CHUNK_NUM; i++) {
+      Assertions.assertEquals(
+          i * CHUNK_SIZE >= PREFIX_SIZE, chunks.get(i).isAllocated(), "chunk " + i);
+    }
+  }
+
+  /**
+   * Pushes 16m bodies in 64k chunks through the streaming path and the buffered path(streaming
+   * disabled), and reports the heap bytes allocated per request and the p50/p99 latency of each.
+   * The buffers are heap buffers so that their allocation is counted.
+   */
+  @Test
+  @Tag("benchmark")
+  void benchmark() {
+    int bodySize = 16 * 1024 * 1024;
+    int chunkSize = 64 * 1024;
+    int warmUps = 10;
+    int requests = 100;
+    byte[][] chunkBytes = new byte[bodySize / chunkSize][];
+    for (int i = 0; i < chunkBytes.length; i++) {
+      chunkBytes[i] = new byte[chunkSize];
+      Arrays.fill(chunkBytes[i], (byte) ('a' + i % 26));
+    }
+    NettyDataBufferFactory heapBufferFactory =
+        new NettyDataBufferFactory(new UnpooledByteBufAllocator(false));
+    GatewayFilterChain chain =
+        exchange -> exchange.getRequest().getBody().doOnNext(DataBufferUtils::release).then();
+    System.setProperty(GatewayConfiguration.REQUEST_BODY_STREAMING_ENABLED().key(), "false");
+    GatewayAuthorizationFilter bufferedFilter =
+        new GatewayAuthorizationFilter(parser, router, new GatewayProperties());
+    System.setProperty(GatewayConfiguration.REQUEST_BODY_STREAMING_ENABLED().key(), "true");
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    for (GatewayAuthorizationFilter benchmarkFilter :
+        new GatewayAuthorizationFilter[] {filter, bufferedFilter}) {
+      long[] latencies = new long[requests];
+      long allocatedBytes = 0;
+      for (int i = 0; i < warmUps + requests; i++) {
+        List<NettyDataBuffer> bodyChunks = new ArrayList<>(chunkBytes.length);
+        for (byte[] bytes : chunkBytes) {
+          bodyChunks.add(heapBufferFactory.wrap(bytes));
+        }
+        ServerWebExchange exchange = createExchange(bodyChunks);
+        long allocatedStart = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        benchmarkFilter.filter(exchange, chain).block();
+        long latency = System.nanoTime() - start;
+        if (i >= warmUps) {
+          latencies[i - warmUps] = latency;
+          allocatedBytes += threadMXBean.getThreadAllocatedBytes(threadId) - allocatedStart;
+        }
+        parsedBody.set(null);
+      }
+      Arrays.sort(latencies);
+      logger.info(
+          "path: {}, body: {} bytes, allocated: {} bytes/request, p50: {}ms, p99: {}ms",
+          benchmarkFilter == filter ? "streaming" : "buffered",
+          bodySize,
+          allocatedBytes / requests,
+          latencies[requests / 2] / 1000000.0,
+          latencies[requests * 99 / 100] / 1000000.0);
+    }
+  }
+}